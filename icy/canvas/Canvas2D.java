@@ -12,6 +12,7 @@ import icy.gui.menu.ToolRibbonTask.ToolRibbonTaskListener;
 import icy.gui.util.GuiUtil;
 import icy.gui.viewer.Viewer;
 import icy.image.IcyBufferedImage;
+import icy.image.ImagePyramid;
 import icy.image.ImageUtil;
 import icy.main.Icy;
 import icy.math.Interpolator;
@@ -540,9 +541,11 @@ public class Canvas2D extends IcyCanvas2D implements ToolRibbonTaskListener
             {
                 final Graphics2D g2 = (Graphics2D) g.create();
                 final BufferedImage img = canvasView.imageCache.getImage();
+                final AffineTransform imgTrans = new AffineTransform(trans);
 
-                // draw image
-                g2.drawImage(img, trans, null);
+                // draw image (cached image can be a downscaled level)
+                imgTrans.concatenate(canvasView.imageCache.getLevelTransform());
+                g2.drawImage(img, imgTrans, null);
 
                 // then apply canvas inverse transformation
                 trans.scale(1 / getScaleX(), 1 / getScaleY());
@@ -616,10 +619,25 @@ public class Canvas2D extends IcyCanvas2D implements ToolRibbonTaskListener
              * processor
              */
             private final SingleProcessor processor;
+            /**
+             * displayed image (data pinned in memory)
+             */
+            private IcyBufferedImage displayedImage;
+            /**
+             * pyramid level of displayed image and its scale factor to image resolution
+             */
+            private int level;
+            private double levelScaleX;
+            private double levelScaleY;
             /**
              * internals
              */
             private boolean needRebuild;
+            /**
+             * region to rebuild (null means whole image)
+             */
+            private Rectangle dirtyRegion;
+            private IcyBufferedImage dirtyImage;
 
             public ImageCache()
             {
@@ -628,16 +646,44 @@ public class Canvas2D extends IcyCanvas2D implements ToolRibbonTaskListener
                 processor = new SingleProcessor(true);
                 processor.setDefaultThreadName("Canvas2D renderer");
                 imageCache = null;
+                displayedImage = null;
+                level = 0;
+                levelScaleX = 1d;
+                levelScaleY = 1d;
                 needRebuild = true;
+                dirtyRegion = null;
+                dirtyImage = null;
                 // build cache
                 processor.addTask(this, false);
             }
 
-            public void invalidCache()
+            public synchronized void invalidCache()
             {
+                dirtyRegion = null;
+                dirtyImage = null;
                 needRebuild = true;
             }
 
+            /**
+             * Invalid the specified region of image in cache.
+             */
+            public synchronized void invalidCache(IcyBufferedImage image, Rectangle region)
+            {
+                if ((image == null) || (region == null))
+                    invalidCache();
+                else if (!needRebuild)
+                {
+                    dirtyRegion = new Rectangle(region);
+                    dirtyImage = image;
+                    needRebuild = true;
+                }
+                // partial rebuild pending for same image --> union
+                else if ((dirtyRegion != null) && (dirtyImage == image))
+                    dirtyRegion.add(region);
+                else
+                    invalidCache();
+            }
+
             public boolean isValid()
             {
                 return !needRebuild;
@@ -663,16 +709,91 @@ public class Canvas2D extends IcyCanvas2D implements ToolRibbonTaskListener
                 return imageCache;
             }
 
+            /**
+             * Return the pyramid level of cached image (0 = full resolution)
+             */
+            public int getLevel()
+            {
+                return level;
+            }
+
+            /**
+             * Return the transform to apply to the cached image to get image coordinates
+             */
+            public AffineTransform getLevelTransform()
+            {
+                return AffineTransform.getScaleInstance(levelScaleX, levelScaleY);
+            }
+
+            /**
+             * Set the displayed image.<br>
+             * Displayed image data is pinned so it is not released from memory.
+             */
+            synchronized void setDisplayedImage(IcyBufferedImage image)
+            {
+                if (displayedImage != image)
+                {
+                    if (image != null)
+                        image.pinData();
+                    if (displayedImage != null)
+                        displayedImage.unpinData();
+
+                    displayedImage = image;
+                }
+            }
+
             @Override
             public void run()
             {
-                // important to set it to false at beginning
-                needRebuild = false;
+                final Rectangle region;
+                final IcyBufferedImage regionImage;
+
+                synchronized (this)
+                {
+                    region = dirtyRegion;
+                    regionImage = dirtyImage;
+                    dirtyRegion = null;
+                    dirtyImage = null;
+                    // important to set it to false at beginning
+                    needRebuild = false;
+                }
 
                 final IcyBufferedImage img = Canvas2D.this.getCurrentImage();
+                final int wantedLevel = getWantedLevel();
+                IcyBufferedImage levelImg = img;
+                int lvl = 0;
+
+                // zoomed out --> use the matching pyramid level
+                if ((img != null) && (wantedLevel > 0))
+                {
+                    final Sequence seq = getSequence();
+                    final ImagePyramid pyramid = (seq != null) ? seq.getPyramid(getPositionT(), getPositionZ())
+                            : null;
+
+                    if ((pyramid != null) && (pyramid.getImage() == img))
+                    {
+                        lvl = Math.min(wantedLevel, pyramid.getNumLevel() - 1);
+                        levelImg = pyramid.getLevel(lvl);
+                    }
+                }
 
-                if (img != null)
-                    imageCache = img.getARGBImage(getLut(), imageCache);
+                final boolean sameImage = (levelImg == displayedImage);
+
+                // keep displayed image in memory
+                setDisplayedImage(levelImg);
+
+                if (levelImg != null)
+                {
+                    // only modified region of displayed image need to be rebuilt
+                    if (sameImage && (lvl == 0) && (region != null) && (regionImage == img))
+                        imageCache = levelImg.getARGBImage(getLut(), imageCache, region);
+                    else
+                        imageCache = levelImg.getARGBImage(getLut(), imageCache);
+
+                    level = lvl;
+                    levelScaleX = (double) img.getSizeX() / (double) levelImg.getSizeX();
+                    levelScaleY = (double) img.getSizeY() / (double) levelImg.getSizeY();
+                }
                 else
                     imageCache = null;
 
@@ -823,6 +944,8 @@ public class Canvas2D extends IcyCanvas2D implements ToolRibbonTaskListener
             rotationInfoTimer.removeActionListener(this);
             zoomInfoAlphaMover.shutDown();
             rotationInfoAlphaMover.shutDown();
+            // release displayed image
+            imageCache.setDisplayedImage(null);
         }
 
         /**
@@ -1324,7 +1447,8 @@ public class Canvas2D extends IcyCanvas2D implements ToolRibbonTaskListener
                 }
 
                 g2.transform(getTransform());
-                g2.drawImage(img, null, 0, 0);
+                // cached image can be a downscaled level
+                g2.drawImage(img, imageCache.getLevelTransform(), null);
 
                 if (getDrawLayers())
                 {
@@ -1594,6 +1718,27 @@ public class Canvas2D extends IcyCanvas2D implements ToolRibbonTaskListener
             imageCache.invalidCache();
         }
 
+        /**
+         * Return the image pyramid level matching the current scale
+         */
+        int getWantedLevel()
+        {
+            final double scale = Math.min(getScaleX(), getScaleY());
+
+            if ((scale >= 1d) || (scale <= 0d) || (getPositionC() != -1))
+                return 0;
+
+            return (int) Math.floor(Math.log(1d / scale) / Math.log(2d));
+        }
+
+        /**
+         * Image data changed in the specified region
+         */
+        public void imageChanged(IcyBufferedImage image, Rectangle region)
+        {
+            imageCache.invalidCache(image, region);
+        }
+
         public void layersChanged()
         {
 
@@ -3089,8 +3234,12 @@ public class Canvas2D extends IcyCanvas2D implements ToolRibbonTaskListener
                 // image has changed
                 canvasView.imageChanged();
 
-            case OFFSET_CHANGED:
             case SCALE_CHANGED:
+                // need another pyramid level
+                if (canvasView.imageCache.getLevel() != canvasView.getWantedLevel())
+                    canvasView.imageChanged();
+
+            case OFFSET_CHANGED:
             case ROTATION_CHANGED:
                 // update mouse image position from mouse canvas position
                 setMouseImagePos(canvasToImage(mouseCanvasPos));
@@ -3209,14 +3358,18 @@ public class Canvas2D extends IcyCanvas2D implements ToolRibbonTaskListener
     }
 
     @Override
-    protected void sequenceDataChanged(IcyBufferedImage image, SequenceEventType type)
+    protected void sequenceDataChanged(IcyBufferedImage image, SequenceEventType type, Rectangle region)
     {
-        super.sequenceDataChanged(image, type);
+        super.sequenceDataChanged(image, type, region);
 
         // refresh image
         if (canvasView != null)
         {
-            canvasView.imageChanged();
+            // only a region of an image modified ?
+            if (type == SequenceEventType.CHANGED)
+                canvasView.imageChanged(image, region);
+            else
+                canvasView.imageChanged();
             canvasView.refresh();
         }
     }
@@ -50,6 +50,7 @@ import icy.system.IcyExceptionHandler;
 import icy.util.ClassUtil;
 
 import java.awt.BorderLayout;
+import java.awt.Rectangle;
 import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
 import java.awt.geom.Point2D;
@@ -3500,6 +3501,21 @@ public abstract class IcyCanvas extends JPanel implements KeyListener, ViewerLis
 
     }
 
+    /**
+     * sequence data has changed
+     * 
+     * @param image
+     *        image which has changed (null if global data changed)
+     * @param type
+     *        event type
+     * @param region
+     *        modified region of image (null if the whole image changed)
+     */
+    protected void sequenceDataChanged(IcyBufferedImage image, SequenceEventType type, Rectangle region)
+    {
+        sequenceDataChanged(image, type);
+    }
+
     /**
      * sequence data has changed
      * 
@@ -3723,7 +3739,7 @@ public abstract class IcyCanvas extends JPanel implements KeyListener, ViewerLis
                 break;
 
             case SEQUENCE_DATA:
-                sequenceDataChanged((IcyBufferedImage) event.getSource(), event.getType());
+                sequenceDataChanged((IcyBufferedImage) event.getSource(), event.getType(), event.getRegion());
                 break;
 
             case SEQUENCE_PAINTER:
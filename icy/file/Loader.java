@@ -25,6 +25,8 @@ import icy.gui.menu.ApplicationMenu;
 import icy.image.BandPosition;
 import icy.image.IcyBufferedImage;
 import icy.image.ImagePosition;
+import icy.image.storage.ReaderPlaneStorage;
+import icy.image.storage.ReaderPlaneStorage.SharedReader;
 import icy.main.Icy;
 import icy.preferences.GeneralPreferences;
 import icy.sequence.Sequence;
@@ -88,9 +90,10 @@ public class Loader
         final ImageReader mainReader;
         final boolean display;
         final boolean directory;
+        final boolean virtual;
         IFormatReader lastUsedReader;
 
-        public SequenceLoader(List<File> files, boolean display, boolean directory)
+        public SequenceLoader(List<File> files, boolean display, boolean directory, boolean virtual)
         {
             super();
 
@@ -102,6 +105,7 @@ public class Loader
             lastUsedReader = null;
             this.display = display;
             this.directory = directory;
+            this.virtual = virtual;
         }
 
         @Override
@@ -309,7 +313,10 @@ public class Loader
             final String path = file.getAbsolutePath();
             final IFormatReader reader;
 
-            if ((lastUsedReader != null) && lastUsedReader.isThisType(path, true))
+            // virtual mode : reader stays opened to read images on demand so we need a new one
+            if (virtual)
+                reader = new ImageReader();
+            else if ((lastUsedReader != null) && lastUsedReader.isThisType(path, true))
                 reader = lastUsedReader;
             else
                 reader = mainReader.getReader(path);
@@ -342,6 +349,16 @@ public class Loader
                 sequences.add(seq);
             }
 
+            // shared reader for images read on demand (virtual mode)
+            final SharedReader sharedReader;
+            // first image of current series (virtual mode)
+            IcyBufferedImage firstImage = null;
+
+            if (virtual)
+                sharedReader = new SharedReader(reader);
+            else
+                sharedReader = null;
+
             int progress = 0;
             seq.beginUpdate();
             try
@@ -349,6 +366,7 @@ public class Loader
                 for (int s = 0; s < series; s++)
                 {
                     reader.setSeries(s);
+                    firstImage = null;
 
                     final int frames = reader.getSizeT();
                     final int planes = reader.getSizeZ();
@@ -403,8 +421,23 @@ public class Loader
                             if (z > 0)
                                 position.setZ(position.getZ() + 1);
 
-                            // get composed image
-                            final IcyBufferedImage icyImage = IcyBufferedImage.createFrom(reader, z, t);
+                            final IcyBufferedImage icyImage;
+
+                            // virtual mode : only the first image of the series is read now
+                            if (virtual && (firstImage != null))
+                                icyImage = IcyBufferedImage.createFrom(new ReaderPlaneStorage(sharedReader, z, t),
+                                        reader.getSizeX(), reader.getSizeY(), firstImage.getIcyColorModel());
+                            else
+                            {
+                                // reader can be accessed from images read on demand
+                                synchronized (reader)
+                                {
+                                    // get composed image
+                                    icyImage = IcyBufferedImage.createFrom(reader, z, t);
+                                }
+
+                                firstImage = icyImage;
+                            }
 
                             // image format is not compatible with this sequence ?
                             if (!seq.isCompatible(icyImage))
@@ -434,7 +467,11 @@ public class Loader
             finally
             {
                 seq.endUpdate();
-                reader.close();
+                // virtual mode : reader is closed when images do not need it anymore
+                if (virtual)
+                    sharedReader.release();
+                else
+                    reader.close();
             }
         }
     }
@@ -473,6 +510,23 @@ public class Loader
      * @return Sequence
      */
     public static Sequence loadSequence(File file)
+    {
+        return loadSequence(file, false);
+    }
+
+    /**
+     * Load a sequence from the specified file.<br>
+     * As the function can take sometime you should not call it from the AWT.<br>
+     * In virtual mode only the first image is read, others images are read on demand from the
+     * file (which stays opened) when their data is accessed. This makes loading almost immediate
+     * and memory usage only depends on the number of images actually used.
+     * 
+     * @param file
+     * @param virtual
+     *        virtual mode
+     * @return Sequence
+     */
+    public static Sequence loadSequence(File file, boolean virtual)
     {
         final ApplicationMenu mainMenu = Icy.getMainInterface().getApplicationMenu();
 
@@ -482,7 +536,7 @@ public class Loader
 
         // create sequence loader
         final SequenceLoader seqLoader = new SequenceLoader(CollectionUtil.createArrayList(file), false,
-                file.isDirectory());
+                file.isDirectory(), virtual);
 
         // run sequence loader
         seqLoader.run();
@@ -571,6 +625,7 @@ public class Loader
             public void run()
             {
                 final ApplicationMenu mainMenu = Icy.getMainInterface().getApplicationMenu();
+                final boolean virtual = GeneralPreferences.getVirtualMode();
 
                 // loading
                 if (separate)
@@ -583,7 +638,7 @@ public class Loader
 
                         // create sequence loader
                         final SequenceLoader loadingThread = new SequenceLoader(CollectionUtil.createArrayList(file),
-                                true, directory);
+                                true, directory, virtual);
                         // load file using background processor
                         ThreadUtil.bgRunWait(loadingThread);
                     }
@@ -603,7 +658,7 @@ public class Loader
                         }
 
                         // create and run sequence loader
-                        new SequenceLoader(files, true, directory).run();
+                        new SequenceLoader(files, true, directory, virtual).run();
                     }
                 }
             }
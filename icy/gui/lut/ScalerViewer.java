@@ -22,15 +22,15 @@ import icy.gui.component.FontUtil;
 import icy.gui.math.HistogramPanel;
 import icy.gui.math.HistogramPanel.HistogramPanelListener;
 import icy.gui.viewer.Viewer;
+import icy.image.IcyBufferedImage;
 import icy.image.lut.LUTBand;
 import icy.image.lut.LUTBandEvent;
 import icy.image.lut.LUTBandEvent.LUTBandEventType;
 import icy.image.lut.LUTBandListener;
+import icy.math.Histogram;
 import icy.math.Scaler;
 import icy.sequence.Sequence;
 import icy.system.thread.SingleProcessor;
-import icy.type.DataType;
-import icy.type.collection.array.Array1DUtil;
 import icy.util.ColorUtil;
 import icy.util.EventUtil;
 import icy.util.GraphicsUtil;
@@ -50,7 +50,6 @@ import java.awt.event.MouseMotionListener;
 import java.awt.event.MouseWheelEvent;
 import java.awt.event.MouseWheelListener;
 import java.awt.geom.Point2D;
-import java.lang.reflect.Array;
 import java.util.EventListener;
 
 import javax.swing.JPanel;
@@ -506,7 +505,8 @@ public class ScalerViewer extends JPanel implements LUTBandListener
 
         if (seq != null)
         {
-
+            final Histogram result = histogram.getHistogram();
+            final int c = lutBand.getComponent();
             final int maxZ;
             final int maxT;
             int t = viewer.getT();
@@ -528,30 +528,22 @@ public class ScalerViewer extends JPanel implements LUTBandListener
                 maxZ = seq.getSizeZ() - 1;
             }
 
-            final int c = lutBand.getComponent();
-
-            for (; t <= maxT; t++)
+            for (int it = t; it <= maxT; it++)
             {
-                for (; z <= maxZ; z++)
+                for (int iz = z; iz <= maxZ; iz++)
                 {
-                    final Object data = seq.getDataXY(t, z, c);
-                    final DataType dataType = seq.getDataType_();
-                    final int len = Array.getLength(data);
-
-                    for (int i = 0; i < len; i++)
+                    // need to be recalculated so don't waste time here...
+                    if (processor.hasWaitingTasks())
                     {
-                        if ((i & 0xFFF) == 0)
-                        {
-                            // need to be recalculated so don't waste time here...
-                            if (processor.hasWaitingTasks())
-                            {
-                                histogram.done();
-                                return;
-                            }
-                        }
-
-                        histogram.addValue(Array1DUtil.getValue(data, i, dataType));
+                        histogram.done();
+                        return;
                     }
+
+                    final IcyBufferedImage image = seq.getImage(it, iz);
+
+                    // plane histograms are cached until their data change
+                    if ((image != null) && (c < image.getSizeC()))
+                        result.add(image.getHistogram(c, result));
                 }
             }
         }
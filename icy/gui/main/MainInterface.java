@@ -193,6 +193,11 @@ public interface MainInterface
      */
     public abstract ArrayList<Sequence> getSequences();
 
+    /**
+     * Return the size (in bytes) of image data of active sequences
+     */
+    public abstract long getSequencesDataSize();
+
     /**
      * Return true if specified sequence is currently opened (displayed in a viewer)
      */
@@ -214,6 +214,12 @@ public class MainInterfaceBatch implements MainInterface
         return new ArrayList<Sequence>();
     }
 
+    @Override
+    public long getSequencesDataSize()
+    {
+        return 0;
+    }
+
     @Override
     public Sequence getFirstSequencesContaining(ROI roi)
     {
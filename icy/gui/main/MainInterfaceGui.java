@@ -482,6 +482,17 @@ public class MainInterfaceGui implements ChangeListener, MainInterface
         return result;
     }
 
+    @Override
+    public long getSequencesDataSize()
+    {
+        long result = 0;
+
+        for (Sequence sequence : getSequences())
+            result += sequence.getDataSize();
+
+        return result;
+    }
+
     @Override
     public boolean isOpened(Sequence sequence)
     {
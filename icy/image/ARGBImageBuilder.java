@@ -24,6 +24,7 @@ import icy.system.SystemUtil;
 import icy.system.thread.Processor;
 import icy.system.thread.ThreadUtil;
 
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
 import java.awt.image.DataBufferInt;
 
@@ -145,7 +146,7 @@ class ARGBImageBuilder
 
                 // scale component values
                 for (int comp = 0; comp < numComponents; comp++)
-                    scalers[comp].scale(image.getDataXY(comp), offset, componentValues[comp], 0, length, signed);
+                    scalers[comp].scale(image.getDataXYReadOnly(comp), offset, componentValues[comp], 0, length, signed);
 
                 // build ARGB destination buffer
                 lut.getColorSpace().fillARGBBuffer(componentValues, dest, offset, length);
@@ -193,31 +194,68 @@ class ARGBImageBuilder
 
     synchronized BufferedImage buildARGBImage(IcyBufferedImage image, LUT lut, BufferedImage out)
     {
-        // planar size
-        final int imageSize = image.getSizeX() * image.getSizeY();
-        final int step = imageSize / BLOC_SIZE;
+        return buildARGBImage(image, lut, out, null);
+    }
+
+    /**
+     * Build ARGB image, only the specified region is built when <code>out</code> can be reused.
+     */
+    synchronized BufferedImage buildARGBImage(IcyBufferedImage image, LUT lut, BufferedImage out, Rectangle region)
+    {
+        final int sizeX = image.getSizeX();
         final BufferedImage result = getImage(image, out);
         // destination buffer
         final int[] dest = ((DataBufferInt) result.getRaster().getDataBuffer()).getData();
+        final Rectangle r;
+
+        // new image or whole image --> build all
+        if ((result != out) || (region == null))
+            r = image.getBounds();
+        else
+            r = region.intersection(image.getBounds());
 
-        int offset = 0;
-        for (int i = 0; i < step; i++)
+        if (r.isEmpty())
+            return result;
+
+        // full rows --> single range
+        if (r.width == sizeX)
+            sendBuildRange(image, lut, dest, r.y * sizeX, r.height * sizeX);
+        else
         {
-            // build bloc
-            sendBuild(image, lut, dest, offset, BLOC_SIZE);
-            offset += BLOC_SIZE;
+            int offset = r.y * sizeX + r.x;
+            for (int y = 0; y < r.height; y++)
+            {
+                sendBuildRange(image, lut, dest, offset, r.width);
+                offset += sizeX;
+            }
         }
 
-        // last bloc
-        if (offset < imageSize)
-            sendBuild(image, lut, dest, offset, imageSize - offset);
-
         // wait until image is built
         waitCompletion();
 
         return result;
     }
 
+    /**
+     * Build the specified range of data by blocs
+     */
+    private void sendBuildRange(IcyBufferedImage image, LUT lut, int dest[], int offset, int length)
+    {
+        final int end = offset + length;
+        int off = offset;
+
+        while ((end - off) > BLOC_SIZE)
+        {
+            // build bloc
+            sendBuild(image, lut, dest, off, BLOC_SIZE);
+            off += BLOC_SIZE;
+        }
+
+        // last bloc
+        if (off < end)
+            sendBuild(image, lut, dest, off, end - off);
+    }
+
     private void sendBuild(IcyBufferedImage image, LUT lut, int dest[], int offset, int length)
     {
         boolean done = false;
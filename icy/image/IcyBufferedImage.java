@@ -29,7 +29,13 @@ import icy.image.colormodel.IcyColorModelEvent;
 import icy.image.colormodel.IcyColorModelListener;
 import icy.image.colorspace.IcyColorSpace;
 import icy.image.lut.LUT;
+import icy.image.storage.PlaneCache;
+import icy.image.storage.PlaneStorage;
+import icy.image.storage.ReaderPlaneStorage;
+import icy.image.storage.ViewPlaneStorage;
+import icy.image.storage.PlaneStorage.StorageType;
 import icy.math.ArrayMath;
+import icy.math.Histogram;
 import icy.math.MathUtil;
 import icy.math.Scaler;
 import icy.type.DataType;
@@ -51,10 +57,13 @@ import java.awt.image.DataBufferFloat;
 import java.awt.image.DataBufferInt;
 import java.awt.image.DataBufferShort;
 import java.awt.image.DataBufferUShort;
+import java.awt.image.Raster;
 import java.awt.image.WritableRaster;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.media.jai.Interpolation;
 import javax.media.jai.RenderedOp;
@@ -295,8 +304,6 @@ public class IcyBufferedImage extends BufferedImage implements IcyColorModelList
         final int rgbChanCount = reader.getRGBChannelCount();
         final int sizeC = effSizeC * rgbChanCount;
         final boolean indexed = reader.isIndexed();
-        final boolean interleaved = reader.isInterleaved();
-        final boolean little = reader.isLittleEndian();
 
         // System.out.println("Opening image " + dataType);
         // System.out.println("Size X*Y*C : " + sizeX + "*" + sizeY + "*" + sizeC);
@@ -312,34 +319,11 @@ public class IcyBufferedImage extends BufferedImage implements IcyColorModelList
         for (int i = 0; i < sizeC; i++)
             data[i] = Array1DUtil.createArray(dataType, sizeXY);
 
+        // read data
+        ReaderPlaneStorage.readData(reader, z, t, data);
+
         for (int effC = 0; effC < effSizeC; effC++)
         {
-            final byte[] byteData = reader.openBytes(reader.getIndex(z, effC, t));
-
-            // current final component
-            final int c = effC * rgbChanCount;
-            final int componentByteLen = byteData.length / rgbChanCount;
-
-            // build data array
-            int inOffset = 0;
-            if (interleaved)
-            {
-                for (int sc = 0; sc < rgbChanCount; sc++)
-                {
-                    ByteArrayConvert.byteArrayTo(byteData, inOffset, rgbChanCount, data[c + sc], 0, 1,
-                            componentByteLen, little);
-                    inOffset++;
-                }
-            }
-            else
-            {
-                for (int sc = 0; sc < rgbChanCount; sc++)
-                {
-                    ByteArrayConvert.byteArrayTo(byteData, inOffset, 1, data[c + sc], 0, 1, componentByteLen, little);
-                    inOffset += componentByteLen;
-                }
-            }
-
             // indexed color ?
             if (indexed)
             {
@@ -393,6 +377,33 @@ public class IcyBufferedImage extends BufferedImage implements IcyColorModelList
         return result;
     }
 
+    /**
+     * Create an IcyBufferedImage whose data is loaded on demand from the specified storage.<br>
+     * Data is only read from the storage when accessed so creation is immediate.<br>
+     * Colormaps and channel bounds are copied from the specified IcyColorModel as they can't be
+     * known without reading data. Bounds are marked as dirty (see
+     * {@link #isChannelsBoundsDirty()}) when data is loaded so they are calculated on next bounds
+     * update.
+     * 
+     * @param storage
+     *        {@link PlaneStorage} containing image data
+     * @param width
+     *        image width
+     * @param height
+     *        image height
+     * @param cm
+     *        {@link IcyColorModel} defining the image format (should be compatible with storage)
+     * @return {@link IcyBufferedImage}
+     */
+    static public IcyBufferedImage createFrom(PlaneStorage storage, int width, int height, IcyColorModel cm)
+    {
+        if ((storage.getDataType_() != cm.getDataType_()) || (storage.getSizeC() != cm.getNumComponents())
+                || (storage.getSizeXY() != (width * height)))
+            throw new IllegalArgumentException("IcyBufferedImage.createFrom(..) error : storage is not compatible.");
+
+        return new IcyBufferedImage(IcyColorModel.createInstance(cm, true, true), storage, width, height);
+    }
+
     /**
      * Create an empty IcyBufferedImage from a IcyColorModel type with specified size
      */
@@ -479,6 +490,53 @@ public class IcyBufferedImage extends BufferedImage implements IcyColorModelList
      */
     private final EventListenerList listeners;
 
+    /**
+     * data storage (<code>null</code> if data only lives in java heap)
+     */
+    private PlaneStorage storage;
+    /**
+     * data is present in java heap
+     */
+    private volatile boolean dataLoaded;
+    /**
+     * data modified since last storage save
+     */
+    private boolean dataDirty;
+    /**
+     * mutable data (raster or arrays) handed out since last load or save: data may have been
+     * modified without notification
+     */
+    private volatile boolean dataExposed;
+    /**
+     * data cache entry (when data is loaded from storage)
+     */
+    private volatile PlaneCache.Entry cacheEntry;
+    /**
+     * data pin counter
+     */
+    private volatile int pinCount;
+    /**
+     * data modified since last channel bounds calculation
+     */
+    private volatile boolean boundsDirty;
+    /**
+     * single dirty channel when bounds are dirty (-1 = all channels), protected by dataVersion
+     */
+    private int boundsDirtyChannel;
+    /**
+     * data arrays are shared with a snapshot (should be copied before any modification)
+     */
+    private volatile boolean dataShared;
+    /**
+     * incremented on each data change
+     */
+    private final AtomicLong dataVersion;
+    /**
+     * cached channels histogram (and data version they were computed from)
+     */
+    private Histogram[] histograms;
+    private long[] histogramVersions;
+
     /**
      * Build an Icy formatted BufferedImage, takes an IcyColorModel and a WritableRaster as input
      * 
@@ -491,7 +549,7 @@ public class IcyBufferedImage extends BufferedImage implements IcyColorModelList
      */
     private IcyBufferedImage(IcyColorModel cm, WritableRaster wr, boolean autoUpdateChannelBounds)
     {
-        super(cm, wr, false, null);
+        super(cm, toIcyRaster(wr), false, null);
 
         // internal lut
         internalLut = new LUT(cm);
@@ -499,6 +557,21 @@ public class IcyBufferedImage extends BufferedImage implements IcyColorModelList
         updater = new UpdateEventHandler(this, false);
         listeners = new EventListenerList();
 
+        // data only in heap by default
+        storage = null;
+        dataLoaded = true;
+        dataDirty = false;
+        dataExposed = false;
+        cacheEntry = null;
+        pinCount = 0;
+        boundsDirty = false;
+        boundsDirtyChannel = -1;
+        dataShared = false;
+        dataVersion = new AtomicLong(0L);
+        histograms = null;
+        histogramVersions = null;
+        getIcyRaster().setImage(this);
+
         // automatic update of channel bounds
         this.autoUpdateChannelBounds = autoUpdateChannelBounds;
 
@@ -506,6 +579,30 @@ public class IcyBufferedImage extends BufferedImage implements IcyColorModelList
         cm.addListener(this);
     }
 
+    /**
+     * Build an Icy formatted BufferedImage with specified IcyColorModel and size whose data is
+     * loaded on demand from the specified storage.
+     */
+    private IcyBufferedImage(IcyColorModel cm, PlaneStorage storage, int width, int height)
+    {
+        this(cm, new IcyWritableRaster(cm.createCompatibleSampleModel(width, height)), false);
+
+        // data not yet loaded
+        this.storage = storage;
+        dataLoaded = false;
+    }
+
+    /**
+     * Return an IcyWritableRaster from the specified raster
+     */
+    private static IcyWritableRaster toIcyRaster(WritableRaster raster)
+    {
+        if ((raster instanceof IcyWritableRaster) && ((IcyWritableRaster) raster).isFree())
+            return (IcyWritableRaster) raster;
+
+        return new IcyWritableRaster(raster);
+    }
+
     /**
      * Build an Icy formatted BufferedImage, takes an IcyColorModel and a WritableRaster as input
      * 
@@ -662,6 +759,647 @@ public class IcyBufferedImage extends BufferedImage implements IcyColorModelList
         }
     }
 
+    /**
+     * Return the internal raster without loading data
+     */
+    IcyWritableRaster getIcyRaster()
+    {
+        return (IcyWritableRaster) super.getRaster();
+    }
+
+    /**
+     * Return data arrays [C][XY] of the specified data buffer
+     */
+    private static Object[] getBanks(DataBuffer db)
+    {
+        if (db instanceof DataBufferByte)
+            return ((DataBufferByte) db).getBankData();
+        if (db instanceof DataBufferUShort)
+            return ((DataBufferUShort) db).getBankData();
+        if (db instanceof DataBufferShort)
+            return ((DataBufferShort) db).getBankData();
+        if (db instanceof DataBufferInt)
+            return ((DataBufferInt) db).getBankData();
+        if (db instanceof DataBufferFloat)
+            return ((DataBufferFloat) db).getBankData();
+        if (db instanceof DataBufferDouble)
+            return ((DataBufferDouble) db).getBankData();
+
+        return null;
+    }
+
+    /**
+     * Return the data buffer for read access (data is loaded if needed)
+     */
+    private DataBuffer getReadDataBuffer()
+    {
+        checkDataLoaded();
+        return getIcyRaster().getDataBuffer();
+    }
+
+    /**
+     * Return the data buffer for internal modification.<br>
+     * Data is not considered as exposed (see {@link #checkDataWritable()}) so caller should call
+     * {@link #dataChanged()} after modification.
+     */
+    private DataBuffer getWriteDataBuffer()
+    {
+        // don't modify data shared with a snapshot
+        prepareWrite();
+        checkDataLoaded();
+        return getIcyRaster().getDataBuffer();
+    }
+
+    /**
+     * Return the data array of the specified channel for internal modification (see
+     * {@link #getWriteDataBuffer()})
+     */
+    private Object getWriteDataXY(int c)
+    {
+        return getBanks(getWriteDataBuffer())[c];
+    }
+
+    /**
+     * Return the image data storage (<code>null</code> if data only lives in java heap).
+     * 
+     * @see #setStorage(PlaneStorage)
+     */
+    public PlaneStorage getStorage()
+    {
+        return storage;
+    }
+
+    /**
+     * Set the image data storage.<br>
+     * When a storage is defined, image data can be released from java heap (see
+     * {@link #releaseData()}) and is automatically reloaded from the storage on next access.<br>
+     * Loaded data then counts in the global {@link PlaneCache} budget.<br>
+     * Current image data is saved in the specified storage and previous storage (if any) is
+     * disposed.<br>
+     * Use <code>null</code> to keep data in java heap only.
+     */
+    public void setStorage(PlaneStorage value) throws IOException
+    {
+        // get data back from previous storage
+        loadData();
+
+        synchronized (this)
+        {
+            if (storage == value)
+                return;
+
+            if (value != null)
+                value.save(getBanks(getIcyRaster().getDataBuffer()));
+            if (storage != null)
+                storage.dispose();
+
+            storage = value;
+            dataDirty = false;
+            dataExposed = false;
+
+            if (cacheEntry != null)
+            {
+                PlaneCache.imageReleased(cacheEntry);
+                cacheEntry = null;
+            }
+            // loaded data now counts in cache
+            if (value != null)
+                cacheEntry = PlaneCache.imageLoaded(this, value.getSize());
+        }
+
+        PlaneCache.checkSize();
+    }
+
+    /**
+     * Set the image data storage type.<br>
+     * {@link StorageType#HEAP} means data only lives in java heap.
+     * 
+     * @see #setStorage(PlaneStorage)
+     */
+    public void setStorageType(StorageType type) throws IOException
+    {
+        if ((type == StorageType.READER) || (type == StorageType.VIEW) || (type == StorageType.VOLUME))
+            throw new IllegalArgumentException("IcyBufferedImage.setStorageType(..) error : " + type
+                    + " type not supported.");
+
+        final StorageType currentType = getStorageType();
+
+        if (currentType != type)
+            setStorage(PlaneStorage.create(type, this));
+    }
+
+    /**
+     * Return the image data storage type.
+     */
+    public StorageType getStorageType()
+    {
+        final PlaneStorage s = storage;
+
+        if (s == null)
+            return StorageType.HEAP;
+
+        return s.getType();
+    }
+
+    /**
+     * Returns <code>true</code> if image data is currently present in java heap.
+     */
+    public boolean isDataLoaded()
+    {
+        return dataLoaded;
+    }
+
+    /**
+     * Return the size (in bytes) of image data (all channels).
+     */
+    public long getDataSize()
+    {
+        return (long) getSizeX() * (long) getSizeY() * getSizeC() * getDataType_().getSize();
+    }
+
+    /**
+     * Return the size (in bytes) of image data currently present in java heap.
+     */
+    public long getHeapDataSize()
+    {
+        if (dataLoaded)
+            return getDataSize();
+
+        return 0L;
+    }
+
+    /**
+     * Return the size (in bytes) used by image data in its storage (see {@link #getStorage()}).
+     */
+    public long getStoredDataSize()
+    {
+        final PlaneStorage s = storage;
+
+        if (s == null)
+            return 0L;
+
+        return s.getStoredSize();
+    }
+
+    /**
+     * Pin image data in java heap: data can't be released until {@link #unpinData()} is called.
+     * <br>
+     * Each call should be balanced with a call to {@link #unpinData()}.
+     */
+    public synchronized void pinData()
+    {
+        pinCount++;
+    }
+
+    /**
+     * Unpin image data previously pinned with {@link #pinData()}.
+     */
+    public synchronized void unpinData()
+    {
+        if (pinCount > 0)
+            pinCount--;
+    }
+
+    /**
+     * Returns <code>true</code> if image data is pinned in java heap.
+     * 
+     * @see #pinData()
+     */
+    public boolean isDataPinned()
+    {
+        // no lock needed (called by cache while holding its lock)
+        return pinCount > 0;
+    }
+
+    /**
+     * Create a snapshot of this image: an image containing the current data of this image which is
+     * not affected by later modifications of this image.<br>
+     * The snapshot initially shares its data arrays with this image (no copy is done), arrays are
+     * copied as soon as either image data is modified or retrieved for modification (data setters,
+     * {@link #getDataXY(int)}, {@link #getRaster()}...). Read only accessors (see
+     * {@link #getDataXYReadOnly(int)}) don't copy data.<br>
+     * Note that arrays retrieved <i>before</i> the snapshot creation are still shared with it, code
+     * writing in them while a snapshot is done can modify the snapshot.
+     */
+    public IcyBufferedImage getSnapshot()
+    {
+        final int[] chs = new int[getSizeC()];
+
+        for (int c = 0; c < chs.length; c++)
+            chs[c] = c;
+
+        return createSharedImage(chs);
+    }
+
+    /**
+     * Create an image sharing the data arrays of the specified channels of this image (both images
+     * copy their arrays on next write).
+     */
+    private IcyBufferedImage createSharedImage(int[] channels)
+    {
+        final Object[] data = Array2DUtil.createArray(getDataType_(), channels.length);
+
+        synchronized (this)
+        {
+            final Object[] srcData = (Object[]) getDataXYCReadOnly();
+
+            for (int c = 0; c < channels.length; c++)
+                data[c] = srcData[channels[c]];
+
+            dataShared = true;
+        }
+
+        final IcyColorModel srcCm = getIcyColorModel();
+        final IcyColorModel cm = IcyColorModel.createInstance(channels.length, getDataType_());
+
+        for (int c = 0; c < channels.length; c++)
+        {
+            cm.setComponentAbsBounds(c, srcCm.getComponentAbsBounds(channels[c]));
+            cm.setComponentUserBounds(c, srcCm.getComponentUserBounds(channels[c]));
+        }
+
+        final IcyBufferedImage result = new IcyBufferedImage(cm, data, getSizeX(), getSizeY(), false);
+
+        result.dataShared = true;
+
+        return result;
+    }
+
+    /**
+     * Returns <code>true</code> if image data arrays are currently shared with a snapshot (see
+     * {@link #getSnapshot()}).
+     */
+    public boolean isDataShared()
+    {
+        return dataShared;
+    }
+
+    /**
+     * Ensure data arrays are not shared with a snapshot (see {@link #getSnapshot()}) so they can be
+     * modified.<br>
+     * This is automatically done by all data setters and mutable data accessors (as
+     * {@link #getDataXY(int)}).
+     */
+    public void prepareWrite()
+    {
+        if (dataShared)
+            unshareData();
+    }
+
+    private synchronized void unshareData()
+    {
+        if (!dataShared)
+            return;
+
+        if (dataLoaded)
+        {
+            final Object[] data = getBanks(getIcyRaster().getDataBuffer());
+            final DataType dataType = getDataType_();
+            final int sizeXY = getSizeX() * getSizeY();
+            final Object[] copy = Array2DUtil.createArray(dataType, data.length);
+
+            for (int c = 0; c < data.length; c++)
+            {
+                copy[c] = Array1DUtil.createArray(dataType, sizeXY);
+                System.arraycopy(data[c], 0, copy[c], 0, sizeXY);
+            }
+
+            getIcyRaster().setDataBuffer(
+                    getIcyColorModel().createWritableRaster(copy, getSizeX(), getSizeY()).getDataBuffer());
+        }
+
+        dataShared = false;
+    }
+
+    /**
+     * Load image data from storage if needed.<br>
+     * You should not need to call this method as data is automatically loaded on access.
+     */
+    public void loadData()
+    {
+        if (internalLoadData())
+        {
+            // bounds are unknown for data read from a source --> calculate them if automatic
+            if (autoUpdateChannelBounds && boundsDirty)
+                updateChannelsBounds();
+
+            // release data of others images if needed
+            PlaneCache.checkSize();
+        }
+    }
+
+    private synchronized boolean internalLoadData()
+    {
+        if (dataLoaded || (storage == null))
+            return false;
+
+        final int sizeC = getSizeC();
+        final int sizeXY = getSizeX() * getSizeY();
+        final DataType dataType = getDataType_();
+        final Object[] banks = Array2DUtil.createArray(dataType, sizeC);
+
+        for (int c = 0; c < sizeC; c++)
+            banks[c] = Array1DUtil.createArray(dataType, sizeXY);
+
+        try
+        {
+            storage.load(banks);
+        }
+        catch (IOException e)
+        {
+            throw new RuntimeException("IcyBufferedImage.loadData() error : cannot load data from storage.", e);
+        }
+
+        getIcyRaster().setDataBuffer(
+                getIcyColorModel().createWritableRaster(banks, getSizeX(), getSizeY()).getDataBuffer());
+        // data read from its source : bounds were only estimated (or calculated on an older read)
+        if (!storage.isWritable())
+            setBoundsDirty(-1);
+        dataDirty = false;
+        dataExposed = false;
+        dataLoaded = true;
+        // fresh arrays
+        dataShared = false;
+        cacheEntry = PlaneCache.imageLoaded(this, storage.getSize());
+
+        return true;
+    }
+
+    /**
+     * Release image data from java heap.<br>
+     * Modified data is first saved in storage (or in a scratch storage if the storage is read
+     * only) and will be automatically reloaded on next access.<br>
+     * Does nothing if the image does not have any storage (see {@link #setStorage(PlaneStorage)})
+     * or if its data is pinned (see {@link #pinData()}).<br>
+     * Data is also saved when data arrays (or raster) have been retrieved since last load or save
+     * and differ from the storage content, as they can be modified before {@link #dataChanged()}
+     * is called. Still, arrays retrieved before the release do not belong to the image anymore
+     * so code writing in data arrays should pin data while doing it.
+     * 
+     * @return <code>true</code> if data has been released
+     */
+    public synchronized boolean releaseData()
+    {
+        if (!dataLoaded || (storage == null) || (pinCount > 0))
+            return false;
+
+        final Object[] data = getBanks(getIcyRaster().getDataBuffer());
+
+        if (dataDirty || (dataExposed && isModified(data)))
+        {
+            try
+            {
+                // storage is read only --> spill data in a scratch storage
+                if (!storage.isWritable())
+                {
+                    final PlaneStorage spill = PlaneStorage.create(StorageType.MAPPED, this);
+
+                    spill.save(data);
+                    storage.dispose();
+                    storage = spill;
+                }
+                else
+                    storage.save(data);
+            }
+            catch (IOException e)
+            {
+                // data cannot be packed in bits (not binary) --> keep it in java heap from now
+                // so we don't fail again on each release
+                if (storage.getType() == StorageType.BIT)
+                {
+                    System.err.println("IcyBufferedImage.releaseData() : data is not binary, bit storage disabled.");
+
+                    storage.dispose();
+                    storage = null;
+                    dataDirty = false;
+                    dataExposed = false;
+
+                    if (cacheEntry != null)
+                    {
+                        PlaneCache.imageReleased(cacheEntry);
+                        cacheEntry = null;
+                    }
+
+                    return false;
+                }
+
+                System.err.println("IcyBufferedImage.releaseData() error : cannot save data to storage.");
+                System.err.println(e.getMessage());
+                return false;
+            }
+        }
+
+        dataLoaded = false;
+        dataDirty = false;
+        dataExposed = false;
+        getIcyRaster().setDataBuffer(null);
+
+        if (cacheEntry != null)
+        {
+            PlaneCache.imageReleased(cacheEntry);
+            cacheEntry = null;
+        }
+
+        return true;
+    }
+
+    /**
+     * Save modified data in storage (data stays in java heap).<br>
+     * Use it before accessing storage content directly.
+     * 
+     * @return <code>true</code> if data has been saved
+     */
+    public synchronized boolean saveData() throws IOException
+    {
+        if (!dataLoaded || !(dataDirty || dataExposed) || (storage == null) || !storage.isWritable())
+            return false;
+
+        storage.save(getBanks(getIcyRaster().getDataBuffer()));
+        dataDirty = false;
+        dataExposed = false;
+
+        return true;
+    }
+
+    /**
+     * Returns <code>true</code> if the specified loaded data differs from the storage content
+     * (or if storage content cannot be read).
+     */
+    private boolean isModified(Object[] data)
+    {
+        final DataType dataType = getDataType_();
+        final int sizeXY = getSizeX() * getSizeY();
+        final Object[] stored = Array2DUtil.createArray(dataType, data.length);
+
+        for (int c = 0; c < data.length; c++)
+            stored[c] = Array1DUtil.createArray(dataType, sizeXY);
+
+        try
+        {
+            storage.load(stored);
+        }
+        catch (IOException e)
+        {
+            return true;
+        }
+
+        return !Arrays.deepEquals(data, stored);
+    }
+
+    /**
+     * Notify that storage content has been modified directly (see
+     * {@link icy.image.storage.VolumeBuffer}).<br>
+     * Data present in java heap is reloaded from storage and a data changed event is sent.
+     */
+    public void storageChanged()
+    {
+        synchronized (this)
+        {
+            if (!dataLoaded || (storage == null))
+                return;
+
+            // don't modify arrays of snapshots
+            prepareWrite();
+
+            try
+            {
+                // reload in current arrays as they can be referenced
+                storage.load(getBanks(getIcyRaster().getDataBuffer()));
+            }
+            catch (IOException e)
+            {
+                throw new RuntimeException("IcyBufferedImage.storageChanged() error : cannot load data from storage.",
+                        e);
+            }
+        }
+
+        dataChanged();
+    }
+
+    /**
+     * Ensure data is present in java heap
+     */
+    private void checkDataLoaded()
+    {
+        if (!dataLoaded)
+            loadData();
+        else
+        {
+            final PlaneCache.Entry entry = cacheEntry;
+
+            // notify cache about data access
+            if (entry != null)
+                entry.access();
+        }
+    }
+
+    /**
+     * Ensure data is present in java heap before handing out mutable data (raster or arrays).<br>
+     * Data can then be modified without notification so it is considered as modified until next
+     * save.
+     */
+    private void checkDataWritable()
+    {
+        // caller can modify data --> don't share it with a snapshot
+        prepareWrite();
+        checkDataLoaded();
+        dataExposed = true;
+    }
+
+    @Override
+    public WritableRaster getRaster()
+    {
+        checkDataWritable();
+        return super.getRaster();
+    }
+
+    @Override
+    public WritableRaster getAlphaRaster()
+    {
+        checkDataWritable();
+        return super.getAlphaRaster();
+    }
+
+    @Override
+    public WritableRaster getWritableTile(int tileX, int tileY)
+    {
+        checkDataWritable();
+        return super.getWritableTile(tileX, tileY);
+    }
+
+    @Override
+    public Raster getTile(int tileX, int tileY)
+    {
+        checkDataLoaded();
+        return super.getTile(tileX, tileY);
+    }
+
+    @Override
+    public Raster getData()
+    {
+        checkDataLoaded();
+        return super.getData();
+    }
+
+    @Override
+    public Raster getData(Rectangle rect)
+    {
+        checkDataLoaded();
+        return super.getData(rect);
+    }
+
+    @Override
+    public WritableRaster copyData(WritableRaster outRaster)
+    {
+        checkDataLoaded();
+        return super.copyData(outRaster);
+    }
+
+    @Override
+    public void setData(Raster r)
+    {
+        prepareWrite();
+        checkDataLoaded();
+        super.setData(r);
+    }
+
+    @Override
+    public int getRGB(int x, int y)
+    {
+        checkDataLoaded();
+        return super.getRGB(x, y);
+    }
+
+    @Override
+    public int[] getRGB(int startX, int startY, int w, int h, int[] rgbArray, int offset, int scansize)
+    {
+        checkDataLoaded();
+        return super.getRGB(startX, startY, w, h, rgbArray, offset, scansize);
+    }
+
+    @Override
+    public synchronized void setRGB(int x, int y, int rgb)
+    {
+        prepareWrite();
+        checkDataLoaded();
+        super.setRGB(x, y, rgb);
+    }
+
+    @Override
+    public void setRGB(int startX, int startY, int w, int h, int[] rgbArray, int offset, int scansize)
+    {
+        prepareWrite();
+        checkDataLoaded();
+        super.setRGB(startX, startY, w, h, rgbArray, offset, scansize);
+    }
+
+    @Override
+    public void coerceData(boolean isAlphaPremultiplied)
+    {
+        checkDataLoaded();
+        super.coerceData(isAlphaPremultiplied);
+    }
+
     /**
      * Draw the current {@link IcyBufferedImage} into the specified {@link BufferedImage} out<br>
      * If out is null then a new TYPE_INT_ARGB {@link BufferedImage} is returned.<br>
@@ -696,12 +1434,25 @@ public class IcyBufferedImage extends BufferedImage implements IcyColorModelList
      * {@link BufferedImage} is fixed to ARGB type (TYPE_INT_ARGB)
      */
     public BufferedImage getARGBImage(LUT lut, BufferedImage out)
+    {
+        return getARGBImage(lut, out, null);
+    }
+
+    /**
+     * Same as {@link #getARGBImage(LUT, BufferedImage)} except that only the specified region is
+     * updated when <code>out</code> is a compatible image (whole image is built otherwise).<br>
+     * This is useful to refresh a previously built ARGB image after a local data modification.
+     * 
+     * @param region
+     *        region to update (<code>null</code> means whole image)
+     */
+    public BufferedImage getARGBImage(LUT lut, BufferedImage out, Rectangle region)
     {
         // use internal lut when no specific lut
         if (lut == null)
-            return argbImageBuilder.buildARGBImage(this, internalLut, out);
+            return argbImageBuilder.buildARGBImage(this, internalLut, out, region);
 
-        return argbImageBuilder.buildARGBImage(this, lut, out);
+        return argbImageBuilder.buildARGBImage(this, lut, out, region);
     }
 
     /**
@@ -757,37 +1508,95 @@ public class IcyBufferedImage extends BufferedImage implements IcyColorModelList
         // no conversion needed
         if ((srcDataType == dataType) && scaler.isNull())
             return this;
+
+        return convertToType(dataType, scaler, null);
+    }
+
+    /**
+     * Convert current image data to specified type and store result in <code>out</code> image.
+     * <br>
+     * Unlike {@link #convertToType(DataType, Scaler)} a copy is always done.
+     * 
+     * @param dataType
+     *        data type wanted
+     * @param scaler
+     *        scaler for scaling internal data during conversion
+     * @param out
+     *        destination image (same size and number of channel than current image and wanted data
+     *        type), if <code>null</code> a new image is allocated (see {@link ImagePool})
+     * @return converted image (<code>out</code> if not null)
+     */
+    public IcyBufferedImage convertToType(DataType dataType, Scaler scaler, IcyBufferedImage out)
+    {
+        final DataType srcDataType = getDataType_();
+
         // can't convert
         if ((srcDataType == DataType.UNDEFINED) || (dataType == DataType.UNDEFINED))
             return null;
 
         final boolean srcSigned = srcDataType.isSigned();
         final int numComponents = getNumComponents();
-        final IcyBufferedImage result = new IcyBufferedImage(getWidth(), getHeight(), numComponents, dataType);
+        final IcyBufferedImage result = checkOut(out, getWidth(), getHeight(), numComponents, dataType);
+        final double[] darray = scaler.isNull() ? null : (double[]) ImagePool.acquireArray(DataType.DOUBLE,
+                getWidth() * getHeight());
 
-        for (int c = 0; c < numComponents; c++)
+        try
         {
-            // no rescale ?
-            if (scaler.isNull())
-                // simple type change
-                ArrayUtil.arrayToArray(getDataXY(c), result.getDataXY(c), srcSigned);
-            else
+            for (int c = 0; c < numComponents; c++)
             {
-                // first we convert in double
-                final double[] darray = Array1DUtil.arrayToDoubleArray(getDataXY(c), srcSigned);
-                // then we scale data
-                scaler.scale(darray);
-                // and finally we convert in wanted datatype
-                Array1DUtil.doubleArrayToArray(darray, result.getDataXY(c));
+                // no rescale ?
+                if (darray == null)
+                    // simple type change
+                    ArrayUtil.arrayToArray(getDataXYReadOnly(c), result.getDataXY(c), srcSigned);
+                else
+                {
+                    // first we convert in double
+                    Array1DUtil.arrayToDoubleArray(getDataXYReadOnly(c), darray, srcSigned);
+                    // then we scale data
+                    scaler.scale(darray);
+                    // and finally we convert in wanted datatype
+                    Array1DUtil.doubleArrayToArray(darray, result.getDataXY(c));
+                }
             }
         }
+        finally
+        {
+            if (darray != null)
+                ImagePool.releaseArray(darray);
+        }
 
         // copy colormap from source image
         result.copyColormap(this);
         // notify we modified data
         result.dataChanged();
 
-        return result;
+        return result;
+    }
+
+    /**
+     * Check the specified destination image has the wanted format (allocate it if
+     * <code>null</code>).
+     */
+    private static IcyBufferedImage checkOut(IcyBufferedImage out, int sizeX, int sizeY, int sizeC,
+            DataType dataType)
+    {
+        if (out == null)
+            return new IcyBufferedImage(sizeX, sizeY, sizeC, dataType);
+
+        if ((out.getSizeX() != sizeX) || (out.getSizeY() != sizeY) || (out.getSizeC() != sizeC)
+                || (out.getDataType_() != dataType))
+            throw new IllegalArgumentException("IcyBufferedImage error : destination image format is not compatible ("
+                    + sizeX + "x" + sizeY + "x" + sizeC + " " + dataType + " wanted).");
+
+        return out;
+    }
+
+    /**
+     * Returns <code>true</code> if the image can be recycled by {@link ImagePool}.
+     */
+    boolean isPoolable()
+    {
+        return (storage == null) && (pinCount == 0) && !dataShared && (listeners.getListenerCount() == 0);
     }
 
     /**
@@ -889,9 +1698,18 @@ public class IcyBufferedImage extends BufferedImage implements IcyColorModelList
      */
     public IcyBufferedImage getCopy()
     {
-        // create a compatible image
-        final IcyBufferedImage result = new IcyBufferedImage(getWidth(), getHeight(), getNumComponents(),
-                getDataType_());
+        return getCopy(null);
+    }
+
+    /**
+     * Copy image data in the specified <code>out</code> image (allocated if <code>null</code>).
+     * 
+     * @return the copy
+     */
+    public IcyBufferedImage getCopy(IcyBufferedImage out)
+    {
+        // create a compatible image if needed
+        final IcyBufferedImage result = checkOut(out, getWidth(), getHeight(), getNumComponents(), getDataType_());
         // copy data from this image
         result.copyData(this);
 
@@ -920,7 +1738,7 @@ public class IcyBufferedImage extends BufferedImage implements IcyColorModelList
 
         for (int c = 0; c < sizeC; c++)
         {
-            final Object src = getDataXY(c);
+            final Object src = getDataXYReadOnly(c);
             final Object dst = result.getDataXY(c);
 
             int srcOffset = getOffset(r.x, r.y);
@@ -941,6 +1759,102 @@ public class IcyBufferedImage extends BufferedImage implements IcyColorModelList
         // return convert(super.getSubimage(x, y, w, h));
     }
 
+    /**
+     * Create a view on the specified region and channels of this image.<br>
+     * The view is a snapshot: it contains the data of this image at creation time and is not
+     * affected by later modifications of this image (this image is never modified through the
+     * view either).<br>
+     * No data is copied at creation time:
+     * <ul>
+     * <li>a view on the whole image shares the data arrays of the selected channels with this
+     * image, arrays are copied on first write in either image (see {@link #getSnapshot()})</li>
+     * <li>a view on a region reads the region from a snapshot of this image on first access and
+     * calculates its channel bounds from it, it gets its own private data when modified</li>
+     * </ul>
+     * 
+     * @param region
+     *        region of the view (<code>null</code> means whole image)
+     * @param channels
+     *        channels of the view (<code>null</code> means all channels)
+     */
+    public IcyBufferedImage getView(Rectangle region, List<Integer> channels)
+    {
+        final Rectangle r;
+        final int[] chs;
+
+        if (region == null)
+            r = getBounds();
+        else
+            r = region.intersection(getBounds());
+
+        if (channels == null)
+        {
+            chs = new int[getSizeC()];
+            for (int c = 0; c < chs.length; c++)
+                chs[c] = c;
+        }
+        else
+        {
+            chs = new int[channels.size()];
+            for (int c = 0; c < chs.length; c++)
+                chs[c] = channels.get(c).intValue();
+        }
+
+        // whole image --> share data arrays, bounds are the ones of this image channels
+        if (r.equals(getBounds()))
+            return createSharedImage(chs);
+
+        // build view color model from channels of this image
+        final IcyColorModel srcCm = getIcyColorModel();
+        final IcyColorModel cm = IcyColorModel.createInstance(chs.length, getDataType_());
+
+        for (int c = 0; c < chs.length; c++)
+        {
+            cm.setComponentAbsBounds(c, srcCm.getComponentAbsBounds(chs[c]));
+            cm.setComponentUserBounds(c, srcCm.getComponentUserBounds(chs[c]));
+        }
+
+        // region is read from a snapshot so the view is not affected by changes on this image
+        final IcyBufferedImage result = createFrom(new ViewPlaneStorage(getSnapshot(), r, chs), r.width,
+                r.height, cm);
+
+        // bounds of the region are calculated when data is loaded
+        result.autoUpdateChannelBounds = true;
+
+        return result;
+    }
+
+    /**
+     * Create a view on the whole image (see {@link #getView(Rectangle, List)}).<br>
+     * This is a cheap alternative to {@link #getCopy()} when the result is mostly read.
+     */
+    public IcyBufferedImage getView()
+    {
+        return getView(null, null);
+    }
+
+    /**
+     * Create a view on the specified region of this image (see {@link #getView(Rectangle, List)}).
+     * <br>
+     * This is a cheap alternative to {@link #getSubImageCopy(int, int, int, int)} when the result
+     * is mostly read.
+     */
+    public IcyBufferedImage getSubImageView(int x, int y, int w, int h)
+    {
+        return getView(new Rectangle(x, y, w, h), null);
+    }
+
+    /**
+     * Create a view on the specified channels of this image (see
+     * {@link #getView(Rectangle, List)}).<br>
+     * This is a cheap alternative to {@link #extractChannels(List)} when the result is mostly
+     * read.
+     */
+    public IcyBufferedImage extractChannelsView(List<Integer> channelNumbers)
+    {
+        return getView(null, channelNumbers);
+    }
+
     /**
      * Not supported on IcyBufferedImage, use getSubImageCopy instead.
      */
@@ -991,11 +1905,23 @@ public class IcyBufferedImage extends BufferedImage implements IcyColorModelList
      */
     public IcyBufferedImage extractChannel(int channelNumber)
     {
-        final ArrayList<Integer> list = new ArrayList<Integer>();
+        return extractChannel(channelNumber, null);
+    }
+
+    /**
+     * Copy the specified image channel in the <code>out</code> single channel image (allocated if
+     * <code>null</code>).
+     * 
+     * @return IcyBufferedImage
+     */
+    public IcyBufferedImage extractChannel(int channelNumber, IcyBufferedImage out)
+    {
+        final IcyBufferedImage result = checkOut(out, getWidth(), getHeight(), 1, getDataType_());
 
-        list.add(Integer.valueOf(channelNumber));
+        if (channelNumber < getSizeC())
+            result.setDataXY(0, getDataXYReadOnly(channelNumber));
 
-        return extractChannels(list);
+        return result;
     }
 
     /**
@@ -1006,9 +1932,19 @@ public class IcyBufferedImage extends BufferedImage implements IcyColorModelList
      */
     public IcyBufferedImage extractChannels(List<Integer> channelNumbers)
     {
-        // create output
-        final IcyBufferedImage output = new IcyBufferedImage(getWidth(), getHeight(), channelNumbers.size(),
-                getDataType_());
+        return extractChannels(channelNumbers, null);
+    }
+
+    /**
+     * Copy the specified image channels in the <code>out</code> image (allocated if
+     * <code>null</code>).
+     * 
+     * @return IcyBufferedImage
+     */
+    public IcyBufferedImage extractChannels(List<Integer> channelNumbers, IcyBufferedImage out)
+    {
+        // create output if needed
+        final IcyBufferedImage output = checkOut(out, getWidth(), getHeight(), channelNumbers.size(), getDataType_());
         final int sizeC = getSizeC();
 
         // set data from specified band
@@ -1017,7 +1953,7 @@ public class IcyBufferedImage extends BufferedImage implements IcyColorModelList
             final int channel = channelNumbers.get(i).intValue();
 
             if (channel < sizeC)
-                output.setDataXY(i, getDataXY(channel));
+                output.setDataXY(i, getDataXYReadOnly(channel));
         }
 
         return output;
@@ -1065,6 +2001,31 @@ public class IcyBufferedImage extends BufferedImage implements IcyColorModelList
      */
     public IcyBufferedImage getScaledCopy(int width, int height, boolean resizeContent, int xAlign, int yAlign,
             FilterType filterType)
+    {
+        return getScaledCopy(width, height, resizeContent, xAlign, yAlign, filterType, null);
+    }
+
+    /**
+     * Copy the image with specified size in the <code>out</code> image (allocated if
+     * <code>null</code>).<br>
+     * Note that content resize still uses temporary images.
+     * 
+     * @param resizeContent
+     *        indicate if content should be resized or not (empty area are 0 filled)
+     * @param xAlign
+     *        horizontal image alignment (SwingConstants.LEFT / CENTER / RIGHT)<br>
+     *        (used only if resizeContent is false)
+     * @param yAlign
+     *        vertical image alignment (SwingConstants.TOP / CENTER / BOTTOM)<br>
+     *        (used only if resizeContent is false)
+     * @param filterType
+     *        filter method used for scale (used only if resizeContent is true)
+     * @param out
+     *        destination image (wanted size, same number of channel and data type than current
+     *        image)
+     */
+    public IcyBufferedImage getScaledCopy(int width, int height, boolean resizeContent, int xAlign, int yAlign,
+            FilterType filterType, IcyBufferedImage out)
     {
         final IcyBufferedImage result;
 
@@ -1109,10 +2070,34 @@ public class IcyBufferedImage extends BufferedImage implements IcyColorModelList
                     break;
             }
 
-            // create an empty image with specified size and current colormodel description
-            result = IcyBufferedImage.createEmptyImage(width, height, getIcyColorModel());
-            // copy data from current image to specified destination
-            result.copyData(this, null, new Point(xt, yt));
+            if (out == null)
+                // create an empty image with specified size and current colormodel description
+                result = IcyBufferedImage.createEmptyImage(width, height, getIcyColorModel());
+            else
+            {
+                result = checkOut(out, width, height, getSizeC(), getDataType_());
+
+                // clear destination
+                for (int c = 0; c < getSizeC(); c++)
+                {
+                    final Object data = result.getDataXY(c);
+                    ArrayUtil.fill(data, 0, ArrayUtil.getLength(data), 0d);
+                }
+            }
+
+            result.beginUpdate();
+            try
+            {
+                // copy data from current image to specified destination
+                result.copyData(this, null, new Point(xt, yt));
+
+                if (out != null)
+                    result.dataChanged();
+            }
+            finally
+            {
+                result.endUpdate();
+            }
         }
         else
         {
@@ -1141,7 +2126,15 @@ public class IcyBufferedImage extends BufferedImage implements IcyColorModelList
                     Float.valueOf(0f), interpolation, null);
 
             // JAI keep dataType and others stuff in their BufferedImage
-            result = IcyBufferedImage.createFrom(renderedOp.getAsBufferedImage());
+            final IcyBufferedImage scaled = IcyBufferedImage.createFrom(renderedOp.getAsBufferedImage());
+
+            if (out == null)
+                result = scaled;
+            else
+            {
+                result = checkOut(out, width, height, getSizeC(), getDataType_());
+                result.copyData(scaled);
+            }
         }
 
         return result;
@@ -1195,6 +2188,8 @@ public class IcyBufferedImage extends BufferedImage implements IcyColorModelList
         if ((dx == 0) && (dy == 0))
             return;
 
+        prepareWrite();
+
         final int sizeX = getSizeX();
         final int sizeY = getSizeY();
 
@@ -1225,7 +2220,7 @@ public class IcyBufferedImage extends BufferedImage implements IcyColorModelList
             wCopy = sizeX - adx;
         }
 
-        final Object data = getDataXY(comp);
+        final Object data = getWriteDataXY(comp);
 
         if (ady < 0)
         {
@@ -1297,15 +2292,8 @@ public class IcyBufferedImage extends BufferedImage implements IcyColorModelList
      */
     private double[] getCalculatedChannelBounds(int channel)
     {
-        final DataType dataType = getDataType_();
-
-        final boolean signed = dataType.isSigned();
-        final Object data = getDataXY(channel);
-
-        final double min = ArrayMath.min(data, signed);
-        final double max = ArrayMath.max(data, signed);
-
-        return new double[] {min, max};
+        // single pass min / max calculation
+        return ArrayMath.minMax(getDataXYReadOnly(channel), getDataType_().isSigned());
     }
 
     /**
@@ -1727,31 +2715,194 @@ public class IcyBufferedImage extends BufferedImage implements IcyColorModelList
     }
 
     /**
-     * Update channels bounds (min and max values).
+     * Returns <code>true</code> if image data has been modified since last channels bounds
+     * calculation (see {@link #updateChannelsBounds()}).
      */
-    public void updateChannelsBounds()
+    public boolean isChannelsBoundsDirty()
     {
-        final int sizeC = getSizeC();
-        final IcyColorModel cm = getIcyColorModel();
+        return boundsDirty;
+    }
 
-        for (int c = 0; c < sizeC; c++)
+    /**
+     * Mark bounds of the specified channel (-1 = all channels) as dirty
+     */
+    private void setBoundsDirty(int channel)
+    {
+        synchronized (dataVersion)
+        {
+            // another channel already dirty --> all channels
+            if (boundsDirty && (boundsDirtyChannel != channel))
+                boundsDirtyChannel = -1;
+            else
+                boundsDirtyChannel = channel;
+
+            boundsDirty = true;
+        }
+    }
+
+    /**
+     * Clear bounds dirty flag
+     */
+    private void clearBoundsDirty()
+    {
+        synchronized (dataVersion)
+        {
+            boundsDirty = false;
+            boundsDirtyChannel = -1;
+        }
+    }
+
+    /**
+     * Clear bounds dirty flag if only the specified channel is dirty (or none).
+     * 
+     * @return <code>false</code> if other channels are dirty (flag is kept)
+     */
+    private boolean clearBoundsDirty(int channel)
+    {
+        synchronized (dataVersion)
+        {
+            if (boundsDirty && (boundsDirtyChannel != channel))
+                return false;
+
+            boundsDirty = false;
+            boundsDirtyChannel = -1;
+
+            return true;
+        }
+    }
+
+    /**
+     * Returns the data version of the image.<br>
+     * It is incremented each time image data change (see {@link #dataChanged()}) so it can be
+     * used to validate data derived cached results.
+     */
+    public long getDataVersion()
+    {
+        return dataVersion.get();
+    }
+
+    /**
+     * Returns the histogram of the specified channel using the value range and bins of the
+     * specified model histogram.<br>
+     * Result is cached until the image data change so don't modify it (merge it in your own
+     * histogram with {@link Histogram#add(Histogram)}).
+     */
+    public Histogram getHistogram(int c, Histogram model)
+    {
+        final long version = dataVersion.get();
+
+        synchronized (dataVersion)
         {
-            // get data type bounds
-            final double[] bounds = getCalculatedChannelBounds(c);
+            if ((histograms != null) && (c < histograms.length))
+            {
+                final Histogram cached = histograms[c];
+
+                if ((cached != null) && (histogramVersions[c] == version) && cached.isCompatible(model))
+                    return cached;
+            }
+        }
 
-            cm.setComponentAbsBounds(c, adjustBoundsForDataType(bounds));
+        // compute outside lock (can take sometime)
+        final Histogram result = new Histogram(model);
 
-            final IcyColorModel colorModel = getIcyColorModel();
+        result.addValues(getDataXYReadOnly(c), getDataType_().isSigned());
 
-            if (colorModel != null)
+        synchronized (dataVersion)
+        {
+            final int sizeC = getSizeC();
+
+            if ((histograms == null) || (histograms.length != sizeC))
             {
-                final IcyColorMap colorMap = colorModel.getColormap(c);
+                histograms = new Histogram[sizeC];
+                histogramVersions = new long[sizeC];
+            }
 
-                // we do user bounds adjustment on "non ALPHA" component only
-                if (colorMap.getType() != IcyColorMapType.ALPHA)
-                    cm.setComponentUserBounds(c, bounds);
+            if (c < sizeC)
+            {
+                histograms[c] = result;
+                histogramVersions[c] = version;
             }
         }
+
+        return result;
+    }
+
+    /**
+     * Update channels bounds (min and max values).
+     */
+    public void updateChannelsBounds()
+    {
+        updateChannelsBounds(calculateChannelsBounds());
+    }
+
+    /**
+     * Calculate channels bounds (min and max values) from image data without applying them.<br>
+     * This does not modify the image (no event is fired) so it can be done in a background
+     * thread, the result is then applied with {@link #updateChannelsBounds(double[][])}.<br>
+     * The bounds dirty flag (see {@link #isChannelsBoundsDirty()}) is cleared as calculation
+     * starts so a concurrent data change is not lost.
+     * 
+     * @return bounds [C][2] where [c][0] is the minimum and [c][1] the maximum value of channel c
+     */
+    public double[][] calculateChannelsBounds()
+    {
+        // clear flag first so a concurrent data change is not lost
+        clearBoundsDirty();
+
+        final int sizeC = getSizeC();
+        final double[][] result = new double[sizeC][];
+
+        for (int c = 0; c < sizeC; c++)
+            result[c] = getCalculatedChannelBounds(c);
+
+        return result;
+    }
+
+    /**
+     * Update channels bounds from the specified calculated bounds (see
+     * {@link #calculateChannelsBounds()}).
+     */
+    public void updateChannelsBounds(double[][] bounds)
+    {
+        final int sizeC = Math.min(getSizeC(), bounds.length);
+
+        for (int c = 0; c < sizeC; c++)
+            updateChannelBounds(c, bounds[c]);
+    }
+
+    /**
+     * Update bounds (min and max values) of the specified channel.
+     */
+    public void updateChannelBounds(int channel)
+    {
+        updateChannelBounds(channel, getCalculatedChannelBounds(channel));
+    }
+
+    /**
+     * Update channels bounds from the specified bounds calculated from data of the specified data
+     * version (see {@link #getDataVersion()}).<br>
+     * The bounds dirty flag (see {@link #isChannelsBoundsDirty()}) is cleared only if data did not
+     * change since this version.
+     */
+    public void updateChannelsBounds(double[][] bounds, long version)
+    {
+        clearBoundsDirty();
+        // data changed during calculation --> bounds still need to be recalculated
+        if (dataVersion.get() != version)
+            setBoundsDirty(-1);
+
+        updateChannelsBounds(bounds);
+    }
+
+    private void updateChannelBounds(int channel, double[] bounds)
+    {
+        final IcyColorModel cm = getIcyColorModel();
+
+        cm.setComponentAbsBounds(channel, adjustBoundsForDataType(bounds));
+
+        // we do user bounds adjustment on "non ALPHA" component only
+        if (cm.getColormap(channel).getType() != IcyColorMapType.ALPHA)
+            cm.setComponentUserBounds(channel, bounds);
     }
 
     /**
@@ -1919,7 +3070,9 @@ public class IcyBufferedImage extends BufferedImage implements IcyColorModelList
     }
 
     /**
-     * Return a direct reference to internal 2D array data [C][XY]
+     * Return a direct reference to internal 2D array data [C][XY]<br>
+     * Image data is then considered as possibly modified until next save, use
+     * {@link #getDataXYCReadOnly()} if you only need to read data.
      */
     public Object getDataXYC()
     {
@@ -1941,7 +3094,31 @@ public class IcyBufferedImage extends BufferedImage implements IcyColorModelList
     }
 
     /**
-     * Return a direct reference to internal 1D array data [XY] for specified c
+     * Return a direct reference to internal 2D array data [C][XY] for <b>read access only</b>.<br>
+     * Unlike {@link #getDataXYC()} the image does not consider its data as possibly modified so
+     * the arrays should not be modified.
+     */
+    public Object getDataXYCReadOnly()
+    {
+        return getBanks(getReadDataBuffer());
+    }
+
+    /**
+     * Return a direct reference to internal 1D array data [XY] for specified c for <b>read access
+     * only</b>.<br>
+     * Unlike {@link #getDataXY(int)} the image does not consider its data as possibly modified so
+     * the array should not be modified.
+     */
+    public Object getDataXYReadOnly(int c)
+    {
+        return getBanks(getReadDataBuffer())[c];
+    }
+
+    /**
+     * Return a direct reference to internal 1D array data [XY] for specified c<br>
+     * Image data is then considered as possibly modified until next save, use
+     * {@link #getDataXYReadOnly(int)} if you only need to read data.<br>
+     * If image uses a storage, pin data (see {@link #pinData()}) while modifying the array.
      */
     public Object getDataXY(int c)
     {
@@ -2092,10 +3269,11 @@ public class IcyBufferedImage extends BufferedImage implements IcyColorModelList
      */
     public void setDataXY(int c, Object values)
     {
-        ArrayUtil.arrayToArray(values, getDataXY(c), getDataType_().isSigned());
+        prepareWrite();
+        ArrayUtil.arrayToArray(values, getWriteDataXY(c), getDataType_().isSigned());
 
         // notify data changed
-        dataChanged();
+        dataChanged(null, c);
     }
 
     /**
@@ -2103,6 +3281,7 @@ public class IcyBufferedImage extends BufferedImage implements IcyColorModelList
      */
     public void setDataC(int x, int y, Object values)
     {
+        prepareWrite();
         switch (getDataType_().getJavaType())
         {
             case BYTE:
@@ -2229,7 +3408,7 @@ public class IcyBufferedImage extends BufferedImage implements IcyColorModelList
     {
         final int len = getSizeX() * getSizeY();
         final int sizeC = getSizeC();
-        final byte[][] banks = ((DataBufferByte) getRaster().getDataBuffer()).getBankData();
+        final byte[][] banks = ((DataBufferByte) getReadDataBuffer()).getBankData();
         final byte[] result = Array1DUtil.allocIfNull(out, len * sizeC);
         int offset = off;
 
@@ -2259,7 +3438,7 @@ public class IcyBufferedImage extends BufferedImage implements IcyColorModelList
     {
         final int len = getSizeX() * getSizeY();
         final int sizeC = getSizeC();
-        final DataBuffer db = getRaster().getDataBuffer();
+        final DataBuffer db = getReadDataBuffer();
         final short[][] banks;
         if (db instanceof DataBufferUShort)
             banks = ((DataBufferUShort) db).getBankData();
@@ -2294,7 +3473,7 @@ public class IcyBufferedImage extends BufferedImage implements IcyColorModelList
     {
         final int len = getSizeX() * getSizeY();
         final int sizeC = getSizeC();
-        final int[][] banks = ((DataBufferInt) getRaster().getDataBuffer()).getBankData();
+        final int[][] banks = ((DataBufferInt) getReadDataBuffer()).getBankData();
         final int[] result = Array1DUtil.allocIfNull(out, len * sizeC);
         int offset = off;
 
@@ -2324,7 +3503,7 @@ public class IcyBufferedImage extends BufferedImage implements IcyColorModelList
     {
         final int len = getSizeX() * getSizeY();
         final int sizeC = getSizeC();
-        final float[][] banks = ((DataBufferFloat) getRaster().getDataBuffer()).getBankData();
+        final float[][] banks = ((DataBufferFloat) getReadDataBuffer()).getBankData();
         final float[] result = Array1DUtil.allocIfNull(out, len * sizeC);
         int offset = off;
 
@@ -2354,7 +3533,7 @@ public class IcyBufferedImage extends BufferedImage implements IcyColorModelList
     {
         final int len = getSizeX() * getSizeY();
         final int sizeC = getSizeC();
-        final double[][] banks = ((DataBufferDouble) getRaster().getDataBuffer()).getBankData();
+        final double[][] banks = ((DataBufferDouble) getReadDataBuffer()).getBankData();
         final double[] result = Array1DUtil.allocIfNull(out, len * sizeC);
         int offset = off;
 
@@ -2383,7 +3562,7 @@ public class IcyBufferedImage extends BufferedImage implements IcyColorModelList
     public byte[] getDataCopyXYAsByte(int c, byte[] out, int off)
     {
         final int len = getSizeX() * getSizeY();
-        final byte[] src = ((DataBufferByte) getRaster().getDataBuffer()).getData(c);
+        final byte[] src = ((DataBufferByte) getReadDataBuffer()).getData(c);
         final byte[] result = Array1DUtil.allocIfNull(out, len);
 
         System.arraycopy(src, 0, result, off, len);
@@ -2406,7 +3585,7 @@ public class IcyBufferedImage extends BufferedImage implements IcyColorModelList
     public short[] getDataCopyXYAsShort(int c, short[] out, int off)
     {
         final int len = getSizeX() * getSizeY();
-        final DataBuffer db = getRaster().getDataBuffer();
+        final DataBuffer db = getReadDataBuffer();
         final short[] src;
         if (db instanceof DataBufferUShort)
             src = ((DataBufferUShort) db).getData(c);
@@ -2434,7 +3613,7 @@ public class IcyBufferedImage extends BufferedImage implements IcyColorModelList
     public int[] getDataCopyXYAsInt(int c, int[] out, int off)
     {
         final int len = getSizeX() * getSizeY();
-        final int[] src = ((DataBufferInt) getRaster().getDataBuffer()).getData(c);
+        final int[] src = ((DataBufferInt) getReadDataBuffer()).getData(c);
         final int[] result = Array1DUtil.allocIfNull(out, len);
 
         System.arraycopy(src, 0, result, off, len);
@@ -2457,7 +3636,7 @@ public class IcyBufferedImage extends BufferedImage implements IcyColorModelList
     public float[] getDataCopyXYAsFloat(int c, float[] out, int off)
     {
         final int len = getSizeX() * getSizeY();
-        final float[] src = ((DataBufferFloat) getRaster().getDataBuffer()).getData(c);
+        final float[] src = ((DataBufferFloat) getReadDataBuffer()).getData(c);
         final float[] result = Array1DUtil.allocIfNull(out, len);
 
         System.arraycopy(src, 0, result, off, len);
@@ -2480,7 +3659,7 @@ public class IcyBufferedImage extends BufferedImage implements IcyColorModelList
     public double[] getDataCopyXYAsDouble(int c, double[] out, int off)
     {
         final int len = getSizeX() * getSizeY();
-        final double[] src = ((DataBufferDouble) getRaster().getDataBuffer()).getData(c);
+        final double[] src = ((DataBufferDouble) getReadDataBuffer()).getData(c);
         final double[] result = Array1DUtil.allocIfNull(out, len);
 
         System.arraycopy(src, 0, result, off, len);
@@ -2504,7 +3683,7 @@ public class IcyBufferedImage extends BufferedImage implements IcyColorModelList
     {
         final int len = getSizeX() * getSizeY();
         final int sizeC = getSizeC();
-        final byte[][] banks = ((DataBufferByte) getRaster().getDataBuffer()).getBankData();
+        final byte[][] banks = ((DataBufferByte) getReadDataBuffer()).getBankData();
         final byte[] result = Array1DUtil.allocIfNull(out, len * sizeC);
 
         for (int c = 0; c < sizeC; c++)
@@ -2534,7 +3713,7 @@ public class IcyBufferedImage extends BufferedImage implements IcyColorModelList
     {
         final int len = getSizeX() * getSizeY();
         final int sizeC = getSizeC();
-        final DataBuffer db = getRaster().getDataBuffer();
+        final DataBuffer db = getReadDataBuffer();
         final short[][] banks;
         if (db instanceof DataBufferUShort)
             banks = ((DataBufferUShort) db).getBankData();
@@ -2569,7 +3748,7 @@ public class IcyBufferedImage extends BufferedImage implements IcyColorModelList
     {
         final int len = getSizeX() * getSizeY();
         final int sizeC = getSizeC();
-        final int[][] banks = ((DataBufferInt) getRaster().getDataBuffer()).getBankData();
+        final int[][] banks = ((DataBufferInt) getReadDataBuffer()).getBankData();
         final int[] result = Array1DUtil.allocIfNull(out, len * sizeC);
 
         for (int c = 0; c < sizeC; c++)
@@ -2599,7 +3778,7 @@ public class IcyBufferedImage extends BufferedImage implements IcyColorModelList
     {
         final int len = getSizeX() * getSizeY();
         final int sizeC = getSizeC();
-        final float[][] banks = ((DataBufferFloat) getRaster().getDataBuffer()).getBankData();
+        final float[][] banks = ((DataBufferFloat) getReadDataBuffer()).getBankData();
         final float[] result = Array1DUtil.allocIfNull(out, len * sizeC);
 
         for (int c = 0; c < sizeC; c++)
@@ -2629,7 +3808,7 @@ public class IcyBufferedImage extends BufferedImage implements IcyColorModelList
     {
         final int len = getSizeX() * getSizeY();
         final int sizeC = getSizeC();
-        final double[][] banks = ((DataBufferDouble) getRaster().getDataBuffer()).getBankData();
+        final double[][] banks = ((DataBufferDouble) getReadDataBuffer()).getBankData();
         final double[] result = Array1DUtil.allocIfNull(out, len * sizeC);
 
         for (int c = 0; c < sizeC; c++)
@@ -2659,7 +3838,7 @@ public class IcyBufferedImage extends BufferedImage implements IcyColorModelList
     {
         final int sizeC = getSizeC();
         final int offset = x + (y * getWidth());
-        final byte[][] data = ((DataBufferByte) getRaster().getDataBuffer()).getBankData();
+        final byte[][] data = ((DataBufferByte) getReadDataBuffer()).getBankData();
         final byte[] result = Array1DUtil.allocIfNull(out, sizeC);
 
         for (int c = 0; c < sizeC; c++)
@@ -2685,7 +3864,7 @@ public class IcyBufferedImage extends BufferedImage implements IcyColorModelList
     {
         final int sizeC = getSizeC();
         final int offset = x + (y * getWidth());
-        final DataBuffer db = getRaster().getDataBuffer();
+        final DataBuffer db = getReadDataBuffer();
         final short[][] data;
         if (db instanceof DataBufferUShort)
             data = ((DataBufferUShort) db).getBankData();
@@ -2716,7 +3895,7 @@ public class IcyBufferedImage extends BufferedImage implements IcyColorModelList
     {
         final int sizeC = getSizeC();
         final int offset = x + (y * getWidth());
-        final int[][] data = ((DataBufferInt) getRaster().getDataBuffer()).getBankData();
+        final int[][] data = ((DataBufferInt) getReadDataBuffer()).getBankData();
         final int[] result = Array1DUtil.allocIfNull(out, sizeC);
 
         for (int c = 0; c < sizeC; c++)
@@ -2742,7 +3921,7 @@ public class IcyBufferedImage extends BufferedImage implements IcyColorModelList
     {
         final int sizeC = getSizeC();
         final int offset = x + (y * getWidth());
-        final float[][] data = ((DataBufferFloat) getRaster().getDataBuffer()).getBankData();
+        final float[][] data = ((DataBufferFloat) getReadDataBuffer()).getBankData();
         final float[] result = Array1DUtil.allocIfNull(out, sizeC);
 
         for (int c = 0; c < sizeC; c++)
@@ -2768,7 +3947,7 @@ public class IcyBufferedImage extends BufferedImage implements IcyColorModelList
     {
         final int sizeC = getSizeC();
         final int offset = x + (y * getWidth());
-        final double[][] data = ((DataBufferDouble) getRaster().getDataBuffer()).getBankData();
+        final double[][] data = ((DataBufferDouble) getReadDataBuffer()).getBankData();
         final double[] result = Array1DUtil.allocIfNull(out, sizeC);
 
         for (int c = 0; c < sizeC; c++)
@@ -2783,10 +3962,11 @@ public class IcyBufferedImage extends BufferedImage implements IcyColorModelList
      */
     public void setDataXYAsByte(int c, byte[] values)
     {
-        System.arraycopy(values, 0, getDataXYAsByte(c), 0, getSizeX() * getSizeY());
+        prepareWrite();
+        System.arraycopy(values, 0, (byte[]) getWriteDataXY(c), 0, getSizeX() * getSizeY());
 
         // notify data changed
-        dataChanged();
+        dataChanged(null, c);
     }
 
     /**
@@ -2794,10 +3974,11 @@ public class IcyBufferedImage extends BufferedImage implements IcyColorModelList
      */
     public void setDataXYAsShort(int c, short[] values)
     {
-        System.arraycopy(values, 0, getDataXYAsShort(c), 0, getSizeX() * getSizeY());
+        prepareWrite();
+        System.arraycopy(values, 0, (short[]) getWriteDataXY(c), 0, getSizeX() * getSizeY());
 
         // notify data changed
-        dataChanged();
+        dataChanged(null, c);
     }
 
     /**
@@ -2805,10 +3986,11 @@ public class IcyBufferedImage extends BufferedImage implements IcyColorModelList
      */
     public void setDataXYAsInt(int c, int[] values)
     {
-        System.arraycopy(values, 0, getDataXYAsInt(c), 0, getSizeX() * getSizeY());
+        prepareWrite();
+        System.arraycopy(values, 0, (int[]) getWriteDataXY(c), 0, getSizeX() * getSizeY());
 
         // notify data changed
-        dataChanged();
+        dataChanged(null, c);
     }
 
     /**
@@ -2816,10 +3998,11 @@ public class IcyBufferedImage extends BufferedImage implements IcyColorModelList
      */
     public void setDataXYAsFloat(int c, float[] values)
     {
-        System.arraycopy(values, 0, getDataXYAsFloat(c), 0, getSizeX() * getSizeY());
+        prepareWrite();
+        System.arraycopy(values, 0, (float[]) getWriteDataXY(c), 0, getSizeX() * getSizeY());
 
         // notify data changed
-        dataChanged();
+        dataChanged(null, c);
     }
 
     /**
@@ -2827,10 +4010,11 @@ public class IcyBufferedImage extends BufferedImage implements IcyColorModelList
      */
     public void setDataXYAsDouble(int c, double[] values)
     {
-        System.arraycopy(values, 0, getDataXYAsDouble(c), 0, getSizeX() * getSizeY());
+        prepareWrite();
+        System.arraycopy(values, 0, (double[]) getWriteDataXY(c), 0, getSizeX() * getSizeY());
 
         // notify data changed
-        dataChanged();
+        dataChanged(null, c);
     }
 
     /**
@@ -2838,16 +4022,17 @@ public class IcyBufferedImage extends BufferedImage implements IcyColorModelList
      */
     public void setDataCAsByte(int x, int y, byte[] values)
     {
+        prepareWrite();
         final int offset = x + (y * getWidth());
         final int len = values.length;
-        final byte[][] data = ((DataBufferByte) getRaster().getDataBuffer()).getBankData();
+        final byte[][] data = ((DataBufferByte) getWriteDataBuffer()).getBankData();
 
         for (int comp = 0; comp < len; comp++)
             // ignore band offset as it's always 0 here
             data[comp][offset] = values[comp];
 
         // notify data changed
-        dataChanged();
+        dataChanged(new Rectangle(x, y, 1, 1), -1);
     }
 
     /**
@@ -2855,9 +4040,10 @@ public class IcyBufferedImage extends BufferedImage implements IcyColorModelList
      */
     public void setDataCAsShort(int x, int y, short[] values)
     {
+        prepareWrite();
         final int offset = x + (y * getWidth());
         final int len = values.length;
-        final DataBuffer db = getRaster().getDataBuffer();
+        final DataBuffer db = getWriteDataBuffer();
         final short[][] data;
         if (db instanceof DataBufferUShort)
             data = ((DataBufferUShort) db).getBankData();
@@ -2869,7 +4055,7 @@ public class IcyBufferedImage extends BufferedImage implements IcyColorModelList
             data[comp][offset] = values[comp];
 
         // notify data changed
-        dataChanged();
+        dataChanged(new Rectangle(x, y, 1, 1), -1);
     }
 
     /**
@@ -2877,16 +4063,17 @@ public class IcyBufferedImage extends BufferedImage implements IcyColorModelList
      */
     public void setDataCAsInt(int x, int y, int[] values)
     {
+        prepareWrite();
         final int offset = x + (y * getWidth());
         final int len = values.length;
-        final int[][] data = ((DataBufferInt) getRaster().getDataBuffer()).getBankData();
+        final int[][] data = ((DataBufferInt) getWriteDataBuffer()).getBankData();
 
         for (int comp = 0; comp < len; comp++)
             // ignore band offset as it's always 0 here
             data[comp][offset] = values[comp];
 
         // notify data changed
-        dataChanged();
+        dataChanged(new Rectangle(x, y, 1, 1), -1);
     }
 
     /**
@@ -2894,16 +4081,17 @@ public class IcyBufferedImage extends BufferedImage implements IcyColorModelList
      */
     public void setDataCAsFloat(int x, int y, float[] values)
     {
+        prepareWrite();
         final int offset = x + (y * getWidth());
         final int len = values.length;
-        final float[][] data = ((DataBufferFloat) getRaster().getDataBuffer()).getBankData();
+        final float[][] data = ((DataBufferFloat) getWriteDataBuffer()).getBankData();
 
         for (int comp = 0; comp < len; comp++)
             // ignore band offset as it's always 0 here
             data[comp][offset] = values[comp];
 
         // notify data changed
-        dataChanged();
+        dataChanged(new Rectangle(x, y, 1, 1), -1);
     }
 
     /**
@@ -2911,16 +4099,17 @@ public class IcyBufferedImage extends BufferedImage implements IcyColorModelList
      */
     public void setDataCAsDouble(int x, int y, double[] values)
     {
+        prepareWrite();
         final int offset = x + (y * getWidth());
         final int len = values.length;
-        final double[][] data = ((DataBufferDouble) getRaster().getDataBuffer()).getBankData();
+        final double[][] data = ((DataBufferDouble) getWriteDataBuffer()).getBankData();
 
         for (int comp = 0; comp < len; comp++)
             // ignore band offset as it's always 0 here
             data[comp][offset] = values[comp];
 
         // notify data changed
-        dataChanged();
+        dataChanged(new Rectangle(x, y, 1, 1), -1);
     }
 
     /**
@@ -2929,7 +4118,7 @@ public class IcyBufferedImage extends BufferedImage implements IcyColorModelList
      */
     public double getData(int x, int y, int c)
     {
-        return Array1DUtil.getValue(getDataXY(c), getOffset(x, y), getDataType_());
+        return Array1DUtil.getValue(getDataXYReadOnly(c), getOffset(x, y), getDataType_());
     }
 
     /**
@@ -2938,10 +4127,11 @@ public class IcyBufferedImage extends BufferedImage implements IcyColorModelList
      */
     public void setData(int x, int y, int c, double value)
     {
-        Array1DUtil.setValue(getDataXY(c), getOffset(x, y), getDataType_(), value);
+        prepareWrite();
+        Array1DUtil.setValue(getWriteDataXY(c), getOffset(x, y), getDataType_(), value);
 
         // notify data changed
-        dataChanged();
+        dataChanged(new Rectangle(x, y, 1, 1), c);
     }
 
     /**
@@ -2950,7 +4140,7 @@ public class IcyBufferedImage extends BufferedImage implements IcyColorModelList
     public byte getDataAsByte(int x, int y, int c)
     {
         // ignore band offset as it's always 0 here
-        return (((DataBufferByte) getRaster().getDataBuffer()).getData(c))[x + (y * getWidth())];
+        return (((DataBufferByte) getReadDataBuffer()).getData(c))[x + (y * getWidth())];
     }
 
     /**
@@ -2958,11 +4148,12 @@ public class IcyBufferedImage extends BufferedImage implements IcyColorModelList
      */
     public void setDataAsByte(int x, int y, int c, byte value)
     {
+        prepareWrite();
         // ignore band offset as it's always 0 here
-        (((DataBufferByte) getRaster().getDataBuffer()).getData(c))[x + (y * getWidth())] = value;
+        (((DataBufferByte) getWriteDataBuffer()).getData(c))[x + (y * getWidth())] = value;
 
         // notify data changed
-        dataChanged();
+        dataChanged(new Rectangle(x, y, 1, 1), c);
     }
 
     /**
@@ -2971,7 +4162,7 @@ public class IcyBufferedImage extends BufferedImage implements IcyColorModelList
     public short getDataAsShort(int x, int y, int c)
     {
         // ignore band offset as it's always 0 here
-        final DataBuffer db = getRaster().getDataBuffer();
+        final DataBuffer db = getReadDataBuffer();
 
         if (db instanceof DataBufferUShort)
             return (((DataBufferUShort) db).getData(c))[x + (y * getWidth())];
@@ -2984,7 +4175,8 @@ public class IcyBufferedImage extends BufferedImage implements IcyColorModelList
      */
     public void setDataAsShort(int x, int y, int c, short value)
     {
-        final DataBuffer db = getRaster().getDataBuffer();
+        prepareWrite();
+        final DataBuffer db = getWriteDataBuffer();
         if (db instanceof DataBufferUShort)
             // ignore band offset as it's always 0 here
             (((DataBufferUShort) db).getData(c))[x + (y * getWidth())] = value;
@@ -2992,7 +4184,7 @@ public class IcyBufferedImage extends BufferedImage implements IcyColorModelList
             (((DataBufferShort) db).getData(c))[x + (y * getWidth())] = value;
 
         // notify data changed
-        dataChanged();
+        dataChanged(new Rectangle(x, y, 1, 1), c);
     }
 
     /**
@@ -3001,7 +4193,7 @@ public class IcyBufferedImage extends BufferedImage implements IcyColorModelList
     public int getDataAsInt(int x, int y, int c)
     {
         // ignore band offset as it's always 0 here
-        return (((DataBufferInt) getRaster().getDataBuffer()).getData(c))[x + (y * getWidth())];
+        return (((DataBufferInt) getReadDataBuffer()).getData(c))[x + (y * getWidth())];
     }
 
     /**
@@ -3009,11 +4201,12 @@ public class IcyBufferedImage extends BufferedImage implements IcyColorModelList
      */
     public void setDataAsInt(int x, int y, int c, int value)
     {
+        prepareWrite();
         // ignore band offset as it's always 0 here
-        (((DataBufferInt) getRaster().getDataBuffer()).getData(c))[x + (y * getWidth())] = value;
+        (((DataBufferInt) getWriteDataBuffer()).getData(c))[x + (y * getWidth())] = value;
 
         // notify data changed
-        dataChanged();
+        dataChanged(new Rectangle(x, y, 1, 1), c);
     }
 
     /**
@@ -3022,7 +4215,7 @@ public class IcyBufferedImage extends BufferedImage implements IcyColorModelList
     public float getDataAsFloat(int x, int y, int c)
     {
         // ignore band offset as it's always 0 here
-        return (((DataBufferFloat) getRaster().getDataBuffer()).getData(c))[x + (y * getWidth())];
+        return (((DataBufferFloat) getReadDataBuffer()).getData(c))[x + (y * getWidth())];
     }
 
     /**
@@ -3030,11 +4223,12 @@ public class IcyBufferedImage extends BufferedImage implements IcyColorModelList
      */
     public void setDataAsFloat(int x, int y, int c, float value)
     {
+        prepareWrite();
         // ignore band offset as it's always 0 here
-        (((DataBufferFloat) getRaster().getDataBuffer()).getData(c))[x + (y * getWidth())] = value;
+        (((DataBufferFloat) getWriteDataBuffer()).getData(c))[x + (y * getWidth())] = value;
 
         // notify data changed
-        dataChanged();
+        dataChanged(new Rectangle(x, y, 1, 1), c);
     }
 
     /**
@@ -3043,7 +4237,7 @@ public class IcyBufferedImage extends BufferedImage implements IcyColorModelList
     public double getDataAsDouble(int x, int y, int c)
     {
         // ignore band offset as it's always 0 here
-        return (((DataBufferDouble) getRaster().getDataBuffer()).getData(c))[x + (y * getWidth())];
+        return (((DataBufferDouble) getReadDataBuffer()).getData(c))[x + (y * getWidth())];
     }
 
     /**
@@ -3051,11 +4245,12 @@ public class IcyBufferedImage extends BufferedImage implements IcyColorModelList
      */
     public void setDataAsDouble(int x, int y, int c, double value)
     {
+        prepareWrite();
         // ignore band offset as it's always 0 here
-        (((DataBufferDouble) getRaster().getDataBuffer()).getData(c))[x + (y * getWidth())] = value;
+        (((DataBufferDouble) getWriteDataBuffer()).getData(c))[x + (y * getWidth())] = value;
 
         // notify data changed
-        dataChanged();
+        dataChanged(new Rectangle(x, y, 1, 1), c);
     }
 
     /**
@@ -3065,7 +4260,8 @@ public class IcyBufferedImage extends BufferedImage implements IcyColorModelList
      */
     public int getRGB(int x, int y, LUT lut)
     {
-        return getIcyColorModel().getRGB(getRaster().getDataElements(x, y, null), lut);
+        checkDataLoaded();
+        return getIcyColorModel().getRGB(getIcyRaster().getDataElements(x, y, null), lut);
     }
 
     /**
@@ -3084,6 +4280,7 @@ public class IcyBufferedImage extends BufferedImage implements IcyColorModelList
      */
     private void fastCopyData(IcyBufferedImage srcImage, Rectangle srcRect, Point dstPt, int srcComp, int dstComp)
     {
+        prepareWrite();
         final int srcSizeX = srcImage.getSizeX();
         final int dstSizeX = getSizeX();
 
@@ -3111,8 +4308,8 @@ public class IcyBufferedImage extends BufferedImage implements IcyColorModelList
 
         final boolean signed = srcImage.getDataType_().isSigned();
 
-        final Object src = srcImage.getDataXY(srcComp);
-        final Object dst = getDataXY(dstComp);
+        final Object src = srcImage.getDataXYReadOnly(srcComp);
+        final Object dst = getWriteDataXY(dstComp);
 
         int srcOffset = adjSrcRect.x + (adjSrcRect.y * srcSizeX);
         int dstOffset = adjDstRect.x + (adjDstRect.y * dstSizeX);
@@ -3148,7 +4345,7 @@ public class IcyBufferedImage extends BufferedImage implements IcyColorModelList
 
         final WritableRaster src_wr = srcImage.getRaster();
         final DataBuffer src_db = src_wr.getDataBuffer();
-        final DataBuffer dst_db = getRaster().getDataBuffer();
+        final DataBuffer dst_db = getWriteDataBuffer();
         final int numBands = sm.getNumBands();
         final int[] indices = sm.getBankIndices();
         final int[] band_offsets = sm.getBandOffsets();
@@ -3403,6 +4600,8 @@ public class IcyBufferedImage extends BufferedImage implements IcyColorModelList
         if (srcImage == null)
             return;
 
+        prepareWrite();
+
         if (srcImage instanceof IcyBufferedImage)
             // use specific IcyBufferedImage data copy
             copyData((IcyBufferedImage) srcImage, null, null);
@@ -3412,7 +4611,8 @@ public class IcyBufferedImage extends BufferedImage implements IcyColorModelList
             if (!compatibleCopyData(srcImage))
             {
                 // image not compatible, use generic (and slow) data copy
-                srcImage.copyData(getRaster());
+                getWriteDataBuffer();
+                srcImage.copyData(getIcyRaster());
                 // notify data changed
                 dataChanged();
             }
@@ -3439,7 +4639,7 @@ public class IcyBufferedImage extends BufferedImage implements IcyColorModelList
         final byte[] result = Array1DUtil.allocIfNull(out, offset
                 + (getSizeX() * getSizeY() * getDataType_().getSize()));
 
-        return ByteArrayConvert.toByteArray(getDataXY(c), result, offset, step, little);
+        return ByteArrayConvert.toByteArray(getDataXYReadOnly(c), result, offset, step, little);
     }
 
     /**
@@ -3547,10 +4747,11 @@ public class IcyBufferedImage extends BufferedImage implements IcyColorModelList
         if (data == null)
             return;
 
-        ByteArrayConvert.byteArrayTo(data, offset, step, getDataXY(c), little);
+        prepareWrite();
+        ByteArrayConvert.byteArrayTo(data, offset, step, getWriteDataXY(c), little);
 
         // notify data changed
-        dataChanged();
+        dataChanged(null, c);
     }
 
     /**
@@ -3602,6 +4803,8 @@ public class IcyBufferedImage extends BufferedImage implements IcyColorModelList
         if (data == null)
             return;
 
+        prepareWrite();
+
         final int sizeXY = getSizeX() * getSizeY();
         final int sizeC = getSizeC();
         final int sizeType = getDataType_().getSize();
@@ -3665,7 +4868,30 @@ public class IcyBufferedImage extends BufferedImage implements IcyColorModelList
      */
     public void dataChanged()
     {
-        updater.changed(new IcyBufferedImageEvent(this, IcyBufferedImageEventType.DATA_CHANGED));
+        dataChanged(null, -1);
+    }
+
+    /**
+     * Notify image data has changed in the specified region and channel.<br>
+     * Consecutive changes done in a {@link #beginUpdate()} ... {@link #endUpdate()} block are
+     * merged in a single event whose region is the union of modified regions.
+     * 
+     * @param region
+     *        modified region (<code>null</code> means whole image)
+     * @param channel
+     *        modified channel (-1 means all channels)
+     */
+    public void dataChanged(Rectangle region, int channel)
+    {
+        // data need to be saved before being released
+        dataDirty = true;
+        // invalidate cached histograms (before setting bounds dirty, see
+        // updateChannelsBounds(double[][], long))
+        dataVersion.incrementAndGet();
+        // channels bounds need to be recalculated
+        setBoundsDirty(channel);
+
+        updater.changed(new IcyBufferedImageEvent(this, IcyBufferedImageEventType.DATA_CHANGED, channel, region));
     }
 
     /**
@@ -3738,7 +4964,17 @@ public class IcyBufferedImage extends BufferedImage implements IcyColorModelList
             case DATA_CHANGED:
                 // update image components bounds
                 if (autoUpdateChannelBounds)
-                    updateChannelsBounds();
+                {
+                    final int channel = event.getParam();
+
+                    // min and max can't be maintained from the modified region only (previous
+                    // extrema may have been overwritten) but we can restrict to modified channel
+                    // other channels are dirty too --> update all
+                    if ((channel == -1) || !clearBoundsDirty(channel))
+                        updateChannelsBounds();
+                    else
+                        updateChannelBounds(channel);
+                }
                 break;
 
             // do here global process on image bounds change
@@ -20,6 +20,8 @@ package icy.image;
 
 import icy.common.EventHierarchicalChecker;
 
+import java.awt.Rectangle;
+
 /**
  * @author Stephane
  */
@@ -32,7 +34,8 @@ public class IcyBufferedImageEvent implements EventHierarchicalChecker
 
     private final IcyBufferedImage image;
     private final IcyBufferedImageEventType type;
-    private final int param;
+    private int param;
+    private Rectangle region;
 
     /**
      * @param image
@@ -49,12 +52,24 @@ public class IcyBufferedImageEvent implements EventHierarchicalChecker
      * @param param
      */
     public IcyBufferedImageEvent(IcyBufferedImage image, IcyBufferedImageEventType type, int param)
+    {
+        this(image, type, param, null);
+    }
+
+    /**
+     * @param image
+     * @param type
+     * @param param
+     * @param region
+     */
+    public IcyBufferedImageEvent(IcyBufferedImage image, IcyBufferedImageEventType type, int param, Rectangle region)
     {
         super();
 
         this.image = image;
         this.type = type;
         this.param = param;
+        this.region = region;
     }
 
     /**
@@ -74,13 +89,24 @@ public class IcyBufferedImageEvent implements EventHierarchicalChecker
     }
 
     /**
-     * @return the param
+     * Extra parameter of event.<br>
+     * It's used to specify the channel number for <code>DATA_CHANGED</code>,
+     * <code>BOUNDS_CHANGED</code> and <code>COLORMAP_CHANGED</code> event (-1 means all channels).
      */
     public int getParam()
     {
         return param;
     }
 
+    /**
+     * Modified region for <code>DATA_CHANGED</code> event.<br>
+     * <code>null</code> means the whole image.
+     */
+    public Rectangle getRegion()
+    {
+        return region;
+    }
+
     @Override
     public boolean isEventRedundantWith(EventHierarchicalChecker event)
     {
@@ -88,7 +114,25 @@ public class IcyBufferedImageEvent implements EventHierarchicalChecker
         {
             final IcyBufferedImageEvent e = (IcyBufferedImageEvent) event;
 
-            return (type == e.getType()) && ((param == -1) || (param == e.getParam()));
+            if (type != e.getType())
+                return false;
+
+            // merge data change events in a single event
+            if (type == IcyBufferedImageEventType.DATA_CHANGED)
+            {
+                if (param != e.getParam())
+                    param = -1;
+
+                // union of modified regions
+                if ((region != null) && (e.getRegion() != null))
+                    region = region.union(e.getRegion());
+                else
+                    region = null;
+
+                return true;
+            }
+
+            return (param == -1) || (param == e.getParam());
         }
 
         return false;
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2010, 2011 Institut Pasteur.
+ * 
+ * This file is part of ICY.
+ * 
+ * ICY is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * ICY is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with ICY. If not, see <http://www.gnu.org/licenses/>.
+ */
+package icy.image;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferDouble;
+import java.awt.image.DataBufferFloat;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DataBufferShort;
+import java.awt.image.DataBufferUShort;
+import java.awt.image.SampleModel;
+import java.awt.image.WritableRaster;
+
+/**
+ * WritableRaster used internally by {@link IcyBufferedImage}.<br>
+ * It allows the image to release and reload its data buffer (see
+ * {@link IcyBufferedImage#releaseData()}).
+ * 
+ * @author Stephane
+ */
+class IcyWritableRaster extends WritableRaster
+{
+    /**
+     * owner image
+     */
+    private IcyBufferedImage image;
+
+    /**
+     * Build an IcyWritableRaster sharing data of the specified raster
+     */
+    IcyWritableRaster(WritableRaster raster)
+    {
+        super(raster.getSampleModel(), raster.getDataBuffer(), new Rectangle(raster.getMinX(), raster.getMinY(),
+                raster.getWidth(), raster.getHeight()), new Point(raster.getSampleModelTranslateX(),
+                raster.getSampleModelTranslateY()), null);
+
+        image = null;
+    }
+
+    /**
+     * Build an IcyWritableRaster from the specified SampleModel without any data (released state).
+     */
+    IcyWritableRaster(SampleModel sampleModel)
+    {
+        super(sampleModel, createEmptyDataBuffer(sampleModel), new Point(0, 0));
+
+        // no data yet
+        dataBuffer = null;
+        image = null;
+    }
+
+    /**
+     * Create an empty data buffer compatible with the specified SampleModel
+     */
+    private static DataBuffer createEmptyDataBuffer(SampleModel sampleModel)
+    {
+        final int numBanks = sampleModel.getNumBands();
+
+        switch (sampleModel.getDataType())
+        {
+            case DataBuffer.TYPE_BYTE:
+                return new DataBufferByte(0, numBanks);
+            case DataBuffer.TYPE_SHORT:
+                return new DataBufferShort(0, numBanks);
+            case DataBuffer.TYPE_USHORT:
+                return new DataBufferUShort(0, numBanks);
+            case DataBuffer.TYPE_INT:
+                return new DataBufferInt(0, numBanks);
+            case DataBuffer.TYPE_FLOAT:
+                return new DataBufferFloat(0, numBanks);
+            case DataBuffer.TYPE_DOUBLE:
+                return new DataBufferDouble(0, numBanks);
+            default:
+                throw new IllegalArgumentException("IcyWritableRaster error : unsupported data type : "
+                        + sampleModel.getDataType());
+        }
+    }
+
+    /**
+     * Returns <code>true</code> if the raster is not yet attached to an image.
+     */
+    boolean isFree()
+    {
+        return image == null;
+    }
+
+    void setImage(IcyBufferedImage value)
+    {
+        image = value;
+    }
+
+    /**
+     * Set the raster data buffer (can be <code>null</code> when data is released)
+     */
+    void setDataBuffer(DataBuffer value)
+    {
+        dataBuffer = value;
+    }
+
+    @Override
+    public DataBuffer getDataBuffer()
+    {
+        // data released --> reload it
+        if ((dataBuffer == null) && (image != null))
+            image.loadData();
+
+        return dataBuffer;
+    }
+}
@@ -359,10 +359,11 @@ public class ImageDataIterator implements DataIterator
             if (++y > endY)
             {
                 y = startY;
-                prepareDataXY();
 
                 if (++c > endC)
                     done = true;
+                else
+                    prepareDataXY();
             }
         }
     }
@@ -390,7 +391,7 @@ public class ImageDataIterator implements DataIterator
         if (done)
             throw new NoSuchElementException(null);
 
-        Array1DUtil.setValue(data, image.getOffset(x, y), dataType, value);
+        setValue(value);
         next();
     }
 
@@ -409,6 +410,31 @@ public class ImageDataIterator implements DataIterator
         if (done)
             throw new NoSuchElementException(null);
 
-        Array1DUtil.setValue(data, image.getOffset(x, y), dataType, value);
+        setValue(value);
+    }
+
+    /**
+     * Set the value at current position.<br>
+     * Storage backed data is pinned while written so it cannot be released meanwhile (and data
+     * array is retrieved again as data may have been released since iteration started).
+     */
+    protected void setValue(double value)
+    {
+        if (image.getStorage() == null)
+        {
+            Array1DUtil.setValue(data, image.getOffset(x, y), dataType, value);
+            return;
+        }
+
+        image.pinData();
+        try
+        {
+            data = image.getDataXY(c);
+            Array1DUtil.setValue(data, image.getOffset(x, y), dataType, value);
+        }
+        finally
+        {
+            image.unpinData();
+        }
     }
 }
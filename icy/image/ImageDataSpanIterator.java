@@ -0,0 +1,337 @@
+/*
+ * Copyright 2010, 2011 Institut Pasteur.
+ *
+ * This file is part of ICY.
+ *
+ * ICY is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ICY is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ICY. If not, see <http://www.gnu.org/licenses/>.
+ */
+package icy.image;
+
+import icy.roi.BooleanMask2D;
+import icy.roi.ROI;
+import icy.roi.ROI2D;
+import icy.type.DataSpanIterator;
+import icy.type.DataType;
+
+import java.awt.Rectangle;
+
+/**
+ * Image data span iterator.<br>
+ * Iterate <code>IcyBufferedImage</code> data by contiguous spans in XYC <i>([C[Y[X]]])</i>
+ * dimension order (see {@link DataSpanIterator}).<br>
+ * Spans are computed once at creation (from the region or the ROI mask runs) so iteration itself
+ * does not do any per pixel test.<br>
+ * <b>If the image size or type is modified during iteration the iterator
+ * becomes invalid and can causes exception to happen.</b>
+ * 
+ * @author Stephane
+ */
+public class ImageDataSpanIterator implements DataSpanIterator
+{
+    /**
+     * Return spans (<code>[offset, length]</code> pairs) for the specified region of an image
+     * with the specified width.<br>
+     * If region covers whole rows a single span is returned.
+     */
+    public static int[] createRuns(Rectangle region, int sizeX)
+    {
+        if (region.isEmpty())
+            return new int[0];
+
+        // whole rows --> single span
+        if ((region.x == 0) && (region.width == sizeX))
+            return new int[] {region.y * sizeX, region.height * sizeX};
+
+        final int[] result = new int[region.height * 2];
+        int offset = (region.y * sizeX) + region.x;
+
+        for (int i = 0; i < result.length; i += 2)
+        {
+            result[i + 0] = offset;
+            result[i + 1] = region.width;
+            offset += sizeX;
+        }
+
+        return result;
+    }
+
+    /**
+     * Return spans (<code>[offset, length]</code> pairs) for the specified mask clipped to the
+     * specified image size.
+     */
+    public static int[] createRuns(BooleanMask2D mask, int sizeX, int sizeY)
+    {
+        final int[] runs = mask.getRuns(new Rectangle(0, 0, sizeX, sizeY));
+        final int[] result = new int[(runs.length / 3) * 2];
+        int off = 0;
+
+        for (int i = 0; i < runs.length; i += 3)
+        {
+            final int offset = (runs[i + 0] * sizeX) + runs[i + 1];
+            final int length = runs[i + 2];
+
+            // merge with previous span when contiguous (full rows)
+            if ((off > 0) && ((result[off - 2] + result[off - 1]) == offset))
+                result[off - 1] += length;
+            else
+            {
+                result[off++] = offset;
+                result[off++] = length;
+            }
+        }
+
+        if (off == result.length)
+            return result;
+
+        final int[] merged = new int[off];
+        System.arraycopy(result, 0, merged, 0, off);
+        return merged;
+    }
+
+    protected final IcyBufferedImage image;
+    protected final DataType dataType;
+    protected final int[] runs;
+
+    protected int startC, endC;
+
+    /**
+     * internals
+     */
+    protected int c;
+    protected int runIndex;
+    protected Object data;
+
+    /**
+     * Create a new ImageData span iterator to iterate data of the specified spans (see
+     * {@link #createRuns(Rectangle, int)}) and C dimension.
+     * 
+     * @param image
+     *        Image we want to iterate data from
+     * @param runs
+     *        spans as <code>[offset, length]</code> pairs
+     * @param startC
+     *        start C position
+     * @param endC
+     *        end C position
+     */
+    public ImageDataSpanIterator(IcyBufferedImage image, int[] runs, int startC, int endC)
+    {
+        super();
+
+        this.image = image;
+        this.runs = runs;
+
+        if (image != null)
+        {
+            dataType = image.getDataType_();
+
+            this.startC = Math.max(startC, 0);
+            this.endC = Math.min(endC, image.getSizeC() - 1);
+        }
+        else
+            dataType = DataType.UNDEFINED;
+
+        // start iterator
+        reset();
+    }
+
+    /**
+     * Create a new ImageData span iterator to iterate data through the specified dimensions
+     * (inclusive).
+     * 
+     * @param image
+     *        Image we want to iterate data from
+     * @param startX
+     *        start X position
+     * @param endX
+     *        end X position
+     * @param startY
+     *        start Y position
+     * @param endY
+     *        end Y position
+     * @param startC
+     *        start C position
+     * @param endC
+     *        end C position
+     */
+    public ImageDataSpanIterator(IcyBufferedImage image, int startX, int endX, int startY, int endY, int startC,
+            int endC)
+    {
+        this(image, (image == null) ? new int[0] : createRuns(
+                new Rectangle(startX, startY, (endX - startX) + 1, (endY - startY) + 1).intersection(image
+                        .getBounds()), image.getSizeX()), startC, endC);
+    }
+
+    /**
+     * Create a new ImageData span iterator to iterate data of specified channel.
+     * 
+     * @param image
+     *        Image we want to iterate data from
+     * @param c
+     *        C position (channel) we want to iterate data
+     */
+    public ImageDataSpanIterator(IcyBufferedImage image, int c)
+    {
+        this(image, 0, image.getSizeX() - 1, 0, image.getSizeY() - 1, c, c);
+    }
+
+    /**
+     * Create a new ImageData span iterator to iterate all data.
+     * 
+     * @param image
+     *        Image we want to iterate data from
+     */
+    public ImageDataSpanIterator(IcyBufferedImage image)
+    {
+        this(image, 0, image.getSizeX() - 1, 0, image.getSizeY() - 1, 0, image.getSizeC() - 1);
+    }
+
+    /**
+     * Create a new ImageData span iterator to iterate data through the specified
+     * <code>BooleanMask2D</code> and C dimension.
+     * 
+     * @param image
+     *        Image we want to iterate data from
+     * @param maskXY
+     *        BooleanMask2D defining the XY region to iterate
+     * @param startC
+     *        start C position
+     * @param endC
+     *        end C position
+     */
+    public ImageDataSpanIterator(IcyBufferedImage image, BooleanMask2D maskXY, int startC, int endC)
+    {
+        this(image, (image == null) ? new int[0] : createRuns(maskXY, image.getSizeX(), image.getSizeY()), startC,
+                endC);
+    }
+
+    /**
+     * Create a new ImageData span iterator to iterate data through the specified ROI.<br>
+     * Only {@link ROI2D} is supported for now (iteration is empty for others ROI).
+     * 
+     * @param image
+     *        Image we want to iterate data from
+     * @param roi
+     *        ROI defining the region to iterate
+     */
+    public ImageDataSpanIterator(IcyBufferedImage image, ROI roi)
+    {
+        this(image, ((image == null) || !(roi instanceof ROI2D)) ? new int[0] : createRuns(
+                ((ROI2D) roi).getAsBooleanMask(), image.getSizeX(), image.getSizeY()), getStartC(image, roi),
+                getEndC(image, roi));
+    }
+
+    private static int getStartC(IcyBufferedImage image, ROI roi)
+    {
+        if ((image == null) || !(roi instanceof ROI2D))
+            return 0;
+
+        final int roiC = ((ROI2D) roi).getC();
+
+        if ((roiC < 0) || (roiC >= image.getSizeC()))
+            return 0;
+
+        return roiC;
+    }
+
+    private static int getEndC(IcyBufferedImage image, ROI roi)
+    {
+        if ((image == null) || !(roi instanceof ROI2D))
+            return -1;
+
+        final int roiC = ((ROI2D) roi).getC();
+
+        if (roiC == -1)
+            return image.getSizeC() - 1;
+        if ((roiC < 0) || (roiC >= image.getSizeC()))
+            return -1;
+
+        return roiC;
+    }
+
+    /**
+     * Returns the spans (<code>[offset, length]</code> pairs) iterated in each channel.
+     */
+    public int[] getRuns()
+    {
+        return runs;
+    }
+
+    @Override
+    public void reset()
+    {
+        c = startC - 1;
+        runIndex = runs.length;
+        data = null;
+    }
+
+    @Override
+    public boolean nextSpan()
+    {
+        if (image == null)
+            return false;
+
+        runIndex += 2;
+
+        // end of channel --> pass to next one
+        while (runIndex >= runs.length)
+        {
+            if (c >= endC)
+            {
+                // keep done state
+                c = endC;
+                runIndex = runs.length;
+                return false;
+            }
+
+            c++;
+            data = image.getDataXYReadOnly(c);
+            runIndex = 0;
+        }
+
+        return true;
+    }
+
+    @Override
+    public DataType getDataType()
+    {
+        return dataType;
+    }
+
+    @Override
+    public Object getData()
+    {
+        return data;
+    }
+
+    @Override
+    public int getOffset()
+    {
+        return runs[runIndex + 0];
+    }
+
+    @Override
+    public int getLength()
+    {
+        return runs[runIndex + 1];
+    }
+
+    /**
+     * Returns the channel of the current span.
+     */
+    public int getC()
+    {
+        return c;
+    }
+}
@@ -0,0 +1,282 @@
+/*
+ * Copyright 2010, 2011 Institut Pasteur.
+ *
+ * This file is part of ICY.
+ *
+ * ICY is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ICY is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ICY. If not, see <http://www.gnu.org/licenses/>.
+ */
+package icy.image;
+
+import icy.system.SystemUtil;
+import icy.type.DataType;
+import icy.type.collection.array.Array1DUtil;
+import icy.type.collection.array.ArrayUtil;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Pool of {@link IcyBufferedImage} and data arrays for repeated processing.<br>
+ * Images (and arrays) are kept by format (size, number of channel and data type) when released
+ * (see {@link #release(IcyBufferedImage)}) so next {@link #acquire(int, int, int, DataType)} of the
+ * same format returns them instead of allocating a new one.<br>
+ * Used with the <code>out</code> parameter variant of {@link IcyBufferedImage} transforms
+ * (see {@link IcyBufferedImage#convertToType(DataType, icy.math.Scaler, IcyBufferedImage)}) a
+ * processing loop can run without any image allocation.<br>
+ * Content of an acquired image or array is undefined.
+ * 
+ * @author Stephane
+ */
+public class ImagePool
+{
+    /**
+     * pool key
+     */
+    private static class Format
+    {
+        final int sizeX;
+        final int sizeY;
+        final int sizeC;
+        final DataType dataType;
+
+        Format(int sizeX, int sizeY, int sizeC, DataType dataType)
+        {
+            super();
+
+            this.sizeX = sizeX;
+            this.sizeY = sizeY;
+            this.sizeC = sizeC;
+            this.dataType = dataType;
+        }
+
+        long getDataSize()
+        {
+            return (long) sizeX * (long) sizeY * sizeC * dataType.getSize();
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            if (obj instanceof Format)
+            {
+                final Format f = (Format) obj;
+
+                return (f.sizeX == sizeX) && (f.sizeY == sizeY) && (f.sizeC == sizeC) && (f.dataType == dataType);
+            }
+
+            return super.equals(obj);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return (((((sizeX * 31) + sizeY) * 31) + sizeC) * 31) + dataType.ordinal();
+        }
+    }
+
+    /**
+     * maximum number of pooled object of same format
+     */
+    public static final int MAX_PER_FORMAT = 8;
+
+    /**
+     * pool budget (in bytes)
+     */
+    private static long maxSize = SystemUtil.getJavaMaxMemory() / 16;
+    /**
+     * pool current size (in bytes)
+     */
+    private static long size = 0;
+
+    private static final HashMap<Format, List<IcyBufferedImage>> images = new HashMap<Format, List<IcyBufferedImage>>();
+    private static final HashMap<Format, List<Object>> arrays = new HashMap<Format, List<Object>>();
+
+    /**
+     * Return the pool budget (in bytes)
+     */
+    public static synchronized long getMaxSize()
+    {
+        return maxSize;
+    }
+
+    /**
+     * Set the pool budget (in bytes).<br>
+     * Released images or arrays are not kept when this size is reached.
+     */
+    public static synchronized void setMaxSize(long value)
+    {
+        maxSize = Math.max(0, value);
+
+        if (size > maxSize)
+            clear();
+    }
+
+    /**
+     * Return the size (in bytes) of pooled data
+     */
+    public static synchronized long getSize()
+    {
+        return size;
+    }
+
+    /**
+     * Release all pooled images and arrays
+     */
+    public static synchronized void clear()
+    {
+        images.clear();
+        arrays.clear();
+        size = 0;
+    }
+
+    /**
+     * Return an image of the specified format (pooled one if available).<br>
+     * Image content is undefined.
+     */
+    public static IcyBufferedImage acquire(int sizeX, int sizeY, int sizeC, DataType dataType)
+    {
+        final Format format = new Format(sizeX, sizeY, sizeC, dataType);
+
+        synchronized (ImagePool.class)
+        {
+            final List<IcyBufferedImage> list = images.get(format);
+
+            if ((list != null) && !list.isEmpty())
+            {
+                size -= format.getDataSize();
+                return list.remove(list.size() - 1);
+            }
+        }
+
+        return new IcyBufferedImage(sizeX, sizeY, sizeC, dataType);
+    }
+
+    /**
+     * Return an image with same format as the specified one (pooled one if available).<br>
+     * Image content is undefined.
+     */
+    public static IcyBufferedImage acquire(IcyBufferedImage image)
+    {
+        return acquire(image.getSizeX(), image.getSizeY(), image.getSizeC(), image.getDataType_());
+    }
+
+    /**
+     * Give back an image to the pool.<br>
+     * The image should not be used anymore by the caller. Images using a storage (see
+     * {@link IcyBufferedImage#getStorage()}) or still listened (in a sequence for instance) are not
+     * pooled.
+     * 
+     * @return <code>true</code> if the image has been pooled
+     */
+    public static boolean release(IcyBufferedImage image)
+    {
+        if ((image == null) || !image.isPoolable())
+            return false;
+
+        final Format format = new Format(image.getSizeX(), image.getSizeY(), image.getSizeC(), image.getDataType_());
+
+        synchronized (ImagePool.class)
+        {
+            final long dataSize = format.getDataSize();
+
+            if ((size + dataSize) > maxSize)
+                return false;
+
+            List<IcyBufferedImage> list = images.get(format);
+
+            if (list == null)
+            {
+                list = new ArrayList<IcyBufferedImage>();
+                images.put(format, list);
+            }
+            else if ((list.size() >= MAX_PER_FORMAT) || list.contains(image))
+                return false;
+
+            list.add(image);
+            size += dataSize;
+        }
+
+        return true;
+    }
+
+    /**
+     * Return an 1D array of specified data type and length (pooled one if available).<br>
+     * Array content is undefined.
+     */
+    public static Object acquireArray(DataType dataType, int len)
+    {
+        final Format format = new Format(len, 1, 1, dataType.getJavaType());
+
+        synchronized (ImagePool.class)
+        {
+            final List<Object> list = arrays.get(format);
+
+            if ((list != null) && !list.isEmpty())
+            {
+                size -= format.getDataSize();
+                return list.remove(list.size() - 1);
+            }
+        }
+
+        return Array1DUtil.createArray(dataType, len);
+    }
+
+    /**
+     * Give back a 1D array to the pool.<br>
+     * The array should not be used anymore by the caller.
+     * 
+     * @return <code>true</code> if the array has been pooled
+     */
+    public static boolean releaseArray(Object array)
+    {
+        if ((array == null) || (ArrayUtil.getDim(array) != 1))
+            return false;
+
+        final DataType dataType = ArrayUtil.getDataType(array);
+
+        if ((dataType == null) || (dataType == DataType.UNDEFINED))
+            return false;
+
+        final Format format = new Format(ArrayUtil.getLength(array), 1, 1, dataType);
+
+        synchronized (ImagePool.class)
+        {
+            final long dataSize = format.getDataSize();
+
+            if ((size + dataSize) > maxSize)
+                return false;
+
+            List<Object> list = arrays.get(format);
+
+            if (list == null)
+            {
+                list = new ArrayList<Object>();
+                arrays.put(format, list);
+            }
+            else if (list.size() >= MAX_PER_FORMAT)
+                return false;
+
+            // no duplicate
+            for (Object o : list)
+                if (o == array)
+                    return false;
+
+            list.add(array);
+            size += dataSize;
+        }
+
+        return true;
+    }
+}
@@ -0,0 +1,499 @@
+/*
+ * Copyright 2010, 2011 Institut Pasteur.
+ *
+ * This file is part of ICY.
+ *
+ * ICY is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ICY is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ICY. If not, see <http://www.gnu.org/licenses/>.
+ */
+package icy.image;
+
+import icy.image.storage.PlaneStorage.StorageType;
+import icy.type.DataType;
+import icy.type.collection.array.ArrayUtil;
+
+import java.awt.Rectangle;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Power of two multi resolution pyramid of an {@link IcyBufferedImage}.<br>
+ * Level 0 is the image itself, level <code>n</code> is the image downscaled by
+ * <code>2^n</code> (area averaging).<br>
+ * Levels are built on demand from the previous level and cached until the image data changes
+ * (see {@link #invalidate()}). Small data changes only update the affected region of built levels
+ * (see {@link #invalidate(Rectangle)}).
+ *
+ * @author Stephane
+ */
+public class ImagePyramid
+{
+    /**
+     * levels are created while image size is above this value
+     */
+    public static final int MIN_LEVEL_SIZE = 64;
+
+    /**
+     * Return the image downscaled by a factor 2 in X and Y dimension (2x2 area averaging).
+     */
+    public static IcyBufferedImage downscale(IcyBufferedImage image)
+    {
+        final int dw = (image.getSizeX() + 1) / 2;
+        final int dh = (image.getSizeY() + 1) / 2;
+        final IcyBufferedImage result = new IcyBufferedImage(dw, dh, image.getSizeC(), image.getDataType_());
+
+        downscale(image, result, new Rectangle(0, 0, dw, dh));
+
+        return result;
+    }
+
+    /**
+     * Compute the specified region of <code>dst</code> image by downscaling <code>src</code> image
+     * by a factor 2 (2x2 area averaging).<br>
+     * <code>dst</code> size should be the downscaled <code>src</code> size.
+     */
+    static void downscale(IcyBufferedImage src, IcyBufferedImage dst, Rectangle region)
+    {
+        final int w = src.getSizeX();
+        final int h = src.getSizeY();
+        final int dw = dst.getSizeX();
+        final int sizeC = src.getSizeC();
+        final boolean signed = src.getDataType_().isSigned();
+
+        // keep data in memory while we access arrays
+        src.pinData();
+        dst.pinData();
+        try
+        {
+            for (int c = 0; c < sizeC; c++)
+                downscale(src.getDataXYReadOnly(c), w, h, dst.getDataXY(c), dw, region, signed);
+        }
+        finally
+        {
+            dst.unpinData();
+            src.unpinData();
+        }
+
+        dst.dataChanged(region, -1);
+    }
+
+    /**
+     * Downscale the <code>src</code> [XY] array by a factor 2 in the specified region of
+     * <code>dst</code> array.<br>
+     * Border pixels are duplicated which keep the mean correct.
+     */
+    private static void downscale(Object src, int w, int h, Object dst, int dw, Rectangle region, boolean signed)
+    {
+        final int startX = region.x;
+        final int endX = region.x + region.width;
+        final int startY = region.y;
+        final int endY = region.y + region.height;
+
+        switch (ArrayUtil.getDataType(src))
+        {
+            case BYTE:
+            {
+                final byte[] s = (byte[]) src;
+                final byte[] d = (byte[]) dst;
+                final int mask = signed ? -1 : 0xFF;
+
+                for (int dy = startY; dy < endY; dy++)
+                {
+                    final int y0 = (dy * 2) * w;
+                    final int y1 = Math.min((dy * 2) + 1, h - 1) * w;
+                    int off = (dy * dw) + startX;
+
+                    for (int dx = startX; dx < endX; dx++)
+                    {
+                        final int x0 = dx * 2;
+                        final int x1 = Math.min(x0 + 1, w - 1);
+
+                        d[off++] = (byte) (((s[y0 + x0] & mask) + (s[y0 + x1] & mask) + (s[y1 + x0] & mask) + (s[y1
+                                + x1] & mask)) / 4);
+                    }
+                }
+                break;
+            }
+
+            case SHORT:
+            {
+                final short[] s = (short[]) src;
+                final short[] d = (short[]) dst;
+                final int mask = signed ? -1 : 0xFFFF;
+
+                for (int dy = startY; dy < endY; dy++)
+                {
+                    final int y0 = (dy * 2) * w;
+                    final int y1 = Math.min((dy * 2) + 1, h - 1) * w;
+                    int off = (dy * dw) + startX;
+
+                    for (int dx = startX; dx < endX; dx++)
+                    {
+                        final int x0 = dx * 2;
+                        final int x1 = Math.min(x0 + 1, w - 1);
+
+                        d[off++] = (short) (((s[y0 + x0] & mask) + (s[y0 + x1] & mask) + (s[y1 + x0] & mask) + (s[y1
+                                + x1] & mask)) / 4);
+                    }
+                }
+                break;
+            }
+
+            case INT:
+            {
+                final int[] s = (int[]) src;
+                final int[] d = (int[]) dst;
+                final long mask = signed ? -1L : 0xFFFFFFFFL;
+
+                for (int dy = startY; dy < endY; dy++)
+                {
+                    final int y0 = (dy * 2) * w;
+                    final int y1 = Math.min((dy * 2) + 1, h - 1) * w;
+                    int off = (dy * dw) + startX;
+
+                    for (int dx = startX; dx < endX; dx++)
+                    {
+                        final int x0 = dx * 2;
+                        final int x1 = Math.min(x0 + 1, w - 1);
+
+                        d[off++] = (int) (((s[y0 + x0] & mask) + (s[y0 + x1] & mask) + (s[y1 + x0] & mask) + (s[y1
+                                + x1] & mask)) / 4);
+                    }
+                }
+                break;
+            }
+
+            case LONG:
+            {
+                final long[] s = (long[]) src;
+                final long[] d = (long[]) dst;
+
+                for (int dy = startY; dy < endY; dy++)
+                {
+                    final int y0 = (dy * 2) * w;
+                    final int y1 = Math.min((dy * 2) + 1, h - 1) * w;
+                    int off = (dy * dw) + startX;
+
+                    for (int dx = startX; dx < endX; dx++)
+                    {
+                        final int x0 = dx * 2;
+                        final int x1 = Math.min(x0 + 1, w - 1);
+                        final long v0 = s[y0 + x0];
+                        final long v1 = s[y0 + x1];
+                        final long v2 = s[y1 + x0];
+                        final long v3 = s[y1 + x1];
+                        // sum of 4 values can overflow so divide first and add remainders
+                        final long rem = ((v0 & 3) + (v1 & 3) + (v2 & 3) + (v3 & 3)) >> 2;
+
+                        if (signed)
+                            d[off++] = (v0 >> 2) + (v1 >> 2) + (v2 >> 2) + (v3 >> 2) + rem;
+                        else
+                            d[off++] = (v0 >>> 2) + (v1 >>> 2) + (v2 >>> 2) + (v3 >>> 2) + rem;
+                    }
+                }
+                break;
+            }
+
+            case FLOAT:
+            {
+                final float[] s = (float[]) src;
+                final float[] d = (float[]) dst;
+
+                for (int dy = startY; dy < endY; dy++)
+                {
+                    final int y0 = (dy * 2) * w;
+                    final int y1 = Math.min((dy * 2) + 1, h - 1) * w;
+                    int off = (dy * dw) + startX;
+
+                    for (int dx = startX; dx < endX; dx++)
+                    {
+                        final int x0 = dx * 2;
+                        final int x1 = Math.min(x0 + 1, w - 1);
+
+                        d[off++] = (float) (((double) s[y0 + x0] + s[y0 + x1] + s[y1 + x0] + s[y1 + x1]) / 4d);
+                    }
+                }
+                break;
+            }
+
+            case DOUBLE:
+            {
+                final double[] s = (double[]) src;
+                final double[] d = (double[]) dst;
+
+                for (int dy = startY; dy < endY; dy++)
+                {
+                    final int y0 = (dy * 2) * w;
+                    final int y1 = Math.min((dy * 2) + 1, h - 1) * w;
+                    int off = (dy * dw) + startX;
+
+                    for (int dx = startX; dx < endX; dx++)
+                    {
+                        final int x0 = dx * 2;
+                        final int x1 = Math.min(x0 + 1, w - 1);
+
+                        d[off++] = (s[y0 + x0] + s[y0 + x1] + s[y1 + x0] + s[y1 + x1]) / 4d;
+                    }
+                }
+                break;
+            }
+        }
+    }
+
+    /**
+     * Return the number of level (level 0 included) of a pyramid for the specified image size.
+     */
+    public static int getNumLevel(int sizeX, int sizeY)
+    {
+        int result = 1;
+        int size = Math.max(sizeX, sizeY);
+
+        while (size > MIN_LEVEL_SIZE)
+        {
+            size = (size + 1) / 2;
+            result++;
+        }
+
+        return result;
+    }
+
+    private final IcyBufferedImage image;
+    private final IcyBufferedImage[] levels;
+    private StorageType storageType;
+
+    /**
+     * internal: incremented on each invalidation
+     */
+    private int version;
+
+    public ImagePyramid(IcyBufferedImage image)
+    {
+        super();
+
+        this.image = image;
+        levels = new IcyBufferedImage[getNumLevel(image.getSizeX(), image.getSizeY())];
+        levels[0] = image;
+        storageType = StorageType.HEAP;
+        version = 0;
+    }
+
+    /**
+     * Return the source image (level 0)
+     */
+    public IcyBufferedImage getImage()
+    {
+        return image;
+    }
+
+    /**
+     * Return the number of level (level 0 included)
+     */
+    public int getNumLevel()
+    {
+        return levels.length;
+    }
+
+    /**
+     * Return the level to use to display the image at the specified scale factor.<br>
+     * This is the smallest level whose resolution is still greater or equal to the wanted one.
+     */
+    public int getLevelForScale(double scale)
+    {
+        if ((scale >= 1d) || (scale <= 0d))
+            return 0;
+
+        final int result = (int) Math.floor(Math.log(1d / scale) / Math.log(2d));
+
+        return Math.min(Math.max(result, 0), levels.length - 1);
+    }
+
+    /**
+     * Return the storage type used for levels.
+     */
+    public StorageType getStorageType()
+    {
+        return storageType;
+    }
+
+    /**
+     * Set the storage type used for levels (level 0 is not affected).<br>
+     * Use {@link StorageType#MAPPED} to keep levels on disk.
+     */
+    public void setStorageType(StorageType value)
+    {
+        storageType = value;
+    }
+
+    /**
+     * Returns <code>true</code> if the specified level is built.
+     */
+    public synchronized boolean isLevelAvailable(int level)
+    {
+        return levels[level] != null;
+    }
+
+    /**
+     * Return the specified level, build it (and the needed lower levels) if needed.<br>
+     * Built levels are only kept if image data did not change during the build. If data changed,
+     * the build is restarted once from the current data, then levels are built without being
+     * kept so the method always returns even if data is continuously modified.
+     */
+    public IcyBufferedImage getLevel(int level)
+    {
+        final int lvl = Math.min(Math.max(level, 0), levels.length - 1);
+        IcyBufferedImage src;
+        int srcLevel;
+        int srcVersion;
+        boolean restarted = false;
+
+        synchronized (this)
+        {
+            if (levels[lvl] != null)
+                return levels[lvl];
+
+            // find nearest built level
+            srcLevel = lvl - 1;
+            while (levels[srcLevel] == null)
+                srcLevel--;
+
+            src = levels[srcLevel];
+            srcVersion = version;
+        }
+
+        while (true)
+        {
+            // build next level outside lock (can take sometime)
+            IcyBufferedImage result = buildLevel(src);
+
+            synchronized (this)
+            {
+                if (version == srcVersion)
+                {
+                    // store it (or use the one built meanwhile)
+                    if (levels[srcLevel + 1] == null)
+                        levels[srcLevel + 1] = result;
+                    else
+                        result = levels[srcLevel + 1];
+                }
+                else if (!restarted)
+                {
+                    // invalidated meanwhile --> restart once from current data
+                    restarted = true;
+
+                    if (levels[lvl] != null)
+                        return levels[lvl];
+
+                    srcLevel = lvl - 1;
+                    while (levels[srcLevel] == null)
+                        srcLevel--;
+
+                    src = levels[srcLevel];
+                    srcVersion = version;
+                    continue;
+                }
+                // invalidated again --> data changes faster than we build, just return result
+            }
+
+            srcLevel++;
+            if (srcLevel == lvl)
+                return result;
+
+            src = result;
+        }
+    }
+
+    /**
+     * Build next level from the specified one.
+     */
+    private IcyBufferedImage buildLevel(IcyBufferedImage src)
+    {
+        final IcyBufferedImage result = downscale(src);
+
+        if (storageType != StorageType.HEAP)
+        {
+            try
+            {
+                result.setStorageType(storageType);
+            }
+            catch (IOException e)
+            {
+                System.err.println("ImagePyramid.getLevel(..) error : cannot store level data, data kept in java heap.");
+                System.err.println(e.getMessage());
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Invalidate all levels (should be called when image data changed).
+     */
+    public void invalidate()
+    {
+        synchronized (this)
+        {
+            for (int l = 1; l < levels.length; l++)
+                levels[l] = null;
+
+            version++;
+        }
+    }
+
+    /**
+     * Update built levels for a data change of the specified region of the image (should be
+     * called when image data changed).<br>
+     * Only the affected region of built levels is recalculated, all levels are invalidated (see
+     * {@link #invalidate()}) if region is <code>null</code> or large.
+     */
+    public void invalidate(Rectangle region)
+    {
+        final Rectangle bounds = image.getBounds();
+        final Rectangle r = (region == null) ? bounds : region.intersection(bounds);
+
+        if (r.isEmpty())
+            return;
+
+        // large change --> cheaper to rebuild levels on demand
+        if (((long) r.width * r.height) > (((long) bounds.width * bounds.height) / 4))
+        {
+            invalidate();
+            return;
+        }
+
+        final List<IcyBufferedImage> built = new ArrayList<IcyBufferedImage>();
+
+        synchronized (this)
+        {
+            // levels being built from old data should not be stored
+            version++;
+
+            // levels are built in order
+            for (int l = 0; (l < levels.length) && (levels[l] != null); l++)
+                built.add(levels[l]);
+        }
+
+        // update region of each built level from the previous one
+        for (int l = 1; l < built.size(); l++)
+        {
+            final IcyBufferedImage dst = built.get(l);
+            final int x = r.x / 2;
+            final int y = r.y / 2;
+
+            r.setBounds(x, y, Math.min(((r.x + r.width - 1) / 2) + 1, dst.getSizeX()) - x,
+                    Math.min(((r.y + r.height - 1) / 2) + 1, dst.getSizeY()) - y);
+
+            downscale(built.get(l - 1), dst, r);
+        }
+    }
+}
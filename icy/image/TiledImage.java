@@ -0,0 +1,470 @@
+/*
+ * Copyright 2010, 2011 Institut Pasteur.
+ *
+ * This file is part of ICY.
+ *
+ * ICY is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ICY is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ICY. If not, see <http://www.gnu.org/licenses/>.
+ */
+package icy.image;
+
+import icy.image.storage.PlaneStorage.StorageType;
+import icy.type.DataType;
+import icy.type.collection.array.Array1DUtil;
+
+import java.awt.Rectangle;
+import java.io.IOException;
+
+/**
+ * Large 2D multi channel image stored as fixed size tiles.<br>
+ * Each tile is an {@link IcyBufferedImage} so its data is limited to the tile size (whole image
+ * size is not limited by the java array size) and can use a {@link StorageType} to be released
+ * from java heap when not used.<br>
+ * Tiles are created on first access, missing tiles read as 0.<br>
+ * Region accessors stitch tiles data in a single contiguous array (see
+ * {@link #getDataCopyXY(Rectangle, int)}) so legacy code working on [XY] arrays can still be used
+ * on a region of the image.
+ *
+ * @author Stephane
+ */
+public class TiledImage
+{
+    /**
+     * default tile size (in pixel)
+     */
+    public static final int DEFAULT_TILE_SIZE = 512;
+
+    /**
+     * Create a tiled image from the specified image.
+     */
+    public static TiledImage createFrom(IcyBufferedImage image, int tileSize)
+    {
+        final TiledImage result = new TiledImage(image.getSizeX(), image.getSizeY(), image.getSizeC(),
+                image.getDataType_(), tileSize);
+        final Rectangle bounds = image.getBounds();
+
+        for (int c = 0; c < image.getSizeC(); c++)
+            result.setDataXY(bounds, c, image.getDataXY(c));
+
+        return result;
+    }
+
+    /**
+     * Create a tiled image from the specified image with default tile size.
+     */
+    public static TiledImage createFrom(IcyBufferedImage image)
+    {
+        return createFrom(image, DEFAULT_TILE_SIZE);
+    }
+
+    private final int sizeX;
+    private final int sizeY;
+    private final int sizeC;
+    private final DataType dataType;
+    private final int tileSize;
+    private final int numTileX;
+    private final int numTileY;
+
+    /**
+     * tiles [tileY][tileX]
+     */
+    private final IcyBufferedImage[] tiles;
+    /**
+     * tiles storage type (modified while holding tiles lock)
+     */
+    private volatile StorageType storageType;
+
+    /**
+     * Create a new tiled image.
+     *
+     * @param sizeX
+     *        image width
+     * @param sizeY
+     *        image height
+     * @param sizeC
+     *        number of channel
+     * @param dataType
+     *        data type
+     * @param tileSize
+     *        size (width and height) of a tile
+     */
+    public TiledImage(int sizeX, int sizeY, int sizeC, DataType dataType, int tileSize)
+    {
+        super();
+
+        if ((sizeX <= 0) || (sizeY <= 0) || (sizeC <= 0) || (tileSize <= 0))
+            throw new IllegalArgumentException("TiledImage(..) error : size should be > 0");
+
+        this.sizeX = sizeX;
+        this.sizeY = sizeY;
+        this.sizeC = sizeC;
+        this.dataType = dataType;
+        this.tileSize = tileSize;
+
+        numTileX = ((sizeX - 1) / tileSize) + 1;
+        numTileY = ((sizeY - 1) / tileSize) + 1;
+
+        tiles = new IcyBufferedImage[numTileX * numTileY];
+        storageType = StorageType.HEAP;
+    }
+
+    /**
+     * Create a new tiled image with default tile size.
+     */
+    public TiledImage(int sizeX, int sizeY, int sizeC, DataType dataType)
+    {
+        this(sizeX, sizeY, sizeC, dataType, DEFAULT_TILE_SIZE);
+    }
+
+    public int getSizeX()
+    {
+        return sizeX;
+    }
+
+    public int getSizeY()
+    {
+        return sizeY;
+    }
+
+    public int getSizeC()
+    {
+        return sizeC;
+    }
+
+    public DataType getDataType_()
+    {
+        return dataType;
+    }
+
+    public boolean isSignedDataType()
+    {
+        return dataType.isSigned();
+    }
+
+    /**
+     * Return the image bounds
+     */
+    public Rectangle getBounds()
+    {
+        return new Rectangle(sizeX, sizeY);
+    }
+
+    /**
+     * Return the size (width and height) of a tile
+     */
+    public int getTileSize()
+    {
+        return tileSize;
+    }
+
+    /**
+     * Return the number of tile in X dimension
+     */
+    public int getNumTileX()
+    {
+        return numTileX;
+    }
+
+    /**
+     * Return the number of tile in Y dimension
+     */
+    public int getNumTileY()
+    {
+        return numTileY;
+    }
+
+    /**
+     * Return the X index of the tile containing the specified X position
+     */
+    public int getTileIndexX(int x)
+    {
+        return x / tileSize;
+    }
+
+    /**
+     * Return the Y index of the tile containing the specified Y position
+     */
+    public int getTileIndexY(int y)
+    {
+        return y / tileSize;
+    }
+
+    /**
+     * Return the bounds of the specified tile (in image coordinates).<br>
+     * Tiles of the last column and row can be smaller than tile size.
+     */
+    public Rectangle getTileBounds(int tileX, int tileY)
+    {
+        final int x = tileX * tileSize;
+        final int y = tileY * tileSize;
+
+        return new Rectangle(x, y, Math.min(tileSize, sizeX - x), Math.min(tileSize, sizeY - y));
+    }
+
+    /**
+     * Returns <code>true</code> if the specified tile has already been created.
+     */
+    public boolean hasTile(int tileX, int tileY)
+    {
+        return tiles[(tileY * numTileX) + tileX] != null;
+    }
+
+    /**
+     * Return the specified tile (created if needed).<br>
+     * Tile data is directly the image data so any modification (followed by
+     * {@link IcyBufferedImage#dataChanged()}) affects this image.
+     */
+    public IcyBufferedImage getTile(int tileX, int tileY)
+    {
+        final int index = (tileY * numTileX) + tileX;
+        IcyBufferedImage result;
+
+        synchronized (tiles)
+        {
+            result = tiles[index];
+
+            if (result == null)
+            {
+                final Rectangle bounds = getTileBounds(tileX, tileY);
+
+                result = new IcyBufferedImage(bounds.width, bounds.height, sizeC, dataType);
+                tiles[index] = result;
+            }
+
+            // done in lock so it can't be mixed with a storage type change
+            applyStorageType(result);
+        }
+
+        return result;
+    }
+
+    /**
+     * Return the tiles storage type.
+     */
+    public StorageType getStorageType()
+    {
+        return storageType;
+    }
+
+    /**
+     * Set the storage type of tiles (see {@link IcyBufferedImage#setStorageType(StorageType)}).
+     * <br>
+     * Using {@link StorageType#MAPPED} permits to work on images larger than the available memory.
+     */
+    public void setStorageType(StorageType value) throws IOException
+    {
+        if ((value == StorageType.READER) || (value == StorageType.VIEW) || (value == StorageType.VOLUME))
+            throw new IllegalArgumentException("TiledImage.setStorageType(..) error : " + value
+                    + " type not supported.");
+
+        synchronized (tiles)
+        {
+            storageType = value;
+
+            for (int i = 0; i < tiles.length; i++)
+            {
+                final IcyBufferedImage tile = tiles[i];
+
+                if (tile != null)
+                    tile.setStorageType(value);
+            }
+        }
+    }
+
+    private void applyStorageType(IcyBufferedImage tile)
+    {
+        if (tile.getStorageType() != storageType)
+        {
+            try
+            {
+                tile.setStorageType(storageType);
+            }
+            catch (IOException e)
+            {
+                System.err.println("TiledImage.getTile(..) error : cannot store tile data, data kept in java heap.");
+                System.err.println(e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Return the value located at (x, y, c) position as a double whatever is the internal data
+     * type.
+     */
+    public double getData(int x, int y, int c)
+    {
+        final int tx = getTileIndexX(x);
+        final int ty = getTileIndexY(y);
+
+        // missing tile
+        if (!hasTile(tx, ty))
+            return 0d;
+
+        final IcyBufferedImage tile = getTile(tx, ty);
+
+        return tile.getData(x - (tx * tileSize), y - (ty * tileSize), c);
+    }
+
+    /**
+     * Set the value located at (x, y, c) position as a double whatever is the internal data type.
+     */
+    public void setData(int x, int y, int c, double value)
+    {
+        final int tx = getTileIndexX(x);
+        final int ty = getTileIndexY(y);
+
+        getTile(tx, ty).setData(x - (tx * tileSize), y - (ty * tileSize), c, value);
+    }
+
+    /**
+     * Return a copy of the data of the specified region and channel stitched in a single 1D array
+     * ([XY] in region coordinates).
+     */
+    public Object getDataCopyXY(Rectangle region, int c)
+    {
+        final Rectangle r = region.intersection(getBounds());
+        final Object result = Array1DUtil.createArray(dataType, getArraySize(r));
+
+        copyData(r, c, result, false);
+
+        return result;
+    }
+
+    /**
+     * Return a copy of the whole data of the specified channel stitched in a single 1D array
+     * ([XY]).<br>
+     * This is provided for compatibility with code working on whole plane array, modifications
+     * done on the returned array are not reflected in the image (use
+     * {@link #setDataXY(Rectangle, int, Object)}).
+     */
+    public Object getDataCopyXY(int c)
+    {
+        return getDataCopyXY(getBounds(), c);
+    }
+
+    /**
+     * Set the data of the specified region and channel from a 1D array ([XY] in region
+     * coordinates).
+     */
+    public void setDataXY(Rectangle region, int c, Object values)
+    {
+        final Rectangle r = region.intersection(getBounds());
+
+        if (!r.equals(region))
+            throw new IllegalArgumentException("TiledImage.setDataXY(..) error : region is out of image bounds.");
+
+        copyData(r, c, values, true);
+    }
+
+    /**
+     * Return a copy of the specified region as a {@link IcyBufferedImage} (all channels).
+     */
+    public IcyBufferedImage getImage(Rectangle region)
+    {
+        final Rectangle r = region.intersection(getBounds());
+        final IcyBufferedImage result = new IcyBufferedImage(r.width, r.height, sizeC, dataType);
+
+        result.beginUpdate();
+        try
+        {
+            for (int c = 0; c < sizeC; c++)
+                copyData(r, c, result.getDataXY(c), false);
+
+            result.dataChanged();
+        }
+        finally
+        {
+            result.endUpdate();
+        }
+
+        return result;
+    }
+
+    /**
+     * Return the whole image as a single {@link IcyBufferedImage} (all tiles are stitched).
+     */
+    public IcyBufferedImage getImage()
+    {
+        return getImage(getBounds());
+    }
+
+    private static int getArraySize(Rectangle region)
+    {
+        final long size = (long) region.width * (long) region.height;
+
+        if (size > Integer.MAX_VALUE)
+            throw new UnsupportedOperationException("TiledImage error : region " + region
+                    + " is too large to be stored in a single array.");
+
+        return (int) size;
+    }
+
+    /**
+     * Copy data between tiles and a region array.
+     */
+    private void copyData(Rectangle region, int c, Object array, boolean toTiles)
+    {
+        if (region.isEmpty())
+            return;
+
+        final int startTX = getTileIndexX(region.x);
+        final int endTX = getTileIndexX(region.x + region.width - 1);
+        final int startTY = getTileIndexY(region.y);
+        final int endTY = getTileIndexY(region.y + region.height - 1);
+
+        for (int ty = startTY; ty <= endTY; ty++)
+        {
+            for (int tx = startTX; tx <= endTX; tx++)
+            {
+                // missing tile read as 0 (array is already cleared)
+                if (!toTiles && !hasTile(tx, ty))
+                    continue;
+
+                final IcyBufferedImage tile = getTile(tx, ty);
+                final Rectangle tileBounds = getTileBounds(tx, ty);
+                final Rectangle r = region.intersection(tileBounds);
+
+                // keep tile data in memory during the copy
+                tile.pinData();
+                try
+                {
+                    final Object tileData = toTiles ? tile.getDataXY(c) : tile.getDataXYReadOnly(c);
+
+                    int tileOffset = ((r.y - tileBounds.y) * tileBounds.width) + (r.x - tileBounds.x);
+                    int offset = ((r.y - region.y) * region.width) + (r.x - region.x);
+
+                    for (int y = 0; y < r.height; y++)
+                    {
+                        if (toTiles)
+                            System.arraycopy(array, offset, tileData, tileOffset, r.width);
+                        else
+                            System.arraycopy(tileData, tileOffset, array, offset, r.width);
+
+                        tileOffset += tileBounds.width;
+                        offset += region.width;
+                    }
+
+                    if (toTiles)
+                    {
+                        r.translate(-tileBounds.x, -tileBounds.y);
+                        tile.dataChanged(r, c);
+                    }
+                }
+                finally
+                {
+                    tile.unpinData();
+                }
+            }
+        }
+    }
+}
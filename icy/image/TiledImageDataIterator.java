@@ -0,0 +1,261 @@
+/*
+ * Copyright 2010, 2011 Institut Pasteur.
+ *
+ * This file is part of ICY.
+ *
+ * ICY is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ICY is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ICY. If not, see <http://www.gnu.org/licenses/>.
+ */
+package icy.image;
+
+import icy.type.DataIterator;
+
+import java.awt.Rectangle;
+import java.util.NoSuchElementException;
+
+/**
+ * Tiled image data iterator.<br>
+ * This class permit to use simple iterator to read / write {@link TiledImage} data as double.<br>
+ * Data is iterated tile by tile (in [TILE_Y[TILE_X]] order) and in XYC <i>([C[Y[X]]])</i>
+ * dimension order inside each tile (see {@link ImageDataIterator}) so only one tile is accessed
+ * at a time.<br>
+ * The current tile is pinned (see {@link IcyBufferedImage#pinData()}) while it is iterated and
+ * tiles modified through the iterator are notified (see {@link IcyBufferedImage#dataChanged()})
+ * when iteration leaves them.<br>
+ * If the iteration is abandoned before its end, call {@link #close()} to notify the last modified
+ * tile and unpin it.
+ *
+ * @author Stephane
+ */
+public class TiledImageDataIterator implements DataIterator
+{
+    protected final TiledImage image;
+    protected final Rectangle region;
+    protected final int startC, endC;
+
+    protected final int startTX, endTX;
+    protected final int startTY, endTY;
+
+    /**
+     * internals
+     */
+    protected int tx, ty;
+    protected IcyBufferedImage tile;
+    protected ImageDataIterator tileIterator;
+    protected boolean tileModified;
+    protected boolean done;
+
+    /**
+     * Create a new TiledImage iterator to iterate data through the specified region and channels
+     * (inclusive).
+     *
+     * @param image
+     *        Image we want to iterate data from
+     * @param region
+     *        XY region to iterate
+     * @param startC
+     *        start C position
+     * @param endC
+     *        end C position
+     */
+    public TiledImageDataIterator(TiledImage image, Rectangle region, int startC, int endC)
+    {
+        super();
+
+        this.image = image;
+        this.region = region.intersection(image.getBounds());
+        this.startC = Math.max(startC, 0);
+        this.endC = Math.min(endC, image.getSizeC() - 1);
+
+        if (this.region.isEmpty())
+        {
+            startTX = startTY = 0;
+            endTX = endTY = -1;
+        }
+        else
+        {
+            startTX = image.getTileIndexX(this.region.x);
+            endTX = image.getTileIndexX(this.region.x + (this.region.width - 1));
+            startTY = image.getTileIndexY(this.region.y);
+            endTY = image.getTileIndexY(this.region.y + (this.region.height - 1));
+        }
+
+        // start iterator
+        reset();
+    }
+
+    /**
+     * Create a new TiledImage iterator to iterate data of specified channel.
+     */
+    public TiledImageDataIterator(TiledImage image, int c)
+    {
+        this(image, image.getBounds(), c, c);
+    }
+
+    /**
+     * Create a new TiledImage iterator to iterate all data.
+     */
+    public TiledImageDataIterator(TiledImage image)
+    {
+        this(image, image.getBounds(), 0, image.getSizeC() - 1);
+    }
+
+    @Override
+    public void reset()
+    {
+        releaseTile();
+
+        done = (startC > endC) || (startTX > endTX) || (startTY > endTY);
+
+        if (!done)
+        {
+            tx = startTX;
+            ty = startTY;
+
+            prepareTile();
+        }
+    }
+
+    /**
+     * Prepare iteration of current tile.
+     */
+    protected void prepareTile()
+    {
+        final Rectangle tileBounds = image.getTileBounds(tx, ty);
+        final Rectangle r = region.intersection(tileBounds);
+
+        tile = image.getTile(tx, ty);
+        // keep tile data in memory while we iterate it
+        tile.pinData();
+        tileModified = false;
+        tileIterator = new ImageDataIterator(tile, r.x - tileBounds.x, (r.x - tileBounds.x) + (r.width - 1), r.y
+                - tileBounds.y, (r.y - tileBounds.y) + (r.height - 1), startC, endC);
+    }
+
+    /**
+     * Notify changes and unpin current tile.
+     */
+    protected void releaseTile()
+    {
+        if (tile != null)
+        {
+            flush();
+            tile.unpinData();
+        }
+
+        tile = null;
+        tileIterator = null;
+        tileModified = false;
+    }
+
+    /**
+     * Pass to next tile.
+     */
+    protected void nextTile()
+    {
+        releaseTile();
+
+        if (++tx > endTX)
+        {
+            tx = startTX;
+
+            if (++ty > endTY)
+            {
+                done = true;
+                return;
+            }
+        }
+
+        prepareTile();
+    }
+
+    /**
+     * Notify changes done on the current tile (see {@link IcyBufferedImage#dataChanged()}).<br>
+     * This is automatically done when iteration leaves the tile.
+     */
+    public void flush()
+    {
+        if (tileModified)
+        {
+            tileModified = false;
+            tile.dataChanged();
+        }
+    }
+
+    /**
+     * Stop the iteration: changes done on the current tile are notified and the tile is
+     * unpinned.<br>
+     * Call it when iteration is abandoned before its end (use {@link #reset()} to restart it).
+     */
+    public void close()
+    {
+        releaseTile();
+        done = true;
+    }
+
+    @Override
+    public void next()
+    {
+        tileIterator.next();
+
+        if (tileIterator.isDone())
+            nextTile();
+    }
+
+    @Override
+    public boolean isDone()
+    {
+        return done;
+    }
+
+    @Override
+    public double getAndNext()
+    {
+        if (done)
+            throw new NoSuchElementException();
+
+        final double result = tileIterator.get();
+        next();
+        return result;
+    }
+
+    @Override
+    public void setAndNext(double value)
+    {
+        if (done)
+            throw new NoSuchElementException();
+
+        tileIterator.set(value);
+        tileModified = true;
+        next();
+    }
+
+    @Override
+    public double get()
+    {
+        if (done)
+            throw new NoSuchElementException();
+
+        return tileIterator.get();
+    }
+
+    @Override
+    public void set(double value)
+    {
+        if (done)
+            throw new NoSuchElementException();
+
+        tileIterator.set(value);
+        tileModified = true;
+    }
+}
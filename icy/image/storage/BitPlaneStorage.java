@@ -0,0 +1,308 @@
+/*
+ * Copyright 2010, 2011 Institut Pasteur.
+ *
+ * This file is part of ICY.
+ *
+ * ICY is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ICY is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ICY. If not, see <http://www.gnu.org/licenses/>.
+ */
+package icy.image.storage;
+
+import icy.image.IcyBufferedImage;
+import icy.type.DataType;
+import icy.type.collection.array.Array1DUtil;
+import icy.type.collection.array.BitArray;
+
+import java.io.IOException;
+
+/**
+ * Plane storage for binary data (masks, thresholded images...).<br>
+ * Each channel is stored as a {@link BitArray} (1 bit per pixel) plus the value of set pixels so
+ * a binary UBYTE plane uses 8 times less memory.<br>
+ * Saving a plane containing more than 2 distinct values in a channel fails (the image then falls
+ * back to java heap storage, see {@link IcyBufferedImage#releaseData()}).<br>
+ * Use {@link #apply(IcyBufferedImage, IcyBufferedImage, Operation)} to combine binary images
+ * with word operations.
+ *
+ * @author Stephane
+ */
+public class BitPlaneStorage extends PlaneStorage
+{
+    public static enum Operation
+    {
+        AND, OR, XOR, AND_NOT
+    }
+
+    /**
+     * Return the bit storage of the specified image
+     */
+    private static BitPlaneStorage getBitStorage(IcyBufferedImage image)
+    {
+        final PlaneStorage result = image.getStorage();
+
+        if (!(result instanceof BitPlaneStorage))
+            throw new IllegalArgumentException("BitPlaneStorage error : image does not use "
+                    + StorageType.BIT + " storage.");
+
+        return (BitPlaneStorage) result;
+    }
+
+    /**
+     * Return the bits of the specified image channel (modified data is saved first).<br>
+     * Image should use {@link StorageType#BIT} storage.
+     */
+    public static BitArray getBits(IcyBufferedImage image, int c) throws IOException
+    {
+        image.saveData();
+
+        return getBitStorage(image).getBits(c);
+    }
+
+    /**
+     * Return the number of set pixels in the specified image channel.<br>
+     * Image should use {@link StorageType#BIT} storage.
+     */
+    public static int cardinality(IcyBufferedImage image, int c) throws IOException
+    {
+        final BitArray b = getBits(image, c);
+
+        if (b == null)
+            return 0;
+
+        return b.cardinality();
+    }
+
+    /**
+     * Combine <code>operand</code> bits in <code>image</code> (all channels) with the specified
+     * operation.<br>
+     * Both images should use {@link StorageType#BIT} storage and have the same size.
+     */
+    public static void apply(IcyBufferedImage image, IcyBufferedImage operand, Operation op)
+            throws IOException
+    {
+        image.pinData();
+        try
+        {
+            final BitPlaneStorage storage = getBitStorage(image);
+            final BitPlaneStorage operandStorage = getBitStorage(operand);
+            final int sizeC = image.getSizeC();
+
+            if (operand.getSizeC() != sizeC)
+                throw new IllegalArgumentException("BitPlaneStorage.apply(..) error : images have different channel number.");
+
+            image.saveData();
+            operand.saveData();
+
+            for (int c = 0; c < sizeC; c++)
+            {
+                final BitArray result = storage.getBits(c);
+                final BitArray b = operandStorage.getBits(c);
+
+                if ((result == null) || (b == null))
+                    throw new IOException("BitPlaneStorage.apply(..) error : no data stored.");
+
+                switch (op)
+                {
+                    case AND:
+                        result.and(b);
+                        break;
+                    case OR:
+                        result.or(b);
+                        break;
+                    case XOR:
+                        result.xor(b);
+                        break;
+                    case AND_NOT:
+                        result.andNot(b);
+                        break;
+                }
+
+                // keep image set value (operand one if image channel was empty)
+                double value = storage.getValue(c);
+                if (value == 0d)
+                    value = operandStorage.getValue(c);
+                if (value == 0d)
+                    value = 1d;
+
+                result.copyTo(image.getDataXY(c), value);
+            }
+        }
+        finally
+        {
+            image.unpinData();
+        }
+
+        image.dataChanged();
+    }
+
+    /**
+     * Invert bits of the specified image (all channels).<br>
+     * Image should use {@link StorageType#BIT} storage.
+     */
+    public static void not(IcyBufferedImage image) throws IOException
+    {
+        image.pinData();
+        try
+        {
+            final BitPlaneStorage storage = getBitStorage(image);
+
+            image.saveData();
+
+            for (int c = 0; c < image.getSizeC(); c++)
+            {
+                final BitArray result = storage.getBits(c);
+                double value = storage.getValue(c);
+
+                if (result == null)
+                    throw new IOException("BitPlaneStorage.not(..) error : no data stored.");
+                if (value == 0d)
+                    value = 1d;
+
+                result.not();
+                result.copyTo(image.getDataXY(c), value);
+            }
+        }
+        finally
+        {
+            image.unpinData();
+        }
+
+        image.dataChanged();
+    }
+
+    /**
+     * channels bits
+     */
+    private BitArray[] bits;
+    /**
+     * channels value of set bit
+     */
+    private double[] values;
+
+    public BitPlaneStorage(DataType dataType, int sizeC, int sizeXY)
+    {
+        super(dataType, sizeC, sizeXY);
+
+        bits = null;
+        values = null;
+    }
+
+    @Override
+    public StorageType getType()
+    {
+        return StorageType.BIT;
+    }
+
+    /**
+     * Return a copy of the bits of the specified channel (<code>null</code> if no data
+     * stored).<br>
+     * Stored bits can be older than image data, use {@link #getBits(IcyBufferedImage, int)} to
+     * save image data first.
+     */
+    public synchronized BitArray getBits(int c)
+    {
+        if (bits == null)
+            return null;
+
+        return new BitArray(bits[c]);
+    }
+
+    /**
+     * Return the value of set pixels for the specified channel (raw value, unsigned data is
+     * returned as signed).
+     */
+    public synchronized double getValue(int c)
+    {
+        if (values == null)
+            return 0d;
+
+        return values[c];
+    }
+
+    /**
+     * Return the size (in byte) of packed data
+     */
+    public synchronized long getPackedSize()
+    {
+        long result = 0;
+
+        if (bits != null)
+            for (BitArray data : bits)
+                result += data.getDataSize();
+
+        return result;
+    }
+
+    @Override
+    public long getStoredSize()
+    {
+        return getPackedSize();
+    }
+
+    @Override
+    public synchronized void save(Object[] banks) throws IOException
+    {
+        final BitArray[] resultBits = new BitArray[sizeC];
+        final double[] resultValues = new double[sizeC];
+
+        for (int c = 0; c < sizeC; c++)
+        {
+            final Object bank = banks[c];
+            final BitArray b = BitArray.create(bank);
+            double value = 0d;
+            boolean first = true;
+
+            // check data is binary
+            for (int i = 0; i < sizeXY; i++)
+            {
+                if (b.get(i))
+                {
+                    // raw (signed) value so it can be restored by a simple cast
+                    final double v = Array1DUtil.getValue(bank, i, true);
+
+                    if (first)
+                    {
+                        value = v;
+                        first = false;
+                    }
+                    else if (v != value)
+                        throw new IOException("BitPlaneStorage.save(..) error : channel " + c
+                                + " does not contain binary data.");
+                }
+            }
+
+            resultBits[c] = b;
+            resultValues[c] = value;
+        }
+
+        bits = resultBits;
+        values = resultValues;
+    }
+
+    @Override
+    public synchronized void load(Object[] banks) throws IOException
+    {
+        if (bits == null)
+            throw new IOException("BitPlaneStorage.load(..) error : no data stored.");
+
+        for (int c = 0; c < sizeC; c++)
+            bits[c].copyTo(banks[c], values[c]);
+    }
+
+    @Override
+    public synchronized void dispose()
+    {
+        bits = null;
+        values = null;
+    }
+}
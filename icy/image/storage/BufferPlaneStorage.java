@@ -0,0 +1,85 @@
+/*
+ * Copyright 2010, 2011 Institut Pasteur.
+ *
+ * This file is part of ICY.
+ *
+ * ICY is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ICY is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ICY. If not, see <http://www.gnu.org/licenses/>.
+ */
+package icy.image.storage;
+
+import icy.type.DataType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Plane storage using one {@link ByteBuffer} per channel.<br>
+ * Buffers are allocated on first save.
+ *
+ * @author Stephane
+ */
+public abstract class BufferPlaneStorage extends PlaneStorage
+{
+    /**
+     * channel buffers
+     */
+    protected ByteBuffer[] buffers;
+
+    public BufferPlaneStorage(DataType dataType, int sizeC, int sizeXY)
+    {
+        super(dataType, sizeC, sizeXY);
+
+        buffers = null;
+    }
+
+    /**
+     * Create the buffers used to store channels data.
+     */
+    protected abstract ByteBuffer[] createBuffers() throws IOException;
+
+    @Override
+    public synchronized long getStoredSize()
+    {
+        if (buffers == null)
+            return 0L;
+
+        return getSize();
+    }
+
+    @Override
+    public synchronized void save(Object[] banks) throws IOException
+    {
+        if (buffers == null)
+            buffers = createBuffers();
+
+        for (int c = 0; c < sizeC; c++)
+            put(buffers[c], banks[c]);
+    }
+
+    @Override
+    public synchronized void load(Object[] banks) throws IOException
+    {
+        if (buffers == null)
+            throw new IOException("BufferPlaneStorage.load(..) error : no data stored.");
+
+        for (int c = 0; c < sizeC; c++)
+            get(buffers[c], banks[c]);
+    }
+
+    @Override
+    public synchronized void dispose()
+    {
+        buffers = null;
+    }
+}
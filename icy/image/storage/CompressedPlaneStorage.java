@@ -0,0 +1,130 @@
+/*
+ * Copyright 2010, 2011 Institut Pasteur.
+ *
+ * This file is part of ICY.
+ *
+ * ICY is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ICY is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ICY. If not, see <http://www.gnu.org/licenses/>.
+ */
+package icy.image.storage;
+
+import icy.type.DataType;
+import icy.util.ZipUtil;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+
+/**
+ * Plane storage keeping data compressed (fast deflate) in java heap.<br>
+ * Very efficient for sparse data as label images or masks. Decompressed data of recently used
+ * planes is kept by the {@link PlaneCache}.
+ *
+ * @author Stephane
+ */
+public class CompressedPlaneStorage extends PlaneStorage
+{
+    /**
+     * compressed channels data
+     */
+    private byte[][] packed;
+
+    public CompressedPlaneStorage(DataType dataType, int sizeC, int sizeXY)
+    {
+        super(dataType, sizeC, sizeXY);
+
+        packed = null;
+    }
+
+    @Override
+    public StorageType getType()
+    {
+        return StorageType.COMPRESSED;
+    }
+
+    /**
+     * Return the size (in byte) of compressed data
+     */
+    public synchronized long getPackedSize()
+    {
+        long result = 0;
+
+        if (packed != null)
+            for (byte[] data : packed)
+                result += data.length;
+
+        return result;
+    }
+
+    @Override
+    public long getStoredSize()
+    {
+        return getPackedSize();
+    }
+
+    @Override
+    public synchronized void save(Object[] banks) throws IOException
+    {
+        final byte[][] result = new byte[sizeC][];
+        final boolean byteData = (dataType.getJavaType() == DataType.BYTE);
+        final byte[] raw = byteData ? null : new byte[(int) getChannelSize()];
+
+        for (int c = 0; c < sizeC; c++)
+        {
+            if (byteData)
+                result[c] = ZipUtil.pack((byte[]) banks[c], Deflater.BEST_SPEED);
+            else
+            {
+                put(ByteBuffer.wrap(raw), banks[c]);
+                result[c] = ZipUtil.pack(raw, Deflater.BEST_SPEED);
+            }
+        }
+
+        packed = result;
+    }
+
+    @Override
+    public synchronized void load(Object[] banks) throws IOException
+    {
+        if (packed == null)
+            throw new IOException("CompressedPlaneStorage.load(..) error : no data stored.");
+
+        final boolean byteData = (dataType.getJavaType() == DataType.BYTE);
+        final byte[] raw = byteData ? null : new byte[(int) getChannelSize()];
+
+        for (int c = 0; c < sizeC; c++)
+        {
+            final byte[] out = byteData ? (byte[]) banks[c] : raw;
+
+            try
+            {
+                if (ZipUtil.unpack(packed[c], out) != out.length)
+                    throw new IOException("CompressedPlaneStorage.load(..) error : truncated data.");
+            }
+            catch (DataFormatException e)
+            {
+                throw new IOException("CompressedPlaneStorage.load(..) error : " + e.getMessage());
+            }
+
+            if (!byteData)
+                get(ByteBuffer.wrap(raw), banks[c]);
+        }
+    }
+
+    @Override
+    public synchronized void dispose()
+    {
+        packed = null;
+    }
+}
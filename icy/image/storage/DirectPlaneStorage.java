@@ -0,0 +1,55 @@
+/*
+ * Copyright 2010, 2011 Institut Pasteur.
+ *
+ * This file is part of ICY.
+ *
+ * ICY is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ICY is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ICY. If not, see <http://www.gnu.org/licenses/>.
+ */
+package icy.image.storage;
+
+import icy.type.DataType;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Plane storage using direct (off heap) buffers.<br>
+ * Stored data does not count in java heap size but still uses process memory.
+ *
+ * @author Stephane
+ */
+public class DirectPlaneStorage extends BufferPlaneStorage
+{
+    public DirectPlaneStorage(DataType dataType, int sizeC, int sizeXY)
+    {
+        super(dataType, sizeC, sizeXY);
+    }
+
+    @Override
+    public StorageType getType()
+    {
+        return StorageType.DIRECT;
+    }
+
+    @Override
+    protected ByteBuffer[] createBuffers()
+    {
+        final ByteBuffer[] result = new ByteBuffer[sizeC];
+        final int channelSize = (int) getChannelSize();
+
+        for (int c = 0; c < sizeC; c++)
+            result[c] = ByteBuffer.allocateDirect(channelSize);
+
+        return result;
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2010, 2011 Institut Pasteur.
+ *
+ * This file is part of ICY.
+ *
+ * ICY is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ICY is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ICY. If not, see <http://www.gnu.org/licenses/>.
+ */
+package icy.image.storage;
+
+import icy.type.DataType;
+import icy.type.collection.array.Array1DUtil;
+
+import java.io.IOException;
+
+/**
+ * Plane storage keeping float data as half precision (16 bits) float in java heap.<br>
+ * Storage is lossy (about 3 significant digits are kept, values above 65504 become infinity)
+ * but use half the memory of {@link DataType#FLOAT} data (and a quarter of {@link DataType#DOUBLE}
+ * data).<br>
+ * Only float and double data can be stored.
+ *
+ * @author Stephane
+ */
+public class Float16PlaneStorage extends PlaneStorage
+{
+    /**
+     * half float channels data
+     */
+    private short[][] halfs;
+
+    public Float16PlaneStorage(DataType dataType, int sizeC, int sizeXY)
+    {
+        super(dataType, sizeC, sizeXY);
+
+        halfs = null;
+    }
+
+    @Override
+    public StorageType getType()
+    {
+        return StorageType.FLOAT16;
+    }
+
+    /**
+     * Return the size (in byte) of stored data
+     */
+    public synchronized long getPackedSize()
+    {
+        if (halfs == null)
+            return 0L;
+
+        return (long) sizeC * sizeXY * 2;
+    }
+
+    @Override
+    public long getStoredSize()
+    {
+        return getPackedSize();
+    }
+
+    @Override
+    public synchronized void save(Object[] banks) throws IOException
+    {
+        if (!dataType.isFloat())
+            throw new IOException("Float16PlaneStorage.save(..) error : " + dataType + " data type not supported.");
+
+        final short[][] result = new short[sizeC][];
+
+        for (int c = 0; c < sizeC; c++)
+        {
+            // reuse previous arrays
+            final short[] out = (halfs != null) ? halfs[c] : null;
+
+            if (dataType.getJavaType() == DataType.FLOAT)
+                result[c] = Array1DUtil.floatArrayToHalfArray((float[]) banks[c], 0, out, 0, sizeXY);
+            else
+                result[c] = Array1DUtil.doubleArrayToHalfArray((double[]) banks[c], 0, out, 0, sizeXY);
+        }
+
+        halfs = result;
+    }
+
+    @Override
+    public synchronized void load(Object[] banks) throws IOException
+    {
+        if (halfs == null)
+            throw new IOException("Float16PlaneStorage.load(..) error : no data stored.");
+
+        for (int c = 0; c < sizeC; c++)
+        {
+            if (dataType.getJavaType() == DataType.FLOAT)
+                Array1DUtil.halfArrayToFloatArray(halfs[c], 0, (float[]) banks[c], 0, sizeXY);
+            else
+                Array1DUtil.halfArrayToDoubleArray(halfs[c], 0, (double[]) banks[c], 0, sizeXY);
+        }
+    }
+
+    @Override
+    public synchronized void dispose()
+    {
+        halfs = null;
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2010, 2011 Institut Pasteur.
+ *
+ * This file is part of ICY.
+ *
+ * ICY is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ICY is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ICY. If not, see <http://www.gnu.org/licenses/>.
+ */
+package icy.image.storage;
+
+import icy.file.FileUtil;
+import icy.type.DataType;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+
+/**
+ * Plane storage using a memory mapped file in the scratch directory.<br>
+ * Stored data lives in the OS file cache so it does not count in java heap neither in process
+ * memory, the OS is free to page it out on disk when memory is needed.
+ *
+ * @author Stephane
+ */
+public class MappedPlaneStorage extends BufferPlaneStorage
+{
+    private static final String FILE_PREFIX = "plane";
+    private static final String FILE_EXT = ".raw";
+
+    /**
+     * scratch directory
+     */
+    private static String scratchDirectory = FileUtil.getTempDirectory();
+
+    /**
+     * Return the directory where mapped files are created.
+     */
+    public static String getScratchDirectory()
+    {
+        return scratchDirectory;
+    }
+
+    /**
+     * Set the directory where mapped files are created.<br>
+     * Only affect storage created after this call.
+     */
+    public static void setScratchDirectory(String value)
+    {
+        scratchDirectory = value;
+    }
+
+    /**
+     * backing file
+     */
+    private File file;
+
+    public MappedPlaneStorage(DataType dataType, int sizeC, int sizeXY)
+    {
+        super(dataType, sizeC, sizeXY);
+
+        file = null;
+    }
+
+    @Override
+    public StorageType getType()
+    {
+        return StorageType.MAPPED;
+    }
+
+    @Override
+    protected ByteBuffer[] createBuffers() throws IOException
+    {
+        final File dir = new File(scratchDirectory);
+
+        if (!FileUtil.createDir(dir))
+            throw new IOException("MappedPlaneStorage error : cannot create scratch directory " + scratchDirectory);
+
+        file = File.createTempFile(FILE_PREFIX, FILE_EXT, dir);
+        file.deleteOnExit();
+
+        final ByteBuffer[] result = new ByteBuffer[sizeC];
+        final long channelSize = getChannelSize();
+        final RandomAccessFile raf = new RandomAccessFile(file, "rw");
+
+        try
+        {
+            raf.setLength(getSize());
+
+            final FileChannel fc = raf.getChannel();
+
+            for (int c = 0; c < sizeC; c++)
+                result[c] = fc.map(MapMode.READ_WRITE, c * channelSize, channelSize);
+        }
+        finally
+        {
+            // mapping stays valid after the file is closed
+            raf.close();
+        }
+
+        // file can be deleted while mapped on unix systems (space released on unmap)
+        if (file.delete())
+            file = null;
+
+        return result;
+    }
+
+    @Override
+    public synchronized void dispose()
+    {
+        super.dispose();
+
+        // mapped file could not be deleted before
+        if (file != null)
+        {
+            file.delete();
+            file = null;
+        }
+    }
+}
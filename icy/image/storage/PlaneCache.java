@@ -0,0 +1,337 @@
+/*
+ * Copyright 2010, 2011 Institut Pasteur.
+ *
+ * This file is part of ICY.
+ *
+ * ICY is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ICY is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ICY. If not, see <http://www.gnu.org/licenses/>.
+ */
+package icy.image.storage;
+
+import icy.image.IcyBufferedImage;
+import icy.system.SystemUtil;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process wide cache of storage backed image data.<br>
+ * All {@link IcyBufferedImage} having a {@link PlaneStorage} register here when their data is
+ * loaded in java heap. When the total size of loaded data exceeds the cache budget, data of least
+ * recently used images is released (clock algorithm) and will be reloaded from storage on next
+ * access.<br>
+ * Pinned images (see {@link IcyBufferedImage#pinData()}) are never released.
+ * 
+ * @author Stephane
+ */
+public class PlaneCache
+{
+    /**
+     * Cache entry (one per loaded image)
+     */
+    public static class Entry
+    {
+        final IcyBufferedImage image;
+        final long size;
+        /**
+         * reference bit for clock algorithm
+         */
+        volatile boolean referenced;
+        /**
+         * number of access (approximate as not synchronized, avoid contention on data access)
+         */
+        long hits;
+        /**
+         * selected for release (protected by cache lock)
+         */
+        boolean candidate;
+        /**
+         * clock ring links (protected by cache lock, <code>null</code> when not in the ring)
+         */
+        Entry prev;
+        Entry next;
+
+        Entry(IcyBufferedImage image, long size)
+        {
+            super();
+
+            this.image = image;
+            this.size = size;
+            referenced = true;
+            hits = 0L;
+            prev = null;
+            next = null;
+        }
+
+        /**
+         * Notify an access to entry data
+         */
+        public void access()
+        {
+            // avoid useless write
+            if (!referenced)
+                referenced = true;
+            hits++;
+        }
+    }
+
+    /**
+     * cache budget (in bytes)
+     */
+    private static volatile long maxSize = SystemUtil.getJavaMaxMemory() / 4;
+
+    /**
+     * cache lock
+     */
+    private static final Object lock = new Object();
+    /**
+     * cache current size (in bytes)
+     */
+    private static long size = 0;
+    /**
+     * number of entries
+     */
+    private static int numEntry = 0;
+    /**
+     * clock hand (entries form a ring, <code>null</code> if no entry)
+     */
+    private static Entry hand = null;
+
+    /**
+     * statistics
+     */
+    private static long releasedHits = 0L;
+    static final AtomicLong misses = new AtomicLong();
+    static final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Return the cache budget (in bytes)
+     */
+    public static long getMaxSize()
+    {
+        return maxSize;
+    }
+
+    /**
+     * Set the cache budget (in bytes).<br>
+     * Data of least recently used images is released when this size is exceeded.
+     */
+    public static void setMaxSize(long value)
+    {
+        maxSize = Math.max(0, value);
+        checkSize();
+    }
+
+    /**
+     * Return the total size (in bytes) of image data currently loaded in the cache
+     */
+    public static long getSize()
+    {
+        synchronized (lock)
+        {
+            return size;
+        }
+    }
+
+    /**
+     * Return the number of images with data currently loaded in the cache
+     */
+    public static int getNumImage()
+    {
+        synchronized (lock)
+        {
+            return numEntry;
+        }
+    }
+
+    /**
+     * Return the number of data access on loaded images (approximate)
+     */
+    public static long getHits()
+    {
+        synchronized (lock)
+        {
+            long result = releasedHits;
+
+            if (hand != null)
+            {
+                Entry entry = hand;
+
+                do
+                {
+                    result += entry.hits;
+                    entry = entry.next;
+                }
+                while (entry != hand);
+            }
+
+            return result;
+        }
+    }
+
+    /**
+     * Return the number of data access which required a data load from storage
+     */
+    public static long getMisses()
+    {
+        return misses.get();
+    }
+
+    /**
+     * Return the number of image data released to respect the cache budget
+     */
+    public static long getEvictions()
+    {
+        return evictions.get();
+    }
+
+    /**
+     * Reset hits, misses and evictions counters
+     */
+    public static void resetStatistics()
+    {
+        synchronized (lock)
+        {
+            releasedHits = 0L;
+
+            if (hand != null)
+            {
+                Entry entry = hand;
+
+                do
+                {
+                    entry.hits = 0L;
+                    entry = entry.next;
+                }
+                while (entry != hand);
+            }
+        }
+
+        misses.set(0);
+        evictions.set(0);
+    }
+
+    /**
+     * Called by {@link IcyBufferedImage} when its data has just been loaded from its storage.<br>
+     * {@link #checkSize()} should be called after to respect the cache budget.
+     * 
+     * @return the cache entry for the image
+     */
+    public static Entry imageLoaded(IcyBufferedImage image, long dataSize)
+    {
+        final Entry result = new Entry(image, dataSize);
+
+        misses.incrementAndGet();
+
+        synchronized (lock)
+        {
+            // insert just behind the clock hand (last position to be checked)
+            if (hand == null)
+            {
+                result.prev = result;
+                result.next = result;
+                hand = result;
+            }
+            else
+            {
+                result.next = hand;
+                result.prev = hand.prev;
+                hand.prev.next = result;
+                hand.prev = result;
+            }
+
+            numEntry++;
+            size += dataSize;
+        }
+
+        return result;
+    }
+
+    /**
+     * Called by {@link IcyBufferedImage} when its data has just been released (or when it does
+     * not use storage anymore).
+     */
+    public static void imageReleased(Entry entry)
+    {
+        synchronized (lock)
+        {
+            // not in the ring
+            if (entry.next == null)
+                return;
+
+            if (entry.next == entry)
+                hand = null;
+            else
+            {
+                entry.prev.next = entry.next;
+                entry.next.prev = entry.prev;
+
+                if (hand == entry)
+                    hand = entry.next;
+            }
+
+            entry.prev = null;
+            entry.next = null;
+            numEntry--;
+            size -= entry.size;
+            releasedHits += entry.hits;
+        }
+    }
+
+    /**
+     * Release data of least recently used images until cache size fits the budget.<br>
+     * Pinned images are skipped. Should not be called while holding an image lock.
+     */
+    public static void checkSize()
+    {
+        final List<Entry> candidates = new ArrayList<Entry>();
+
+        synchronized (lock)
+        {
+            long toRelease = size - maxSize;
+            // two complete turns at max (first one clears reference bits)
+            int remaining = numEntry * 2;
+
+            while ((toRelease > 0) && (remaining-- > 0) && (hand != null))
+            {
+                final Entry entry = hand;
+
+                hand = hand.next;
+
+                // can't be released --> look for another one
+                if (entry.candidate || entry.image.isDataPinned())
+                    continue;
+
+                // recently used --> give it a second chance
+                if (entry.referenced)
+                    entry.referenced = false;
+                else
+                {
+                    entry.candidate = true;
+                    candidates.add(entry);
+                    toRelease -= entry.size;
+                }
+            }
+
+            for (Entry entry : candidates)
+                entry.candidate = false;
+        }
+
+        // release outside the lock (image release is synchronized on image and calls back the
+        // cache)
+        for (Entry entry : candidates)
+            if (entry.image.releaseData())
+                evictions.incrementAndGet();
+    }
+}
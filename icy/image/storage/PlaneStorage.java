@@ -0,0 +1,269 @@
+/*
+ * Copyright 2010, 2011 Institut Pasteur.
+ *
+ * This file is part of ICY.
+ *
+ * ICY is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ICY is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ICY. If not, see <http://www.gnu.org/licenses/>.
+ */
+package icy.image.storage;
+
+import icy.image.IcyBufferedImage;
+import icy.type.DataType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Base class for image plane storage.<br>
+ * A plane storage keeps a copy of the data banks [C][XY] of an {@link IcyBufferedImage} so the
+ * image can release its java arrays and reload them on demand (see
+ * {@link IcyBufferedImage#releaseData()}).
+ *
+ * @author Stephane
+ */
+public abstract class PlaneStorage
+{
+    public enum StorageType
+    {
+        /**
+         * data stays in java heap (no storage)
+         */
+        HEAP,
+        /**
+         * data is stored in direct (off heap) buffers
+         */
+        DIRECT,
+        /**
+         * data is stored in memory mapped files of the scratch directory
+         */
+        MAPPED,
+        /**
+         * data is stored compressed in java heap
+         */
+        COMPRESSED,
+        /**
+         * binary data is stored as bits in java heap
+         */
+        BIT,
+        /**
+         * float data is stored as half precision (16 bits) float in java heap (lossy)
+         */
+        FLOAT16,
+        /**
+         * data is stored in a contiguous volume buffer (see {@link VolumeBuffer})
+         */
+        VOLUME,
+        /**
+         * data is read on demand from the original image file (read only)
+         */
+        READER,
+        /**
+         * data is read on demand from a source image (read only)
+         */
+        VIEW
+    };
+
+    /**
+     * Create a new storage of specified type for the given data format.<br>
+     * Returns <code>null</code> for {@link StorageType#HEAP}, {@link StorageType#VOLUME},
+     * {@link StorageType#READER} and {@link StorageType#VIEW} type.
+     */
+    public static PlaneStorage create(StorageType type, DataType dataType, int sizeC, int sizeXY)
+    {
+        switch (type)
+        {
+            case DIRECT:
+                return new DirectPlaneStorage(dataType, sizeC, sizeXY);
+            case MAPPED:
+                return new MappedPlaneStorage(dataType, sizeC, sizeXY);
+            case COMPRESSED:
+                return new CompressedPlaneStorage(dataType, sizeC, sizeXY);
+            case BIT:
+                return new BitPlaneStorage(dataType, sizeC, sizeXY);
+            case FLOAT16:
+                return new Float16PlaneStorage(dataType, sizeC, sizeXY);
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Create a new storage of specified type compatible with the given image.<br>
+     * Returns <code>null</code> for {@link StorageType#HEAP}, {@link StorageType#VOLUME},
+     * {@link StorageType#READER} and {@link StorageType#VIEW} type.
+     */
+    public static PlaneStorage create(StorageType type, IcyBufferedImage image)
+    {
+        return create(type, image.getDataType_(), image.getSizeC(), image.getSizeX() * image.getSizeY());
+    }
+
+    protected final DataType dataType;
+    protected final int sizeC;
+    protected final int sizeXY;
+
+    public PlaneStorage(DataType dataType, int sizeC, int sizeXY)
+    {
+        super();
+
+        this.dataType = dataType;
+        this.sizeC = sizeC;
+        this.sizeXY = sizeXY;
+    }
+
+    /**
+     * @return the storage type
+     */
+    public abstract StorageType getType();
+
+    /**
+     * @return the data type
+     */
+    public DataType getDataType_()
+    {
+        return dataType;
+    }
+
+    /**
+     * @return the number of channel
+     */
+    public int getSizeC()
+    {
+        return sizeC;
+    }
+
+    /**
+     * @return the number of element per channel
+     */
+    public int getSizeXY()
+    {
+        return sizeXY;
+    }
+
+    /**
+     * Return the size (in byte) of a channel bank
+     */
+    public long getChannelSize()
+    {
+        return (long) sizeXY * dataType.getSize();
+    }
+
+    /**
+     * Return the size (in byte) of the whole stored plane
+     */
+    public long getSize()
+    {
+        return getChannelSize() * sizeC;
+    }
+
+    /**
+     * Return the size (in byte) of memory or disk space currently used by stored data.<br>
+     * Returns 0 when data is not duplicated by the storage (read on demand from its source).
+     */
+    public long getStoredSize()
+    {
+        return getSize();
+    }
+
+    /**
+     * Returns <code>true</code> if data can be saved in this storage.
+     */
+    public boolean isWritable()
+    {
+        return true;
+    }
+
+    /**
+     * Save the specified data banks [C][XY] in the storage.
+     */
+    public abstract void save(Object[] banks) throws IOException;
+
+    /**
+     * Load stored data in the specified (pre allocated) data banks [C][XY].
+     */
+    public abstract void load(Object[] banks) throws IOException;
+
+    /**
+     * Release all resources used by the storage.<br>
+     * The storage should not be used anymore after this call.
+     */
+    public abstract void dispose();
+
+    /**
+     * Return a view of the specified buffer ready for a whole bank transfer
+     */
+    private static ByteBuffer getView(ByteBuffer buffer)
+    {
+        final ByteBuffer result = buffer.duplicate();
+
+        result.clear();
+        result.order(ByteOrder.nativeOrder());
+
+        return result;
+    }
+
+    /**
+     * Put the specified bank data in the buffer (native byte order).
+     */
+    protected void put(ByteBuffer buffer, Object bank)
+    {
+        final ByteBuffer bb = getView(buffer);
+
+        switch (dataType.getJavaType())
+        {
+            case BYTE:
+                bb.put((byte[]) bank);
+                break;
+            case SHORT:
+                bb.asShortBuffer().put((short[]) bank);
+                break;
+            case INT:
+                bb.asIntBuffer().put((int[]) bank);
+                break;
+            case FLOAT:
+                bb.asFloatBuffer().put((float[]) bank);
+                break;
+            case DOUBLE:
+                bb.asDoubleBuffer().put((double[]) bank);
+                break;
+        }
+    }
+
+    /**
+     * Get the bank data from the buffer (native byte order).
+     */
+    protected void get(ByteBuffer buffer, Object bank)
+    {
+        final ByteBuffer bb = getView(buffer);
+
+        switch (dataType.getJavaType())
+        {
+            case BYTE:
+                bb.get((byte[]) bank);
+                break;
+            case SHORT:
+                bb.asShortBuffer().get((short[]) bank);
+                break;
+            case INT:
+                bb.asIntBuffer().get((int[]) bank);
+                break;
+            case FLOAT:
+                bb.asFloatBuffer().get((float[]) bank);
+                break;
+            case DOUBLE:
+                bb.asDoubleBuffer().get((double[]) bank);
+                break;
+        }
+    }
+}
@@ -0,0 +1,344 @@
+/*
+ * Copyright 2010, 2011 Institut Pasteur.
+ *
+ * This file is part of ICY.
+ *
+ * ICY is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ICY is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ICY. If not, see <http://www.gnu.org/licenses/>.
+ */
+package icy.image.storage;
+
+import icy.type.DataType;
+import icy.type.collection.array.ByteArrayConvert;
+
+import java.io.IOException;
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import loci.formats.FormatException;
+import loci.formats.IFormatReader;
+
+/**
+ * Plane storage reading data on demand from an opened {@link IFormatReader}.<br>
+ * Data can't be saved back in this storage so modified planes are kept in java heap.
+ *
+ * @author Stephane
+ */
+public class ReaderPlaneStorage extends PlaneStorage
+{
+    /**
+     * Opened reader shared by all planes of an image file.<br>
+     * The reader is reference counted : the creator owns the first reference and each
+     * {@link ReaderPlaneStorage} acquires one until it is disposed. The reader is closed as soon
+     * as the last reference is released.<br>
+     * It can also be closed explicitly (when the sequence is closed for instance) while still
+     * referenced, in which case it is automatically reopened on next read.<br>
+     * As a safety net, readers of shared readers garbage collected without being released are
+     * closed when a new shared reader is created.
+     */
+    public static class SharedReader
+    {
+        /**
+         * Phantom reference closing the reader once the shared reader is garbage collected
+         */
+        private static class ReaderReference extends PhantomReference<SharedReader>
+        {
+            final IFormatReader reader;
+
+            ReaderReference(SharedReader sharedReader)
+            {
+                super(sharedReader, queue);
+
+                reader = sharedReader.reader;
+            }
+        }
+
+        static final ReferenceQueue<SharedReader> queue = new ReferenceQueue<SharedReader>();
+        /**
+         * keep phantom references reachable until they are processed
+         */
+        static final Set<ReaderReference> references = Collections.synchronizedSet(new HashSet<ReaderReference>());
+
+        /**
+         * Close readers of garbage collected shared readers
+         */
+        static void closeUnreferenced()
+        {
+            Reference<? extends SharedReader> ref;
+
+            while ((ref = queue.poll()) != null)
+            {
+                final ReaderReference readerRef = (ReaderReference) ref;
+
+                references.remove(readerRef);
+
+                try
+                {
+                    readerRef.reader.close();
+                }
+                catch (IOException e)
+                {
+                    System.err.println("ReaderPlaneStorage.SharedReader error : cannot close reader.");
+                    System.err.println(e.getMessage());
+                }
+            }
+        }
+
+        final IFormatReader reader;
+        final String id;
+
+        private final ReaderReference reference;
+        private int refCount;
+        // protected by reader lock
+        private boolean closed;
+
+        public SharedReader(IFormatReader reader)
+        {
+            super();
+
+            this.reader = reader;
+            id = reader.getCurrentFile();
+            // creator reference
+            refCount = 1;
+            closed = false;
+
+            closeUnreferenced();
+            reference = new ReaderReference(this);
+            references.add(reference);
+        }
+
+        public IFormatReader getReader()
+        {
+            return reader;
+        }
+
+        /**
+         * Add a reference to the reader.
+         */
+        public synchronized void acquire()
+        {
+            refCount++;
+        }
+
+        /**
+         * Release a reference to the reader, the reader is closed when no more referenced.
+         */
+        public synchronized void release()
+        {
+            if (refCount > 0)
+            {
+                refCount--;
+                if (refCount == 0)
+                {
+                    close();
+                    // released properly, no need to close it again after garbage collection
+                    references.remove(reference);
+                    reference.clear();
+                }
+            }
+        }
+
+        /**
+         * Close the reader now.<br>
+         * It will be reopened on next read if still referenced.
+         */
+        public void close()
+        {
+            synchronized (reader)
+            {
+                if (closed)
+                    return;
+
+                try
+                {
+                    reader.close();
+                }
+                catch (IOException e)
+                {
+                    System.err.println("ReaderPlaneStorage.SharedReader.close() error :");
+                    System.err.println(e.getMessage());
+                }
+
+                closed = true;
+            }
+        }
+
+        /**
+         * Reopen the reader if it has been closed.<br>
+         * Caller should synchronize on reader.
+         */
+        void ensureOpened() throws FormatException, IOException
+        {
+            if (closed)
+            {
+                reader.setId(id);
+                closed = false;
+            }
+        }
+    }
+
+    /**
+     * Read the plane located at (Z, T) position of the current reader series.<br>
+     * Data is converted and stored in the specified (pre allocated) data banks [C][XY].
+     */
+    public static void readData(IFormatReader reader, int z, int t, Object[] data) throws FormatException,
+            IOException
+    {
+        final int effSizeC = reader.getEffectiveSizeC();
+        final int rgbChanCount = reader.getRGBChannelCount();
+        final boolean interleaved = reader.isInterleaved();
+        final boolean little = reader.isLittleEndian();
+
+        for (int effC = 0; effC < effSizeC; effC++)
+        {
+            final byte[] byteData = reader.openBytes(reader.getIndex(z, effC, t));
+
+            // current final component
+            final int c = effC * rgbChanCount;
+            final int componentByteLen = byteData.length / rgbChanCount;
+
+            // build data array
+            int inOffset = 0;
+            if (interleaved)
+            {
+                for (int sc = 0; sc < rgbChanCount; sc++)
+                {
+                    ByteArrayConvert.byteArrayTo(byteData, inOffset, rgbChanCount, data[c + sc], 0, 1,
+                            componentByteLen, little);
+                    inOffset++;
+                }
+            }
+            else
+            {
+                for (int sc = 0; sc < rgbChanCount; sc++)
+                {
+                    ByteArrayConvert.byteArrayTo(byteData, inOffset, 1, data[c + sc], 0, 1, componentByteLen, little);
+                    inOffset += componentByteLen;
+                }
+            }
+        }
+    }
+
+    private final SharedReader sharedReader;
+    private final int series;
+    private final int z;
+    private final int t;
+
+    private boolean disposed;
+
+    /**
+     * Create a storage for the plane located at (Z, T) position of the current reader series.
+     */
+    public ReaderPlaneStorage(SharedReader sharedReader, int z, int t)
+    {
+        this(sharedReader, sharedReader.getReader(), z, t);
+    }
+
+    private ReaderPlaneStorage(SharedReader sharedReader, IFormatReader reader, int z, int t)
+    {
+        super(DataType.getDataTypeFromFormatToolsType(reader.getPixelType()), reader.getEffectiveSizeC()
+                * reader.getRGBChannelCount(), reader.getSizeX() * reader.getSizeY());
+
+        this.sharedReader = sharedReader;
+        series = reader.getSeries();
+        this.z = z;
+        this.t = t;
+        disposed = false;
+
+        sharedReader.acquire();
+    }
+
+    /**
+     * Return the shared reader used to read data.
+     */
+    public SharedReader getSharedReader()
+    {
+        return sharedReader;
+    }
+
+    @Override
+    public StorageType getType()
+    {
+        return StorageType.READER;
+    }
+
+    @Override
+    public boolean isWritable()
+    {
+        return false;
+    }
+
+    @Override
+    public long getStoredSize()
+    {
+        // data is read from source
+        return 0L;
+    }
+
+    @Override
+    public void save(Object[] banks) throws IOException
+    {
+        throw new IOException("ReaderPlaneStorage.save(..) error : storage is read only.");
+    }
+
+    @Override
+    public void load(Object[] banks) throws IOException
+    {
+        final IFormatReader reader = sharedReader.getReader();
+
+        // reader is shared so we need exclusive access
+        synchronized (reader)
+        {
+            try
+            {
+                // reader may have been closed
+                sharedReader.ensureOpened();
+            }
+            catch (FormatException e)
+            {
+                throw new IOException(e.getMessage());
+            }
+
+            final int previousSeries = reader.getSeries();
+
+            try
+            {
+                reader.setSeries(series);
+                readData(reader, z, t, banks);
+            }
+            catch (FormatException e)
+            {
+                throw new IOException(e.getMessage());
+            }
+            finally
+            {
+                reader.setSeries(previousSeries);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void dispose()
+    {
+        if (disposed)
+            return;
+
+        disposed = true;
+        // reader is closed when not anymore referenced
+        sharedReader.release();
+    }
+}
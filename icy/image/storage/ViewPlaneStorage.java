@@ -0,0 +1,129 @@
+/*
+ * Copyright 2010, 2011 Institut Pasteur.
+ *
+ * This file is part of ICY.
+ *
+ * ICY is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ICY is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ICY. If not, see <http://www.gnu.org/licenses/>.
+ */
+package icy.image.storage;
+
+import icy.image.IcyBufferedImage;
+
+import java.awt.Rectangle;
+import java.io.IOException;
+
+/**
+ * Plane storage reading data from a region and a set of channels of a source image.<br>
+ * Data is copied from the source image only when the view image is accessed, so the source image
+ * should not be modified while the storage is used (use a snapshot, see
+ * {@link IcyBufferedImage#getSnapshot()}). The storage is read only so a modified view image gets
+ * its own private copy (spilled in scratch storage when released) and never modify the source
+ * image.
+ * 
+ * @author Stephane
+ */
+public class ViewPlaneStorage extends PlaneStorage
+{
+    private final IcyBufferedImage source;
+    private final Rectangle region;
+    private final int[] channels;
+
+    /**
+     * Create a storage for the specified region and channels of the source image.
+     * 
+     * @param source
+     *        source image
+     * @param region
+     *        region of the source image (should be contained in source image bounds)
+     * @param channels
+     *        source channel index for each channel of the view
+     */
+    public ViewPlaneStorage(IcyBufferedImage source, Rectangle region, int[] channels)
+    {
+        super(source.getDataType_(), channels.length, region.width * region.height);
+
+        this.source = source;
+        this.region = new Rectangle(region);
+        this.channels = channels.clone();
+    }
+
+    /**
+     * @return the source image
+     */
+    public IcyBufferedImage getSource()
+    {
+        return source;
+    }
+
+    @Override
+    public StorageType getType()
+    {
+        return StorageType.VIEW;
+    }
+
+    @Override
+    public boolean isWritable()
+    {
+        return false;
+    }
+
+    @Override
+    public long getStoredSize()
+    {
+        // data is read from source
+        return 0L;
+    }
+
+    @Override
+    public void save(Object[] banks) throws IOException
+    {
+        throw new IOException("ViewPlaneStorage.save(..) error : storage is read only.");
+    }
+
+    @Override
+    public void load(Object[] banks) throws IOException
+    {
+        final int srcSizeX = source.getSizeX();
+        final int dstSizeX = region.width;
+        final int dstSizeY = region.height;
+
+        for (int c = 0; c < sizeC; c++)
+        {
+            final Object src = source.getDataXYReadOnly(channels[c]);
+            final Object dst = banks[c];
+
+            // whole image --> single copy
+            if (dstSizeX == srcSizeX)
+                System.arraycopy(src, source.getOffset(0, region.y), dst, 0, sizeXY);
+            else
+            {
+                int srcOffset = source.getOffset(region.x, region.y);
+                int dstOffset = 0;
+
+                for (int y = 0; y < dstSizeY; y++)
+                {
+                    System.arraycopy(src, srcOffset, dst, dstOffset, dstSizeX);
+                    srcOffset += srcSizeX;
+                    dstOffset += dstSizeX;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void dispose()
+    {
+        // nothing to release
+    }
+}
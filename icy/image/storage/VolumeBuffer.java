@@ -0,0 +1,203 @@
+/*
+ * Copyright 2010, 2011 Institut Pasteur.
+ *
+ * This file is part of ICY.
+ *
+ * ICY is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ICY is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ICY. If not, see <http://www.gnu.org/licenses/>.
+ */
+package icy.image.storage;
+
+import icy.type.DataType;
+import icy.type.collection.array.Array1DUtil;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Contiguous [XYZ] volume data of a {@link icy.sequence.VolumetricImage}.<br>
+ * Each channel is stored in a single direct buffer (native byte order) with X stride = 1, Y stride
+ * = sizeX and Z stride = sizeX * sizeY (in element). Planes of the volume use a
+ * {@link VolumePlaneStorage} (slice of the channel buffer) so 3D processing and exports can work
+ * directly on the whole volume without gathering planes first.
+ *
+ * @author Stephane
+ */
+public class VolumeBuffer
+{
+    private final int sizeX;
+    private final int sizeY;
+    private final int sizeZ;
+    private final int sizeC;
+    private final DataType dataType;
+
+    /**
+     * channel volume buffers
+     */
+    private final ByteBuffer[] channels;
+
+    public VolumeBuffer(int sizeX, int sizeY, int sizeZ, int sizeC, DataType dataType)
+    {
+        super();
+
+        final long channelSize = (long) sizeX * (long) sizeY * (long) sizeZ * dataType.getSize();
+
+        if (channelSize > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("VolumeBuffer(..) error : volume is too large to be stored in a single buffer.");
+
+        this.sizeX = sizeX;
+        this.sizeY = sizeY;
+        this.sizeZ = sizeZ;
+        this.sizeC = sizeC;
+        this.dataType = dataType;
+
+        channels = new ByteBuffer[sizeC];
+        for (int c = 0; c < sizeC; c++)
+            channels[c] = ByteBuffer.allocateDirect((int) channelSize).order(ByteOrder.nativeOrder());
+    }
+
+    public int getSizeX()
+    {
+        return sizeX;
+    }
+
+    public int getSizeY()
+    {
+        return sizeY;
+    }
+
+    public int getSizeZ()
+    {
+        return sizeZ;
+    }
+
+    public int getSizeC()
+    {
+        return sizeC;
+    }
+
+    public DataType getDataType_()
+    {
+        return dataType;
+    }
+
+    /**
+     * Return the offset (in element) between 2 consecutive planes
+     */
+    public int getStrideZ()
+    {
+        return sizeX * sizeY;
+    }
+
+    /**
+     * Return the offset (in element) between 2 consecutive lines
+     */
+    public int getStrideY()
+    {
+        return sizeX;
+    }
+
+    /**
+     * Return the offset (in element) of the specified position
+     */
+    public int getOffset(int x, int y, int z)
+    {
+        return (z * getStrideZ()) + (y * sizeX) + x;
+    }
+
+    /**
+     * Return the whole volume buffer [XYZ] of the specified channel (native byte order).<br>
+     * Returned buffer shares volume data.
+     */
+    public ByteBuffer getBuffer(int c)
+    {
+        final ByteBuffer result = channels[c].duplicate();
+
+        result.order(ByteOrder.nativeOrder());
+
+        return result;
+    }
+
+    /**
+     * Return the buffer [XY] of the specified plane and channel (native byte order).<br>
+     * Returned buffer shares volume data.
+     */
+    public ByteBuffer getPlaneBuffer(int z, int c)
+    {
+        final ByteBuffer bb = channels[c].duplicate();
+        final int planeSize = getStrideZ() * dataType.getSize();
+
+        bb.position(z * planeSize);
+        bb.limit((z + 1) * planeSize);
+
+        return bb.slice().order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Return a copy of the whole volume data [XYZ] of the specified channel in a java array.<br>
+     * If (out == null) a new array is allocated.
+     */
+    public Object getDataCopyXYZ(int c, Object out)
+    {
+        final Object result = Array1DUtil.allocIfNull(out, dataType, getStrideZ() * sizeZ);
+        final ByteBuffer bb = getBuffer(c);
+
+        switch (dataType.getJavaType())
+        {
+            case BYTE:
+                bb.get((byte[]) result);
+                break;
+            case SHORT:
+                bb.asShortBuffer().get((short[]) result);
+                break;
+            case INT:
+                bb.asIntBuffer().get((int[]) result);
+                break;
+            case FLOAT:
+                bb.asFloatBuffer().get((float[]) result);
+                break;
+            case DOUBLE:
+                bb.asDoubleBuffer().get((double[]) result);
+                break;
+        }
+
+        return result;
+    }
+
+    /**
+     * Set the whole volume data [XYZ] of the specified channel from a java array.
+     */
+    public void setDataXYZ(int c, Object values)
+    {
+        final ByteBuffer bb = getBuffer(c);
+
+        switch (dataType.getJavaType())
+        {
+            case BYTE:
+                bb.put((byte[]) values);
+                break;
+            case SHORT:
+                bb.asShortBuffer().put((short[]) values);
+                break;
+            case INT:
+                bb.asIntBuffer().put((int[]) values);
+                break;
+            case FLOAT:
+                bb.asFloatBuffer().put((float[]) values);
+                break;
+            case DOUBLE:
+                bb.asDoubleBuffer().put((double[]) values);
+                break;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2010, 2011 Institut Pasteur.
+ *
+ * This file is part of ICY.
+ *
+ * ICY is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ICY is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ICY. If not, see <http://www.gnu.org/licenses/>.
+ */
+package icy.image.storage;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Plane storage using a plane of a contiguous {@link VolumeBuffer}.<br>
+ * Stored data is directly the volume data so modifications saved here are visible in the volume.
+ *
+ * @author Stephane
+ */
+public class VolumePlaneStorage extends BufferPlaneStorage
+{
+    private final VolumeBuffer volume;
+    private final int z;
+
+    public VolumePlaneStorage(VolumeBuffer volume, int z)
+    {
+        super(volume.getDataType_(), volume.getSizeC(), volume.getStrideZ());
+
+        this.volume = volume;
+        this.z = z;
+    }
+
+    @Override
+    public StorageType getType()
+    {
+        return StorageType.VOLUME;
+    }
+
+    /**
+     * @return the volume containing the plane
+     */
+    public VolumeBuffer getVolume()
+    {
+        return volume;
+    }
+
+    /**
+     * @return the Z position of the plane in the volume
+     */
+    public int getZ()
+    {
+        return z;
+    }
+
+    @Override
+    protected ByteBuffer[] createBuffers()
+    {
+        final ByteBuffer[] result = new ByteBuffer[sizeC];
+
+        for (int c = 0; c < sizeC; c++)
+            result[c] = volume.getPlaneBuffer(z, c);
+
+        return result;
+    }
+}
@@ -49,6 +49,7 @@ import icy.system.AppleUtil;
 import icy.system.IcyExceptionHandler;
 import icy.system.IcySecurityManager;
 import icy.system.SystemUtil;
+import icy.system.profile.ImageMemory;
 import icy.system.thread.ThreadUtil;
 import icy.update.IcyUpdater;
 import icy.util.ReflectionUtil;
@@ -200,6 +201,9 @@ public class Icy
                 mainInterface = new MainInterfaceBatch();
             else
                 mainInterface = new MainInterfaceGui();
+
+            // expose image memory usage over JMX
+            ImageMemory.register();
         }
         catch (Throwable t)
         {
@@ -18,10 +18,16 @@
  */
 package icy.math;
 
+import icy.system.SystemUtil;
+import icy.system.thread.Processor;
 import icy.type.TypeUtil;
 import icy.type.collection.array.Array1DUtil;
 import icy.type.collection.array.ArrayUtil;
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
 /**
  * Class defining basic arithmetic and statistic operations on 1D double arrays.
  * 
@@ -29,6 +35,150 @@ import icy.type.collection.array.ArrayUtil;
  */
 public class ArrayMath
 {
+    /**
+     * Process a chunk [from, to[ of an array (see {@link ArrayMath#compute(int, int, ChunkProcessor)})
+     */
+    public static abstract class ChunkProcessor
+    {
+        public abstract void process(int chunk, int from, int to);
+    }
+
+    /**
+     * processor used for parallel array processing
+     */
+    private static final Processor processor = new Processor(Processor.DEFAULT_MAX_WAITING,
+            SystemUtil.getAvailableProcessors());
+
+    static
+    {
+        processor.setDefaultThreadName("ArrayMath processing");
+    }
+
+    /**
+     * arrays containing at least this number of element are processed in parallel
+     */
+    private static volatile int parallelThreshold = 256 * 1024;
+
+    /**
+     * Return the minimum array length for parallel processing.
+     */
+    public static int getParallelThreshold()
+    {
+        return parallelThreshold;
+    }
+
+    /**
+     * Set the minimum array length for parallel processing.<br>
+     * Element-wise operations and reductions on smaller arrays are done in the calling thread.
+     */
+    public static void setParallelThreshold(int value)
+    {
+        parallelThreshold = Math.max(1024, value);
+    }
+
+    private static boolean isParallel(int length)
+    {
+        return (length >= parallelThreshold) && (SystemUtil.getAvailableProcessors() > 1);
+    }
+
+    /**
+     * Return the number of chunk used to process an array of the specified length
+     */
+    public static int getNumChunk(int length)
+    {
+        if (!isParallel(length))
+            return 1;
+
+        // chunks are small enough to balance load but large enough to amortize scheduling
+        return (int) Math.min(SystemUtil.getAvailableProcessors() * 4L, Math.max(1, length / (parallelThreshold / 4)));
+    }
+
+    /**
+     * Process an array of the specified length by chunks (see {@link #getNumChunk(int)}).<br>
+     * The calling thread participates to the processing so this can safely be called from a
+     * processor task.
+     */
+    public static void compute(int length, ChunkProcessor task)
+    {
+        compute(length, getNumChunk(length), task);
+    }
+
+    /**
+     * Process the specified number of element split in <code>numChunk</code> chunks.<br>
+     * Chunks are processed by the shared math processor and the calling thread (which
+     * participates to the processing so this can safely be called from a processor task).<br>
+     * The method returns when all chunks are processed, the first exception thrown by a chunk is
+     * rethrown.<br>
+     * Use it with the number of chunk used to size per chunk results so they always match.
+     */
+    public static void compute(final int length, final int numChunk, final ChunkProcessor task)
+    {
+        if (numChunk <= 1)
+        {
+            task.process(0, 0, length);
+            return;
+        }
+
+        final AtomicInteger next = new AtomicInteger(0);
+        final CountDownLatch done = new CountDownLatch(numChunk);
+        final AtomicReference<RuntimeException> error = new AtomicReference<RuntimeException>();
+        final Runnable worker = new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                int chunk;
+
+                while ((chunk = next.getAndIncrement()) < numChunk)
+                {
+                    try
+                    {
+                        // don't process remaining chunks on error
+                        if (error.get() == null)
+                            task.process(chunk, (int) (((long) length * chunk) / numChunk),
+                                    (int) (((long) length * (chunk + 1)) / numChunk));
+                    }
+                    catch (RuntimeException e)
+                    {
+                        error.compareAndSet(null, e);
+                    }
+                    finally
+                    {
+                        done.countDown();
+                    }
+                }
+            }
+        };
+
+        final int numWorker = Math.min(numChunk, SystemUtil.getAvailableProcessors());
+
+        // helpers (they just exit if all chunks are already processed when they start)
+        for (int i = 1; i < numWorker; i++)
+            processor.addTask(worker);
+
+        worker.run();
+
+        // wait for chunks still processed by helpers
+        boolean interrupted = false;
+        while (true)
+        {
+            try
+            {
+                done.await();
+                break;
+            }
+            catch (InterruptedException e)
+            {
+                interrupted = true;
+            }
+        }
+
+        if (interrupted)
+            Thread.currentThread().interrupt();
+        if (error.get() != null)
+            throw error.get();
+    }
+
     /**
      * Element-wise addition of two arrays
      * 
@@ -70,12 +220,19 @@ public class ArrayMath
      * @param out
      *        the array receiving the result
      */
-    public static double[] add(double[] a1, double[] a2, double[] out)
+    public static double[] add(final double[] a1, final double[] a2, double[] out)
     {
         final double[] result = Array1DUtil.allocIfNull(out, a1.length);
 
-        for (int i = 0; i < a1.length; i++)
-            result[i] = a1[i] + a2[i];
+        compute(a1.length, new ChunkProcessor()
+        {
+            @Override
+            public void process(int chunk, int from, int to)
+            {
+                for (int i = from; i < to; i++)
+                    result[i] = a1[i] + a2[i];
+            }
+        });
 
         return result;
     }
@@ -94,12 +251,19 @@ public class ArrayMath
      * @param out
      *        the array receiving the result
      */
-    public static float[] add(float[] a1, float[] a2, float[] out)
+    public static float[] add(final float[] a1, final float[] a2, float[] out)
     {
         final float[] result = Array1DUtil.allocIfNull(out, a1.length);
 
-        for (int i = 0; i < a1.length; i++)
-            result[i] = a1[i] + a2[i];
+        compute(a1.length, new ChunkProcessor()
+        {
+            @Override
+            public void process(int chunk, int from, int to)
+            {
+                for (int i = from; i < to; i++)
+                    result[i] = a1[i] + a2[i];
+            }
+        });
 
         return result;
     }
@@ -118,12 +282,19 @@ public class ArrayMath
      * @param out
      *        the array receiving the result
      */
-    public static long[] add(long[] a1, long[] a2, long[] out)
+    public static long[] add(final long[] a1, final long[] a2, long[] out)
     {
         final long[] result = Array1DUtil.allocIfNull(out, a1.length);
 
-        for (int i = 0; i < a1.length; i++)
-            result[i] = a1[i] + a2[i];
+        compute(a1.length, new ChunkProcessor()
+        {
+            @Override
+            public void process(int chunk, int from, int to)
+            {
+                for (int i = from; i < to; i++)
+                    result[i] = a1[i] + a2[i];
+            }
+        });
 
         return result;
     }
@@ -142,12 +313,19 @@ public class ArrayMath
      * @param out
      *        the array receiving the result
      */
-    public static int[] add(int[] a1, int[] a2, int[] out)
+    public static int[] add(final int[] a1, final int[] a2, int[] out)
     {
         final int[] result = Array1DUtil.allocIfNull(out, a1.length);
 
-        for (int i = 0; i < a1.length; i++)
-            result[i] = a1[i] + a2[i];
+        compute(a1.length, new ChunkProcessor()
+        {
+            @Override
+            public void process(int chunk, int from, int to)
+            {
+                for (int i = from; i < to; i++)
+                    result[i] = a1[i] + a2[i];
+            }
+        });
 
         return result;
     }
@@ -166,12 +344,19 @@ public class ArrayMath
      * @param out
      *        the array receiving the result
      */
-    public static short[] add(short[] a1, short[] a2, short[] out)
+    public static short[] add(final short[] a1, final short[] a2, short[] out)
     {
         final short[] result = Array1DUtil.allocIfNull(out, a1.length);
 
-        for (int i = 0; i < a1.length; i++)
-            result[i] = (short) (a1[i] + a2[i]);
+        compute(a1.length, new ChunkProcessor()
+        {
+            @Override
+            public void process(int chunk, int from, int to)
+            {
+                for (int i = from; i < to; i++)
+                    result[i] = (short) (a1[i] + a2[i]);
+            }
+        });
 
         return result;
     }
@@ -190,12 +375,19 @@ public class ArrayMath
      * @param out
      *        the array receiving the result
      */
-    public static byte[] add(byte[] a1, byte[] a2, byte[] out)
+    public static byte[] add(final byte[] a1, final byte[] a2, byte[] out)
     {
         final byte[] result = Array1DUtil.allocIfNull(out, a1.length);
 
-        for (int i = 0; i < a1.length; i++)
-            result[i] = (byte) (a1[i] + a2[i]);
+        compute(a1.length, new ChunkProcessor()
+        {
+            @Override
+            public void process(int chunk, int from, int to)
+            {
+                for (int i = from; i < to; i++)
+                    result[i] = (byte) (a1[i] + a2[i]);
+            }
+        });
 
         return result;
     }
@@ -249,12 +441,19 @@ public class ArrayMath
      * @param out
      *        the array receiving the result
      */
-    public static double[] add(double[] array, double value, double[] out)
+    public static double[] add(final double[] array, final double value, double[] out)
     {
         final double[] result = Array1DUtil.allocIfNull(out, array.length);
 
-        for (int i = 0; i < array.length; i++)
-            result[i] = array[i] + value;
+        compute(array.length, new ChunkProcessor()
+        {
+            @Override
+            public void process(int chunk, int from, int to)
+            {
+                for (int i = from; i < to; i++)
+                    result[i] = array[i] + value;
+            }
+        });
 
         return result;
     }
@@ -282,12 +481,19 @@ public class ArrayMath
      * @param out
      *        the array receiving the result
      */
-    public static float[] add(float[] array, float value, float[] out)
+    public static float[] add(final float[] array, final float value, float[] out)
     {
         final float[] result = Array1DUtil.allocIfNull(out, array.length);
 
-        for (int i = 0; i < array.length; i++)
-            result[i] = array[i] + value;
+        compute(array.length, new ChunkProcessor()
+        {
+            @Override
+            public void process(int chunk, int from, int to)
+            {
+                for (int i = from; i < to; i++)
+                    result[i] = array[i] + value;
+            }
+        });
 
         return result;
     }
@@ -306,12 +512,19 @@ public class ArrayMath
      * @param out
      *        the array receiving the result
      */
-    public static long[] add(long[] array, long value, long[] out)
+    public static long[] add(final long[] array, final long value, long[] out)
     {
         final long[] result = Array1DUtil.allocIfNull(out, array.length);
 
-        for (int i = 0; i < array.length; i++)
-            result[i] = array[i] + value;
+        compute(array.length, new ChunkProcessor()
+        {
+            @Override
+            public void process(int chunk, int from, int to)
+            {
+                for (int i = from; i < to; i++)
+                    result[i] = array[i] + value;
+            }
+        });
 
         return result;
     }
@@ -330,12 +543,19 @@ public class ArrayMath
      * @param out
      *        the array receiving the result
      */
-    public static int[] add(int[] array, int value, int[] out)
+    public static int[] add(final int[] array, final int value, int[] out)
     {
         final int[] result = Array1DUtil.allocIfNull(out, array.length);
 
-        for (int i = 0; i < array.length; i++)
-            result[i] = array[i] + value;
+        compute(array.length, new ChunkProcessor()
+        {
+            @Override
+            public void process(int chunk, int from, int to)
+            {
+                for (int i = from; i < to; i++)
+                    result[i] = array[i] + value;
+            }
+        });
 
         return result;
     }
@@ -354,12 +574,19 @@ public class ArrayMath
      * @param out
      *        the array receiving the result
      */
-    public static short[] add(short[] array, short value, short[] out)
+    public static short[] add(final short[] array, final short value, short[] out)
     {
         final short[] result = Array1DUtil.allocIfNull(out, array.length);
 
-        for (int i = 0; i < array.length; i++)
-            result[i] = (short) (array[i] + value);
+        compute(array.length, new ChunkProcessor()
+        {
+            @Override
+            public void process(int chunk, int from, int to)
+            {
+                for (int i = from; i < to; i++)
+                    result[i] = (short) (array[i] + value);
+            }
+        });
 
         return result;
     }
@@ -378,12 +605,19 @@ public class ArrayMath
      * @param out
      *        the array receiving the result
      */
-    public static byte[] add(byte[] array, byte value, byte[] out)
+    public static byte[] add(final byte[] array, final byte value, byte[] out)
     {
         final byte[] result = Array1DUtil.allocIfNull(out, array.length);
 
-        for (int i = 0; i < array.length; i++)
-            result[i] = (byte) (array[i] + value);
+        compute(array.length, new ChunkProcessor()
+        {
+            @Override
+            public void process(int chunk, int from, int to)
+            {
+                for (int i = from; i < to; i++)
+                    result[i] = (byte) (array[i] + value);
+            }
+        });
 
         return result;
     }
@@ -437,12 +671,19 @@ public class ArrayMath
      * @param out
      *        the array receiving the result
      */
-    public static double[] subtract(double[] a1, double[] a2, double[] out)
+    public static double[] subtract(final double[] a1, final double[] a2, double[] out)
     {
         final double[] result = Array1DUtil.allocIfNull(out, a1.length);
 
-        for (int i = 0; i < a1.length; i++)
-            result[i] = a1[i] - a2[i];
+        compute(a1.length, new ChunkProcessor()
+        {
+            @Override
+            public void process(int chunk, int from, int to)
+            {
+                for (int i = from; i < to; i++)
+                    result[i] = a1[i] - a2[i];
+            }
+        });
 
         return result;
     }
@@ -461,12 +702,19 @@ public class ArrayMath
      * @param out
      *        the array receiving the result
      */
-    public static float[] subtract(float[] a1, float[] a2, float[] out)
+    public static float[] subtract(final float[] a1, final float[] a2, float[] out)
     {
         final float[] result = Array1DUtil.allocIfNull(out, a1.length);
 
-        for (int i = 0; i < a1.length; i++)
-            result[i] = a1[i] - a2[i];
+        compute(a1.length, new ChunkProcessor()
+        {
+            @Override
+            public void process(int chunk, int from, int to)
+            {
+                for (int i = from; i < to; i++)
+                    result[i] = a1[i] - a2[i];
+            }
+        });
 
         return result;
     }
@@ -485,12 +733,19 @@ public class ArrayMath
      * @param out
      *        the array receiving the result
      */
-    public static long[] subtract(long[] a1, long[] a2, long[] out)
+    public static long[] subtract(final long[] a1, final long[] a2, long[] out)
     {
         final long[] result = Array1DUtil.allocIfNull(out, a1.length);
 
-        for (int i = 0; i < a1.length; i++)
-            result[i] = a1[i] - a2[i];
+        compute(a1.length, new ChunkProcessor()
+        {
+            @Override
+            public void process(int chunk, int from, int to)
+            {
+                for (int i = from; i < to; i++)
+                    result[i] = a1[i] - a2[i];
+            }
+        });
 
         return result;
     }
@@ -509,12 +764,19 @@ public class ArrayMath
      * @param out
      *        the array receiving the result
      */
-    public static int[] subtract(int[] a1, int[] a2, int[] out)
+    public static int[] subtract(final int[] a1, final int[] a2, int[] out)
     {
         final int[] result = Array1DUtil.allocIfNull(out, a1.length);
 
-        for (int i = 0; i < a1.length; i++)
-            result[i] = a1[i] - a2[i];
+        compute(a1.length, new ChunkProcessor()
+        {
+            @Override
+            public void process(int chunk, int from, int to)
+            {
+                for (int i = from; i < to; i++)
+                    result[i] = a1[i] - a2[i];
+            }
+        });
 
         return result;
     }
@@ -533,12 +795,19 @@ public class ArrayMath
      * @param out
      *        the array receiving the result
      */
-    public static short[] subtract(short[] a1, short[] a2, short[] out)
+    public static short[] subtract(final short[] a1, final short[] a2, short[] out)
     {
         final short[] result = Array1DUtil.allocIfNull(out, a1.length);
 
-        for (int i = 0; i < a1.length; i++)
-            result[i] = (short) (a1[i] - a2[i]);
+        compute(a1.length, new ChunkProcessor()
+        {
+            @Override
+            public void process(int chunk, int from, int to)
+            {
+                for (int i = from; i < to; i++)
+                    result[i] = (short) (a1[i] - a2[i]);
+            }
+        });
 
         return result;
     }
@@ -557,12 +826,19 @@ public class ArrayMath
      * @param out
      *        the array receiving the result
      */
-    public static byte[] subtract(byte[] a1, byte[] a2, byte[] out)
+    public static byte[] subtract(final byte[] a1, final byte[] a2, byte[] out)
     {
         final byte[] result = Array1DUtil.allocIfNull(out, a1.length);
 
-        for (int i = 0; i < a1.length; i++)
-            result[i] = (byte) (a1[i] - a2[i]);
+        compute(a1.length, new ChunkProcessor()
+        {
+            @Override
+            public void process(int chunk, int from, int to)
+            {
+                for (int i = from; i < to; i++)
+                    result[i] = (byte) (a1[i] - a2[i]);
+            }
+        });
 
         return result;
     }
@@ -616,12 +892,19 @@ public class ArrayMath
      * @param out
      *        the array receiving the result
      */
-    public static double[] subtract(double[] array, double value, double[] out)
+    public static double[] subtract(final double[] array, final double value, double[] out)
     {
         final double[] result = Array1DUtil.allocIfNull(out, array.length);
 
-        for (int i = 0; i < array.length; i++)
-            result[i] = array[i] - value;
+        compute(array.length, new ChunkProcessor()
+        {
+            @Override
+            public void process(int chunk, int from, int to)
+            {
+                for (int i = from; i < to; i++)
+                    result[i] = array[i] - value;
+            }
+        });
 
         return result;
     }
@@ -640,12 +923,19 @@ public class ArrayMath
      * @param out
      *        the array receiving the result
      */
-    public static float[] subtract(float[] array, float value, float[] out)
+    public static float[] subtract(final float[] array, final float value, float[] out)
     {
         final float[] result = Array1DUtil.allocIfNull(out, array.length);
 
-        for (int i = 0; i < array.length; i++)
-            result[i] = array[i] - value;
+        compute(array.length, new ChunkProcessor()
+        {
+            @Override
+            public void process(int chunk, int from, int to)
+            {
+                for (int i = from; i < to; i++)
+                    result[i] = array[i] - value;
+            }
+        });
 
         return result;
     }
@@ -664,12 +954,19 @@ public class ArrayMath
      * @param out
      *        the array receiving the result
      */
-    public static long[] subtract(long[] array, long value, long[] out)
+    public static long[] subtract(final long[] array, final long value, long[] out)
     {
         final long[] result = Array1DUtil.allocIfNull(out, array.length);
 
-        for (int i = 0; i < array.length; i++)
-            result[i] = array[i] - value;
+        compute(array.length, new ChunkProcessor()
+        {
+            @Override
+            public void process(int chunk, int from, int to)
+            {
+                for (int i = from; i < to; i++)
+                    result[i] = array[i] - value;
+            }
+        });
 
         return result;
     }
@@ -688,12 +985,19 @@ public class ArrayMath
      * @param out
      *        the array receiving the result
      */
-    public static int[] subtract(int[] array, int value, int[] out)
+    public static int[] subtract(final int[] array, final int value, int[] out)
     {
         final int[] result = Array1DUtil.allocIfNull(out, array.length);
 
-        for (int i = 0; i < array.length; i++)
-            result[i] = array[i] - value;
+        compute(array.length, new ChunkProcessor()
+        {
+            @Override
+            public void process(int chunk, int from, int to)
+            {
+                for (int i = from; i < to; i++)
+                    result[i] = array[i] - value;
+            }
+        });
 
         return result;
     }
@@ -712,12 +1016,19 @@ public class ArrayMath
      * @param out
      *        the array receiving the result
      */
-    public static short[] subtract(short[] array, short value, short[] out)
+    public static short[] subtract(final short[] array, final short value, short[] out)
     {
         final short[] result = Array1DUtil.allocIfNull(out, array.length);
 
-        for (int i = 0; i < array.length; i++)
-            result[i] = (short) (array[i] - value);
+        compute(array.length, new ChunkProcessor()
+        {
+            @Override
+            public void process(int chunk, int from, int to)
+            {
+                for (int i = from; i < to; i++)
+                    result[i] = (short) (array[i] - value);
+            }
+        });
 
         return result;
     }
@@ -736,12 +1047,19 @@ public class ArrayMath
      * @param out
      *        the array receiving the result
      */
-    public static byte[] subtract(byte[] array, byte value, byte[] out)
+    public static byte[] subtract(final byte[] array, final byte value, byte[] out)
     {
         final byte[] result = Array1DUtil.allocIfNull(out, array.length);
 
-        for (int i = 0; i < array.length; i++)
-            result[i] = (byte) (array[i] - value);
+        compute(array.length, new ChunkProcessor()
+        {
+            @Override
+            public void process(int chunk, int from, int to)
+            {
+                for (int i = from; i < to; i++)
+                    result[i] = (byte) (array[i] - value);
+            }
+        });
 
         return result;
     }
@@ -795,12 +1113,19 @@ public class ArrayMath
      * @param out
      *        the array receiving the result
      */
-    public static double[] subtract(double value, double[] array, double[] out)
+    public static double[] subtract(final double value, final double[] array, double[] out)
     {
         final double[] result = Array1DUtil.allocIfNull(out, array.length);
 
-        for (int i = 0; i < array.length; i++)
-            result[i] = value - array[i];
+        compute(array.length, new ChunkProcessor()
+        {
+            @Override
+            public void process(int chunk, int from, int to)
+            {
+                for (int i = from; i < to; i++)
+                    result[i] = value - array[i];
+            }
+        });
 
         return result;
     }
@@ -819,12 +1144,19 @@ public class ArrayMath
      * @param out
      *        the array receiving the result
      */
-    public static float[] subtract(float value, float[] array, float[] out)
+    public static float[] subtract(final float value, final float[] array, float[] out)
     {
         final float[] result = Array1DUtil.allocIfNull(out, array.length);
 
-        for (int i = 0; i < array.length; i++)
-            result[i] = value - array[i];
+        compute(array.length, new ChunkProcessor()
+        {
+            @Override
+            public void process(int chunk, int from, int to)
+            {
+                for (int i = from; i < to; i++)
+                    result[i] = value - array[i];
+            }
+        });
 
         return result;
     }
@@ -843,12 +1175,19 @@ public class ArrayMath
      * @param out
      *        the array receiving the result
      */
-    public static long[] subtract(long value, long[] array, long[] out)
+    public static long[] subtract(final long value, final long[] array, long[] out)
     {
         final long[] result = Array1DUtil.allocIfNull(out, array.length);
 
-        for (int i = 0; i < array.length; i++)
-            result[i] = value - array[i];
+        compute(array.length, new ChunkProcessor()
+        {
+            @Override
+            public void process(int chunk, int from, int to)
+            {
+                for (int i = from; i < to; i++)
+                    result[i] = value - array[i];
+            }
+        });
 
         return result;
     }
@@ -867,12 +1206,19 @@ public class ArrayMath
      * @param out
      *        the array receiving the result
      */
-    public static int[] subtract(int value, int[] array, int[] out)
+    public static int[] subtract(final int value, final int[] array, int[] out)
     {
         final int[] result = Array1DUtil.allocIfNull(out, array.length);
 
-        for (int i = 0; i < array.length; i++)
-            result[i] = value - array[i];
+        compute(array.length, new ChunkProcessor()
+        {
+            @Override
+            public void process(int chunk, int from, int to)
+            {
+                for (int i = from; i < to; i++)
+                    result[i] = value - array[i];
+            }
+        });
 
         return result;
     }
@@ -891,12 +1237,19 @@ public class ArrayMath
      * @param out
      *        the array receiving the result
      */
-    public static short[] subtract(short value, short[] array, short[] out)
+    public static short[] subtract(final short value, final short[] array, short[] out)
     {
         final short[] result = Array1DUtil.allocIfNull(out, array.length);
 
-        for (int i = 0; i < array.length; i++)
-            result[i] = (short) (value - array[i]);
+        compute(array.length, new ChunkProcessor()
+        {
+            @Override
+            public void process(int chunk, int from, int to)
+            {
+                for (int i = from; i < to; i++)
+                    result[i] = (short) (value - array[i]);
+            }
+        });
 
         return result;
     }
@@ -915,12 +1268,19 @@ public class ArrayMath
      * @param out
      *        the array receiving the result
      */
-    public static byte[] subtract(byte value, byte[] array, byte[] out)
+    public static byte[] subtract(final byte value, final byte[] array, byte[] out)
     {
         final byte[] result = Array1DUtil.allocIfNull(out, array.length);
 
-        for (int i = 0; i < array.length; i++)
-            result[i] = (byte) (value - array[i]);
+        compute(array.length, new ChunkProcessor()
+        {
+            @Override
+            public void process(int chunk, int from, int to)
+            {
+                for (int i = from; i < to; i++)
+                    result[i] = (byte) (value - array[i]);
+            }
+        });
 
         return result;
     }
@@ -974,12 +1334,19 @@ public class ArrayMath
      * @param out
      *        the array receiving the result
      */
-    public static double[] multiply(double[] a1, double[] a2, double[] out)
+    public static double[] multiply(final double[] a1, final double[] a2, double[] out)
     {
         final double[] result = Array1DUtil.allocIfNull(out, a1.length);
 
-        for (int i = 0; i < a1.length; i++)
-            result[i] = a1[i] * a2[i];
+        compute(a1.length, new ChunkProcessor()
+        {
+            @Override
+            public void process(int chunk, int from, int to)
+            {
+                for (int i = from; i < to; i++)
+                    result[i] = a1[i] * a2[i];
+            }
+        });
 
         return result;
     }
@@ -998,12 +1365,19 @@ public class ArrayMath
      * @param out
      *        the array receiving the result
      */
-    public static float[] multiply(float[] a1, float[] a2, float[] out)
+    public static float[] multiply(final float[] a1, final float[] a2, float[] out)
     {
         final float[] result = Array1DUtil.allocIfNull(out, a1.length);
 
-        for (int i = 0; i < a1.length; i++)
-            result[i] = a1[i] * a2[i];
+        compute(a1.length, new ChunkProcessor()
+        {
+            @Override
+            public void process(int chunk, int from, int to)
+            {
+                for (int i = from; i < to; i++)
+                    result[i] = a1[i] * a2[i];
+            }
+        });
 
         return result;
     }
@@ -1022,12 +1396,19 @@ public class ArrayMath
      * @param out
      *        the array receiving the result
      */
-    public static long[] multiply(long[] a1, long[] a2, long[] out)
+    public static long[] multiply(final long[] a1, final long[] a2, long[] out)
     {
         final long[] result = Array1DUtil.allocIfNull(out, a1.length);
 
-        for (int i = 0; i < a1.length; i++)
-            result[i] = a1[i] * a2[i];
+        compute(a1.length, new ChunkProcessor()
+        {
+            @Override
+            public void process(int chunk, int from, int to)
+            {
+                for (int i = from; i < to; i++)
+                    result[i] = a1[i] * a2[i];
+            }
+        });
 
         return result;
     }
@@ -1046,12 +1427,19 @@ public class ArrayMath
      * @param out
      *        the array receiving the result
      */
-    public static int[] multiply(int[] a1, int[] a2, int[] out)
+    public static int[] multiply(final int[] a1, final int[] a2, int[] out)
     {
         final int[] result = Array1DUtil.allocIfNull(out, a1.length);
 
-        for (int i = 0; i < a1.length; i++)
-            result[i] = a1[i] * a2[i];
+        compute(a1.length, new ChunkProcessor()
+        {
+            @Override
+            public void process(int chunk, int from, int to)
+            {
+                for (int i = from; i < to; i++)
+                    result[i] = a1[i] * a2[i];
+            }
+        });
 
         return result;
     }
@@ -1070,12 +1458,19 @@ public class ArrayMath
      * @param out
      *        the array receiving the result
      */
-    public static short[] multiply(short[] a1, short[] a2, short[] out)
+    public static short[] multiply(final short[] a1, final short[] a2, short[] out)
     {
         final short[] result = Array1DUtil.allocIfNull(out, a1.length);
 
-        for (int i = 0; i < a1.length; i++)
-            result[i] = (short) (a1[i] * a2[i]);
+        compute(a1.length, new ChunkProcessor()
+        {
+            @Override
+            public void process(int chunk, int from, int to)
+            {
+                for (int i = from; i < to; i++)
+                    result[i] = (short) (a1[i] * a2[i]);
+            }
+        });
 
         return result;
     }
@@ -1094,12 +1489,19 @@ public class ArrayMath
      * @param out
      *        the array receiving the result
      */
-    public static byte[] multiply(byte[] a1, byte[] a2, byte[] out)
+    public static byte[] multiply(final byte[] a1, final byte[] a2, byte[] out)
     {
         final byte[] result = Array1DUtil.allocIfNull(out, a1.length);
 
-        for (int i = 0; i < a1.length; i++)
-            result[i] = (byte) (a1[i] * a2[i]);
+        compute(a1.length, new ChunkProcessor()
+        {
+            @Override
+            public void process(int chunk, int from, int to)
+            {
+                for (int i = from; i < to; i++)
+                    result[i] = (byte) (a1[i] * a2[i]);
+            }
+        });
 
         return result;
     }
@@ -1153,12 +1555,19 @@ public class ArrayMath
      * @param out
      *        the array receiving the result
      */
-    public static double[] multiply(double[] array, double value, double[] out)
+    public static double[] multiply(final double[] array, final double value, double[] out)
     {
         final double[] result = Array1DUtil.allocIfNull(out, array.length);
 
-        for (int i = 0; i < array.length; i++)
-            result[i] = array[i] * value;
+        compute(array.length, new ChunkProcessor()
+        {
+            @Override
+            public void process(int chunk, int from, int to)
+            {
+                for (int i = from; i < to; i++)
+                    result[i] = array[i] * value;
+            }
+        });
 
         return result;
     }
@@ -1186,12 +1595,19 @@ public class ArrayMath
      * @param out
      *        the array receiving the result
      */
-    public static float[] multiply(float[] array, float value, float[] out)
+    public static float[] multiply(final float[] array, final float value, float[] out)
     {
         final float[] result = Array1DUtil.allocIfNull(out, array.length);
 
-        for (int i = 0; i < array.length; i++)
-            result[i] = array[i] * value;
+        compute(array.length, new ChunkProcessor()
+        {
+            @Override
+            public void process(int chunk, int from, int to)
+            {
+                for (int i = from; i < to; i++)
+                    result[i] = array[i] * value;
+            }
+        });
 
         return result;
     }
@@ -1210,12 +1626,19 @@ public class ArrayMath
      * @param out
      *        the array receiving the result
      */
-    public static long[] multiply(long[] array, long value, long[] out)
+    public static long[] multiply(final long[] array, final long value, long[] out)
     {
         final long[] result = Array1DUtil.allocIfNull(out, array.length);
 
-        for (int i = 0; i < array.length; i++)
-            result[i] = array[i] * value;
+        compute(array.length, new ChunkProcessor()
+        {
+            @Override
+            public void process(int chunk, int from, int to)
+            {
+                for (int i = from; i < to; i++)
+                    result[i] = array[i] * value;
+            }
+        });
 
         return result;
     }
@@ -1234,12 +1657,19 @@ public class ArrayMath
      * @param out
      *        the array receiving the result
      */
-    public static int[] multiply(int[] array, int value, int[] out)
+    public static int[] multiply(final int[] array, final int value, int[] out)
     {
         final int[] result = Array1DUtil.allocIfNull(out, array.length);
 
-        for (int i = 0; i < array.length; i++)
-            result[i] = array[i] * value;
+        compute(array.length, new ChunkProcessor()
+        {
+            @Override
+            public void process(int chunk, int from, int to)
+            {
+                for (int i = from; i < to; i++)
+                    result[i] = array[i] * value;
+            }
+        });
 
         return result;
     }
@@ -1258,12 +1688,19 @@ public class ArrayMath
      * @param out
      *        the array receiving the result
      */
-    public static short[] multiply(short[] array, short value, short[] out)
+    public static short[] multiply(final short[] array, final short value, short[] out)
     {
         final short[] result = Array1DUtil.allocIfNull(out, array.length);
 
-        for (int i = 0; i < array.length; i++)
-            result[i] = (short) (array[i] * value);
+        compute(array.length, new ChunkProcessor()
+        {
+            @Override
+            public void process(int chunk, int from, int to)
+            {
+                for (int i = from; i < to; i++)
+                    result[i] = (short) (array[i] * value);
+            }
+        });
 
         return result;
     }
@@ -1282,12 +1719,19 @@ public class ArrayMath
      * @param out
      *        the array receiving the result
      */
-    public static byte[] multiply(byte[] array, byte value, byte[] out)
+    public static byte[] multiply(final byte[] array, final byte value, byte[] out)
     {
         final byte[] result = Array1DUtil.allocIfNull(out, array.length);
 
-        for (int i = 0; i < array.length; i++)
-            result[i] = (byte) (array[i] * value);
+        compute(array.length, new ChunkProcessor()
+        {
+            @Override
+            public void process(int chunk, int from, int to)
+            {
+                for (int i = from; i < to; i++)
+                    result[i] = (byte) (array[i] * value);
+            }
+        });
 
         return result;
     }
@@ -1341,12 +1785,19 @@ public class ArrayMath
      * @param out
      *        the array receiving the result
      */
-    public static double[] divide(double[] a1, double[] a2, double[] out)
+    public static double[] divide(final double[] a1, final double[] a2, double[] out)
     {
         final double[] result = Array1DUtil.allocIfNull(out, a1.length);
 
-        for (int i = 0; i < a1.length; i++)
-            result[i] = a1[i] / a2[i];
+        compute(a1.length, new ChunkProcessor()
+        {
+            @Override
+            public void process(int chunk, int from, int to)
+            {
+                for (int i = from; i < to; i++)
+                    result[i] = a1[i] / a2[i];
+            }
+        });
 
         return result;
     }
@@ -1365,12 +1816,19 @@ public class ArrayMath
      * @param out
      *        the array receiving the result
      */
-    public static float[] divide(float[] a1, float[] a2, float[] out)
+    public static float[] divide(final float[] a1, final float[] a2, float[] out)
     {
         final float[] result = Array1DUtil.allocIfNull(out, a1.length);
 
-        for (int i = 0; i < a1.length; i++)
-            result[i] = a1[i] / a2[i];
+        compute(a1.length, new ChunkProcessor()
+        {
+            @Override
+            public void process(int chunk, int from, int to)
+            {
+                for (int i = from; i < to; i++)
+                    result[i] = a1[i] / a2[i];
+            }
+        });
 
         return result;
     }
@@ -1389,12 +1847,19 @@ public class ArrayMath
      * @param out
      *        the array receiving the result
      */
-    public static long[] divide(long[] a1, long[] a2, long[] out)
+    public static long[] divide(final long[] a1, final long[] a2, long[] out)
     {
         final long[] result = Array1DUtil.allocIfNull(out, a1.length);
 
-        for (int i = 0; i < a1.length; i++)
-            result[i] = a1[i] / a2[i];
+        compute(a1.length, new ChunkProcessor()
+        {
+            @Override
+            public void process(int chunk, int from, int to)
+            {
+                for (int i = from; i < to; i++)
+                    result[i] = a1[i] / a2[i];
+            }
+        });
 
         return result;
     }
@@ -1413,12 +1878,19 @@ public class ArrayMath
      * @param out
      *        the array receiving the result
      */
-    public static int[] divide(int[] a1, int[] a2, int[] out)
+    public static int[] divide(final int[] a1, final int[] a2, int[] out)
     {
         final int[] result = Array1DUtil.allocIfNull(out, a1.length);
 
-        for (int i = 0; i < a1.length; i++)
-            result[i] = a1[i] / a2[i];
+        compute(a1.length, new ChunkProcessor()
+        {
+            @Override
+            public void process(int chunk, int from, int to)
+            {
+                for (int i = from; i < to; i++)
+                    result[i] = a1[i] / a2[i];
+            }
+        });
 
         return result;
     }
@@ -1437,12 +1909,19 @@ public class ArrayMath
      * @param out
      *        the array receiving the result
      */
-    public static short[] divide(short[] a1, short[] a2, short[] out)
+    public static short[] divide(final short[] a1, final short[] a2, short[] out)
     {
         final short[] result = Array1DUtil.allocIfNull(out, a1.length);
 
-        for (int i = 0; i < a1.length; i++)
-            result[i] = (short) (a1[i] / a2[i]);
+        compute(a1.length, new ChunkProcessor()
+        {
+            @Override
+            public void process(int chunk, int from, int to)
+            {
+                for (int i = from; i < to; i++)
+                    result[i] = (short) (a1[i] / a2[i]);
+            }
+        });
 
         return result;
     }
@@ -1461,12 +1940,19 @@ public class ArrayMath
      * @param out
      *        the array receiving the result
      */
-    public static byte[] divide(byte[] a1, byte[] a2, byte[] out)
+    public static byte[] divide(final byte[] a1, final byte[] a2, byte[] out)
     {
         final byte[] result = Array1DUtil.allocIfNull(out, a1.length);
 
-        for (int i = 0; i < a1.length; i++)
-            result[i] = (byte) (a1[i] / a2[i]);
+        compute(a1.length, new ChunkProcessor()
+        {
+            @Override
+            public void process(int chunk, int from, int to)
+            {
+                for (int i = from; i < to; i++)
+                    result[i] = (byte) (a1[i] / a2[i]);
+            }
+        });
 
         return result;
     }
@@ -1520,12 +2006,19 @@ public class ArrayMath
      * @param out
      *        the array receiving the result
      */
-    public static double[] divide(double[] array, double value, double[] out)
+    public static double[] divide(final double[] array, final double value, double[] out)
     {
         final double[] result = Array1DUtil.allocIfNull(out, array.length);
 
-        for (int i = 0; i < array.length; i++)
-            result[i] = array[i] / value;
+        compute(array.length, new ChunkProcessor()
+        {
+            @Override
+            public void process(int chunk, int from, int to)
+            {
+                for (int i = from; i < to; i++)
+                    result[i] = array[i] / value;
+            }
+        });
 
         return result;
     }
@@ -1544,12 +2037,19 @@ public class ArrayMath
      * @param out
      *        the array receiving the result
      */
-    public static float[] divide(float[] array, float value, float[] out)
+    public static float[] divide(final float[] array, final float value, float[] out)
     {
         final float[] result = Array1DUtil.allocIfNull(out, array.length);
 
-        for (int i = 0; i < array.length; i++)
-            result[i] = array[i] / value;
+        compute(array.length, new ChunkProcessor()
+        {
+            @Override
+            public void process(int chunk, int from, int to)
+            {
+                for (int i = from; i < to; i++)
+                    result[i] = array[i] / value;
+            }
+        });
 
         return result;
     }
@@ -1568,12 +2068,19 @@ public class ArrayMath
      * @param out
      *        the array receiving the result
      */
-    public static long[] divide(long[] array, long value, long[] out)
+    public static long[] divide(final long[] array, final long value, long[] out)
     {
         final long[] result = Array1DUtil.allocIfNull(out, array.length);
 
-        for (int i = 0; i < array.length; i++)
-            result[i] = array[i] / value;
+        compute(array.length, new ChunkProcessor()
+        {
+            @Override
+            public void process(int chunk, int from, int to)
+            {
+                for (int i = from; i < to; i++)
+                    result[i] = array[i] / value;
+            }
+        });
 
         return result;
     }
@@ -1592,12 +2099,19 @@ public class ArrayMath
      * @param out
      *        the array receiving the result
      */
-    public static int[] divide(int[] array, int value, int[] out)
+    public static int[] divide(final int[] array, final int value, int[] out)
     {
         final int[] result = Array1DUtil.allocIfNull(out, array.length);
 
-        for (int i = 0; i < array.length; i++)
-            result[i] = array[i] / value;
+        compute(array.length, new ChunkProcessor()
+        {
+            @Override
+            public void process(int chunk, int from, int to)
+            {
+                for (int i = from; i < to; i++)
+                    result[i] = array[i] / value;
+            }
+        });
 
         return result;
     }
@@ -1616,12 +2130,19 @@ public class ArrayMath
      * @param out
      *        the array receiving the result
      */
-    public static short[] divide(short[] array, short value, short[] out)
+    public static short[] divide(final short[] array, final short value, short[] out)
     {
         final short[] result = Array1DUtil.allocIfNull(out, array.length);
 
-        for (int i = 0; i < array.length; i++)
-            result[i] = (short) (array[i] / value);
+        compute(array.length, new ChunkProcessor()
+        {
+            @Override
+            public void process(int chunk, int from, int to)
+            {
+                for (int i = from; i < to; i++)
+                    result[i] = (short) (array[i] / value);
+            }
+        });
 
         return result;
     }
@@ -1640,14 +2161,21 @@ public class ArrayMath
      * @param out
      *        the array receiving the result
      */
-    public static byte[] divide(byte[] array, byte value, byte[] out)
+    public static byte[] divide(final byte[] array, final byte value, byte[] out)
     {
         final byte[] result = Array1DUtil.allocIfNull(out, array.length);
 
-        for (int i = 0; i < array.length; i++)
-            result[i] = (byte) (array[i] / value);
-
-        return result;
+        compute(array.length, new ChunkProcessor()
+        {
+            @Override
+            public void process(int chunk, int from, int to)
+            {
+                for (int i = from; i < to; i++)
+                    result[i] = (byte) (array[i] / value);
+            }
+        });
+
+        return result;
     }
 
     /**
@@ -1699,12 +2227,19 @@ public class ArrayMath
      * @param out
      *        the array receiving the result
      */
-    public static double[] divide(double value, double[] array, double[] out)
+    public static double[] divide(final double value, final double[] array, double[] out)
     {
         final double[] result = Array1DUtil.allocIfNull(out, array.length);
 
-        for (int i = 0; i < array.length; i++)
-            result[i] = value / array[i];
+        compute(array.length, new ChunkProcessor()
+        {
+            @Override
+            public void process(int chunk, int from, int to)
+            {
+                for (int i = from; i < to; i++)
+                    result[i] = value / array[i];
+            }
+        });
 
         return result;
     }
@@ -1723,12 +2258,19 @@ public class ArrayMath
      * @param out
      *        the array receiving the result
      */
-    public static float[] divide(float value, float[] array, float[] out)
+    public static float[] divide(final float value, final float[] array, float[] out)
     {
         final float[] result = Array1DUtil.allocIfNull(out, array.length);
 
-        for (int i = 0; i < array.length; i++)
-            result[i] = value / array[i];
+        compute(array.length, new ChunkProcessor()
+        {
+            @Override
+            public void process(int chunk, int from, int to)
+            {
+                for (int i = from; i < to; i++)
+                    result[i] = value / array[i];
+            }
+        });
 
         return result;
     }
@@ -1747,12 +2289,19 @@ public class ArrayMath
      * @param out
      *        the array receiving the result
      */
-    public static long[] divide(long value, long[] array, long[] out)
+    public static long[] divide(final long value, final long[] array, long[] out)
     {
         final long[] result = Array1DUtil.allocIfNull(out, array.length);
 
-        for (int i = 0; i < array.length; i++)
-            result[i] = value / array[i];
+        compute(array.length, new ChunkProcessor()
+        {
+            @Override
+            public void process(int chunk, int from, int to)
+            {
+                for (int i = from; i < to; i++)
+                    result[i] = value / array[i];
+            }
+        });
 
         return result;
     }
@@ -1771,12 +2320,19 @@ public class ArrayMath
      * @param out
      *        the array receiving the result
      */
-    public static int[] divide(int value, int[] array, int[] out)
+    public static int[] divide(final int value, final int[] array, int[] out)
     {
         final int[] result = Array1DUtil.allocIfNull(out, array.length);
 
-        for (int i = 0; i < array.length; i++)
-            result[i] = value / array[i];
+        compute(array.length, new ChunkProcessor()
+        {
+            @Override
+            public void process(int chunk, int from, int to)
+            {
+                for (int i = from; i < to; i++)
+                    result[i] = value / array[i];
+            }
+        });
 
         return result;
     }
@@ -1795,12 +2351,19 @@ public class ArrayMath
      * @param out
      *        the array receiving the result
      */
-    public static short[] divide(short value, short[] array, short[] out)
+    public static short[] divide(final short value, final short[] array, short[] out)
     {
         final short[] result = Array1DUtil.allocIfNull(out, array.length);
 
-        for (int i = 0; i < array.length; i++)
-            result[i] = (short) (value / array[i]);
+        compute(array.length, new ChunkProcessor()
+        {
+            @Override
+            public void process(int chunk, int from, int to)
+            {
+                for (int i = from; i < to; i++)
+                    result[i] = (short) (value / array[i]);
+            }
+        });
 
         return result;
     }
@@ -1819,12 +2382,19 @@ public class ArrayMath
      * @param out
      *        the array receiving the result
      */
-    public static byte[] divide(byte value, byte[] array, byte[] out)
+    public static byte[] divide(final byte value, final byte[] array, byte[] out)
     {
         final byte[] result = Array1DUtil.allocIfNull(out, array.length);
 
-        for (int i = 0; i < array.length; i++)
-            result[i] = (byte) (value / array[i]);
+        compute(array.length, new ChunkProcessor()
+        {
+            @Override
+            public void process(int chunk, int from, int to)
+            {
+                for (int i = from; i < to; i++)
+                    result[i] = (byte) (value / array[i]);
+            }
+        });
 
         return result;
     }
@@ -1871,12 +2441,19 @@ public class ArrayMath
      * @param overwrite
      *        true overwrites the input data, false returns the result in a new structure
      */
-    public static double[] abs(double[] input, boolean overwrite)
+    public static double[] abs(final double[] input, boolean overwrite)
     {
         final double[] result = overwrite ? input : new double[input.length];
 
-        for (int i = 0; i < input.length; i++)
-            result[i] = Math.abs(input[i]);
+        compute(input.length, new ChunkProcessor()
+        {
+            @Override
+            public void process(int chunk, int from, int to)
+            {
+                for (int i = from; i < to; i++)
+                    result[i] = Math.abs(input[i]);
+            }
+        });
 
         return result;
     }
@@ -1887,12 +2464,19 @@ public class ArrayMath
      * @param overwrite
      *        true overwrites the input data, false returns the result in a new structure
      */
-    public static float[] abs(float[] input, boolean overwrite)
+    public static float[] abs(final float[] input, boolean overwrite)
     {
         final float[] result = overwrite ? input : new float[input.length];
 
-        for (int i = 0; i < input.length; i++)
-            result[i] = Math.abs(input[i]);
+        compute(input.length, new ChunkProcessor()
+        {
+            @Override
+            public void process(int chunk, int from, int to)
+            {
+                for (int i = from; i < to; i++)
+                    result[i] = Math.abs(input[i]);
+            }
+        });
 
         return result;
     }
@@ -1903,12 +2487,19 @@ public class ArrayMath
      * @param overwrite
      *        true overwrites the input data, false returns the result in a new structure
      */
-    public static long[] abs(long[] input, boolean overwrite)
+    public static long[] abs(final long[] input, boolean overwrite)
     {
         final long[] result = overwrite ? input : new long[input.length];
 
-        for (int i = 0; i < input.length; i++)
-            result[i] = Math.abs(input[i]);
+        compute(input.length, new ChunkProcessor()
+        {
+            @Override
+            public void process(int chunk, int from, int to)
+            {
+                for (int i = from; i < to; i++)
+                    result[i] = Math.abs(input[i]);
+            }
+        });
 
         return result;
     }
@@ -1919,12 +2510,19 @@ public class ArrayMath
      * @param overwrite
      *        true overwrites the input data, false returns the result in a new structure
      */
-    public static int[] abs(int[] input, boolean overwrite)
+    public static int[] abs(final int[] input, boolean overwrite)
     {
         final int[] result = overwrite ? input : new int[input.length];
 
-        for (int i = 0; i < input.length; i++)
-            result[i] = Math.abs(input[i]);
+        compute(input.length, new ChunkProcessor()
+        {
+            @Override
+            public void process(int chunk, int from, int to)
+            {
+                for (int i = from; i < to; i++)
+                    result[i] = Math.abs(input[i]);
+            }
+        });
 
         return result;
     }
@@ -1935,12 +2533,19 @@ public class ArrayMath
      * @param overwrite
      *        true overwrites the input data, false returns the result in a new structure
      */
-    public static short[] abs(short[] input, boolean overwrite)
+    public static short[] abs(final short[] input, boolean overwrite)
     {
         final short[] result = overwrite ? input : new short[input.length];
 
-        for (int i = 0; i < input.length; i++)
-            result[i] = (short) Math.abs(input[i]);
+        compute(input.length, new ChunkProcessor()
+        {
+            @Override
+            public void process(int chunk, int from, int to)
+            {
+                for (int i = from; i < to; i++)
+                    result[i] = (short) Math.abs(input[i]);
+            }
+        });
 
         return result;
     }
@@ -1951,12 +2556,19 @@ public class ArrayMath
      * @param overwrite
      *        true overwrites the input data, false returns the result in a new structure
      */
-    public static byte[] abs(byte[] input, boolean overwrite)
+    public static byte[] abs(final byte[] input, boolean overwrite)
     {
         final byte[] result = overwrite ? input : new byte[input.length];
 
-        for (int i = 0; i < input.length; i++)
-            result[i] = (byte) Math.abs(input[i]);
+        compute(input.length, new ChunkProcessor()
+        {
+            @Override
+            public void process(int chunk, int from, int to)
+            {
+                for (int i = from; i < to; i++)
+                    result[i] = (byte) Math.abs(input[i]);
+            }
+        });
 
         return result;
     }
@@ -2002,6 +2614,9 @@ public class ArrayMath
      */
     public static int min(byte[] array, boolean signed)
     {
+        if (isParallel(array.length))
+            return (int) parallelMinMax(array, signed)[0];
+
         if (signed)
         {
             byte min = Byte.MAX_VALUE;
@@ -2036,6 +2651,9 @@ public class ArrayMath
      */
     public static int min(short[] array, boolean signed)
     {
+        if (isParallel(array.length))
+            return (int) parallelMinMax(array, signed)[0];
+
         if (signed)
         {
             short min = Short.MAX_VALUE;
@@ -2070,6 +2688,9 @@ public class ArrayMath
      */
     public static long min(int[] array, boolean signed)
     {
+        if (isParallel(array.length))
+            return (long) parallelMinMax(array, signed)[0];
+
         if (signed)
         {
             int min = Integer.MAX_VALUE;
@@ -2138,6 +2759,9 @@ public class ArrayMath
      */
     public static float min(float[] array)
     {
+        if (isParallel(array.length))
+            return (float) parallelMinMax(array, true)[0];
+
         float min = Float.MAX_VALUE;
 
         for (float v : array)
@@ -2156,6 +2780,9 @@ public class ArrayMath
      */
     public static double min(double[] array)
     {
+        if (isParallel(array.length))
+            return parallelMinMax(array, true)[0];
+
         double min = Double.MAX_VALUE;
 
         for (double v : array)
@@ -2206,6 +2833,9 @@ public class ArrayMath
      */
     public static int max(byte[] array, boolean signed)
     {
+        if (isParallel(array.length))
+            return (int) parallelMinMax(array, signed)[1];
+
         if (signed)
         {
             byte max = Byte.MIN_VALUE;
@@ -2240,6 +2870,9 @@ public class ArrayMath
      */
     public static int max(short[] array, boolean signed)
     {
+        if (isParallel(array.length))
+            return (int) parallelMinMax(array, signed)[1];
+
         if (signed)
         {
             short max = Short.MIN_VALUE;
@@ -2274,6 +2907,9 @@ public class ArrayMath
      */
     public static long max(int[] array, boolean signed)
     {
+        if (isParallel(array.length))
+            return (long) parallelMinMax(array, signed)[1];
+
         if (signed)
         {
             int max = Integer.MIN_VALUE;
@@ -2342,7 +2978,10 @@ public class ArrayMath
      */
     public static float max(float[] array)
     {
-        float max = Float.MIN_VALUE;
+        if (isParallel(array.length))
+            return (float) parallelMinMax(array, true)[1];
+
+        float max = -Float.MAX_VALUE;
 
         for (float v : array)
             if (v > max)
@@ -2360,6 +2999,9 @@ public class ArrayMath
      */
     public static double max(double[] array)
     {
+        if (isParallel(array.length))
+            return parallelMinMax(array, true)[1];
+
         double max = -Double.MAX_VALUE;
 
         for (double v : array)
@@ -2369,6 +3011,399 @@ public class ArrayMath
         return max;
     }
 
+    /**
+     * Find the minimum and maximum values of a generic array in a single pass.<br>
+     * This is faster than calling {@link #min(Object, boolean)} then
+     * {@link #max(Object, boolean)}.
+     * 
+     * @param array
+     *        an array
+     * @param signed
+     *        signed / unsigned flag
+     * @return the [min, max] values of the array
+     */
+    public static double[] minMax(Object array, boolean signed)
+    {
+        switch (ArrayUtil.getDataType(array))
+        {
+            case BYTE:
+                return minMax((byte[]) array, signed);
+            case SHORT:
+                return minMax((short[]) array, signed);
+            case INT:
+                return minMax((int[]) array, signed);
+            case LONG:
+                return minMax((long[]) array, signed);
+            case FLOAT:
+                return minMax((float[]) array);
+            case DOUBLE:
+                return minMax((double[]) array);
+            default:
+                return new double[] {0d, 0d};
+        }
+    }
+
+    /**
+     * Find the minimum and maximum values of an array in a single pass
+     * 
+     * @param array
+     *        an array
+     * @param signed
+     *        signed / unsigned flag
+     * @return the [min, max] values of the array
+     */
+    public static double[] minMax(byte[] array, boolean signed)
+    {
+        if (isParallel(array.length))
+            return parallelMinMax(array, signed);
+
+        if (signed)
+        {
+            byte min = Byte.MAX_VALUE;
+            byte max = Byte.MIN_VALUE;
+
+            for (byte v : array)
+            {
+                if (v < min)
+                    min = v;
+                if (v > max)
+                    max = v;
+            }
+
+            return new double[] {min, max};
+        }
+
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+
+        for (int i = 0; i < array.length; i++)
+        {
+            final int v = array[i] & 0xFF;
+
+            if (v < min)
+                min = v;
+            if (v > max)
+                max = v;
+        }
+
+        return new double[] {min, max};
+    }
+
+    /**
+     * Find the minimum and maximum values of an array in a single pass
+     * 
+     * @param array
+     *        an array
+     * @param signed
+     *        signed / unsigned flag
+     * @return the [min, max] values of the array
+     */
+    public static double[] minMax(short[] array, boolean signed)
+    {
+        if (isParallel(array.length))
+            return parallelMinMax(array, signed);
+
+        if (signed)
+        {
+            short min = Short.MAX_VALUE;
+            short max = Short.MIN_VALUE;
+
+            for (short v : array)
+            {
+                if (v < min)
+                    min = v;
+                if (v > max)
+                    max = v;
+            }
+
+            return new double[] {min, max};
+        }
+
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+
+        for (int i = 0; i < array.length; i++)
+        {
+            final int v = array[i] & 0xFFFF;
+
+            if (v < min)
+                min = v;
+            if (v > max)
+                max = v;
+        }
+
+        return new double[] {min, max};
+    }
+
+    /**
+     * Find the minimum and maximum values of an array in a single pass
+     * 
+     * @param array
+     *        an array
+     * @param signed
+     *        signed / unsigned flag
+     * @return the [min, max] values of the array
+     */
+    public static double[] minMax(int[] array, boolean signed)
+    {
+        if (isParallel(array.length))
+            return parallelMinMax(array, signed);
+
+        if (signed)
+        {
+            int min = Integer.MAX_VALUE;
+            int max = Integer.MIN_VALUE;
+
+            for (int v : array)
+            {
+                if (v < min)
+                    min = v;
+                if (v > max)
+                    max = v;
+            }
+
+            return new double[] {min, max};
+        }
+
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+
+        for (int i = 0; i < array.length; i++)
+        {
+            final long v = array[i] & 0xFFFFFFFFL;
+
+            if (v < min)
+                min = v;
+            if (v > max)
+                max = v;
+        }
+
+        return new double[] {min, max};
+    }
+
+    /**
+     * Find the minimum and maximum values of an array in a single pass
+     * 
+     * @param array
+     *        an array
+     * @param signed
+     *        signed / unsigned flag
+     * @return the [min, max] values of the array
+     */
+    public static double[] minMax(long[] array, boolean signed)
+    {
+        if (isParallel(array.length))
+            return parallelMinMax(array, signed);
+
+        if (signed)
+        {
+            long min = Long.MAX_VALUE;
+            long max = Long.MIN_VALUE;
+
+            for (long v : array)
+            {
+                if (v < min)
+                    min = v;
+                if (v > max)
+                    max = v;
+            }
+
+            return new double[] {min, max};
+        }
+
+        double min = Double.MAX_VALUE;
+        double max = -Double.MAX_VALUE;
+
+        for (int i = 0; i < array.length; i++)
+        {
+            // need to compare in double
+            final double v = TypeUtil.unsign(array[i]);
+
+            if (v < min)
+                min = v;
+            if (v > max)
+                max = v;
+        }
+
+        return new double[] {min, max};
+    }
+
+    /**
+     * Find the minimum and maximum values of an array in a single pass
+     * 
+     * @param array
+     *        an array
+     * @return the [min, max] values of the array
+     */
+    public static double[] minMax(float[] array)
+    {
+        if (isParallel(array.length))
+            return parallelMinMax(array, true);
+
+        float min = Float.MAX_VALUE;
+        float max = -Float.MAX_VALUE;
+
+        for (float v : array)
+        {
+            if (v < min)
+                min = v;
+            if (v > max)
+                max = v;
+        }
+
+        return new double[] {min, max};
+    }
+
+    /**
+     * Find the minimum and maximum values of an array in a single pass
+     * 
+     * @param array
+     *        an array
+     * @return the [min, max] values of the array
+     */
+    public static double[] minMax(double[] array)
+    {
+        if (isParallel(array.length))
+            return parallelMinMax(array, true);
+
+        double min = Double.MAX_VALUE;
+        double max = -Double.MAX_VALUE;
+
+        for (double v : array)
+        {
+            if (v < min)
+                min = v;
+            if (v > max)
+                max = v;
+        }
+
+        return new double[] {min, max};
+    }
+
+    /**
+     * Find the minimum and maximum values of an array, processing it in parallel
+     */
+    private static double[] parallelMinMax(final Object array, final boolean signed)
+    {
+        final int length = ArrayUtil.getLength(array);
+        final int numChunk = getNumChunk(length);
+        final double[][] results = new double[numChunk][];
+
+        compute(length, numChunk, new ChunkProcessor()
+        {
+            @Override
+            public void process(int chunk, int from, int to)
+            {
+                results[chunk] = minMax(array, signed, from, to);
+            }
+        });
+
+        final double[] result = new double[] {Double.MAX_VALUE, -Double.MAX_VALUE};
+
+        for (double[] r : results)
+        {
+            if (r[0] < result[0])
+                result[0] = r[0];
+            if (r[1] > result[1])
+                result[1] = r[1];
+        }
+
+        return result;
+    }
+
+    /**
+     * Find the minimum and maximum values of the [from, to[ range of an array
+     */
+    private static double[] minMax(Object array, boolean signed, int from, int to)
+    {
+        double min = Double.MAX_VALUE;
+        double max = -Double.MAX_VALUE;
+
+        switch (ArrayUtil.getDataType(array))
+        {
+            case BYTE:
+            {
+                final byte[] a = (byte[]) array;
+                for (int i = from; i < to; i++)
+                {
+                    final int v = signed ? a[i] : TypeUtil.unsign(a[i]);
+                    if (v < min)
+                        min = v;
+                    if (v > max)
+                        max = v;
+                }
+                break;
+            }
+            case SHORT:
+            {
+                final short[] a = (short[]) array;
+                for (int i = from; i < to; i++)
+                {
+                    final int v = signed ? a[i] : TypeUtil.unsign(a[i]);
+                    if (v < min)
+                        min = v;
+                    if (v > max)
+                        max = v;
+                }
+                break;
+            }
+            case INT:
+            {
+                final int[] a = (int[]) array;
+                for (int i = from; i < to; i++)
+                {
+                    final long v = signed ? a[i] : TypeUtil.unsign(a[i]);
+                    if (v < min)
+                        min = v;
+                    if (v > max)
+                        max = v;
+                }
+                break;
+            }
+            case LONG:
+            {
+                final long[] a = (long[]) array;
+                for (int i = from; i < to; i++)
+                {
+                    final double v = signed ? a[i] : TypeUtil.unsign(a[i]);
+                    if (v < min)
+                        min = v;
+                    if (v > max)
+                        max = v;
+                }
+                break;
+            }
+            case FLOAT:
+            {
+                final float[] a = (float[]) array;
+                for (int i = from; i < to; i++)
+                {
+                    final float v = a[i];
+                    if (v < min)
+                        min = v;
+                    if (v > max)
+                        max = v;
+                }
+                break;
+            }
+            case DOUBLE:
+            {
+                final double[] a = (double[]) array;
+                for (int i = from; i < to; i++)
+                {
+                    final double v = a[i];
+                    if (v < min)
+                        min = v;
+                    if (v > max)
+                        max = v;
+                }
+                break;
+            }
+        }
+
+        return new double[] {min, max};
+    }
+
     /**
      * Element-wise minimum of two arrays
      * 
@@ -2379,13 +3414,20 @@ public class ArrayMath
      * @param output
      *        - the array of min values
      */
-    public static void min(double[] a1, double[] a2, double[] output)
+    public static void min(final double[] a1, final double[] a2, final double[] output)
     {
-        for (int i = 0; i < a1.length; i++)
-            if (a1[i] <= a2[i])
-                output[i] = a1[i];
-            else
-                output[i] = a2[i];
+        compute(a1.length, new ChunkProcessor()
+        {
+            @Override
+            public void process(int chunk, int from, int to)
+            {
+                for (int i = from; i < to; i++)
+                    if (a1[i] <= a2[i])
+                        output[i] = a1[i];
+                    else
+                        output[i] = a2[i];
+            }
+        });
     }
 
     /**
@@ -2414,13 +3456,20 @@ public class ArrayMath
      * @param output
      *        - the array of max values
      */
-    public static void max(double[] a1, double[] a2, double[] output)
+    public static void max(final double[] a1, final double[] a2, final double[] output)
     {
-        for (int i = 0; i < a1.length; i++)
-            if (a1[i] >= a2[i])
-                output[i] = a1[i];
-            else
-                output[i] = a2[i];
+        compute(a1.length, new ChunkProcessor()
+        {
+            @Override
+            public void process(int chunk, int from, int to)
+            {
+                for (int i = from; i < to; i++)
+                    if (a1[i] >= a2[i])
+                        output[i] = a1[i];
+                    else
+                        output[i] = a2[i];
+            }
+        });
     }
 
     /**
@@ -2569,8 +3618,28 @@ public class ArrayMath
      * @param input
      *        the array to sum up
      */
-    public static double sum(double[] input)
+    public static double sum(final double[] input)
     {
+        if (isParallel(input.length))
+        {
+            final int numChunk = getNumChunk(input.length);
+            final double[] sums = new double[numChunk];
+
+            compute(input.length, numChunk, new ChunkProcessor()
+            {
+                @Override
+                public void process(int chunk, int from, int to)
+                {
+                    double sum = 0;
+                    for (int i = from; i < to; i++)
+                        sum += input[i];
+                    sums[chunk] = sum;
+                }
+            });
+
+            return sum(sums);
+        }
+
         double sum = 0;
         for (double d : input)
             sum += d;
@@ -2594,11 +3663,36 @@ public class ArrayMath
      * @param unbiased
      *        set to true if the result should be normalized by the population size minus 1
      */
-    public static double var(double[] input, boolean unbiased)
+    public static double var(final double[] input, boolean unbiased)
     {
-        double var = 0, mean = mean(input);
-        for (double f : input)
-            var += (f - mean) * (f - mean);
+        final double mean = mean(input);
+        double var = 0;
+
+        if (isParallel(input.length))
+        {
+            final int numChunk = getNumChunk(input.length);
+            final double[] vars = new double[numChunk];
+
+            compute(input.length, numChunk, new ChunkProcessor()
+            {
+                @Override
+                public void process(int chunk, int from, int to)
+                {
+                    double v = 0;
+                    for (int i = from; i < to; i++)
+                        v += (input[i] - mean) * (input[i] - mean);
+                    vars[chunk] = v;
+                }
+            });
+
+            var = sum(vars);
+        }
+        else
+        {
+            for (double f : input)
+                var += (f - mean) * (f - mean);
+        }
+
         return var / (unbiased ? input.length - 1 : input.length);
     }
 
@@ -4,6 +4,9 @@
 package icy.math;
 
 import icy.type.DataIterator;
+import icy.type.DataSpanIterator;
+import icy.type.DataType;
+import icy.type.TypeUtil;
 
 /**
  * Math utilities for DataIterator subclasses.
@@ -105,4 +108,372 @@ public class DataIteratorMath
 
         return result / numSample;
     }
+
+    /**
+     * Returns the number of element contained in the specified {@link DataSpanIterator}.
+     */
+    public static long count(DataSpanIterator it)
+    {
+        long result = 0;
+
+        it.reset();
+
+        while (it.nextSpan())
+            result += it.getLength();
+
+        return result;
+    }
+
+    /**
+     * Returns the sum of all values contained in the specified {@link DataSpanIterator}.
+     * Returns <code>0</code> if no value in <code>DataSpanIterator</code>.
+     */
+    public static double sum(DataSpanIterator it)
+    {
+        final DataType dataType = it.getDataType();
+        double result = 0;
+
+        it.reset();
+
+        while (it.nextSpan())
+            result = sum(it.getData(), dataType, it.getOffset(), it.getLength(), result);
+
+        return result;
+    }
+
+    /**
+     * Returns the minimum value found in the specified {@link DataSpanIterator}.
+     * Returns <code>Double.MAX_VALUE</code> if no value in <code>DataSpanIterator</code>.
+     */
+    public static double min(DataSpanIterator it)
+    {
+        final DataType dataType = it.getDataType();
+        double result = Double.MAX_VALUE;
+
+        it.reset();
+
+        while (it.nextSpan())
+            result = min(it.getData(), dataType, it.getOffset(), it.getLength(), result);
+
+        return result;
+    }
+
+    /**
+     * Returns the maximum value found in the specified {@link DataSpanIterator}.
+     * Returns <code>-Double.MAX_VALUE</code> if no value in <code>DataSpanIterator</code>.
+     */
+    public static double max(DataSpanIterator it)
+    {
+        final DataType dataType = it.getDataType();
+        double result = -Double.MAX_VALUE;
+
+        it.reset();
+
+        while (it.nextSpan())
+            result = max(it.getData(), dataType, it.getOffset(), it.getLength(), result);
+
+        return result;
+    }
+
+    /**
+     * Returns the mean value found in the specified {@link DataSpanIterator}.
+     * Returns <code>NaN</code> if no value in <code>DataSpanIterator</code>.
+     */
+    public static double mean(DataSpanIterator it)
+    {
+        final DataType dataType = it.getDataType();
+        double result = 0;
+        long numSample = 0;
+
+        it.reset();
+
+        while (it.nextSpan())
+        {
+            result = sum(it.getData(), dataType, it.getOffset(), it.getLength(), result);
+            numSample += it.getLength();
+        }
+
+        return result / numSample;
+    }
+
+    /**
+     * Add values of the specified span to <code>initial</code> (typed loops so the JIT can optimize them).
+     */
+    private static double sum(Object data, DataType dataType, int offset, int length, double initial)
+    {
+        final int end = offset + length;
+        double result = initial;
+
+        switch (dataType)
+        {
+            case BYTE:
+            {
+                final byte[] a = (byte[]) data;
+                for (int i = offset; i < end; i++)
+                    result += a[i];
+                break;
+            }
+            case UBYTE:
+            {
+                final byte[] a = (byte[]) data;
+                for (int i = offset; i < end; i++)
+                    result += (a[i] & 0xFF);
+                break;
+            }
+            case SHORT:
+            {
+                final short[] a = (short[]) data;
+                for (int i = offset; i < end; i++)
+                    result += a[i];
+                break;
+            }
+            case USHORT:
+            {
+                final short[] a = (short[]) data;
+                for (int i = offset; i < end; i++)
+                    result += (a[i] & 0xFFFF);
+                break;
+            }
+            case INT:
+            {
+                final int[] a = (int[]) data;
+                for (int i = offset; i < end; i++)
+                    result += a[i];
+                break;
+            }
+            case UINT:
+            {
+                final int[] a = (int[]) data;
+                for (int i = offset; i < end; i++)
+                    result += (a[i] & 0xFFFFFFFFL);
+                break;
+            }
+            case LONG:
+            {
+                final long[] a = (long[]) data;
+                for (int i = offset; i < end; i++)
+                    result += a[i];
+                break;
+            }
+            case ULONG:
+            {
+                final long[] a = (long[]) data;
+                for (int i = offset; i < end; i++)
+                    result += TypeUtil.unsign(a[i]);
+                break;
+            }
+            case FLOAT:
+            {
+                final float[] a = (float[]) data;
+                for (int i = offset; i < end; i++)
+                    result += a[i];
+                break;
+            }
+            case DOUBLE:
+            {
+                final double[] a = (double[]) data;
+                for (int i = offset; i < end; i++)
+                    result += a[i];
+                break;
+            }
+            default:
+                break;
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the minimum between <code>initial</code> and values of the specified span.
+     */
+    private static double min(Object data, DataType dataType, int offset, int length, double initial)
+    {
+        final int end = offset + length;
+        double result = initial;
+
+        switch (dataType)
+        {
+            case BYTE:
+            {
+                final byte[] a = (byte[]) data;
+                for (int i = offset; i < end; i++)
+                    if (a[i] < result)
+                        result = a[i];
+                break;
+            }
+            case UBYTE:
+            {
+                final byte[] a = (byte[]) data;
+                for (int i = offset; i < end; i++)
+                    if ((a[i] & 0xFF) < result)
+                        result = (a[i] & 0xFF);
+                break;
+            }
+            case SHORT:
+            {
+                final short[] a = (short[]) data;
+                for (int i = offset; i < end; i++)
+                    if (a[i] < result)
+                        result = a[i];
+                break;
+            }
+            case USHORT:
+            {
+                final short[] a = (short[]) data;
+                for (int i = offset; i < end; i++)
+                    if ((a[i] & 0xFFFF) < result)
+                        result = (a[i] & 0xFFFF);
+                break;
+            }
+            case INT:
+            {
+                final int[] a = (int[]) data;
+                for (int i = offset; i < end; i++)
+                    if (a[i] < result)
+                        result = a[i];
+                break;
+            }
+            case UINT:
+            {
+                final int[] a = (int[]) data;
+                for (int i = offset; i < end; i++)
+                    if ((a[i] & 0xFFFFFFFFL) < result)
+                        result = (a[i] & 0xFFFFFFFFL);
+                break;
+            }
+            case LONG:
+            {
+                final long[] a = (long[]) data;
+                for (int i = offset; i < end; i++)
+                    if (a[i] < result)
+                        result = a[i];
+                break;
+            }
+            case ULONG:
+            {
+                final long[] a = (long[]) data;
+                for (int i = offset; i < end; i++)
+                    if (TypeUtil.unsign(a[i]) < result)
+                        result = TypeUtil.unsign(a[i]);
+                break;
+            }
+            case FLOAT:
+            {
+                final float[] a = (float[]) data;
+                for (int i = offset; i < end; i++)
+                    if (a[i] < result)
+                        result = a[i];
+                break;
+            }
+            case DOUBLE:
+            {
+                final double[] a = (double[]) data;
+                for (int i = offset; i < end; i++)
+                    if (a[i] < result)
+                        result = a[i];
+                break;
+            }
+            default:
+                break;
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the maximum between <code>initial</code> and values of the specified span.
+     */
+    private static double max(Object data, DataType dataType, int offset, int length, double initial)
+    {
+        final int end = offset + length;
+        double result = initial;
+
+        switch (dataType)
+        {
+            case BYTE:
+            {
+                final byte[] a = (byte[]) data;
+                for (int i = offset; i < end; i++)
+                    if (a[i] > result)
+                        result = a[i];
+                break;
+            }
+            case UBYTE:
+            {
+                final byte[] a = (byte[]) data;
+                for (int i = offset; i < end; i++)
+                    if ((a[i] & 0xFF) > result)
+                        result = (a[i] & 0xFF);
+                break;
+            }
+            case SHORT:
+            {
+                final short[] a = (short[]) data;
+                for (int i = offset; i < end; i++)
+                    if (a[i] > result)
+                        result = a[i];
+                break;
+            }
+            case USHORT:
+            {
+                final short[] a = (short[]) data;
+                for (int i = offset; i < end; i++)
+                    if ((a[i] & 0xFFFF) > result)
+                        result = (a[i] & 0xFFFF);
+                break;
+            }
+            case INT:
+            {
+                final int[] a = (int[]) data;
+                for (int i = offset; i < end; i++)
+                    if (a[i] > result)
+                        result = a[i];
+                break;
+            }
+            case UINT:
+            {
+                final int[] a = (int[]) data;
+                for (int i = offset; i < end; i++)
+                    if ((a[i] & 0xFFFFFFFFL) > result)
+                        result = (a[i] & 0xFFFFFFFFL);
+                break;
+            }
+            case LONG:
+            {
+                final long[] a = (long[]) data;
+                for (int i = offset; i < end; i++)
+                    if (a[i] > result)
+                        result = a[i];
+                break;
+            }
+            case ULONG:
+            {
+                final long[] a = (long[]) data;
+                for (int i = offset; i < end; i++)
+                    if (TypeUtil.unsign(a[i]) > result)
+                        result = TypeUtil.unsign(a[i]);
+                break;
+            }
+            case FLOAT:
+            {
+                final float[] a = (float[]) data;
+                for (int i = offset; i < end; i++)
+                    if (a[i] > result)
+                        result = a[i];
+                break;
+            }
+            case DOUBLE:
+            {
+                final double[] a = (double[]) data;
+                for (int i = offset; i < end; i++)
+                    if (a[i] > result)
+                        result = a[i];
+                break;
+            }
+            default:
+                break;
+        }
+
+        return result;
+    }
 }
@@ -22,6 +22,18 @@ public class Histogram
     protected final double dataToBin;
     protected final double binWidth;
 
+    /**
+     * bin index lookup tables for 8 and 16 bits data (built on demand)
+     */
+    private volatile int[] signedLUT8;
+    private volatile int[] unsignedLUT8;
+    private volatile int[] signedLUT16;
+    private volatile int[] unsignedLUT16;
+    /**
+     * histogram owning the lookup tables (shared by histograms created from a model)
+     */
+    private final Histogram lutOwner;
+
     /**
      * Create a histogram for the specified value range and the desired number of bins.
      * 
@@ -39,6 +51,7 @@ public class Histogram
         this.minValue = minValue;
         this.maxValue = maxValue;
         this.integer = integer;
+        lutOwner = this;
 
         final double range = (maxValue - minValue);
         double bw;
@@ -69,6 +82,23 @@ public class Histogram
             dataToBin = 0d;
     }
 
+    /**
+     * Create an empty histogram with the same value range and bins than the specified one.<br>
+     * Bin index lookup tables are shared with the model so they are only built once.
+     */
+    public Histogram(Histogram model)
+    {
+        super();
+
+        minValue = model.minValue;
+        maxValue = model.maxValue;
+        integer = model.integer;
+        binWidth = model.binWidth;
+        dataToBin = model.dataToBin;
+        bins = new int[model.bins.length];
+        lutOwner = model.lutOwner;
+    }
+
     /**
      * Reset histogram
      */
@@ -86,7 +116,8 @@ public class Histogram
     }
 
     /**
-     * Add the specified array of values to the histogram
+     * Add the specified array of values to the histogram.<br>
+     * Values outside the histogram range are ignored.
      * 
      * @param signed
      *        false if the input array should be interpreted as unsigned values<br>
@@ -94,32 +125,44 @@ public class Histogram
      */
     public void addValues(Object array, boolean signed)
     {
-        switch (ArrayUtil.getDataType(array))
-        {
-            case BYTE:
-                addValues((byte[]) array, signed);
-                break;
-
-            case SHORT:
-                addValues((short[]) array, signed);
-                break;
+        addValues(array, 0, ArrayUtil.getLength(array), signed);
+    }
 
-            case INT:
-                addValues((int[]) array, signed);
-                break;
+    /**
+     * Add the specified part of the array of values to the histogram.<br>
+     * Values outside the histogram range are ignored.<br>
+     * Large arrays are processed in parallel (each task uses its own bins which are merged at the
+     * end, see {@link ArrayMath#getParallelThreshold()}).
+     * 
+     * @param offset
+     *        offset of the first value to add
+     * @param length
+     *        number of value to add
+     * @param signed
+     *        false if the input array should be interpreted as unsigned values<br>
+     *        (integer type only)
+     */
+    public void addValues(final Object array, final int offset, int length, final boolean signed)
+    {
+        final int numChunk = ArrayMath.getNumChunk(length);
+        final int[][] partials = new int[numChunk][];
 
-            case LONG:
-                addValues((long[]) array, signed);
-                break;
+        ArrayMath.compute(length, numChunk, new ArrayMath.ChunkProcessor()
+        {
+            @Override
+            public void process(int chunk, int from, int to)
+            {
+                // last bin receives values out of range
+                final int[] result = new int[bins.length + 1];
 
-            case FLOAT:
-                addValues((float[]) array);
-                break;
+                accumulate(result, array, offset + from, offset + to, signed);
+                partials[chunk] = result;
+            }
+        });
 
-            case DOUBLE:
-                addValues((double[]) array);
-                break;
-        }
+        for (int[] partial : partials)
+            for (int i = 0; i < bins.length; i++)
+                bins[i] += partial[i];
     }
 
     /**
@@ -127,16 +170,7 @@ public class Histogram
      */
     public void addValues(byte[] array, boolean signed)
     {
-        if (signed)
-        {
-            for (byte value : array)
-                bins[(int) ((value - minValue) * dataToBin)]++;
-        }
-        else
-        {
-            for (byte value : array)
-                bins[(int) ((TypeUtil.unsign(value) - minValue) * dataToBin)]++;
-        }
+        addValues(array, 0, array.length, signed);
     }
 
     /**
@@ -144,16 +178,7 @@ public class Histogram
      */
     public void addValues(short[] array, boolean signed)
     {
-        if (signed)
-        {
-            for (short value : array)
-                bins[(int) ((value - minValue) * dataToBin)]++;
-        }
-        else
-        {
-            for (short value : array)
-                bins[(int) ((TypeUtil.unsign(value) - minValue) * dataToBin)]++;
-        }
+        addValues(array, 0, array.length, signed);
     }
 
     /**
@@ -161,16 +186,7 @@ public class Histogram
      */
     public void addValues(int[] array, boolean signed)
     {
-        if (signed)
-        {
-            for (int value : array)
-                bins[(int) ((value - minValue) * dataToBin)]++;
-        }
-        else
-        {
-            for (int value : array)
-                bins[(int) ((TypeUtil.unsign(value) - minValue) * dataToBin)]++;
-        }
+        addValues(array, 0, array.length, signed);
     }
 
     /**
@@ -178,16 +194,7 @@ public class Histogram
      */
     public void addValues(long[] array, boolean signed)
     {
-        if (signed)
-        {
-            for (long value : array)
-                bins[(int) ((value - minValue) * dataToBin)]++;
-        }
-        else
-        {
-            for (long value : array)
-                bins[(int) ((TypeUtil.unsign(value) - minValue) * dataToBin)]++;
-        }
+        addValues(array, 0, array.length, signed);
     }
 
     /**
@@ -195,8 +202,7 @@ public class Histogram
      */
     public void addValues(float[] array)
     {
-        for (float value : array)
-            bins[(int) ((value - minValue) * dataToBin)]++;
+        addValues(array, 0, array.length, true);
     }
 
     /**
@@ -204,8 +210,175 @@ public class Histogram
      */
     public void addValues(double[] array)
     {
-        for (double value : array)
-            bins[(int) ((value - minValue) * dataToBin)]++;
+        addValues(array, 0, array.length, true);
+    }
+
+    /**
+     * Add bins of the specified histogram to this histogram.<br>
+     * Both histograms should have the same value range and bin number (see
+     * {@link #isCompatible(Histogram)}).
+     */
+    public void add(Histogram histogram)
+    {
+        if (!isCompatible(histogram))
+            throw new IllegalArgumentException("Histogram.add(..) error : incompatible histogram.");
+
+        final int[] b = histogram.bins;
+        for (int i = 0; i < bins.length; i++)
+            bins[i] += b[i];
+    }
+
+    /**
+     * Returns <code>true</code> if the specified histogram has the same value range and bins than
+     * this histogram (bins can be merged).
+     */
+    public boolean isCompatible(Histogram histogram)
+    {
+        return (histogram.minValue == minValue) && (histogram.maxValue == maxValue)
+                && (histogram.integer == integer) && (histogram.bins.length == bins.length);
+    }
+
+    /**
+     * Return bin index of the specified value (<code>bins.length</code> if value is out of range)
+     */
+    private int getBin(double value)
+    {
+        if ((value >= minValue) && (value <= maxValue))
+            return (int) ((value - minValue) * dataToBin);
+
+        return bins.length;
+    }
+
+    /**
+     * Return the bin index lookup table for 8 bits data (index is the unsigned raw value)
+     */
+    private int[] getLUT8(boolean signed)
+    {
+        if (lutOwner != this)
+            return lutOwner.getLUT8(signed);
+
+        int[] result = signed ? signedLUT8 : unsignedLUT8;
+
+        if (result == null)
+        {
+            result = new int[1 << 8];
+            for (int i = 0; i < result.length; i++)
+                result[i] = getBin(signed ? (byte) i : i);
+
+            if (signed)
+                signedLUT8 = result;
+            else
+                unsignedLUT8 = result;
+        }
+
+        return result;
+    }
+
+    /**
+     * Return the bin index lookup table for 16 bits data (index is the unsigned raw value)
+     */
+    private int[] getLUT16(boolean signed)
+    {
+        if (lutOwner != this)
+            return lutOwner.getLUT16(signed);
+
+        int[] result = signed ? signedLUT16 : unsignedLUT16;
+
+        if (result == null)
+        {
+            result = new int[1 << 16];
+            for (int i = 0; i < result.length; i++)
+                result[i] = getBin(signed ? (short) i : i);
+
+            if (signed)
+                signedLUT16 = result;
+            else
+                unsignedLUT16 = result;
+        }
+
+        return result;
+    }
+
+    /**
+     * Accumulate values of array in [from, to[ in the specified bins.<br>
+     * 8 and 16 bits data use direct bin indexing (lookup table).
+     */
+    private void accumulate(int[] dst, Object array, int from, int to, boolean signed)
+    {
+        switch (ArrayUtil.getDataType(array))
+        {
+            case BYTE:
+            {
+                final byte[] a = (byte[]) array;
+                final int[] lut = getLUT8(signed);
+
+                for (int i = from; i < to; i++)
+                    dst[lut[a[i] & 0xFF]]++;
+                break;
+            }
+
+            case SHORT:
+            {
+                final short[] a = (short[]) array;
+                final int[] lut = getLUT16(signed);
+
+                for (int i = from; i < to; i++)
+                    dst[lut[a[i] & 0xFFFF]]++;
+                break;
+            }
+
+            case INT:
+            {
+                final int[] a = (int[]) array;
+
+                if (signed)
+                {
+                    for (int i = from; i < to; i++)
+                        dst[getBin(a[i])]++;
+                }
+                else
+                {
+                    for (int i = from; i < to; i++)
+                        dst[getBin(a[i] & 0xFFFFFFFFL)]++;
+                }
+                break;
+            }
+
+            case LONG:
+            {
+                final long[] a = (long[]) array;
+
+                if (signed)
+                {
+                    for (int i = from; i < to; i++)
+                        dst[getBin(a[i])]++;
+                }
+                else
+                {
+                    for (int i = from; i < to; i++)
+                        dst[getBin(TypeUtil.unsign(a[i]))]++;
+                }
+                break;
+            }
+
+            case FLOAT:
+            {
+                final float[] a = (float[]) array;
+
+                for (int i = from; i < to; i++)
+                    dst[getBin(a[i])]++;
+                break;
+            }
+
+            case DOUBLE:
+            {
+                final double[] a = (double[]) array;
+
+                for (int i = from; i < to; i++)
+                    dst[getBin(a[i])]++;
+                break;
+            }
+        }
     }
 
     /**
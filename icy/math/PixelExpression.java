@@ -0,0 +1,772 @@
+/*
+ * Copyright 2010, 2011 Institut Pasteur.
+ *
+ * This file is part of ICY.
+ *
+ * ICY is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ICY is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ICY. If not, see <http://www.gnu.org/licenses/>.
+ */
+package icy.math;
+
+import icy.image.IcyBufferedImage;
+import icy.sequence.Sequence;
+import icy.type.collection.array.Array1DUtil;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Pixel expression over {@link Sequence} / {@link IcyBufferedImage} operands and constants.<br>
+ * The expression is evaluated in a single pass: the target is processed by small tiles where
+ * each operand is read once and operators are applied on tile buffers so no full size temporary
+ * data is created. Evaluation is multithreaded.<br>
+ * <br>
+ * ex : ratio image<br>
+ * <code>PixelExpression.of(seqA).subtract(PixelExpression.of(seqB)).divide(PixelExpression.of(seqC)).evaluate(result);</code>
+ * <br>
+ * <br>
+ * Operands having a single channel, Z or T are broadcasted on the target channels, Z and T.<br>
+ * Values are computed in double precision and clamped to the target data type.<br>
+ * The target can also be used as an operand (in place computation): target planes read to
+ * compute other target planes (broadcast operand) are evaluated in a temporary image then copied
+ * back at end.
+ * 
+ * @author Stephane
+ */
+public abstract class PixelExpression
+{
+    public static enum Operator
+    {
+        ADD, SUBTRACT, MULTIPLY, DIVIDE, MIN, MAX
+    }
+
+    public static enum Function
+    {
+        NEGATE, ABS, SQRT, LOG, EXP
+    }
+
+    /**
+     * number of pixel processed at once (tile buffers should stay in CPU cache)
+     */
+    public static final int TILE_SIZE = 4096;
+    /**
+     * number of pixel processed by a task
+     */
+    private static final int TASK_SIZE = 256 * 1024;
+
+    /**
+     * Create a constant expression
+     */
+    public static PixelExpression constant(double value)
+    {
+        return new Constant(value);
+    }
+
+    /**
+     * Create an expression returning the sequence pixel values
+     */
+    public static PixelExpression of(Sequence sequence)
+    {
+        return new SequenceOperand(sequence);
+    }
+
+    /**
+     * Create an expression returning the image pixel values (same image for all Z and T)
+     */
+    public static PixelExpression of(IcyBufferedImage image)
+    {
+        return new ImageOperand(image);
+    }
+
+    /**
+     * Create an expression applying the specified operator
+     */
+    public static PixelExpression create(Operator operator, PixelExpression left, PixelExpression right)
+    {
+        return new Binary(operator, left, right);
+    }
+
+    /**
+     * Create an expression applying the specified function
+     */
+    public static PixelExpression create(Function function, PixelExpression expression)
+    {
+        return new Unary(function, expression);
+    }
+
+    public PixelExpression add(PixelExpression expression)
+    {
+        return create(Operator.ADD, this, expression);
+    }
+
+    public PixelExpression add(double value)
+    {
+        return add(constant(value));
+    }
+
+    public PixelExpression subtract(PixelExpression expression)
+    {
+        return create(Operator.SUBTRACT, this, expression);
+    }
+
+    public PixelExpression subtract(double value)
+    {
+        return subtract(constant(value));
+    }
+
+    public PixelExpression multiply(PixelExpression expression)
+    {
+        return create(Operator.MULTIPLY, this, expression);
+    }
+
+    public PixelExpression multiply(double value)
+    {
+        return multiply(constant(value));
+    }
+
+    public PixelExpression divide(PixelExpression expression)
+    {
+        return create(Operator.DIVIDE, this, expression);
+    }
+
+    public PixelExpression divide(double value)
+    {
+        return divide(constant(value));
+    }
+
+    public PixelExpression min(PixelExpression expression)
+    {
+        return create(Operator.MIN, this, expression);
+    }
+
+    public PixelExpression min(double value)
+    {
+        return min(constant(value));
+    }
+
+    public PixelExpression max(PixelExpression expression)
+    {
+        return create(Operator.MAX, this, expression);
+    }
+
+    public PixelExpression max(double value)
+    {
+        return max(constant(value));
+    }
+
+    public PixelExpression negate()
+    {
+        return create(Function.NEGATE, this);
+    }
+
+    public PixelExpression abs()
+    {
+        return create(Function.ABS, this);
+    }
+
+    public PixelExpression sqrt()
+    {
+        return create(Function.SQRT, this);
+    }
+
+    public PixelExpression log()
+    {
+        return create(Function.LOG, this);
+    }
+
+    public PixelExpression exp()
+    {
+        return create(Function.EXP, this);
+    }
+
+    /**
+     * Return the depth of the expression tree
+     */
+    abstract int getDepth();
+
+    /**
+     * Check the expression can be evaluated for the specified target size
+     * 
+     * @throws IllegalArgumentException
+     *         if an operand is not compatible
+     */
+    abstract void check(int sizeX, int sizeY, int sizeC, int sizeZ, int sizeT) throws IllegalArgumentException;
+
+    /**
+     * Add images read by the expression to the specified list
+     */
+    abstract void getOperandImages(List<IcyBufferedImage> result);
+
+    /**
+     * Add images read by the expression to compute the target plane at position (t, z) to the
+     * specified list
+     */
+    abstract void getOperandImages(int t, int z, List<IcyBufferedImage> result);
+
+    /**
+     * Compute expression values for the specified pixels.
+     * 
+     * @param buffers
+     *        tile buffers (buffers from <code>level</code> index can be used as temporary
+     *        buffers)
+     * @param offset
+     *        offset of first pixel in plane
+     * @param length
+     *        number of pixel (should be <= {@link #TILE_SIZE})
+     * @param out
+     *        buffer receiving the result
+     */
+    abstract void compute(double[][] buffers, int level, int t, int z, int c, int offset, int length, double[] out);
+
+    /**
+     * Evaluate the expression and store the result in the target sequence.<br>
+     * Target should contains its images (sequence size define the evaluated domain).
+     * 
+     * @throws IllegalArgumentException
+     *         if an operand is not compatible with the target
+     */
+    public void evaluate(Sequence target) throws IllegalArgumentException
+    {
+        final int sizeT = target.getSizeT();
+        final int sizeZ = target.getSizeZ();
+        final IcyBufferedImage[][] planes = new IcyBufferedImage[sizeT][sizeZ];
+
+        for (int t = 0; t < sizeT; t++)
+            for (int z = 0; z < sizeZ; z++)
+                planes[t][z] = target.getImage(t, z);
+
+        target.beginUpdate();
+        try
+        {
+            evaluate(planes, target.getSizeX(), target.getSizeY(), target.getSizeC());
+        }
+        finally
+        {
+            target.endUpdate();
+        }
+    }
+
+    /**
+     * Evaluate the expression and store the result in the target image.
+     * 
+     * @throws IllegalArgumentException
+     *         if an operand is not compatible with the target
+     */
+    public void evaluate(IcyBufferedImage target) throws IllegalArgumentException
+    {
+        evaluate(new IcyBufferedImage[][] {{target}}, target.getSizeX(), target.getSizeY(), target.getSizeC());
+    }
+
+    private void evaluate(final IcyBufferedImage[][] planes, int sizeX, int sizeY, int sizeC)
+            throws IllegalArgumentException
+    {
+        final int sizeT = planes.length;
+        final int sizeZ = (sizeT > 0) ? planes[0].length : 0;
+        final int sizeXY = sizeX * sizeY;
+
+        check(sizeX, sizeY, sizeC, sizeZ, sizeT);
+
+        // target planes read as operand of other planes can't be written in place
+        final IcyBufferedImage[][] outputs = getOutputs(planes, sizeX, sizeY, sizeC);
+
+        // build work units (t, z, c, start, end)
+        final List<int[]> units = new ArrayList<int[]>();
+
+        for (int t = 0; t < sizeT; t++)
+        {
+            for (int z = 0; z < sizeZ; z++)
+            {
+                final IcyBufferedImage image = outputs[t][z];
+
+                if (image == null)
+                    continue;
+
+                // we will directly write in data arrays
+                image.prepareWrite();
+
+                for (int c = 0; c < sizeC; c++)
+                    for (int start = 0; start < sizeXY; start += TASK_SIZE)
+                        units.add(new int[] {t, z, c, start, Math.min(start + TASK_SIZE, sizeXY)});
+            }
+        }
+
+        // pin target and operand planes so their data arrays stay valid for the whole evaluation
+        final List<IcyBufferedImage> pinned = new ArrayList<IcyBufferedImage>();
+
+        for (IcyBufferedImage[] volume : outputs)
+            for (IcyBufferedImage image : volume)
+                if (image != null)
+                    pinned.add(image);
+        getOperandImages(pinned);
+
+        for (IcyBufferedImage image : pinned)
+            image.pinData();
+        try
+        {
+            // one chunk per work unit (returns when all units are processed even if interrupted)
+            ArrayMath.compute(units.size(), units.size(), new ArrayMath.ChunkProcessor()
+            {
+                @Override
+                public void process(int chunk, int from, int to)
+                {
+                    evaluate(outputs, units.subList(from, to));
+                }
+            });
+
+            // copy back planes evaluated in a temporary image
+            for (int t = 0; t < sizeT; t++)
+                for (int z = 0; z < sizeZ; z++)
+                    if (outputs[t][z] != planes[t][z])
+                        planes[t][z].copyData(outputs[t][z]);
+        }
+        finally
+        {
+            // notify data changed
+            for (IcyBufferedImage[] volume : planes)
+                for (IcyBufferedImage image : volume)
+                    if (image != null)
+                        image.dataChanged();
+
+            for (IcyBufferedImage image : pinned)
+                image.unpinData();
+        }
+    }
+
+    /**
+     * Returns the images receiving the result for each target plane: the target plane itself or
+     * a temporary image if the target plane is read to compute another target plane.
+     */
+    private IcyBufferedImage[][] getOutputs(IcyBufferedImage[][] planes, int sizeX, int sizeY, int sizeC)
+    {
+        final Set<IcyBufferedImage> targets = Collections
+                .newSetFromMap(new IdentityHashMap<IcyBufferedImage, Boolean>());
+        final Set<IcyBufferedImage> conflicts = Collections
+                .newSetFromMap(new IdentityHashMap<IcyBufferedImage, Boolean>());
+        final List<IcyBufferedImage> read = new ArrayList<IcyBufferedImage>();
+
+        for (IcyBufferedImage[] volume : planes)
+            for (IcyBufferedImage image : volume)
+                if (image != null)
+                    targets.add(image);
+
+        for (int t = 0; t < planes.length; t++)
+        {
+            for (int z = 0; z < planes[t].length; z++)
+            {
+                read.clear();
+                getOperandImages(t, z, read);
+
+                for (IcyBufferedImage image : read)
+                    if ((image != planes[t][z]) && targets.contains(image))
+                        conflicts.add(image);
+            }
+        }
+
+        final IcyBufferedImage[][] result = new IcyBufferedImage[planes.length][];
+
+        for (int t = 0; t < planes.length; t++)
+        {
+            result[t] = planes[t].clone();
+
+            for (int z = 0; z < planes[t].length; z++)
+            {
+                final IcyBufferedImage image = planes[t][z];
+
+                if ((image != null) && conflicts.contains(image))
+                    result[t][z] = new IcyBufferedImage(sizeX, sizeY, sizeC, image.getDataType_());
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Evaluate the specified work units
+     */
+    void evaluate(IcyBufferedImage[][] planes, List<int[]> units)
+    {
+        // result buffer + one temporary buffer per tree level
+        final double[][] buffers = new double[getDepth() + 1][TILE_SIZE];
+        final double[] result = buffers[0];
+
+        for (int[] unit : units)
+        {
+            final int t = unit[0];
+            final int z = unit[1];
+            final int c = unit[2];
+            final IcyBufferedImage image = planes[t][z];
+            final Object dst = image.getDataXY(c);
+            final boolean signed = image.getDataType_().isSigned();
+
+            for (int off = unit[3]; off < unit[4]; off += TILE_SIZE)
+            {
+                final int len = Math.min(TILE_SIZE, unit[4] - off);
+
+                compute(buffers, 1, t, z, c, off, len, result);
+                Array1DUtil.doubleArrayToSafeArray(result, 0, dst, off, len, signed);
+            }
+        }
+    }
+
+    /**
+     * Check a dimension of an operand
+     */
+    static void checkSize(String dim, int size, int targetSize, boolean broadcast)
+            throws IllegalArgumentException
+    {
+        if ((size != targetSize) && !(broadcast && (size == 1)))
+            throw new IllegalArgumentException("PixelExpression error : operand " + dim + " size (" + size
+                    + ") is not compatible with target " + dim + " size (" + targetSize + ").");
+    }
+
+    private static class Constant extends PixelExpression
+    {
+        final double value;
+
+        Constant(double value)
+        {
+            super();
+
+            this.value = value;
+        }
+
+        @Override
+        int getDepth()
+        {
+            return 1;
+        }
+
+        @Override
+        void check(int sizeX, int sizeY, int sizeC, int sizeZ, int sizeT)
+        {
+            // always compatible
+        }
+
+        @Override
+        void getOperandImages(List<IcyBufferedImage> result)
+        {
+            // no image
+        }
+
+        @Override
+        void getOperandImages(int t, int z, List<IcyBufferedImage> result)
+        {
+            // no image
+        }
+
+        @Override
+        void compute(double[][] buffers, int level, int t, int z, int c, int offset, int length, double[] out)
+        {
+            Arrays.fill(out, 0, length, value);
+        }
+    }
+
+    private static class SequenceOperand extends PixelExpression
+    {
+        final Sequence sequence;
+
+        SequenceOperand(Sequence sequence)
+        {
+            super();
+
+            this.sequence = sequence;
+        }
+
+        @Override
+        int getDepth()
+        {
+            return 1;
+        }
+
+        @Override
+        void check(int sizeX, int sizeY, int sizeC, int sizeZ, int sizeT)
+        {
+            checkSize("X", sequence.getSizeX(), sizeX, false);
+            checkSize("Y", sequence.getSizeY(), sizeY, false);
+            checkSize("C", sequence.getSizeC(), sizeC, true);
+            checkSize("Z", sequence.getSizeZ(), sizeZ, true);
+            checkSize("T", sequence.getSizeT(), sizeT, true);
+        }
+
+        @Override
+        void getOperandImages(List<IcyBufferedImage> result)
+        {
+            result.addAll(sequence.getAllImage());
+        }
+
+        @Override
+        void getOperandImages(int t, int z, List<IcyBufferedImage> result)
+        {
+            final IcyBufferedImage image = getImage(t, z);
+
+            if (image != null)
+                result.add(image);
+        }
+
+        /**
+         * Returns the image read for target position (broadcast single Z or T)
+         */
+        private IcyBufferedImage getImage(int t, int z)
+        {
+            return sequence.getImage((sequence.getSizeT() == 1) ? 0 : t, (sequence.getSizeZ() == 1) ? 0 : z);
+        }
+
+        @Override
+        void compute(double[][] buffers, int level, int t, int z, int c, int offset, int length, double[] out)
+        {
+            // broadcast single channel, Z or T
+            final IcyBufferedImage image = getImage(t, z);
+
+            if (image == null)
+                Arrays.fill(out, 0, length, 0d);
+            else
+                Array1DUtil.arrayToDoubleArray(image.getDataXYReadOnly((image.getSizeC() == 1) ? 0 : c), offset, out,
+                        0, length, image.getDataType_().isSigned());
+        }
+    }
+
+    private static class ImageOperand extends PixelExpression
+    {
+        final IcyBufferedImage image;
+
+        ImageOperand(IcyBufferedImage image)
+        {
+            super();
+
+            this.image = image;
+        }
+
+        @Override
+        int getDepth()
+        {
+            return 1;
+        }
+
+        @Override
+        void check(int sizeX, int sizeY, int sizeC, int sizeZ, int sizeT)
+        {
+            checkSize("X", image.getSizeX(), sizeX, false);
+            checkSize("Y", image.getSizeY(), sizeY, false);
+            checkSize("C", image.getSizeC(), sizeC, true);
+        }
+
+        @Override
+        void getOperandImages(List<IcyBufferedImage> result)
+        {
+            result.add(image);
+        }
+
+        @Override
+        void getOperandImages(int t, int z, List<IcyBufferedImage> result)
+        {
+            result.add(image);
+        }
+
+        @Override
+        void compute(double[][] buffers, int level, int t, int z, int c, int offset, int length, double[] out)
+        {
+            Array1DUtil.arrayToDoubleArray(image.getDataXYReadOnly((image.getSizeC() == 1) ? 0 : c), offset, out, 0,
+                    length, image.getDataType_().isSigned());
+        }
+    }
+
+    private static class Unary extends PixelExpression
+    {
+        final Function function;
+        final PixelExpression expression;
+
+        Unary(Function function, PixelExpression expression)
+        {
+            super();
+
+            this.function = function;
+            this.expression = expression;
+        }
+
+        @Override
+        int getDepth()
+        {
+            return expression.getDepth() + 1;
+        }
+
+        @Override
+        void check(int sizeX, int sizeY, int sizeC, int sizeZ, int sizeT)
+        {
+            expression.check(sizeX, sizeY, sizeC, sizeZ, sizeT);
+        }
+
+        @Override
+        void getOperandImages(List<IcyBufferedImage> result)
+        {
+            expression.getOperandImages(result);
+        }
+
+        @Override
+        void getOperandImages(int t, int z, List<IcyBufferedImage> result)
+        {
+            expression.getOperandImages(t, z, result);
+        }
+
+        @Override
+        void compute(double[][] buffers, int level, int t, int z, int c, int offset, int length, double[] out)
+        {
+            expression.compute(buffers, level + 1, t, z, c, offset, length, out);
+
+            switch (function)
+            {
+                case NEGATE:
+                    for (int i = 0; i < length; i++)
+                        out[i] = -out[i];
+                    break;
+                case ABS:
+                    for (int i = 0; i < length; i++)
+                        out[i] = Math.abs(out[i]);
+                    break;
+                case SQRT:
+                    for (int i = 0; i < length; i++)
+                        out[i] = Math.sqrt(out[i]);
+                    break;
+                case LOG:
+                    for (int i = 0; i < length; i++)
+                        out[i] = Math.log(out[i]);
+                    break;
+                case EXP:
+                    for (int i = 0; i < length; i++)
+                        out[i] = Math.exp(out[i]);
+                    break;
+            }
+        }
+    }
+
+    private static class Binary extends PixelExpression
+    {
+        final Operator operator;
+        final PixelExpression left;
+        final PixelExpression right;
+
+        Binary(Operator operator, PixelExpression left, PixelExpression right)
+        {
+            super();
+
+            this.operator = operator;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        int getDepth()
+        {
+            return Math.max(left.getDepth(), right.getDepth()) + 1;
+        }
+
+        @Override
+        void check(int sizeX, int sizeY, int sizeC, int sizeZ, int sizeT)
+        {
+            left.check(sizeX, sizeY, sizeC, sizeZ, sizeT);
+            right.check(sizeX, sizeY, sizeC, sizeZ, sizeT);
+        }
+
+        @Override
+        void getOperandImages(List<IcyBufferedImage> result)
+        {
+            left.getOperandImages(result);
+            right.getOperandImages(result);
+        }
+
+        @Override
+        void getOperandImages(int t, int z, List<IcyBufferedImage> result)
+        {
+            left.getOperandImages(t, z, result);
+            right.getOperandImages(t, z, result);
+        }
+
+        @Override
+        void compute(double[][] buffers, int level, int t, int z, int c, int offset, int length, double[] out)
+        {
+            left.compute(buffers, level + 1, t, z, c, offset, length, out);
+
+            // constant operand --> no need to fill a buffer
+            if (right instanceof Constant)
+            {
+                final double v = ((Constant) right).value;
+
+                switch (operator)
+                {
+                    case ADD:
+                        for (int i = 0; i < length; i++)
+                            out[i] += v;
+                        break;
+                    case SUBTRACT:
+                        for (int i = 0; i < length; i++)
+                            out[i] -= v;
+                        break;
+                    case MULTIPLY:
+                        for (int i = 0; i < length; i++)
+                            out[i] *= v;
+                        break;
+                    case DIVIDE:
+                        for (int i = 0; i < length; i++)
+                            out[i] /= v;
+                        break;
+                    case MIN:
+                        for (int i = 0; i < length; i++)
+                            out[i] = Math.min(out[i], v);
+                        break;
+                    case MAX:
+                        for (int i = 0; i < length; i++)
+                            out[i] = Math.max(out[i], v);
+                        break;
+                }
+
+                return;
+            }
+
+            // use the temporary buffer of this level for the right operand
+            final double[] r = buffers[level];
+
+            right.compute(buffers, level + 1, t, z, c, offset, length, r);
+
+            switch (operator)
+            {
+                case ADD:
+                    for (int i = 0; i < length; i++)
+                        out[i] += r[i];
+                    break;
+                case SUBTRACT:
+                    for (int i = 0; i < length; i++)
+                        out[i] -= r[i];
+                    break;
+                case MULTIPLY:
+                    for (int i = 0; i < length; i++)
+                        out[i] *= r[i];
+                    break;
+                case DIVIDE:
+                    for (int i = 0; i < length; i++)
+                        out[i] /= r[i];
+                    break;
+                case MIN:
+                    for (int i = 0; i < length; i++)
+                        out[i] = Math.min(out[i], r[i]);
+                    break;
+                case MAX:
+                    for (int i = 0; i < length; i++)
+                        out[i] = Math.max(out[i], r[i]);
+                    break;
+            }
+        }
+    }
+}
@@ -1,8 +1,11 @@
 package icy.preferences;
 
+import icy.file.FileUtil;
 import icy.gui.dialog.IdConfirmDialog;
 import icy.gui.frame.progress.ToolTipFrame;
 import icy.gui.util.LookAndFeelUtil;
+import icy.image.storage.MappedPlaneStorage;
+import icy.image.storage.PlaneCache;
 import icy.math.MathUtil;
 import icy.system.SystemUtil;
 
@@ -35,6 +38,9 @@ public class GeneralPreferences
     public static final String ID_EXTRA_VMPARAMS = "extraVMParams";
     public static final String ID_OS_EXTRA_VMPARAMS = "osExtraVMParams";
     public static final String ID_APP_PARAMS = "appParams";
+    public static final String ID_SCRATCH_DIRECTORY = "scratchDirectory";
+    public static final String ID_VIRTUAL_MODE = "virtualMode";
+    public static final String ID_CACHE_MEMORY = "cacheMemory";
 
     /**
      * id confirm
@@ -57,6 +63,8 @@ public class GeneralPreferences
 
         // set here settings which need to be initialized
         setMaxMemoryMB(GeneralPreferences.getMaxMemoryMB());
+        MappedPlaneStorage.setScratchDirectory(getScratchDirectory());
+        PlaneCache.setMaxSize(getCacheMemoryMB() * 1024L * 1024L);
     }
 
     /**
@@ -130,6 +138,14 @@ public class GeneralPreferences
         return result;
     }
 
+    /**
+     * Get image data cache size (in MB)
+     */
+    public static int getCacheMemoryMB()
+    {
+        return prefGeneral.getInt(ID_CACHE_MEMORY, getMaxMemoryMB() / 4);
+    }
+
     /**
      * Get stack size (in KB)
      */
@@ -172,6 +188,14 @@ public class GeneralPreferences
         return prefGeneral.get(ID_APP_PARAMS, "");
     }
 
+    /**
+     * Get scratch directory (used to store image data outside java heap)
+     */
+    public static String getScratchDirectory()
+    {
+        return prefGeneral.get(ID_SCRATCH_DIRECTORY, FileUtil.getTempDirectory());
+    }
+
     public static boolean getExitConfirm()
     {
         return prefConfirms.getBoolean(ID_CONFIRM_EXIT, true);
@@ -192,6 +216,11 @@ public class GeneralPreferences
         return prefGeneral.getBoolean(ID_AUTO_CHECK_UPDATE, true);
     }
 
+    public static boolean getVirtualMode()
+    {
+        return prefGeneral.getBoolean(ID_VIRTUAL_MODE, false);
+    }
+
     public static boolean getRibbonMinimized()
     {
         return prefGeneral.getBoolean(ID_RIBBON_MINIMIZED, false);
@@ -230,6 +259,15 @@ public class GeneralPreferences
         prefGeneral.putInt(ID_MAX_MEMORY, Math.min(getMaxMemoryMBLimit(), value));
     }
 
+    /**
+     * Set image data cache size (in MB)
+     */
+    public static void setCacheMemoryMB(int value)
+    {
+        prefGeneral.putInt(ID_CACHE_MEMORY, value);
+        PlaneCache.setMaxSize(value * 1024L * 1024L);
+    }
+
     /**
      * Set stack size (in KB)
      */
@@ -262,6 +300,15 @@ public class GeneralPreferences
         prefGeneral.put(ID_APP_PARAMS, value);
     }
 
+    /**
+     * Set scratch directory (used to store image data outside java heap)
+     */
+    public static void setScratchDirectory(String value)
+    {
+        prefGeneral.put(ID_SCRATCH_DIRECTORY, value);
+        MappedPlaneStorage.setScratchDirectory(value);
+    }
+
     public static void setExitConfirm(boolean value)
     {
         prefConfirms.putBoolean(ID_CONFIRM_EXIT, value);
@@ -282,6 +329,11 @@ public class GeneralPreferences
         prefGeneral.putBoolean(ID_AUTO_CHECK_UPDATE, value);
     }
 
+    public static void setVirtualMode(boolean value)
+    {
+        prefGeneral.putBoolean(ID_VIRTUAL_MODE, value);
+    }
+
     public static void setRibbonMinimized(boolean value)
     {
         prefGeneral.putBoolean(ID_RIBBON_MINIMIZED, value);
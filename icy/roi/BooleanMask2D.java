@@ -20,6 +20,7 @@ package icy.roi;
 
 import java.awt.Rectangle;
 import java.util.ArrayList;
+import java.util.Arrays;
 
 /**
  * Class to define a 2D boolean mask and make basic boolean operation between masks.
@@ -284,6 +285,56 @@ public class BooleanMask2D
         return false;
     }
 
+    /**
+     * Return the runs (horizontal segments of contained points) of the mask clipped to the
+     * specified rectangle.<br>
+     * Runs are returned as <code>[y, x, length]</code> triplets in Y then X order.
+     * 
+     * @param clip
+     *        clip rectangle (<code>null</code> means no clip)
+     */
+    public int[] getRuns(Rectangle clip)
+    {
+        final Rectangle r = (clip == null) ? bounds : bounds.intersection(clip);
+
+        if (r.isEmpty())
+            return new int[0];
+
+        int[] result = new int[64 * 3];
+        int num = 0;
+
+        for (int y = r.y; y < r.y + r.height; y++)
+        {
+            final int off = ((y - bounds.y) * bounds.width) - bounds.x;
+            int x = r.x;
+
+            while (x < r.x + r.width)
+            {
+                // find run start
+                while ((x < r.x + r.width) && !mask[off + x])
+                    x++;
+
+                final int start = x;
+
+                // find run end
+                while ((x < r.x + r.width) && mask[off + x])
+                    x++;
+
+                if (x > start)
+                {
+                    if ((num + 3) > result.length)
+                        result = Arrays.copyOf(result, result.length * 2);
+
+                    result[num++] = y;
+                    result[num++] = start;
+                    result[num++] = x - start;
+                }
+            }
+        }
+
+        return Arrays.copyOf(result, num);
+    }
+
     /**
      * Compute intersection with specified mask and return result in a new mask
      */
@@ -6,7 +6,9 @@ package icy.roi;
 import icy.math.DataIteratorMath;
 import icy.sequence.Sequence;
 import icy.sequence.SequenceDataIterator;
+import icy.sequence.SequenceDataSpanIterator;
 import icy.type.DataIterator;
+import icy.type.DataSpanIterator;
 
 /**
  * ROI utilities class.
@@ -23,12 +25,20 @@ public class ROIUtil
         return new SequenceDataIterator(sequence, roi);
     }
 
+    /**
+     * Return a {@link DataSpanIterator} object from the specified {@link ROI} and {@link Sequence}.
+     */
+    public static DataSpanIterator getDataSpanIterator(Sequence sequence, ROI roi)
+    {
+        return new SequenceDataSpanIterator(sequence, roi);
+    }
+
     /**
      * Returns the number of pixel contained in the ROI of specified sequence.
      */
     public static long getNumPixel(Sequence sequence, ROI roi)
     {
-        return DataIteratorMath.count(getDataIterator(sequence, roi));
+        return DataIteratorMath.count(getDataSpanIterator(sequence, roi));
     }
 
     /**
@@ -36,7 +46,7 @@ public class ROIUtil
      */
     public static double getMinIntensity(Sequence sequence, ROI roi)
     {
-        return DataIteratorMath.min(getDataIterator(sequence, roi));
+        return DataIteratorMath.min(getDataSpanIterator(sequence, roi));
     }
 
     /**
@@ -44,7 +54,7 @@ public class ROIUtil
      */
     public static double getMaxIntensity(Sequence sequence, ROI roi)
     {
-        return DataIteratorMath.max(getDataIterator(sequence, roi));
+        return DataIteratorMath.max(getDataSpanIterator(sequence, roi));
     }
 
     /**
@@ -52,7 +62,7 @@ public class ROIUtil
      */
     public static double getMeanIntensity(Sequence sequence, ROI roi)
     {
-        return DataIteratorMath.mean(getDataIterator(sequence, roi));
+        return DataIteratorMath.mean(getDataSpanIterator(sequence, roi));
     }
 
     /**
@@ -60,6 +70,6 @@ public class ROIUtil
      */
     public static double getSumIntensity(Sequence sequence, ROI roi)
     {
-        return DataIteratorMath.sum(getDataIterator(sequence, roi));
+        return DataIteratorMath.sum(getDataSpanIterator(sequence, roi));
     }
 }
@@ -25,11 +25,18 @@ import icy.gui.viewer.Viewer;
 import icy.image.IcyBufferedImage;
 import icy.image.IcyBufferedImageEvent;
 import icy.image.IcyBufferedImageListener;
+import icy.image.ImagePool;
+import icy.image.ImagePyramid;
 import icy.image.colormodel.IcyColorModel;
 import icy.image.colormodel.IcyColorModelEvent;
 import icy.image.colormodel.IcyColorModelListener;
+import icy.image.storage.PlaneStorage;
+import icy.image.storage.PlaneStorage.StorageType;
+import icy.image.storage.ReaderPlaneStorage;
 import icy.image.lut.LUT;
 import icy.main.Icy;
+import icy.math.ArrayMath;
+import icy.math.ArrayMath.ChunkProcessor;
 import icy.math.Scaler;
 import icy.painter.Painter;
 import icy.preferences.GeneralPreferences;
@@ -43,6 +50,7 @@ import icy.sequence.SequenceEdit.ROIRemove;
 import icy.sequence.SequenceEdit.ROIRemoveAll;
 import icy.sequence.SequenceEvent.SequenceEventSourceType;
 import icy.sequence.SequenceEvent.SequenceEventType;
+import icy.system.SystemUtil;
 import icy.system.thread.ThreadUtil;
 import icy.type.DataType;
 import icy.type.TypeUtil;
@@ -54,11 +62,20 @@ import icy.util.StringUtil;
 import java.awt.Dimension;
 import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map.Entry;
 import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import javax.swing.event.EventListenerList;
 
@@ -134,6 +151,50 @@ public class Sequence implements SequenceModel, IcyColorModelListener, IcyBuffer
      */
     private static int id_gen = 1;
 
+    /**
+     * size (in bytes) of image data of all living sequences not yet closed
+     */
+    private static final AtomicLong totalDataSize = new AtomicLong();
+    private static final AtomicLong peakTotalDataSize = new AtomicLong();
+
+    /**
+     * Return the size (in bytes) of image data of all living sequences (opened or not).<br>
+     * Sequence data stops counting as soon as the sequence is closed (see {@link #closed()}) or
+     * garbage collected.
+     */
+    public static long getTotalDataSize()
+    {
+        return totalDataSize.get();
+    }
+
+    /**
+     * Return the peak value of {@link #getTotalDataSize()}.
+     */
+    public static long getPeakTotalDataSize()
+    {
+        return peakTotalDataSize.get();
+    }
+
+    /**
+     * Reset the peak value of {@link #getTotalDataSize()} to the current value.
+     */
+    public static void resetPeakTotalDataSize()
+    {
+        peakTotalDataSize.set(totalDataSize.get());
+    }
+
+    /**
+     * Update the counter and its peak value
+     */
+    private static void addDataSize(AtomicLong counter, AtomicLong peak, long delta)
+    {
+        final long value = counter.addAndGet(delta);
+        long p = peak.get();
+
+        while ((value > p) && !peak.compareAndSet(p, value))
+            p = peak.get();
+    }
+
     /**
      * volumetric images (4D [XYCZ])
      */
@@ -194,6 +255,43 @@ public class Sequence implements SequenceModel, IcyColorModelListener, IcyBuffer
      * automatic update of channel bounds
      */
     private boolean autoUpdateChannelBounds;
+    /**
+     * image data storage type
+     */
+    private StorageType storageType;
+    /**
+     * ring buffer mode: maximum number of frame (0 = no limit)
+     */
+    private int ringCapacity;
+    /**
+     * ring buffer mode: maximum size (in bytes) of frames data (0 = no limit)
+     */
+    private long ringMaxSize;
+    /**
+     * ring buffer mode: T position of last frame (-1 if no frame yet)
+     */
+    private volatile int ringLast;
+    /**
+     * T position of last frame displayed by viewers (accessed from EDT only)
+     */
+    private int viewersFrameT;
+    /**
+     * viewers frame update already posted on EDT
+     */
+    private final AtomicBoolean viewersFrameUpdatePending;
+    /**
+     * size (in bytes) of image data (maintained on image add / remove)
+     */
+    private final AtomicLong dataSize;
+    private final AtomicLong peakDataSize;
+    /**
+     * image data counts in total data size (until sequence is closed or finalized)
+     */
+    private boolean dataSizeCounted;
+    /**
+     * image data version (incremented on each data change)
+     */
+    private final AtomicLong dataVersion;
     /**
      * persistent object to load/save data (XML format)
      */
@@ -212,6 +310,26 @@ public class Sequence implements SequenceModel, IcyColorModelListener, IcyBuffer
      */
     private final EventListenerList listeners;
 
+    /**
+     * flat plane index [T][Z] for fast image access (rows updated on change, fully rebuilt lazily
+     * when volumes are removed)
+     */
+    private volatile IcyBufferedImage[][] planeIndex;
+    private int planeIndexVersion;
+    private final Object planeIndexLock;
+    /**
+     * striped plane locks (see {@link #getPlaneLock(int, int)})
+     */
+    private final ReentrantReadWriteLock[] planeLocks;
+    /**
+     * image pyramids (created on demand)
+     */
+    private final HashMap<IcyBufferedImage, ImagePyramid> pyramids;
+    /**
+     * cached statistics service
+     */
+    private final SequenceStatistics statistics;
+
     /**
      * internals
      */
@@ -244,6 +362,12 @@ public class Sequence implements SequenceModel, IcyColorModelListener, IcyBuffer
         volumetricImages = new TreeMap<Integer, VolumetricImage>();
         painters = new HashSet<Painter>();
         rois = new HashSet<ROI>();
+        pyramids = new HashMap<IcyBufferedImage, ImagePyramid>();
+        planeIndex = null;
+        planeIndexVersion = 0;
+        planeIndexLock = new Object();
+        planeLocks = createPlaneLocks();
+        statistics = new SequenceStatistics(this);
         persistent = new SequencePersistent(this);
         undoManager = new IcyUndoManager(this);
 
@@ -255,6 +379,17 @@ public class Sequence implements SequenceModel, IcyColorModelListener, IcyBuffer
         channelBoundsInvalid = false;
         // automatic update of channel bounds
         autoUpdateChannelBounds = true;
+        // image data in java heap by default
+        storageType = StorageType.HEAP;
+        ringCapacity = 0;
+        ringMaxSize = 0L;
+        ringLast = -1;
+        viewersFrameT = -1;
+        viewersFrameUpdatePending = new AtomicBoolean();
+        dataSize = new AtomicLong();
+        dataSizeCounted = true;
+        peakDataSize = new AtomicLong();
+        dataVersion = new AtomicLong();
     }
 
     /**
@@ -307,6 +442,9 @@ public class Sequence implements SequenceModel, IcyColorModelListener, IcyBuffer
             }
         }
 
+        // image data does not count anymore
+        releaseTotalDataSize();
+
         // notify some painters has been removed
         if (hadRoi || hadPainter)
             painterChanged(null, SequenceEventType.REMOVED);
@@ -331,6 +469,18 @@ public class Sequence implements SequenceModel, IcyColorModelListener, IcyBuffer
      */
     public void closed()
     {
+        // image data does not count anymore
+        releaseTotalDataSize();
+
+        // close files opened to read image data on demand (reopened if data is accessed again)
+        for (IcyBufferedImage image : getAllImage())
+        {
+            final PlaneStorage storage = image.getStorage();
+
+            if (storage instanceof ReaderPlaneStorage)
+                ((ReaderPlaneStorage) storage).getSharedReader().close();
+        }
+
         // Sequence persistence enabled ?
         if (GeneralPreferences.getSequencePersistence())
         {
@@ -479,6 +629,32 @@ public class Sequence implements SequenceModel, IcyColorModelListener, IcyBuffer
         return outSequence;
     }
 
+    /**
+     * Build a new sequence viewing the specified sequence channels.<br>
+     * No data is copied at creation time (see {@link IcyBufferedImage#getView(Rectangle, List)}).
+     * 
+     * @param channelNumbers
+     * @return Sequence
+     */
+    public Sequence extractChannelsView(List<Integer> channelNumbers)
+    {
+        final Sequence outSequence = new Sequence();
+
+        outSequence.beginUpdate();
+        try
+        {
+            for (int t = 0; t < getSizeT(); t++)
+                for (int z = 0; z < getSizeZ(); z++)
+                    outSequence.setImage(t, z, getImage(t, z).extractChannelsView(channelNumbers));
+        }
+        finally
+        {
+            outSequence.endUpdate();
+        }
+
+        return outSequence;
+    }
+
     /**
      * Use {@link #extractChannel(int)} instead
      * 
@@ -784,6 +960,151 @@ public class Sequence implements SequenceModel, IcyColorModelListener, IcyBuffer
         }
     }
 
+    /**
+     * Return the storage type used for image data of this sequence.
+     * 
+     * @see #setStorageType(StorageType)
+     */
+    public StorageType getStorageType()
+    {
+        return storageType;
+    }
+
+    /**
+     * Set the storage type used for image data of this sequence.<br>
+     * {@link StorageType#HEAP} (default) keeps all image data in java heap.<br>
+     * {@link StorageType#DIRECT} and {@link StorageType#MAPPED} store image data outside the java
+     * heap (direct buffers or memory mapped files in the scratch directory) so the sequence can be
+     * larger than the java heap, data is loaded on demand when accessed.<br>
+     * The storage type is applied to all current images and to images added later.<br>
+     * {@link StorageType#READER} type is reserved to virtual sequences (see
+     * {@link icy.file.Loader#loadSequence(java.io.File, boolean)}) and {@link StorageType#VIEW}
+     * type to views (see {@link #getView()}), {@link StorageType#VOLUME} type is set by
+     * {@link VolumetricImage#getVolumeBuffer()}, they can't be set here.
+     */
+    public void setStorageType(StorageType value)
+    {
+        if ((value == StorageType.READER) || (value == StorageType.VIEW) || (value == StorageType.VOLUME))
+            throw new IllegalArgumentException("Sequence.setStorageType(..) error : " + value
+                    + " type not supported.");
+
+        if (storageType != value)
+        {
+            storageType = value;
+
+            for (IcyBufferedImage image : getAllImage())
+                applyStorageType(image, true);
+        }
+    }
+
+    /**
+     * Set the sequence storage type on the specified image
+     */
+    private void applyStorageType(IcyBufferedImage image, boolean force)
+    {
+        // keep image storage unchanged
+        if (!force && (storageType == StorageType.HEAP))
+            return;
+
+        try
+        {
+            image.setStorageType(storageType);
+            // data is now saved in storage so we can release it
+            image.releaseData();
+        }
+        catch (IOException e)
+        {
+            System.err.println("Sequence.setStorageType(..) error : cannot store image data, data kept in java heap.");
+            System.err.println(e.getMessage());
+        }
+    }
+
+    /**
+     * Return the size (in bytes) of image data of the sequence (whatever is its storage).
+     */
+    public long getDataSize()
+    {
+        return dataSize.get();
+    }
+
+    /**
+     * Return the peak value of {@link #getDataSize()} since the sequence creation.
+     */
+    public long getPeakDataSize()
+    {
+        return peakDataSize.get();
+    }
+
+    /**
+     * Return the size (in bytes) of image data of the sequence currently present in java heap.
+     */
+    public long getHeapDataSize()
+    {
+        long result = 0;
+
+        for (IcyBufferedImage image : getAllImage())
+            result += image.getHeapDataSize();
+
+        return result;
+    }
+
+    /**
+     * Return the size (in bytes) of image data of the sequence using the specified storage type.
+     * <br>
+     * Use {@link #getStoredDataSize(StorageType)} to know the size used in the storage itself.
+     */
+    public long getDataSize(StorageType type)
+    {
+        long result = 0;
+
+        for (IcyBufferedImage image : getAllImage())
+            if (image.getStorageType() == type)
+                result += image.getDataSize();
+
+        return result;
+    }
+
+    /**
+     * Return the size (in bytes) used in storage by image data of the sequence using the
+     * specified storage type (compressed or packed storage use less than
+     * {@link #getDataSize(StorageType)}).
+     */
+    public long getStoredDataSize(StorageType type)
+    {
+        long result = 0;
+
+        for (IcyBufferedImage image : getAllImage())
+            if (image.getStorageType() == type)
+                result += image.getStoredDataSize();
+
+        return result;
+    }
+
+    private void addDataSize(long delta)
+    {
+        synchronized (dataSize)
+        {
+            addDataSize(dataSize, peakDataSize, delta);
+            if (dataSizeCounted)
+                addDataSize(totalDataSize, peakTotalDataSize, delta);
+        }
+    }
+
+    /**
+     * Remove sequence data from {@link #getTotalDataSize()} (done only once)
+     */
+    private void releaseTotalDataSize()
+    {
+        synchronized (dataSize)
+        {
+            if (dataSizeCounted)
+            {
+                dataSizeCounted = false;
+                totalDataSize.addAndGet(-dataSize.get());
+            }
+        }
+    }
+
     /**
      * @deprecated USes {@link #getAutoUpdateChannelBounds()} instead.
      */
@@ -1420,6 +1741,7 @@ public class Sequence implements SequenceModel, IcyColorModelListener, IcyBuffer
         synchronized (volumetricImages)
         {
             volumetricImages.put(new Integer(t), volImg);
+            volImg.t = t;
         }
 
         return volImg;
@@ -1466,11 +1788,16 @@ public class Sequence implements SequenceModel, IcyColorModelListener, IcyBuffer
         synchronized (volumetricImages)
         {
             volImg = volumetricImages.remove(Integer.valueOf(t));
+            if (volImg != null)
+                volImg.t = -1;
         }
 
         // we do manual clear to dispatch events correctly
         if (volImg != null)
+        {
+            invalidatePlaneIndex();
             volImg.clear();
+        }
 
         return volImg != null;
     }
@@ -1490,7 +1817,11 @@ public class Sequence implements SequenceModel, IcyColorModelListener, IcyBuffer
                     final VolumetricImage volImg = volumetricImages.pollFirstEntry().getValue();
                     // we do manual clear to dispatch events correctly
                     if (volImg != null)
+                    {
+                        volImg.t = -1;
+                        invalidatePlaneIndex();
                         volImg.clear();
+                    }
                 }
             }
         }
@@ -1531,18 +1862,12 @@ public class Sequence implements SequenceModel, IcyColorModelListener, IcyBuffer
      */
     public IcyBufferedImage getFirstNonNullImage()
     {
-        synchronized (volumetricImages)
-        {
-            for (VolumetricImage volImg : volumetricImages.values())
-            {
-                synchronized (volImg.images)
-                {
-                    for (IcyBufferedImage img : volImg.images.values())
-                        if (img != null)
-                            return img;
-                }
-            }
-        }
+        // lock free access
+        for (IcyBufferedImage[] volume : getPlaneIndex())
+            if (volume != null)
+                for (IcyBufferedImage img : volume)
+                    if (img != null)
+                        return img;
 
         return null;
     }
@@ -1590,147 +1915,869 @@ public class Sequence implements SequenceModel, IcyColorModelListener, IcyBuffer
     @Override
     public IcyBufferedImage getImage(int t, int z)
     {
-        final VolumetricImage volImg = getVolumetricImage(t);
+        // lock free access
+        final IcyBufferedImage[][] index = getPlaneIndex();
 
-        if (volImg != null)
-            return volImg.getImage(z);
+        if ((t >= 0) && (t < index.length))
+        {
+            final IcyBufferedImage[] volume = index[t];
+
+            if ((volume != null) && (z >= 0) && (z < volume.length))
+                return volume[z];
+        }
 
         return null;
     }
 
     /**
-     * Returns all images at specified t position
+     * Return the flat plane index [T][Z] (rebuilt if needed).<br>
+     * Returned arrays should never be modified (they can contain trailing <code>null</code>
+     * cells and their cells can be updated at any time by sequence changes).
+     */
+    private IcyBufferedImage[][] getPlaneIndex()
+    {
+        final IcyBufferedImage[][] result = planeIndex;
+
+        if (result != null)
+            return result;
+
+        return buildPlaneIndex();
+    }
+
+    /**
+     * Build the flat plane index from volumetric images.
+     */
+    private IcyBufferedImage[][] buildPlaneIndex()
+    {
+        final int version;
+
+        synchronized (planeIndexLock)
+        {
+            version = planeIndexVersion;
+        }
+
+        final IcyBufferedImage[][] result;
+
+        synchronized (volumetricImages)
+        {
+            if (volumetricImages.isEmpty())
+                result = new IcyBufferedImage[0][];
+            else
+                result = new IcyBufferedImage[volumetricImages.lastKey().intValue() + 1][];
+
+            for (Entry<Integer, VolumetricImage> entry : volumetricImages.entrySet())
+            {
+                final VolumetricImage volImg = entry.getValue();
+
+                synchronized (volImg.images)
+                {
+                    if (!volImg.images.isEmpty())
+                    {
+                        final IcyBufferedImage[] volume = new IcyBufferedImage[volImg.images.lastKey().intValue() + 1];
+
+                        for (Entry<Integer, IcyBufferedImage> imgEntry : volImg.images.entrySet())
+                            volume[imgEntry.getKey().intValue()] = imgEntry.getValue();
+
+                        result[entry.getKey().intValue()] = volume;
+                    }
+                }
+            }
+        }
+
+        synchronized (planeIndexLock)
+        {
+            // publish only if no change happened meanwhile
+            if (version == planeIndexVersion)
+                planeIndex = result;
+        }
+
+        return result;
+    }
+
+    private static ReentrantReadWriteLock[] createPlaneLocks()
+    {
+        // power of 2 stripes, enough to make collision unlikely between working threads
+        int num = 16;
+        while (num < (SystemUtil.getAvailableProcessors() * 4))
+            num <<= 1;
+
+        final ReentrantReadWriteLock[] result = new ReentrantReadWriteLock[num];
+
+        for (int i = 0; i < num; i++)
+            result[i] = new ReentrantReadWriteLock();
+
+        return result;
+    }
+
+    /**
+     * Returns the read / write lock of the plane at time t and depth z.<br>
+     * Threads working on different planes can use these locks to read and write images in
+     * parallel while still being protected against concurrent modifications of the same plane
+     * (use the read lock when reading image data and the write lock when modifying it).<br>
+     * Locks are striped: a limited number of locks is shared by all planes so distinct planes may
+     * (rarely) use the same lock. Because of that you should never hold more than one plane lock
+     * at once.<br>
+     * Locks are cooperative: {@link #setImage(int, int, BufferedImage)},
+     * {@link #removeImage(int, int)} and {@link #addFrame(BufferedImage)} take the plane write
+     * lock and {@link #snapshot()} takes the plane read lock, but code modifying image data
+     * directly (data arrays followed by {@link IcyBufferedImage#dataChanged()}) and bulk methods
+     * (volume or whole sequence changes) don't, so such code should take the write lock itself
+     * to be safely used with plane readers.
+     */
+    public ReadWriteLock getPlaneLock(int t, int z)
+    {
+        // consecutive planes use different locks
+        return planeLocks[((t * 31) + z) & (planeLocks.length - 1)];
+    }
+
+    /**
+     * Invalidate the flat plane index (should be called after any image add / remove).
+     */
+    private void invalidatePlaneIndex()
+    {
+        synchronized (planeIndexLock)
+        {
+            planeIndexVersion++;
+            planeIndex = null;
+        }
+    }
+
+    /**
+     * Update the cells [Z, Z + num[ of the flat plane index for the specified volume after images
+     * add / remove in it.<br>
+     * Cells are updated in place (arrays are only copied when they have to grow) and the index is
+     * published again so new readers see the change. The index is invalidated if the volume is
+     * not (anymore) part of the sequence.
+     */
+    private void updatePlaneIndex(VolumetricImage volImg, int z, int num)
+    {
+        synchronized (planeIndexLock)
+        {
+            // builds in progress started from previous state should not be published
+            planeIndexVersion++;
+
+            final int t = (volImg != null) ? volImg.t : -1;
+
+            // unknown or removed volume --> full rebuild (T size can change)
+            if (t == -1)
+            {
+                planeIndex = null;
+                return;
+            }
+
+            IcyBufferedImage[][] index = planeIndex;
+
+            // not yet built --> will be built on next access
+            if (index == null)
+                return;
+
+            // new T position --> only the outer array is copied (rows are shared)
+            if (t >= index.length)
+                index = Arrays.copyOf(index, Math.max(t + 1, index.length * 2));
+
+            IcyBufferedImage[] volume = index[t];
+            final int end = z + num;
+
+            if (volume == null)
+                volume = new IcyBufferedImage[end];
+            else if (end > volume.length)
+                volume = Arrays.copyOf(volume, Math.max(end, volume.length * 2));
+
+            // get current images (image lock is never held while taking index lock)
+            for (int i = z; i < end; i++)
+                volume[i] = volImg.getImage(i);
+
+            index[t] = volume;
+            // volatile write publishes the change
+            planeIndex = index;
+        }
+    }
+
+    /**
+     * Returns <code>true</code> if the sequence contains exactly one image.
+     */
+    private boolean hasSingleImage()
+    {
+        int num = 0;
+
+        // lock free access, stop as soon as a second image is found
+        for (IcyBufferedImage[] volume : getPlaneIndex())
+            if (volume != null)
+                for (IcyBufferedImage img : volume)
+                    if ((img != null) && (++num > 1))
+                        return false;
+
+        return num == 1;
+    }
+
+    /**
+     * Returns the multi resolution pyramid of image at time t and depth z.<br>
+     * The pyramid is created on first call and kept until image is removed, its levels are
+     * built on demand and discarded when image data changes.<br>
+     * Levels use the sequence storage type (see {@link #setStorageType(StorageType)}) so they
+     * can be kept on disk.
+     */
+    public ImagePyramid getPyramid(int t, int z)
+    {
+        final IcyBufferedImage image = getImage(t, z);
+
+        if (image == null)
+            return null;
+
+        synchronized (pyramids)
+        {
+            ImagePyramid result = pyramids.get(image);
+
+            if (result == null)
+            {
+                result = new ImagePyramid(image);
+                result.setStorageType(storageType);
+                pyramids.put(image, result);
+            }
+
+            return result;
+        }
+    }
+
+    /**
+     * Returns image at time t and depth z downscaled to the pyramid level matching the specified
+     * scale factor (see {@link ImagePyramid#getLevelForScale(double)}).<br>
+     * Returns the image itself if scale is >= 1.
+     */
+    public IcyBufferedImage getImageForScale(int t, int z, double scale)
+    {
+        final ImagePyramid pyramid = getPyramid(t, z);
+
+        if (pyramid == null)
+            return null;
+
+        return pyramid.getLevel(pyramid.getLevelForScale(scale));
+    }
+
+    /**
+     * Invalidate pyramid levels of specified image for a data change of the specified region
+     * (<code>null</code> means whole image)
+     */
+    private void invalidatePyramid(IcyBufferedImage image, Rectangle region)
+    {
+        final ImagePyramid pyramid;
+
+        synchronized (pyramids)
+        {
+            pyramid = pyramids.get(image);
+        }
+
+        if (pyramid != null)
+            pyramid.invalidate(region);
+    }
+
+    /**
+     * Remove pyramid of specified image
+     */
+    private void removePyramid(IcyBufferedImage image)
+    {
+        synchronized (pyramids)
+        {
+            pyramids.remove(image);
+        }
+    }
+
+    /**
+     * Returns all images at specified t position
+     */
+    public ArrayList<IcyBufferedImage> getImages(int t)
+    {
+        final VolumetricImage volImg = getVolumetricImage(t);
+
+        if (volImg != null)
+            return volImg.getAllImage();
+
+        return null;
+    }
+
+    /**
+     * Returns all images of sequence
+     */
+    public ArrayList<IcyBufferedImage> getAllImage()
+    {
+        final ArrayList<IcyBufferedImage> result = new ArrayList<IcyBufferedImage>();
+
+        // lock free access
+        for (IcyBufferedImage[] volume : getPlaneIndex())
+            if (volume != null)
+                for (IcyBufferedImage img : volume)
+                    if (img != null)
+                        result.add(img);
+
+        return result;
+    }
+
+    /**
+     * Returns the image data version.<br>
+     * The version is incremented each time images are added, removed or modified.
+     */
+    public long getDataVersion()
+    {
+        return dataVersion.get();
+    }
+
+    /**
+     * Create a snapshot of the sequence images: the returned {@link SequenceSnapshot} contains
+     * the images of the sequence as they are at call time and is not affected by later
+     * modifications of the sequence.<br>
+     * This is cheap as data arrays are shared and only copied when modified (see
+     * {@link IcyBufferedImage#getSnapshot()}) so it can be used to process a sequence while it is
+     * being modified by another thread.<br>
+     * Each image is captured separately so the snapshot is not a consistent view of the whole
+     * sequence: an image modified while the snapshot is done may or may not contain the
+     * modification (use {@link SequenceSnapshot#isObsolete()} to detect that the sequence changed
+     * since the snapshot started).
+     */
+    public SequenceSnapshot snapshot()
+    {
+        final long version = dataVersion.get();
+        final TreeMap<Integer, TreeMap<Integer, IcyBufferedImage>> images = new TreeMap<Integer, TreeMap<Integer, IcyBufferedImage>>();
+
+        // get images structure
+        synchronized (volumetricImages)
+        {
+            for (Entry<Integer, VolumetricImage> entry : volumetricImages.entrySet())
+            {
+                final VolumetricImage volImg = entry.getValue();
+
+                synchronized (volImg.images)
+                {
+                    images.put(entry.getKey(), new TreeMap<Integer, IcyBufferedImage>(volImg.images));
+                }
+            }
+        }
+
+        final int sizeT = images.isEmpty() ? 0 : images.lastKey().intValue() + 1;
+        final IcyBufferedImage[][] result = new IcyBufferedImage[sizeT][];
+
+        // snapshot images out of sequence lock (image lock should be taken first)
+        for (Entry<Integer, TreeMap<Integer, IcyBufferedImage>> entryT : images.entrySet())
+        {
+            final TreeMap<Integer, IcyBufferedImage> imagesZ = entryT.getValue();
+            final int sizeZ = imagesZ.isEmpty() ? 0 : imagesZ.lastKey().intValue() + 1;
+            final IcyBufferedImage[] resultZ = new IcyBufferedImage[sizeZ];
+
+            for (Entry<Integer, IcyBufferedImage> entryZ : imagesZ.entrySet())
+            {
+                final int z = entryZ.getKey().intValue();
+                // wait for plane writer to complete
+                final Lock lock = getPlaneLock(entryT.getKey().intValue(), z).readLock();
+
+                lock.lock();
+                try
+                {
+                    resultZ[z] = entryZ.getValue().getSnapshot();
+                }
+                finally
+                {
+                    lock.unlock();
+                }
+            }
+
+            result[entryT.getKey().intValue()] = resultZ;
+        }
+
+        return new SequenceSnapshot(this, version, result);
+    }
+
+    /**
+     * Returns a strided N dimensional (XYCZT) view over the sequence data.<br>
+     * No data is copied, the view directly accesses images data (see {@link SequenceDataView}).
+     */
+    public SequenceDataView getDataView()
+    {
+        return new SequenceDataView(this);
+    }
+
+    /**
+     * Returns the statistics service of the sequence.<br>
+     * Per plane moments and histograms are cached until plane data change so sequence wide
+     * statistics are only computed once (see {@link SequenceStatistics}).
+     */
+    public SequenceStatistics getStatistics()
+    {
+        return statistics;
+    }
+
+    /**
+     * Add an image to the specified VolumetricImage at the specified z location
+     */
+    private void setImage(VolumetricImage volImg, int z, BufferedImage image) throws IllegalArgumentException
+    {
+        if (volImg != null)
+        {
+            // not the same image ?
+            if (volImg.getImage(z) != image)
+            {
+                // this is different from removeImage as we don't remove empty VolumetricImage
+                if (image == null)
+                    volImg.removeImage(z);
+                else
+                {
+                    final IcyBufferedImage icyImg;
+
+                    // convert to icyImage if needed
+                    if (image instanceof IcyBufferedImage)
+                        icyImg = (IcyBufferedImage) image;
+                    else
+                        icyImg = IcyBufferedImage.createFrom(image);
+
+                    // possible type change ?
+                    final boolean typeChange = (colorModel == null) || isEmpty()
+                            || ((volImg.getImage(z) != null) && hasSingleImage());
+
+                    // not changing type and not compatible
+                    if (!typeChange && !isCompatible(icyImg))
+                        throw new IllegalArgumentException("Sequence.setImage : image is not compatible !");
+
+                    // set image
+                    volImg.setImage(z, icyImg);
+                }
+            }
+        }
+    }
+
+    /**
+     * Set an image at the specified position
+     * 
+     * @param t
+     * @param z
+     * @param image
+     */
+    public void setImage(int t, int z, BufferedImage image) throws IllegalArgumentException
+    {
+        // events are sent on endUpdate, after the plane lock is released
+        final Lock lock = getPlaneLock(t, z).writeLock();
+
+        beginUpdate();
+        lock.lock();
+        try
+        {
+            final boolean volImgCreated;
+
+            VolumetricImage volImg = getVolumetricImage(t);
+
+            if (volImg == null)
+            {
+                volImg = setVolumetricImage(t);
+                volImgCreated = true;
+            }
+            else
+                volImgCreated = false;
+
+            try
+            {
+                // set image
+                setImage(volImg, z, image);
+            }
+            catch (IllegalArgumentException e)
+            {
+                // image set failed ? remove empty image list if needed
+                if (volImgCreated)
+                    removeVolumetricImage(t);
+                // throw exception
+                throw e;
+            }
+        }
+        finally
+        {
+            lock.unlock();
+            endUpdate();
+        }
+    }
+
+    /**
+     * Set images in the VolumetricImage[t] (created if needed) from the specified z position.<br>
+     * This is the bulk version of {@link #setImage(int, int, BufferedImage)}: sequence
+     * bookkeeping (listeners, storage, events) is done once for all images and images channels
+     * bounds which need to be calculated (see {@link IcyBufferedImage#isChannelsBoundsDirty()})
+     * are calculated in a single parallel pass at the end of the update.<br>
+     * Creating images with automatic channel bounds update disabled then permits to build large
+     * sequences without any per image bounds calculation.
+     * 
+     * @param t
+     *        T position
+     * @param z
+     *        Z position of the first image
+     * @param images
+     *        images to set (all images should have the same format)
+     * @throws IllegalArgumentException
+     *         if images are not compatible between them or with the sequence
+     */
+    public void setImages(int t, int z, List<? extends BufferedImage> images) throws IllegalArgumentException
+    {
+        if (images.isEmpty())
+            return;
+
+        final List<IcyBufferedImage> icyImages = new ArrayList<IcyBufferedImage>(images.size());
+
+        for (BufferedImage image : images)
+        {
+            if (image == null)
+                throw new IllegalArgumentException("Sequence.setImages : null image !");
+
+            // convert to icyImage if needed
+            if (image instanceof IcyBufferedImage)
+                icyImages.add((IcyBufferedImage) image);
+            else
+                icyImages.add(IcyBufferedImage.createFrom(image));
+        }
+
+        final IcyBufferedImage first = icyImages.get(0);
+
+        // check compatibility only once with sequence
+        if (!isCompatible(first))
+            throw new IllegalArgumentException("Sequence.setImages : images are not compatible !");
+        // then between images
+        for (IcyBufferedImage img : icyImages)
+            if ((img.getWidth() != first.getWidth()) || (img.getHeight() != first.getHeight())
+                    || !first.getIcyColorModel().isCompatible(img.getIcyColorModel()))
+                throw new IllegalArgumentException("Sequence.setImages : images are not compatible !");
+
+        final List<IcyBufferedImage> added = new ArrayList<IcyBufferedImage>(icyImages.size());
+        final List<IcyBufferedImage> removed = new ArrayList<IcyBufferedImage>();
+
+        beginUpdate();
+        try
+        {
+            VolumetricImage volImg = getVolumetricImage(t);
+
+            if (volImg == null)
+                volImg = setVolumetricImage(t);
+
+            volImg.setImages(z, icyImages, added, removed);
+            onImagesSet(volImg, z, icyImages.size(), added, removed);
+        }
+        finally
+        {
+            endUpdate();
+        }
+    }
+
+    /**
+     * Add a new VolumetricImage (at last T position + 1) made of the specified images.<br>
+     * This is the bulk version of successive {@link #addImage(int, BufferedImage)} (see
+     * {@link #setImages(int, int, List)}).
+     * 
+     * @return the new VolumetricImage or <code>null</code> if the image list is empty
+     */
+    public VolumetricImage appendVolume(List<? extends BufferedImage> images) throws IllegalArgumentException
+    {
+        if (images.isEmpty())
+            return null;
+
+        final int t = getSizeT();
+
+        setImages(t, 0, images);
+
+        return getVolumetricImage(t);
+    }
+
+    /**
+     * Add an image to the last VolumetricImage (create it if needed).
+     * 
+     * @param image
+     *        image to add
+     */
+    public void addImage(BufferedImage image) throws IllegalArgumentException
+    {
+        final int t = Math.max(getSizeT() - 1, 0);
+        final int z = Math.max(getSizeZ(t), 0);
+
+        setImage(t, z, image);
+    }
+
+    /**
+     * Add an image to the VolumetricImage[t] (the volumetricImage must exist).
+     * 
+     * @param image
+     *        image to add
+     */
+    public void addImage(int t, BufferedImage image) throws IllegalArgumentException
+    {
+        final int z = Math.max(getSizeZ(t), 0);
+
+        setImage(t, z, image);
+    }
+
+    /**
+     * Returns <code>true</code> if the sequence is in ring buffer mode (see
+     * {@link #setRingBufferCapacity(int)} and {@link #setRingBufferMaxSize(long)}).
+     */
+    public boolean isRingBuffer()
+    {
+        return (ringCapacity > 0) || (ringMaxSize > 0);
+    }
+
+    /**
+     * Returns the maximum number of frame (T) kept in ring buffer mode (0 = no limit).
+     */
+    public int getRingBufferCapacity()
+    {
+        return ringCapacity;
+    }
+
+    /**
+     * Set the maximum number of frame (T) kept when frames are added with
+     * {@link #addFrame(BufferedImage)}.<br>
+     * When the sequence is full the oldest frame is overwritten by the new one so memory stays
+     * bounded for live acquisition.<br>
+     * Use 0 to disable the limit.
+     */
+    public void setRingBufferCapacity(int value)
+    {
+        ringCapacity = Math.max(0, value);
+    }
+
+    /**
+     * Returns the maximum size (in bytes) of frames data in ring buffer mode (0 = no limit).
+     */
+    public long getRingBufferMaxSize()
+    {
+        return ringMaxSize;
+    }
+
+    /**
+     * Set the maximum size (in bytes) of frames data kept when frames are added with
+     * {@link #addFrame(BufferedImage)} (the number of frame is deduced from the frame size).<br>
+     * Use 0 to disable the limit.
+     * 
+     * @see #setRingBufferCapacity(int)
+     */
+    public void setRingBufferMaxSize(long value)
+    {
+        ringMaxSize = Math.max(0L, value);
+    }
+
+    /**
+     * Return ring buffer capacity for the specified frame
+     */
+    private int getRingCapacity(BufferedImage frame)
+    {
+        int result = (ringCapacity > 0) ? ringCapacity : Integer.MAX_VALUE;
+
+        if (ringMaxSize > 0)
+        {
+            final long frameSize = (long) frame.getWidth() * frame.getHeight() * frame.getRaster().getNumBands()
+                    * DataBuffer.getDataTypeSize(frame.getRaster().getDataBuffer().getDataType()) / 8;
+
+            if (frameSize > 0)
+                result = (int) Math.min(result, Math.max(1L, ringMaxSize / frameSize));
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the T position of the last frame added with {@link #addFrame(BufferedImage)} (-1 if
+     * none).
+     */
+    public int getLastFrameT()
+    {
+        return ringLast;
+    }
+
+    /**
+     * Returns the T position of the frame at the specified index in acquisition order (0 is the
+     * oldest frame still in the sequence).<br>
+     * Once the ring buffer is full (see {@link #setRingBufferCapacity(int)}), new frames overwrite
+     * the oldest ones so T order does not match acquisition order anymore.
      */
-    public ArrayList<IcyBufferedImage> getImages(int t)
+    public int getFrameT(int index)
     {
-        final VolumetricImage volImg = getVolumetricImage(t);
+        final int last = ringLast;
+        final int sizeT = getSizeT();
 
-        if (volImg != null)
-            return volImg.getAllImage();
+        if ((index < 0) || (index >= sizeT))
+            throw new IllegalArgumentException("Sequence.getFrameT(..) error : invalid frame index " + index);
 
-        return null;
+        // no frame added, T order is acquisition order
+        if ((last == -1) || (last >= sizeT))
+            return index;
+
+        // oldest frame is just after the last one
+        return (last + 1 + index) % sizeT;
     }
 
     /**
-     * Returns all images of sequence
+     * Keep the <code>capacity</code> newest frames and move them to T = 0..n-1 in acquisition
+     * order (see {@link #getFrameT(int)}).
      */
-    public ArrayList<IcyBufferedImage> getAllImage()
+    private void compactFrames(int capacity)
     {
-        final ArrayList<IcyBufferedImage> result = new ArrayList<IcyBufferedImage>();
+        final int sizeT = getSizeT();
+        final int keep = Math.min(capacity, sizeT);
+        final int[] kept = new int[keep];
 
-        synchronized (volumetricImages)
+        // T positions of kept frames, oldest first
+        for (int i = 0; i < keep; i++)
+            kept[i] = getFrameT((sizeT - keep) + i);
+
+        beginUpdate();
+        try
         {
-            for (VolumetricImage volImg : volumetricImages.values())
+            final boolean[] isKept = new boolean[sizeT];
+
+            for (int t : kept)
+                isKept[t] = true;
+            // remove oldest frames
+            for (int t = 0; t < sizeT; t++)
+                if (!isKept[t])
+                    removeVolumetricImage(t);
+
+            synchronized (volumetricImages)
             {
-                synchronized (volImg.images)
+                final VolumetricImage[] volumes = new VolumetricImage[keep];
+
+                for (int i = 0; i < keep; i++)
+                    volumes[i] = volumetricImages.remove(Integer.valueOf(kept[i]));
+                for (int i = 0; i < keep; i++)
                 {
-                    result.addAll(volImg.images.values());
+                    if (volumes[i] != null)
+                    {
+                        volumetricImages.put(Integer.valueOf(i), volumes[i]);
+                        volumes[i].t = i;
+                    }
                 }
             }
-        }
 
-        return result;
+            invalidatePlaneIndex();
+            ringLast = keep - 1;
+            // frames moved
+            dataChanged();
+        }
+        finally
+        {
+            endUpdate();
+        }
     }
 
     /**
-     * Add an image to the specified VolumetricImage at the specified z location
+     * Move viewers displaying the previous last frame to the last frame (on EDT, coalesced when
+     * frames come faster than viewers update).
      */
-    private void setImage(VolumetricImage volImg, int z, BufferedImage image) throws IllegalArgumentException
+    private void updateViewersFrame()
     {
-        if (volImg != null)
+        if (!viewersFrameUpdatePending.compareAndSet(false, true))
+            return;
+
+        ThreadUtil.invokeLater(new Runnable()
         {
-            // not the same image ?
-            if (volImg.getImage(z) != image)
+            @Override
+            public void run()
             {
-                // this is different from removeImage as we don't remove empty VolumetricImage
-                if (image == null)
-                    volImg.removeImage(z);
-                else
-                {
-                    final IcyBufferedImage icyImg;
+                viewersFrameUpdatePending.set(false);
 
-                    // convert to icyImage if needed
-                    if (image instanceof IcyBufferedImage)
-                        icyImg = (IcyBufferedImage) image;
-                    else
-                        icyImg = IcyBufferedImage.createFrom(image);
+                final int t = ringLast;
 
-                    // possible type change ?
-                    final boolean typeChange = (colorModel == null) || isEmpty()
-                            || ((getNumImage() == 1) && (volImg.getImage(z) != null));
+                if (t == viewersFrameT)
+                    return;
 
-                    // not changing type and not compatible
-                    if (!typeChange && !isCompatible(icyImg))
-                        throw new IllegalArgumentException("Sequence.setImage : image is not compatible !");
+                for (Viewer viewer : getViewers())
+                    if ((viewersFrameT == -1) || (viewer.getT() == viewersFrameT))
+                        viewer.setT(t);
 
-                    // set image
-                    volImg.setImage(z, icyImg);
-                }
+                viewersFrameT = t;
             }
-        }
+        }, true);
     }
 
     /**
-     * Set an image at the specified position
+     * Add a frame (live acquisition).<br>
+     * Frame data is copied in a new volumetricImage [T] at position Z = 0.<br>
+     * In ring buffer mode (see {@link #setRingBufferCapacity(int)}), once the sequence is full
+     * the data of the oldest frame is overwritten so no memory is allocated and a single data
+     * changed event is sent per frame.<br>
+     * Viewers displaying the previous last frame are moved to the new frame (asynchronously, on
+     * the AWT event dispatching thread).<br>
+     * Once the ring buffer wrapped, T order does not match acquisition order anymore (see
+     * {@link #getFrameT(int)}).<br>
+     * This method should always be called from the same thread.
      * 
-     * @param t
-     * @param z
-     * @param image
+     * @return the T position of the frame
      */
-    public void setImage(int t, int z, BufferedImage image) throws IllegalArgumentException
+    public int addFrame(BufferedImage frame) throws IllegalArgumentException
     {
-        final boolean volImgCreated;
+        final int capacity = isRingBuffer() ? getRingCapacity(frame) : Integer.MAX_VALUE;
+        int sizeT = getSizeT();
 
-        VolumetricImage volImg = getVolumetricImage(t);
-
-        if (volImg == null)
+        // capacity reduced (remove oldest frames) or raised after the ring wrapped (append from
+        // acquisition order) --> reorder frames
+        if ((sizeT > capacity) || ((sizeT > 0) && (sizeT < capacity) && (getFrameT(sizeT - 1) != (sizeT - 1))))
         {
-            volImg = setVolumetricImage(t);
-            volImgCreated = true;
+            compactFrames(capacity);
+            sizeT = getSizeT();
         }
+
+        final int previous = ringLast;
+        final int t;
+
+        // not yet full --> append, else overwrite the oldest frame
+        if (sizeT < capacity)
+            t = sizeT;
         else
-            volImgCreated = false;
+            t = (previous + 1) % capacity;
 
-        try
+        final IcyBufferedImage dest = getImage(t, 0);
+
+        // recycle previous frame data if possible
+        if ((dest != null) && isCompatibleFrame(dest, frame))
         {
-            // set image
-            setImage(volImg, z, image);
+            final Lock lock = getPlaneLock(t, 0).writeLock();
+
+            lock.lock();
+            try
+            {
+                dest.copyData(frame);
+            }
+            finally
+            {
+                lock.unlock();
+            }
         }
-        catch (IllegalArgumentException e)
+        else
         {
-            // image set failed ? remove empty image list if needed
-            if (volImgCreated)
-                removeVolumetricImage(t);
-            // throw exception
-            throw e;
+            final IcyBufferedImage image;
+
+            if (frame instanceof IcyBufferedImage)
+            {
+                image = ImagePool.acquire((IcyBufferedImage) frame);
+                image.copyData(frame);
+            }
+            else
+                // source image can be used by the conversion and frame buffer is generally reused
+                image = IcyBufferedImage.createFrom(frame).getCopy();
+
+            setImage(t, 0, image);
         }
-    }
 
-    /**
-     * Add an image to the last VolumetricImage (create it if needed).
-     * 
-     * @param image
-     *        image to add
-     */
-    public void addImage(BufferedImage image) throws IllegalArgumentException
-    {
-        final int t = Math.max(getSizeT() - 1, 0);
-        final int z = Math.max(getSizeZ(t), 0);
+        ringLast = t;
 
-        setImage(t, z, image);
+        // keep viewers on last frame
+        if (t != previous)
+            updateViewersFrame();
+
+        return t;
     }
 
-    /**
-     * Add an image to the VolumetricImage[t] (the volumetricImage must exist).
-     * 
-     * @param image
-     *        image to add
-     */
-    public void addImage(int t, BufferedImage image) throws IllegalArgumentException
+    private static boolean isCompatibleFrame(IcyBufferedImage dest, BufferedImage frame)
     {
-        final int z = Math.max(getSizeZ(t), 0);
+        if ((dest.getWidth() != frame.getWidth()) || (dest.getHeight() != frame.getHeight()))
+            return false;
 
-        setImage(t, z, image);
+        if (frame instanceof IcyBufferedImage)
+        {
+            final IcyBufferedImage icyFrame = (IcyBufferedImage) frame;
+
+            return (dest.getSizeC() == icyFrame.getSizeC()) && (dest.getDataType_() == icyFrame.getDataType_());
+        }
+
+        return dest.getSizeC() == frame.getRaster().getNumBands();
     }
 
     /**
@@ -1745,9 +2792,11 @@ public class Sequence implements SequenceModel, IcyColorModelListener, IcyBuffer
 
         if (volImg != null)
         {
+            final Lock lock = getPlaneLock(t, z).writeLock();
             final boolean result;
 
             beginUpdate();
+            lock.lock();
             try
             {
                 result = volImg.removeImage(z);
@@ -1759,6 +2808,7 @@ public class Sequence implements SequenceModel, IcyColorModelListener, IcyBuffer
             }
             finally
             {
+                lock.unlock();
                 endUpdate();
             }
 
@@ -1792,24 +2842,22 @@ public class Sequence implements SequenceModel, IcyColorModelListener, IcyBuffer
         beginUpdate();
         try
         {
-            synchronized (volumetricImages)
+            // work on a copy so we don't lock the whole sequence while packing volumes
+            for (Entry<Integer, VolumetricImage> entry : getVolumetricImages().entrySet())
             {
-                for (Entry<Integer, VolumetricImage> entry : volumetricImages.entrySet())
-                {
-                    final VolumetricImage volImg = entry.getValue();
-                    final int t = entry.getKey().intValue();
+                final VolumetricImage volImg = entry.getValue();
+                final int t = entry.getKey().intValue();
 
-                    if (volImg == null)
+                if (volImg == null)
+                    removeVolumetricImage(t);
+                else
+                {
+                    // pack the list
+                    volImg.pack();
+                    // empty ?
+                    if (volImg.isEmpty())
+                        // remove it
                         removeVolumetricImage(t);
-                    else
-                    {
-                        // pack the list
-                        volImg.pack();
-                        // empty ?
-                        if (volImg.isEmpty())
-                            // remove it
-                            removeVolumetricImage(t);
-                    }
                 }
             }
         }
@@ -1826,12 +2874,12 @@ public class Sequence implements SequenceModel, IcyColorModelListener, IcyBuffer
     {
         int result = 0;
 
-        synchronized (volumetricImages)
-        {
-            for (VolumetricImage volImg : volumetricImages.values())
-                if (volImg != null)
-                    result += volImg.getNumImage();
-        }
+        // lock free access
+        for (IcyBufferedImage[] volume : getPlaneIndex())
+            if (volume != null)
+                for (IcyBufferedImage img : volume)
+                    if (img != null)
+                        result++;
 
         return result;
     }
@@ -2141,29 +3189,81 @@ public class Sequence implements SequenceModel, IcyColorModelListener, IcyBuffer
     }
 
     /**
-     * Recalculate all image channels bounds (min and max values).<br>
+     * Recalculate image channels bounds (min and max values).<br>
+     * Calculation is distributed over available processors when there is several images to
+     * process, calculated bounds are then applied (and events fired) from the calling thread.<br>
      * Internal use only.
+     * 
+     * @param all
+     *        if <code>true</code> all images with loaded data or read on demand (virtual images
+     *        whose bounds are only estimated) are recalculated else only images modified since
+     *        their last bounds calculation are.
      */
-    private void recalculateAllImageChannelsBounds()
+    private void recalculateImageChannelsBounds(boolean all)
     {
         // nothing to do...
         if ((colorModel == null) || isEmpty())
             return;
 
-        final ArrayList<VolumetricImage> volumes = getAllVolumetricImage();
+        final ArrayList<IcyBufferedImage> images = new ArrayList<IcyBufferedImage>();
+
+        for (IcyBufferedImage img : getAllImage())
+        {
+            if (all)
+            {
+                final PlaneStorage storage = img.getStorage();
+
+                // image data not loaded --> not modified since last bounds calculation, except
+                // for data read on demand from its source (bounds never calculated)
+                if (img.isDataLoaded() || img.isChannelsBoundsDirty()
+                        || ((storage != null) && !storage.isWritable()))
+                    images.add(img);
+            }
+            else if (img.isChannelsBoundsDirty())
+                images.add(img);
+        }
+
+        final int numImage = images.size();
+
+        // nothing to do
+        if (numImage == 0)
+            return;
+
+        // calculate images bounds in parallel with the fused min / max kernel (no event is fired
+        // here)
+        final double[][][] bounds = new double[numImage][][];
+        final long[] versions = new long[numImage];
+
+        ArrayMath.compute(numImage, numImage, new ChunkProcessor()
+        {
+            @Override
+            public void process(int chunk, int from, int to)
+            {
+                for (int i = from; i < to; i++)
+                {
+                    final IcyBufferedImage img = images.get(i);
+
+                    // get version first so a concurrent change keeps bounds dirty
+                    versions[i] = img.getDataVersion();
+                    bounds[i] = img.calculateChannelsBounds();
+                }
+            }
+        });
 
+        // then apply them from the calling thread (automatically update sequence bounds with event)
         beginUpdate();
         try
         {
-            // recalculate images bounds (automatically update sequence bounds with event)
-            for (VolumetricImage volImg : volumes)
-                for (IcyBufferedImage img : volImg.getAllImage())
-                    img.updateChannelsBounds();
+            for (int i = 0; i < numImage; i++)
+                images.get(i).updateChannelsBounds(bounds[i], versions[i]);
         }
         finally
         {
             endUpdate();
         }
+
+        // fill statistics of modified planes in background
+        statistics.computeLater();
     }
 
     /**
@@ -2177,41 +3277,28 @@ public class Sequence implements SequenceModel, IcyColorModelListener, IcyBuffer
         if ((colorModel == null) || isEmpty())
             return;
 
-        double[][] bounds;
+        double[][] bounds = null;
+        double[][] userBounds = null;
 
-        bounds = null;
-        // recalculate bounds from all images
-        synchronized (volumetricImages)
+        // recalculate bounds and user bounds from all images in a single pass (lock free)
+        for (IcyBufferedImage[] volume : getPlaneIndex())
         {
-            for (VolumetricImage volImg : volumetricImages.values())
+            if (volume != null)
             {
-                synchronized (volImg.images)
+                for (IcyBufferedImage img : volume)
                 {
-                    for (IcyBufferedImage img : volImg.images.values())
+                    if (img != null)
+                    {
                         bounds = adjustBounds(img.getChannelsTypeBounds(), bounds);
+                        userBounds = adjustBounds(img.getChannelsBounds(), userBounds);
+                    }
                 }
             }
         }
 
         // set new computed bounds
         colorModel.setComponentsAbsBounds(bounds);
-
-        bounds = null;
-        // recalculate user bounds from all images
-        synchronized (volumetricImages)
-        {
-            for (VolumetricImage volImg : volumetricImages.values())
-            {
-                synchronized (volImg.images)
-                {
-                    for (IcyBufferedImage img : volImg.images.values())
-                        bounds = adjustBounds(img.getChannelsBounds(), bounds);
-                }
-            }
-        }
-
-        // set new computed bounds
-        colorModel.setComponentsUserBounds(bounds);
+        colorModel.setComponentsUserBounds(userBounds);
     }
 
     /**
@@ -2220,13 +3307,13 @@ public class Sequence implements SequenceModel, IcyColorModelListener, IcyBuffer
      * @param forceRecalculation
      *        If true we force all images channels bounds recalculation (this can take sometime).<br>
      *        You can left this flag to false if sequence images have their bounds updated (which
-     *        should be the case by default).
+     *        should be the case by default), in this case only images modified since their last
+     *        bounds calculation are recalculated.
      */
     public void updateChannelsBounds(boolean forceRecalculation)
     {
-        // force calculation of all images bounds
-        if (forceRecalculation)
-            recalculateAllImageChannelsBounds();
+        // calculation of all images bounds or only modified ones
+        recalculateImageChannelsBounds(forceRecalculation);
         // then update sequence bounds
         internalUpdateChannelsBounds();
     }
@@ -4598,6 +5685,75 @@ public class Sequence implements SequenceModel, IcyColorModelListener, IcyBuffer
         return result;
     }
 
+    /**
+     * Creates a sub sequence viewing specified coordinates and dimensions.<br>
+     * No data is copied at creation time: image data is read from this sequence on first access
+     * and each image gets its own private data as soon as it is modified (see
+     * {@link IcyBufferedImage#getView(Rectangle, List)}).
+     */
+    public Sequence getSubSequenceView(int startX, int startY, int startZ, int startT, int sizeX, int sizeY,
+            int sizeZ, int sizeT)
+    {
+        final Sequence result = new Sequence();
+
+        result.beginUpdate();
+        try
+        {
+            for (int t = 0; t < sizeT; t++)
+            {
+                for (int z = 0; z < sizeZ; z++)
+                {
+                    final IcyBufferedImage img = getImage(startT + t, startZ + z);
+
+                    if (img != null)
+                        result.setImage(t, z, img.getSubImageView(startX, startY, sizeX, sizeY));
+                }
+            }
+        }
+        finally
+        {
+            result.endUpdate();
+        }
+
+        result.setName("Sub part of " + getName());
+
+        return result;
+    }
+
+    /**
+     * Creates and return a view of the sequence.<br>
+     * No data is copied at creation time: image data is read from this sequence on first access
+     * and each image gets its own private data as soon as it is modified (see
+     * {@link IcyBufferedImage#getView(Rectangle, List)}).
+     */
+    public Sequence getView()
+    {
+        final Sequence result = new Sequence();
+
+        result.beginUpdate();
+        try
+        {
+            for (int t = 0; t < getSizeT(); t++)
+            {
+                for (int z = 0; z < getSizeZ(); z++)
+                {
+                    final IcyBufferedImage img = getImage(t, z);
+
+                    if (img != null)
+                        result.setImage(t, z, img.getView());
+                }
+            }
+        }
+        finally
+        {
+            result.endUpdate();
+        }
+
+        result.setName(getName() + " (view)");
+
+        return result;
+    }
+
     /**
      * Creates and return a copy of the sequence
      */
@@ -4707,11 +5863,24 @@ public class Sequence implements SequenceModel, IcyColorModelListener, IcyBuffer
      */
     public void onImageAdded(IcyBufferedImage image)
     {
+        onImageAdded(null, -1, image);
+    }
+
+    /**
+     * Do common job on "image add" at position z of the specified volume here
+     */
+    void onImageAdded(VolumetricImage volImg, int z, IcyBufferedImage image)
+    {
+        updatePlaneIndex(volImg, z, 1);
+        addDataSize(image.getDataSize());
+
         // colorModel not yet defined ?
         if (colorModel == null)
             // define it from the image colorModel
             setColorModel(IcyColorModel.createInstance(image.getIcyColorModel(), true, true));
 
+        // set image storage
+        applyStorageType(image, false);
         // add listener to image
         image.addListener(this);
 
@@ -4724,8 +5893,19 @@ public class Sequence implements SequenceModel, IcyColorModelListener, IcyBuffer
      */
     public void onImageReplaced(IcyBufferedImage oldImage, IcyBufferedImage newImage)
     {
+        onImageReplaced(null, -1, oldImage, newImage);
+    }
+
+    /**
+     * Do common job on "image replaced" at position z of the specified volume here
+     */
+    void onImageReplaced(VolumetricImage volImg, int z, IcyBufferedImage oldImage, IcyBufferedImage newImage)
+    {
+        updatePlaneIndex(volImg, z, 1);
+        addDataSize(newImage.getDataSize() - oldImage.getDataSize());
+
         // we replaced the only present image
-        final boolean typeChange = getNumImage() == 1;
+        final boolean typeChange = hasSingleImage();
 
         beginUpdate();
         try
@@ -4743,9 +5923,12 @@ public class Sequence implements SequenceModel, IcyColorModelListener, IcyBuffer
 
             // remove listener from old image
             oldImage.removeListener(this);
+            removePyramid(oldImage);
             // notify about old image remove
             dataChanged(oldImage, SequenceEventType.REMOVED);
 
+            // set new image storage
+            applyStorageType(newImage, false);
             // add listener to new image
             newImage.addListener(this);
             // notify about new image added
@@ -4764,6 +5947,17 @@ public class Sequence implements SequenceModel, IcyColorModelListener, IcyBuffer
      */
     public void onImageRemoved(IcyBufferedImage image)
     {
+        onImageRemoved(null, -1, image);
+    }
+
+    /**
+     * Do common job on "image remove" at position z of the specified volume here
+     */
+    void onImageRemoved(VolumetricImage volImg, int z, IcyBufferedImage image)
+    {
+        updatePlaneIndex(volImg, z, 1);
+        addDataSize(-image.getDataSize());
+
         // no more image ?
         if (isEmpty())
             // free the global colorModel
@@ -4771,11 +5965,55 @@ public class Sequence implements SequenceModel, IcyColorModelListener, IcyBuffer
 
         // remove listener from image
         image.removeListener(this);
+        removePyramid(image);
 
         // notify changed
         dataChanged(image, SequenceEventType.REMOVED);
     }
 
+    /**
+     * Do common job on bulk images set here (see {@link #setImages(int, int, List)})
+     */
+    private void onImagesSet(VolumetricImage volImg, int z, int num, List<IcyBufferedImage> added,
+            List<IcyBufferedImage> removed)
+    {
+        long delta = 0;
+
+        updatePlaneIndex(volImg, z, num);
+
+        for (IcyBufferedImage image : added)
+            delta += image.getDataSize();
+        for (IcyBufferedImage image : removed)
+            delta -= image.getDataSize();
+        addDataSize(delta);
+
+        // colorModel not yet defined ?
+        if ((colorModel == null) && !added.isEmpty())
+            // define it from the image colorModel
+            setColorModel(IcyColorModel.createInstance(added.get(0).getIcyColorModel(), true, true));
+
+        for (IcyBufferedImage image : removed)
+        {
+            // remove listener from old image
+            image.removeListener(this);
+            removePyramid(image);
+        }
+
+        for (IcyBufferedImage image : added)
+        {
+            // set image storage
+            applyStorageType(image, false);
+            // add listener to image
+            image.addListener(this);
+        }
+
+        // single global events (channels bounds are calculated once at update end)
+        if (!removed.isEmpty())
+            dataChanged(null, SequenceEventType.REMOVED);
+        if (!added.isEmpty())
+            dataChanged(null, SequenceEventType.ADDED);
+    }
+
     /**
      * fire change event
      */
@@ -4899,6 +6137,7 @@ public class Sequence implements SequenceModel, IcyColorModelListener, IcyBuffer
      */
     public void dataChanged()
     {
+        dataVersion.incrementAndGet();
         updater.changed(new SequenceEvent(this, SequenceEventSourceType.SEQUENCE_DATA, null));
     }
 
@@ -4907,7 +6146,16 @@ public class Sequence implements SequenceModel, IcyColorModelListener, IcyBuffer
      */
     private void dataChanged(IcyBufferedImage image, SequenceEventType type)
     {
-        updater.changed(new SequenceEvent(this, SequenceEventSourceType.SEQUENCE_DATA, image, type, 0));
+        dataChanged(image, type, null, -1);
+    }
+
+    /**
+     * data has changed in the specified region and channel of image
+     */
+    private void dataChanged(IcyBufferedImage image, SequenceEventType type, Rectangle region, int channel)
+    {
+        dataVersion.incrementAndGet();
+        updater.changed(new SequenceEvent(this, SequenceEventSourceType.SEQUENCE_DATA, image, type, channel, region));
     }
 
     @Override
@@ -4950,8 +6198,10 @@ public class Sequence implements SequenceModel, IcyColorModelListener, IcyBuffer
                 break;
 
             case DATA_CHANGED:
+                // pyramid levels are obsolete (only modified region is updated)
+                invalidatePyramid(image, e.getRegion());
                 // image data changed
-                dataChanged(image, SequenceEventType.CHANGED);
+                dataChanged(image, SequenceEventType.CHANGED, e.getRegion(), e.getParam());
                 break;
         }
     }
@@ -4980,8 +6230,15 @@ public class Sequence implements SequenceModel, IcyColorModelListener, IcyBuffer
                 {
                     // generic CHANGED event
                     if (event.getSource() == null)
-                        // recalculate all images bounds and update sequence bounds
-                        updateChannelsBounds(true);
+                    {
+                        // images added or removed : only images with obsolete bounds need to be
+                        // recalculated
+                        if (event.getType() != SequenceEventType.CHANGED)
+                            updateChannelsBounds(false);
+                        else
+                            // recalculate all images bounds and update sequence bounds
+                            updateChannelsBounds(true);
+                    }
                     else
                         // refresh sequence channel bounds from images bounds
                         internalUpdateChannelsBounds();
@@ -0,0 +1,327 @@
+/*
+ * Copyright 2010, 2011 Institut Pasteur.
+ *
+ * This file is part of ICY.
+ *
+ * ICY is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ICY is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ICY. If not, see <http://www.gnu.org/licenses/>.
+ */
+package icy.sequence;
+
+import icy.image.IcyBufferedImage;
+import icy.image.ImageDataSpanIterator;
+import icy.roi.ROI;
+import icy.roi.ROI2D;
+import icy.type.DataSpanIterator;
+import icy.type.DataType;
+
+import java.awt.Rectangle;
+
+/**
+ * Sequence data span iterator.<br>
+ * Iterate <code>Sequence</code> data by contiguous spans in XYCZT <i>([T[Z[C[Y[X}}]]])</i>
+ * dimension order (see {@link DataSpanIterator}).<br>
+ * XY spans are computed once (all images of a sequence have the same size) and reused for each
+ * image.<br>
+ * <b>If the sequence size or type is modified during iteration the iterator
+ * becomes invalid and can causes exception to happen.</b>
+ * 
+ * @author Stephane
+ */
+public class SequenceDataSpanIterator implements DataSpanIterator
+{
+    protected final Sequence sequence;
+    protected final DataType dataType;
+    protected final int[] runs;
+
+    protected int startC, endC;
+    protected int startZ, endZ;
+    protected int startT, endT;
+
+    /**
+     * internals
+     */
+    protected int z, t;
+    protected boolean done;
+    protected ImageDataSpanIterator imageIterator;
+
+    /**
+     * Create a new SequenceData span iterator to iterate data through the specified dimensions
+     * (inclusive).
+     * 
+     * @param sequence
+     *        Sequence we want to iterate data from
+     * @param startX
+     *        start X position
+     * @param endX
+     *        end X position
+     * @param startY
+     *        start Y position
+     * @param endY
+     *        end Y position
+     * @param startC
+     *        start C position
+     * @param endC
+     *        end C position
+     * @param startZ
+     *        start Z position
+     * @param endZ
+     *        end Z position
+     * @param startT
+     *        start T position
+     * @param endT
+     *        end T position
+     */
+    public SequenceDataSpanIterator(Sequence sequence, int startX, int endX, int startY, int endY, int startC,
+            int endC, int startZ, int endZ, int startT, int endT)
+    {
+        super();
+
+        this.sequence = sequence;
+
+        if (sequence != null)
+        {
+            dataType = sequence.getDataType_();
+            runs = ImageDataSpanIterator.createRuns(
+                    new Rectangle(startX, startY, (endX - startX) + 1, (endY - startY) + 1).intersection(sequence
+                            .getBounds()), sequence.getSizeX());
+
+            this.startC = Math.max(startC, 0);
+            this.endC = Math.min(endC, sequence.getSizeC() - 1);
+            this.startZ = Math.max(startZ, 0);
+            this.endZ = Math.min(endZ, sequence.getSizeZ() - 1);
+            this.startT = Math.max(startT, 0);
+            this.endT = Math.min(endT, sequence.getSizeT() - 1);
+        }
+        else
+        {
+            dataType = DataType.UNDEFINED;
+            runs = new int[0];
+        }
+
+        // start iterator
+        reset();
+    }
+
+    /**
+     * Create a new SequenceData span iterator to iterate data of specified channel.
+     * 
+     * @param sequence
+     *        Sequence we want to iterate data from
+     * @param c
+     *        C position (channel) we want to iterate data
+     * @param z
+     *        Z position (stack) we want to iterate data
+     * @param t
+     *        T position (time) we want to iterate data
+     */
+    public SequenceDataSpanIterator(Sequence sequence, int c, int z, int t)
+    {
+        this(sequence, 0, sequence.getSizeX() - 1, 0, sequence.getSizeY() - 1, c, c, z, z, t, t);
+    }
+
+    /**
+     * Create a new SequenceData span iterator to iterate all data.
+     * 
+     * @param sequence
+     *        Sequence we want to iterate data from
+     */
+    public SequenceDataSpanIterator(Sequence sequence)
+    {
+        this(sequence, 0, sequence.getSizeX() - 1, 0, sequence.getSizeY() - 1, 0, sequence.getSizeC() - 1, 0,
+                sequence.getSizeZ() - 1, 0, sequence.getSizeT() - 1);
+    }
+
+    /**
+     * Create a new SequenceData span iterator to iterate data through the specified ROI.<br>
+     * Only {@link ROI2D} is supported for now (iteration is empty for others ROI).
+     * 
+     * @param sequence
+     *        Sequence we want to iterate data from
+     * @param roi
+     *        ROI defining the region to iterate
+     */
+    public SequenceDataSpanIterator(Sequence sequence, ROI roi)
+    {
+        super();
+
+        this.sequence = sequence;
+
+        if ((sequence != null) && (roi instanceof ROI2D))
+        {
+            final ROI2D roi2d = (ROI2D) roi;
+
+            dataType = sequence.getDataType_();
+            runs = ImageDataSpanIterator.createRuns(roi2d.getAsBooleanMask(), sequence.getSizeX(),
+                    sequence.getSizeY());
+
+            final int roiC = roi2d.getC();
+            final int roiZ = roi2d.getZ();
+            final int roiT = roi2d.getT();
+
+            if (roiC == -1)
+            {
+                startC = 0;
+                endC = sequence.getSizeC() - 1;
+            }
+            else if ((roiC < 0) || (roiC >= sequence.getSizeC()))
+            {
+                startC = 0;
+                endC = -1;
+            }
+            else
+            {
+                startC = roiC;
+                endC = roiC;
+            }
+
+            if (roiZ == -1)
+            {
+                startZ = 0;
+                endZ = sequence.getSizeZ() - 1;
+            }
+            else if ((roiZ < 0) || (roiZ >= sequence.getSizeZ()))
+            {
+                startZ = 0;
+                endZ = -1;
+            }
+            else
+            {
+                startZ = roiZ;
+                endZ = roiZ;
+            }
+
+            if (roiT == -1)
+            {
+                startT = 0;
+                endT = sequence.getSizeT() - 1;
+            }
+            else if ((roiT < 0) || (roiT >= sequence.getSizeT()))
+            {
+                startT = 0;
+                endT = -1;
+            }
+            else
+            {
+                startT = roiT;
+                endT = roiT;
+            }
+        }
+        else
+        {
+            // others ROI not yet supported
+            dataType = (sequence != null) ? sequence.getDataType_() : DataType.UNDEFINED;
+            runs = new int[0];
+            startC = startZ = startT = 0;
+            endC = endZ = endT = -1;
+        }
+
+        // start iterator
+        reset();
+    }
+
+    @Override
+    public void reset()
+    {
+        done = (sequence == null) || (startT > endT) || (startZ > endZ) || (startC > endC) || (runs.length == 0);
+
+        t = startT;
+        z = startZ - 1;
+        imageIterator = null;
+    }
+
+    /**
+     * Prepare iterator for the next image, returns <code>false</code> if no more image.
+     */
+    protected boolean nextImage()
+    {
+        if (++z > endZ)
+        {
+            z = startZ;
+
+            if (++t > endT)
+            {
+                done = true;
+                return false;
+            }
+        }
+
+        final IcyBufferedImage img = sequence.getImage(t, z);
+
+        imageIterator = new ImageDataSpanIterator(img, runs, startC, endC);
+
+        return true;
+    }
+
+    @Override
+    public boolean nextSpan()
+    {
+        while (!done)
+        {
+            if ((imageIterator != null) && imageIterator.nextSpan())
+                return true;
+
+            nextImage();
+        }
+
+        return false;
+    }
+
+    @Override
+    public DataType getDataType()
+    {
+        return dataType;
+    }
+
+    @Override
+    public Object getData()
+    {
+        return imageIterator.getData();
+    }
+
+    @Override
+    public int getOffset()
+    {
+        return imageIterator.getOffset();
+    }
+
+    @Override
+    public int getLength()
+    {
+        return imageIterator.getLength();
+    }
+
+    /**
+     * Returns the channel of the current span.
+     */
+    public int getC()
+    {
+        return imageIterator.getC();
+    }
+
+    /**
+     * Returns the Z position of the current span.
+     */
+    public int getZ()
+    {
+        return z;
+    }
+
+    /**
+     * Returns the T position of the current span.
+     */
+    public int getT()
+    {
+        return t;
+    }
+}
@@ -0,0 +1,665 @@
+/*
+ * Copyright 2010, 2011 Institut Pasteur.
+ *
+ * This file is part of ICY.
+ *
+ * ICY is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ICY is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ICY. If not, see <http://www.gnu.org/licenses/>.
+ */
+package icy.sequence;
+
+import icy.image.IcyBufferedImage;
+import icy.type.DataType;
+import icy.type.collection.array.Array1DUtil;
+
+import java.util.Arrays;
+
+/**
+ * Strided N dimensional (XYCZT) view over {@link Sequence} data.<br>
+ * The view directly reads and writes data arrays of sequence images (no copy is done) and can
+ * be narrowed, sub sampled or have its dimensions reordered without any copy (see
+ * {@link #slice(int, int, int, int)}, {@link #select(int, int)} and {@link #permute(int[])}).
+ * This allows writing an algorithm once for any dimension order or sub region of the sequence.<br>
+ * <br>
+ * Position arguments are given in view dimension order (by default X, Y, C, Z, T).<br>
+ * Use row accessors (see {@link #getRowAsDouble(int, int, int, int, double[])}) to process data
+ * along the first view dimension without per element image lookup.<br>
+ * When data is modified through the view you should call {@link #dataChanged()} at end of the
+ * process so sequence is notified.<br>
+ * The view assumes the sequence structure (size and data type) is not modified while it is in
+ * use.
+ * 
+ * @author Stephane
+ */
+public class SequenceDataView
+{
+    public static final int DIM_X = 0;
+    public static final int DIM_Y = 1;
+    public static final int DIM_C = 2;
+    public static final int DIM_Z = 3;
+    public static final int DIM_T = 4;
+
+    /**
+     * number of dimension
+     */
+    public static final int NUM_DIM = 5;
+
+    private final Sequence sequence;
+    private final DataType dataType;
+    /**
+     * sequence size (XYCZT)
+     */
+    private final int[] baseShape;
+    /**
+     * view origin in sequence coordinates (XYCZT)
+     */
+    private final int[] origin;
+    /**
+     * sequence dimension of each view dimension
+     */
+    private final int[] axis;
+    /**
+     * view size of each view dimension
+     */
+    private final int[] shape;
+    /**
+     * step (in sequence coordinates) of each view dimension
+     */
+    private final int[] step;
+    /**
+     * view dimension of each sequence dimension
+     */
+    private final int[] viewDim;
+
+    /**
+     * Create a view over the whole sequence.
+     */
+    public SequenceDataView(Sequence sequence)
+    {
+        this(sequence, sequence.getDataType_(), new int[] {sequence.getSizeX(), sequence.getSizeY(),
+                sequence.getSizeC(), sequence.getSizeZ(), sequence.getSizeT()}, new int[NUM_DIM], new int[] {DIM_X,
+                DIM_Y, DIM_C, DIM_Z, DIM_T}, null, new int[] {1, 1, 1, 1, 1});
+    }
+
+    private SequenceDataView(Sequence sequence, DataType dataType, int[] baseShape, int[] origin, int[] axis,
+            int[] shape, int[] step)
+    {
+        super();
+
+        this.sequence = sequence;
+        this.dataType = dataType;
+        this.baseShape = baseShape;
+        this.origin = origin;
+        this.axis = axis;
+        this.shape = (shape != null) ? shape : baseShape.clone();
+        this.step = step;
+
+        viewDim = new int[NUM_DIM];
+        for (int d = 0; d < NUM_DIM; d++)
+            viewDim[axis[d]] = d;
+    }
+
+    /**
+     * Return the source sequence
+     */
+    public Sequence getSequence()
+    {
+        return sequence;
+    }
+
+    /**
+     * Return the data type of the view
+     */
+    public DataType getDataType()
+    {
+        return dataType;
+    }
+
+    /**
+     * Return the view size for each dimension (in view dimension order)
+     */
+    public int[] getShape()
+    {
+        return shape.clone();
+    }
+
+    /**
+     * Return the view size of the specified dimension
+     */
+    public int getSize(int dim)
+    {
+        return shape[dim];
+    }
+
+    /**
+     * Return the number of element of the view
+     */
+    public long getNumElement()
+    {
+        long result = 1;
+
+        for (int s : shape)
+            result *= s;
+
+        return result;
+    }
+
+    /**
+     * Return the sequence dimension (see {@link #DIM_X}...) of each view dimension
+     */
+    public int[] getAxis()
+    {
+        return axis.clone();
+    }
+
+    /**
+     * Return the logical strides of the view for each dimension (in view dimension order).<br>
+     * Strides are expressed in element of the sequence data seen as a flat XYCZT array. This
+     * array does not exist (each image channel has its own data array) so strides only describe
+     * the view layout and can't be used to address data: use row accessors (see
+     * {@link #getRowAsDouble(int, int, int, int, double[])}) for fast access.
+     */
+    public long[] getStrides()
+    {
+        final long[] baseStrides = new long[NUM_DIM];
+        final long[] result = new long[NUM_DIM];
+
+        baseStrides[0] = 1;
+        for (int d = 1; d < NUM_DIM; d++)
+            baseStrides[d] = baseStrides[d - 1] * baseShape[d - 1];
+
+        for (int d = 0; d < NUM_DIM; d++)
+            result[d] = baseStrides[axis[d]] * step[d];
+
+        return result;
+    }
+
+    /**
+     * Return a sub view of the specified dimension.
+     * 
+     * @param dim
+     *        view dimension
+     * @param start
+     *        first position (included)
+     * @param end
+     *        last position (excluded)
+     * @param stp
+     *        step (should be > 0)
+     */
+    public SequenceDataView slice(int dim, int start, int end, int stp)
+    {
+        if ((start < 0) || (end > shape[dim]) || (start > end) || (stp <= 0))
+            throw new IllegalArgumentException("SequenceDataView.slice(..) error : invalid range [" + start + ", "
+                    + end + "[ / " + stp + " for dimension of size " + shape[dim]);
+
+        final int[] newOrigin = origin.clone();
+        final int[] newShape = shape.clone();
+        final int[] newStep = step.clone();
+
+        newOrigin[axis[dim]] += start * step[dim];
+        newShape[dim] = ((end - start) + (stp - 1)) / stp;
+        newStep[dim] = step[dim] * stp;
+
+        return new SequenceDataView(sequence, dataType, baseShape, newOrigin, axis, newShape, newStep);
+    }
+
+    /**
+     * Return a sub view of the specified dimension (same as <code>slice(dim, start, end, 1)</code>).
+     */
+    public SequenceDataView slice(int dim, int start, int end)
+    {
+        return slice(dim, start, end, 1);
+    }
+
+    /**
+     * Return a sub view restricted to the specified position of the specified dimension (size of
+     * the dimension is then 1).
+     */
+    public SequenceDataView select(int dim, int position)
+    {
+        return slice(dim, position, position + 1, 1);
+    }
+
+    /**
+     * Return a view with dimensions reordered.<br>
+     * ex : <code>permute(new int[] {DIM_C, DIM_X, DIM_Y, DIM_Z, DIM_T})</code> give a view where
+     * channel is the first dimension.
+     * 
+     * @param order
+     *        new order given as current view dimensions
+     */
+    public SequenceDataView permute(int[] order)
+    {
+        if (order.length != NUM_DIM)
+            throw new IllegalArgumentException("SequenceDataView.permute(..) error : " + NUM_DIM
+                    + " dimensions expected.");
+
+        final boolean[] used = new boolean[NUM_DIM];
+        final int[] newAxis = new int[NUM_DIM];
+        final int[] newShape = new int[NUM_DIM];
+        final int[] newStep = new int[NUM_DIM];
+
+        for (int d = 0; d < NUM_DIM; d++)
+        {
+            final int src = order[d];
+
+            if ((src < 0) || (src >= NUM_DIM) || used[src])
+                throw new IllegalArgumentException("SequenceDataView.permute(..) error : invalid dimension order.");
+
+            used[src] = true;
+            newAxis[d] = axis[src];
+            newShape[d] = shape[src];
+            newStep[d] = step[src];
+        }
+
+        return new SequenceDataView(sequence, dataType, baseShape, origin, newAxis, newShape, newStep);
+    }
+
+    /**
+     * Return the sequence coordinate of the specified sequence dimension for the specified view
+     * position.
+     */
+    private int position(int seqDim, int p0, int p1, int p2, int p3, int p4)
+    {
+        final int d = viewDim[seqDim];
+        final int p;
+
+        switch (d)
+        {
+            case 0:
+                p = p0;
+                break;
+            case 1:
+                p = p1;
+                break;
+            case 2:
+                p = p2;
+                break;
+            case 3:
+                p = p3;
+                break;
+            default:
+                p = p4;
+                break;
+        }
+
+        return origin[seqDim] + (p * step[d]);
+    }
+
+    /**
+     * Return the image of the specified view position (<code>null</code> if no image)
+     */
+    private IcyBufferedImage getImage(int p0, int p1, int p2, int p3, int p4)
+    {
+        return sequence.getImage(position(DIM_T, p0, p1, p2, p3, p4), position(DIM_Z, p0, p1, p2, p3, p4));
+    }
+
+    /**
+     * Return the offset in image data array of the specified view position
+     */
+    private int getOffset(int p0, int p1, int p2, int p3, int p4)
+    {
+        return (position(DIM_Y, p0, p1, p2, p3, p4) * baseShape[DIM_X]) + position(DIM_X, p0, p1, p2, p3, p4);
+    }
+
+    /**
+     * Return the data array to read at the specified view position (<code>null</code> if no
+     * image)
+     */
+    private Object getArray(int p0, int p1, int p2, int p3, int p4)
+    {
+        final IcyBufferedImage image = getImage(p0, p1, p2, p3, p4);
+
+        if (image == null)
+            return null;
+
+        return image.getDataXYReadOnly(position(DIM_C, p0, p1, p2, p3, p4));
+    }
+
+    /**
+     * Return the data array to write at the specified view position (image data should be
+     * pinned)
+     */
+    private Object getWritableArray(IcyBufferedImage image, int p0, int p1, int p2, int p3, int p4)
+    {
+        // don't modify data shared with a snapshot
+        image.prepareWrite();
+
+        return image.getDataXY(position(DIM_C, p0, p1, p2, p3, p4));
+    }
+
+    /**
+     * Returns <code>true</code> if all elements of a row (first view dimension) are in the same
+     * data array
+     */
+    private boolean isRowInArray()
+    {
+        return (axis[0] == DIM_X) || (axis[0] == DIM_Y) || (shape[0] <= 1);
+    }
+
+    /**
+     * Return the offset increment between 2 successive elements of a row (see
+     * {@link #isRowInArray()})
+     */
+    private int getRowIncrement()
+    {
+        if (axis[0] == DIM_Y)
+            return step[0] * baseShape[DIM_X];
+
+        return step[0];
+    }
+
+    /**
+     * Return the value at the specified view position (0 if there is no image at this position).
+     */
+    public double get(int p0, int p1, int p2, int p3, int p4)
+    {
+        final Object array = getArray(p0, p1, p2, p3, p4);
+
+        if (array == null)
+            return 0d;
+
+        return Array1DUtil.getValue(array, getOffset(p0, p1, p2, p3, p4), dataType);
+    }
+
+    /**
+     * Return the value at the specified view position as int (0 if there is no image at this
+     * position).
+     */
+    public int getAsInt(int p0, int p1, int p2, int p3, int p4)
+    {
+        final Object array = getArray(p0, p1, p2, p3, p4);
+
+        if (array == null)
+            return 0;
+
+        return Array1DUtil.getValueAsInt(array, getOffset(p0, p1, p2, p3, p4), dataType);
+    }
+
+    /**
+     * Return the value at the specified view position as float (0 if there is no image at this
+     * position).
+     */
+    public float getAsFloat(int p0, int p1, int p2, int p3, int p4)
+    {
+        final Object array = getArray(p0, p1, p2, p3, p4);
+
+        if (array == null)
+            return 0f;
+
+        return Array1DUtil.getValueAsFloat(array, getOffset(p0, p1, p2, p3, p4), dataType);
+    }
+
+    /**
+     * Set the value at the specified view position (ignored if there is no image at this
+     * position).
+     */
+    public void set(int p0, int p1, int p2, int p3, int p4, double value)
+    {
+        final IcyBufferedImage image = getImage(p0, p1, p2, p3, p4);
+
+        if (image == null)
+            return;
+
+        // storage backed data can't be released while written
+        image.pinData();
+        try
+        {
+            Array1DUtil.setValue(getWritableArray(image, p0, p1, p2, p3, p4), getOffset(p0, p1, p2, p3, p4),
+                    dataType, value);
+        }
+        finally
+        {
+            image.unpinData();
+        }
+    }
+
+    /**
+     * Copy the row (all positions of the first view dimension) at the specified position of
+     * other dimensions in the specified double array (0 where there is no image).<br>
+     * If <code>out</code> is <code>null</code> a new array is allocated.
+     */
+    public double[] getRowAsDouble(int p1, int p2, int p3, int p4, double[] out)
+    {
+        final int len = shape[0];
+        final double[] result = Array1DUtil.allocIfNull(out, len);
+
+        if (isRowInArray())
+        {
+            final Object array = (len > 0) ? getArray(0, p1, p2, p3, p4) : null;
+
+            if (array == null)
+                Arrays.fill(result, 0, len, 0d);
+            else
+            {
+                final int inc = getRowIncrement();
+                int off = getOffset(0, p1, p2, p3, p4);
+
+                for (int i = 0; i < len; i++, off += inc)
+                    result[i] = Array1DUtil.getValue(array, off, dataType);
+            }
+        }
+        else
+        {
+            for (int i = 0; i < len; i++)
+                result[i] = get(i, p1, p2, p3, p4);
+        }
+
+        return result;
+    }
+
+    /**
+     * Copy the row (all positions of the first view dimension) at the specified position of
+     * other dimensions in the specified float array (0 where there is no image).<br>
+     * If <code>out</code> is <code>null</code> a new array is allocated.
+     */
+    public float[] getRowAsFloat(int p1, int p2, int p3, int p4, float[] out)
+    {
+        final int len = shape[0];
+        final float[] result = Array1DUtil.allocIfNull(out, len);
+
+        if (isRowInArray())
+        {
+            final Object array = (len > 0) ? getArray(0, p1, p2, p3, p4) : null;
+
+            if (array == null)
+                Arrays.fill(result, 0, len, 0f);
+            else
+            {
+                final int inc = getRowIncrement();
+                int off = getOffset(0, p1, p2, p3, p4);
+
+                for (int i = 0; i < len; i++, off += inc)
+                    result[i] = Array1DUtil.getValueAsFloat(array, off, dataType);
+            }
+        }
+        else
+        {
+            for (int i = 0; i < len; i++)
+                result[i] = getAsFloat(i, p1, p2, p3, p4);
+        }
+
+        return result;
+    }
+
+    /**
+     * Copy the row (all positions of the first view dimension) at the specified position of
+     * other dimensions in the specified int array (0 where there is no image).<br>
+     * If <code>out</code> is <code>null</code> a new array is allocated.
+     */
+    public int[] getRowAsInt(int p1, int p2, int p3, int p4, int[] out)
+    {
+        final int len = shape[0];
+        final int[] result = Array1DUtil.allocIfNull(out, len);
+
+        if (isRowInArray())
+        {
+            final Object array = (len > 0) ? getArray(0, p1, p2, p3, p4) : null;
+
+            if (array == null)
+                Arrays.fill(result, 0, len, 0);
+            else
+            {
+                final int inc = getRowIncrement();
+                int off = getOffset(0, p1, p2, p3, p4);
+
+                for (int i = 0; i < len; i++, off += inc)
+                    result[i] = Array1DUtil.getValueAsInt(array, off, dataType);
+            }
+        }
+        else
+        {
+            for (int i = 0; i < len; i++)
+                result[i] = getAsInt(i, p1, p2, p3, p4);
+        }
+
+        return result;
+    }
+
+    /**
+     * Set the row (all positions of the first view dimension) at the specified position of other
+     * dimensions from the specified double array (ignored where there is no image).
+     * 
+     * @param offset
+     *        offset of the first row value in <code>values</code>
+     */
+    public void setRow(int p1, int p2, int p3, int p4, double[] values, int offset)
+    {
+        final int len = shape[0];
+
+        if (isRowInArray())
+        {
+            final IcyBufferedImage image = (len > 0) ? getImage(0, p1, p2, p3, p4) : null;
+
+            if (image == null)
+                return;
+
+            // storage backed data can't be released while written
+            image.pinData();
+            try
+            {
+                final Object array = getWritableArray(image, 0, p1, p2, p3, p4);
+                final int inc = getRowIncrement();
+                int off = getOffset(0, p1, p2, p3, p4);
+
+                for (int i = 0; i < len; i++, off += inc)
+                    Array1DUtil.setValue(array, off, dataType, values[offset + i]);
+            }
+            finally
+            {
+                image.unpinData();
+            }
+        }
+        else
+        {
+            for (int i = 0; i < len; i++)
+                set(i, p1, p2, p3, p4, values[offset + i]);
+        }
+    }
+
+    /**
+     * Copy view data in the specified double array (in view order, first dimension varying
+     * first).<br>
+     * If <code>out</code> is <code>null</code> a new array is allocated.
+     */
+    public double[] getDataAsDouble(double[] out)
+    {
+        final long len = getNumElement();
+
+        if (len > Integer.MAX_VALUE)
+            throw new UnsupportedOperationException("SequenceDataView.getDataAsDouble(..) error : view is too large.");
+
+        final double[] result = Array1DUtil.allocIfNull(out, (int) len);
+        final double[] row = new double[shape[0]];
+        int off = 0;
+
+        for (int p4 = 0; p4 < shape[4]; p4++)
+        {
+            for (int p3 = 0; p3 < shape[3]; p3++)
+            {
+                for (int p2 = 0; p2 < shape[2]; p2++)
+                {
+                    for (int p1 = 0; p1 < shape[1]; p1++)
+                    {
+                        getRowAsDouble(p1, p2, p3, p4, row);
+                        System.arraycopy(row, 0, result, off, row.length);
+                        off += row.length;
+                    }
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Set view data from the specified double array (in view order, first dimension varying
+     * first).
+     */
+    public void setDataFromDouble(double[] values)
+    {
+        int off = 0;
+
+        for (int p4 = 0; p4 < shape[4]; p4++)
+        {
+            for (int p3 = 0; p3 < shape[3]; p3++)
+            {
+                for (int p2 = 0; p2 < shape[2]; p2++)
+                {
+                    for (int p1 = 0; p1 < shape[1]; p1++)
+                    {
+                        setRow(p1, p2, p3, p4, values, off);
+                        off += shape[0];
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Notify sequence images covered by the view that their data has been modified.
+     */
+    public void dataChanged()
+    {
+        int tDim = -1;
+        int zDim = -1;
+
+        for (int d = 0; d < NUM_DIM; d++)
+        {
+            if (axis[d] == DIM_T)
+                tDim = d;
+            else if (axis[d] == DIM_Z)
+                zDim = d;
+        }
+
+        sequence.beginUpdate();
+        try
+        {
+            for (int t = 0; t < shape[tDim]; t++)
+            {
+                for (int z = 0; z < shape[zDim]; z++)
+                {
+                    final IcyBufferedImage image = sequence.getImage(origin[DIM_T] + (t * step[tDim]), origin[DIM_Z]
+                            + (z * step[zDim]));
+
+                    if (image != null)
+                        image.dataChanged();
+                }
+            }
+        }
+        finally
+        {
+            sequence.endUpdate();
+        }
+    }
+}
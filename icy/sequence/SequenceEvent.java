@@ -12,6 +12,8 @@ package icy.sequence;
 import icy.common.EventHierarchicalChecker;
 import icy.util.StringUtil;
 
+import java.awt.Rectangle;
+
 public class SequenceEvent implements EventHierarchicalChecker
 {
     public enum SequenceEventSourceType
@@ -29,6 +31,7 @@ public class SequenceEvent implements EventHierarchicalChecker
     private SequenceEventType type;
     private Object source;
     private int param;
+    private Rectangle region;
 
     public SequenceEvent(Sequence sequence, SequenceEventSourceType sourceType)
     {
@@ -57,6 +60,12 @@ public class SequenceEvent implements EventHierarchicalChecker
 
     public SequenceEvent(Sequence sequence, SequenceEventSourceType sourceType, Object source, SequenceEventType type,
             int param)
+    {
+        this(sequence, sourceType, source, type, param, null);
+    }
+
+    public SequenceEvent(Sequence sequence, SequenceEventSourceType sourceType, Object source, SequenceEventType type,
+            int param, Rectangle region)
     {
         super();
 
@@ -65,6 +74,7 @@ public class SequenceEvent implements EventHierarchicalChecker
         this.source = source;
         this.type = type;
         this.param = param;
+        this.region = region;
     }
 
     /**
@@ -134,6 +144,8 @@ public class SequenceEvent implements EventHierarchicalChecker
      * It's used to specify the component number when <code>sourceType</code> is
      * <code>SEQUENCE_COLORMAP</code> or <code>SEQUENCE_COMPONENTBOUNDS</code> (in both case source
      * is instance of <code>IcyColorModel</code>).<br>
+     * For a <code>SEQUENCE_DATA</code> CHANGED event with an image source it specifies the
+     * modified channel (-1 means all channels).<br>
      * Also used internally...
      */
     public int getParam()
@@ -141,6 +153,15 @@ public class SequenceEvent implements EventHierarchicalChecker
         return param;
     }
 
+    /**
+     * Modified region of the source image for <code>SEQUENCE_DATA</code> CHANGED event.<br>
+     * <code>null</code> means the whole image (or all images when source is <code>null</code>).
+     */
+    public Rectangle getRegion()
+    {
+        return region;
+    }
+
     /**
      * Collapse event
      */
@@ -165,9 +186,24 @@ public class SequenceEvent implements EventHierarchicalChecker
                 case SEQUENCE_DATA:
                     // optimize different type event to a single CHANGED event (for DATA only)
                     if (e.getType() != type)
+                    {
                         type = SequenceEventType.CHANGED;
+                        param = -1;
+                        region = null;
+                    }
                     if (e.getSource() != source)
+                    {
                         source = null;
+                        param = -1;
+                        region = null;
+                    }
+                    if (e.getParam() != param)
+                        param = -1;
+                    // union of modified regions
+                    if ((region != null) && (e.getRegion() != null))
+                        region = region.union(e.getRegion());
+                    else
+                        region = null;
                     return true;
 
                 case SEQUENCE_PAINTER:
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2010, 2011 Institut Pasteur.
+ *
+ * This file is part of ICY.
+ *
+ * ICY is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ICY is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ICY. If not, see <http://www.gnu.org/licenses/>.
+ */
+package icy.sequence;
+
+import icy.image.IcyBufferedImage;
+
+import java.util.ArrayList;
+
+/**
+ * Frozen state of {@link Sequence} images (see {@link Sequence#snapshot()}).<br>
+ * Images of the snapshot are not affected by modifications done on the sequence after their
+ * capture (each image is captured separately, see {@link Sequence#snapshot()}).
+ * 
+ * @author Stephane
+ */
+public class SequenceSnapshot
+{
+    private final Sequence sequence;
+    private final long version;
+    /**
+     * images [T][Z] (<code>null</code> where sequence doesn't contain image)
+     */
+    private final IcyBufferedImage[][] images;
+
+    SequenceSnapshot(Sequence sequence, long version, IcyBufferedImage[][] images)
+    {
+        super();
+
+        this.sequence = sequence;
+        this.version = version;
+        this.images = images;
+    }
+
+    /**
+     * Return the source sequence
+     */
+    public Sequence getSequence()
+    {
+        return sequence;
+    }
+
+    /**
+     * Return the sequence data version at snapshot time (see {@link Sequence#getDataVersion()})
+     */
+    public long getVersion()
+    {
+        return version;
+    }
+
+    /**
+     * Returns <code>true</code> if sequence data has been modified since the snapshot creation.
+     */
+    public boolean isObsolete()
+    {
+        return sequence.getDataVersion() != version;
+    }
+
+    /**
+     * Return the number of volume
+     */
+    public int getSizeT()
+    {
+        return images.length;
+    }
+
+    /**
+     * Return the number of image of the specified volume
+     */
+    public int getSizeZ(int t)
+    {
+        if ((t < 0) || (t >= images.length) || (images[t] == null))
+            return 0;
+
+        return images[t].length;
+    }
+
+    /**
+     * Return the maximum number of image per volume
+     */
+    public int getSizeZ()
+    {
+        int result = 0;
+
+        for (int t = 0; t < images.length; t++)
+            result = Math.max(result, getSizeZ(t));
+
+        return result;
+    }
+
+    /**
+     * Return image at specified position (<code>null</code> if no image at this position)
+     */
+    public IcyBufferedImage getImage(int t, int z)
+    {
+        if ((z < 0) || (z >= getSizeZ(t)))
+            return null;
+
+        return images[t][z];
+    }
+
+    /**
+     * Return all images of the snapshot
+     */
+    public ArrayList<IcyBufferedImage> getAllImage()
+    {
+        final ArrayList<IcyBufferedImage> result = new ArrayList<IcyBufferedImage>();
+
+        for (IcyBufferedImage[] imagesZ : images)
+            if (imagesZ != null)
+                for (IcyBufferedImage image : imagesZ)
+                    if (image != null)
+                        result.add(image);
+
+        return result;
+    }
+}
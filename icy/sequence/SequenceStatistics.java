@@ -0,0 +1,618 @@
+/*
+ * Copyright 2010, 2011 Institut Pasteur.
+ *
+ * This file is part of ICY.
+ *
+ * ICY is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ICY is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ICY. If not, see <http://www.gnu.org/licenses/>.
+ */
+package icy.sequence;
+
+import icy.image.IcyBufferedImage;
+import icy.math.ArrayMath;
+import icy.math.ArrayMath.ChunkProcessor;
+import icy.math.Histogram;
+import icy.system.thread.ThreadUtil;
+import icy.type.TypeUtil;
+import icy.type.collection.array.ArrayUtil;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.WeakHashMap;
+
+/**
+ * Statistics service of a {@link Sequence} (see {@link Sequence#getStatistics()}).<br>
+ * Moments (count, min, max, mean and centered second moment) are computed once per plane and
+ * channel and cached until the image data change (see {@link IcyBufferedImage#getDataVersion()}).
+ * Sequence wide queries only compute missing planes (in parallel) and merge the cached results.
+ * Missing moments are also filled in background after each sequence channels bounds update (see
+ * {@link #computeLater()}) so queries generally find them ready.<br>
+ * Histograms are cached per plane in the images (see
+ * {@link IcyBufferedImage#getHistogram(int, Histogram)}) and merged the same way.
+ * 
+ * @author Stephane
+ */
+public class SequenceStatistics
+{
+    /**
+     * Moments of a set of values.<br>
+     * Mean and centered second moment are maintained (and merged) instead of raw sums so the
+     * variance stays accurate for large values or large number of values.
+     */
+    public static class Moments
+    {
+        protected long count;
+        protected double min;
+        protected double max;
+        protected double mean;
+        /**
+         * sum of squared differences from the mean
+         */
+        protected double m2;
+
+        public Moments()
+        {
+            super();
+
+            count = 0L;
+            min = Double.MAX_VALUE;
+            max = -Double.MAX_VALUE;
+            mean = 0d;
+            m2 = 0d;
+        }
+
+        /**
+         * Merge the specified moments in these moments (Chan et al. pairwise update).
+         */
+        public void add(Moments moments)
+        {
+            if (moments.count == 0L)
+                return;
+
+            if (count == 0L)
+            {
+                count = moments.count;
+                min = moments.min;
+                max = moments.max;
+                mean = moments.mean;
+                m2 = moments.m2;
+                return;
+            }
+
+            final long n = count + moments.count;
+            final double delta = moments.mean - mean;
+
+            mean += (delta * moments.count) / n;
+            m2 += moments.m2 + ((delta * delta) * (((double) count * moments.count) / n));
+            count = n;
+            min = Math.min(min, moments.min);
+            max = Math.max(max, moments.max);
+        }
+
+        /**
+         * Returns the number of value
+         */
+        public long getCount()
+        {
+            return count;
+        }
+
+        /**
+         * Returns the minimum value (<code>Double.MAX_VALUE</code> if no value)
+         */
+        public double getMin()
+        {
+            return min;
+        }
+
+        /**
+         * Returns the maximum value (<code>-Double.MAX_VALUE</code> if no value)
+         */
+        public double getMax()
+        {
+            return max;
+        }
+
+        /**
+         * Returns the sum of values
+         */
+        public double getSum()
+        {
+            return mean * count;
+        }
+
+        /**
+         * Returns the sum of square values
+         */
+        public double getSumSquare()
+        {
+            return m2 + ((mean * mean) * count);
+        }
+
+        /**
+         * Returns the mean value (<code>0</code> if no value)
+         */
+        public double getMean()
+        {
+            return mean;
+        }
+
+        /**
+         * Returns the (population) variance
+         */
+        public double getVariance()
+        {
+            if (count == 0L)
+                return 0d;
+
+            return m2 / count;
+        }
+
+        /**
+         * Returns the (population) standard deviation
+         */
+        public double getStdDev()
+        {
+            return Math.sqrt(getVariance());
+        }
+    }
+
+    /**
+     * Compute moments of the specified data array.<br>
+     * Min and max use the {@link ArrayMath#minMax(Object, boolean)} kernels then sums are
+     * accumulated on values shifted by the middle of the range (which keeps the second moment
+     * accurate). Large arrays are processed in parallel (see
+     * {@link ArrayMath#getParallelThreshold()}).
+     * 
+     * @param signed
+     *        false if the input array should be interpreted as unsigned values<br>
+     *        (integer type only)
+     */
+    public static Moments compute(final Object data, final boolean signed)
+    {
+        final Moments result = new Moments();
+        final int length = ArrayUtil.getLength(data);
+
+        if (length == 0)
+            return result;
+
+        final double[] minMax = ArrayMath.minMax(data, signed);
+        final double shift = (minMax[0] / 2d) + (minMax[1] / 2d);
+        final int numChunk = ArrayMath.getNumChunk(length);
+        final double[][] sums = new double[numChunk][];
+
+        ArrayMath.compute(length, numChunk, new ChunkProcessor()
+        {
+            @Override
+            public void process(int chunk, int from, int to)
+            {
+                sums[chunk] = shiftedSums(data, signed, shift, from, to);
+            }
+        });
+
+        double s = 0d;
+        double s2 = 0d;
+
+        for (double[] sum : sums)
+        {
+            s += sum[0];
+            s2 += sum[1];
+        }
+
+        result.count = length;
+        result.min = minMax[0];
+        result.max = minMax[1];
+        result.mean = shift + (s / length);
+        // rounding errors can give a small negative value
+        result.m2 = Math.max(0d, s2 - ((s * s) / length));
+
+        return result;
+    }
+
+    /**
+     * Returns sum and sum of square of (value - shift) for values of array in [from, to[.
+     */
+    private static double[] shiftedSums(Object data, boolean signed, double shift, int from, int to)
+    {
+        double s = 0d;
+        double s2 = 0d;
+
+        switch (ArrayUtil.getDataType(data))
+        {
+            case BYTE:
+            {
+                final byte[] a = (byte[]) data;
+                final int mask = signed ? -1 : 0xFF;
+
+                for (int i = from; i < to; i++)
+                {
+                    final double v = (a[i] & mask) - shift;
+
+                    s += v;
+                    s2 += v * v;
+                }
+                break;
+            }
+
+            case SHORT:
+            {
+                final short[] a = (short[]) data;
+                final int mask = signed ? -1 : 0xFFFF;
+
+                for (int i = from; i < to; i++)
+                {
+                    final double v = (a[i] & mask) - shift;
+
+                    s += v;
+                    s2 += v * v;
+                }
+                break;
+            }
+
+            case INT:
+            {
+                final int[] a = (int[]) data;
+                final long mask = signed ? -1L : 0xFFFFFFFFL;
+
+                for (int i = from; i < to; i++)
+                {
+                    final double v = (a[i] & mask) - shift;
+
+                    s += v;
+                    s2 += v * v;
+                }
+                break;
+            }
+
+            case LONG:
+            {
+                final long[] a = (long[]) data;
+
+                if (signed)
+                {
+                    for (int i = from; i < to; i++)
+                    {
+                        final double v = a[i] - shift;
+
+                        s += v;
+                        s2 += v * v;
+                    }
+                }
+                else
+                {
+                    for (int i = from; i < to; i++)
+                    {
+                        final double v = TypeUtil.unsign(a[i]) - shift;
+
+                        s += v;
+                        s2 += v * v;
+                    }
+                }
+                break;
+            }
+
+            case FLOAT:
+            {
+                final float[] a = (float[]) data;
+
+                for (int i = from; i < to; i++)
+                {
+                    final double v = a[i] - shift;
+
+                    s += v;
+                    s2 += v * v;
+                }
+                break;
+            }
+
+            case DOUBLE:
+            {
+                final double[] a = (double[]) data;
+
+                for (int i = from; i < to; i++)
+                {
+                    final double v = a[i] - shift;
+
+                    s += v;
+                    s2 += v * v;
+                }
+                break;
+            }
+        }
+
+        return new double[] {s, s2};
+    }
+
+    /**
+     * cached plane moments
+     */
+    private static class PlaneEntry
+    {
+        final long version;
+        final Moments[] channels;
+
+        PlaneEntry(long version, Moments[] channels)
+        {
+            super();
+
+            this.version = version;
+            this.channels = channels;
+        }
+    }
+
+    private final Sequence sequence;
+    /**
+     * plane moments cache (entries are released with images)
+     */
+    private final WeakHashMap<IcyBufferedImage, PlaneEntry> cache;
+    /**
+     * background moments computation
+     */
+    private final Runnable backgroundCompute;
+
+    SequenceStatistics(Sequence sequence)
+    {
+        super();
+
+        this.sequence = sequence;
+        cache = new WeakHashMap<IcyBufferedImage, PlaneEntry>();
+        backgroundCompute = new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                computeMissing(getImages(-1, -1));
+            }
+        };
+    }
+
+    /**
+     * Returns the sequence
+     */
+    public Sequence getSequence()
+    {
+        return sequence;
+    }
+
+    /**
+     * Returns cached moments of the specified image (<code>null</code> if not computed or obsolete)
+     */
+    private Moments[] getCached(IcyBufferedImage image)
+    {
+        final PlaneEntry entry;
+
+        synchronized (cache)
+        {
+            entry = cache.get(image);
+        }
+
+        if ((entry != null) && (entry.version == image.getDataVersion()))
+            return entry.channels;
+
+        return null;
+    }
+
+    /**
+     * Returns moments of all channels of the specified image (computed if needed)
+     */
+    private Moments[] getPlaneMoments(IcyBufferedImage image)
+    {
+        Moments[] result = getCached(image);
+
+        if (result != null)
+            return result;
+
+        // get version first so a concurrent change invalidates the result
+        final long version = image.getDataVersion();
+        final boolean signed = image.getDataType_().isSigned();
+        final int sizeC = image.getSizeC();
+
+        result = new Moments[sizeC];
+        for (int c = 0; c < sizeC; c++)
+            result[c] = compute(image.getDataXYReadOnly(c), signed);
+
+        synchronized (cache)
+        {
+            cache.put(image, new PlaneEntry(version, result));
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns images of the specified T and Z range (-1 means all)
+     */
+    private List<IcyBufferedImage> getImages(int t, int z)
+    {
+        final List<IcyBufferedImage> result = new ArrayList<IcyBufferedImage>();
+        final int sizeT = sequence.getSizeT();
+        final int sizeZ = sequence.getSizeZ();
+        final int startT = (t == -1) ? 0 : t;
+        final int endT = (t == -1) ? sizeT - 1 : Math.min(t, sizeT - 1);
+        final int startZ = (z == -1) ? 0 : z;
+        final int endZ = (z == -1) ? sizeZ - 1 : Math.min(z, sizeZ - 1);
+
+        for (int it = startT; it <= endT; it++)
+        {
+            for (int iz = startZ; iz <= endZ; iz++)
+            {
+                final IcyBufferedImage image = sequence.getImage(it, iz);
+
+                if (image != null)
+                    result.add(image);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns moments of the specified channel for the specified T and Z position.<br>
+     * Use -1 for T or Z to merge all positions of the dimension.
+     */
+    public Moments getMoments(int t, int z, final int c)
+    {
+        final List<IcyBufferedImage> images = getImages(t, z);
+
+        computeMissing(images);
+
+        final Moments result = new Moments();
+
+        for (IcyBufferedImage image : images)
+        {
+            final Moments[] moments = getPlaneMoments(image);
+
+            if (c < moments.length)
+                result.add(moments[c]);
+        }
+
+        return result;
+    }
+
+    /**
+     * Compute moments of specified images which are not yet cached (in parallel, one chunk per
+     * plane)
+     */
+    void computeMissing(List<IcyBufferedImage> images)
+    {
+        final List<IcyBufferedImage> missing = new ArrayList<IcyBufferedImage>();
+
+        for (IcyBufferedImage image : images)
+            if (getCached(image) == null)
+                missing.add(image);
+
+        ArrayMath.compute(missing.size(), missing.size(), new ChunkProcessor()
+        {
+            @Override
+            public void process(int chunk, int from, int to)
+            {
+                for (int i = from; i < to; i++)
+                    getPlaneMoments(missing.get(i));
+            }
+        });
+    }
+
+    /**
+     * Compute missing moments of all planes in background.<br>
+     * Does nothing if a background computation is already pending.
+     */
+    public void computeLater()
+    {
+        ThreadUtil.bgRunSingle(backgroundCompute);
+    }
+
+    /**
+     * Returns moments of the specified channel for the whole sequence.
+     */
+    public Moments getMoments(int c)
+    {
+        return getMoments(-1, -1, c);
+    }
+
+    /**
+     * Returns the minimum value of the specified channel for the whole sequence.
+     */
+    public double getMin(int c)
+    {
+        return getMoments(c).getMin();
+    }
+
+    /**
+     * Returns the maximum value of the specified channel for the whole sequence.
+     */
+    public double getMax(int c)
+    {
+        return getMoments(c).getMax();
+    }
+
+    /**
+     * Returns the mean value of the specified channel for the whole sequence.
+     */
+    public double getMean(int c)
+    {
+        return getMoments(c).getMean();
+    }
+
+    /**
+     * Returns the standard deviation of the specified channel for the whole sequence.
+     */
+    public double getStdDev(int c)
+    {
+        return getMoments(c).getStdDev();
+    }
+
+    /**
+     * Returns the sum of values of the specified channel for the whole sequence.
+     */
+    public double getSum(int c)
+    {
+        return getMoments(c).getSum();
+    }
+
+    /**
+     * Returns the histogram of the specified channel for the specified T and Z position using the
+     * value range and bins of the specified model histogram.<br>
+     * Use -1 for T or Z to merge all positions of the dimension.
+     */
+    public Histogram getHistogram(int t, int z, final int c, final Histogram model)
+    {
+        final List<IcyBufferedImage> images = getImages(t, z);
+        final Histogram result = new Histogram(model);
+
+        // one chunk per plane
+        ArrayMath.compute(images.size(), images.size(), new ChunkProcessor()
+        {
+            @Override
+            public void process(int chunk, int from, int to)
+            {
+                for (int i = from; i < to; i++)
+                {
+                    final IcyBufferedImage image = images.get(i);
+
+                    if (c < image.getSizeC())
+                    {
+                        final Histogram histogram = image.getHistogram(c, model);
+
+                        synchronized (result)
+                        {
+                            result.add(histogram);
+                        }
+                    }
+                }
+            }
+        });
+
+        return result;
+    }
+
+    /**
+     * Returns the histogram of the specified channel for the whole sequence using the value range
+     * and bins of the specified model histogram.
+     */
+    public Histogram getHistogram(int c, Histogram model)
+    {
+        return getHistogram(-1, -1, c, model);
+    }
+
+    /**
+     * Returns <code>true</code> if moments of all planes are computed and up to date.
+     */
+    public boolean isComputed()
+    {
+        for (IcyBufferedImage image : getImages(-1, -1))
+            if (getCached(image) == null)
+                return false;
+
+        return true;
+    }
+}
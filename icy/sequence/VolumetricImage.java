@@ -19,8 +19,14 @@
 package icy.sequence;
 
 import icy.image.IcyBufferedImage;
+import icy.image.storage.PlaneStorage;
+import icy.image.storage.PlaneStorage.StorageType;
+import icy.image.storage.VolumeBuffer;
+import icy.image.storage.VolumePlaneStorage;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Map.Entry;
 import java.util.TreeMap;
 
@@ -31,11 +37,22 @@ public class VolumetricImage
 {
     final Sequence sequence;
     final TreeMap<Integer, IcyBufferedImage> images;
+    /**
+     * T position in sequence (-1 if not part of sequence), maintained by sequence
+     */
+    volatile int t;
+
+    /**
+     * contiguous volume data (built on demand)
+     */
+    private volatile VolumeBuffer volume;
 
     public VolumetricImage(Sequence seq)
     {
         sequence = seq;
         images = new TreeMap<Integer, IcyBufferedImage>();
+        volume = null;
+        t = -1;
     }
 
     public VolumetricImage()
@@ -74,6 +91,23 @@ public class VolumetricImage
         }
     }
 
+    /**
+     * Return the size (in bytes) of image data of the volume
+     */
+    public long getDataSize()
+    {
+        long result = 0;
+
+        synchronized (images)
+        {
+            for (IcyBufferedImage image : images.values())
+                if (image != null)
+                    result += image.getDataSize();
+        }
+
+        return result;
+    }
+
     /**
      * Return true if the volumetricImage doesn't contains any image
      */
@@ -139,15 +173,25 @@ public class VolumetricImage
 
         try
         {
-            synchronized (images)
+            while (true)
             {
-                while (!images.isEmpty())
+                final Entry<Integer, IcyBufferedImage> entry;
+
+                synchronized (images)
                 {
-                    final IcyBufferedImage image = images.pollFirstEntry().getValue();
-                    // raise event on sequence
-                    if ((image != null) && (sequence != null))
-                        sequence.onImageRemoved(image);
+                    if (images.isEmpty())
+                        break;
+
+                    entry = images.pollFirstEntry();
                 }
+
+                final IcyBufferedImage image = entry.getValue();
+
+                if (image != null)
+                    detachFromVolume(image);
+                // raise event on sequence (outside lock as sequence updates its plane index)
+                if ((image != null) && (sequence != null))
+                    sequence.onImageRemoved(this, entry.getKey().intValue(), image);
             }
         }
         finally
@@ -169,9 +213,12 @@ public class VolumetricImage
             image = images.remove(Integer.valueOf(z));
         }
 
+        if (image != null)
+            detachFromVolume(image);
+
         // raise event on sequence
         if ((image != null) && (sequence != null))
-            sequence.onImageRemoved(image);
+            sequence.onImageRemoved(this, z, image);
 
         return image != null;
     }
@@ -195,14 +242,17 @@ public class VolumetricImage
                 images.put(new Integer(z), image);
             }
 
+            if ((oldImg != null) && (oldImg != image))
+                detachFromVolume(oldImg);
+
             // raise event on sequence
             if (sequence != null)
             {
                 // we are replacing a previous image ?
                 if (oldImg != null)
-                    sequence.onImageReplaced(oldImg, image);
+                    sequence.onImageReplaced(this, z, oldImg, image);
                 else
-                    sequence.onImageAdded(image);
+                    sequence.onImageAdded(this, z, image);
             }
         }
         finally
@@ -212,6 +262,39 @@ public class VolumetricImage
         }
     }
 
+    /**
+     * Set images from the specified position without notifying the sequence (bulk operation, see
+     * {@link Sequence#setImages(int, int, List)}).
+     * 
+     * @param added
+     *        filled with images actually added
+     * @param removed
+     *        filled with replaced images
+     */
+    void setImages(int startZ, List<IcyBufferedImage> imgs, List<IcyBufferedImage> added,
+            List<IcyBufferedImage> removed)
+    {
+        synchronized (images)
+        {
+            int z = startZ;
+
+            for (IcyBufferedImage image : imgs)
+            {
+                final IcyBufferedImage oldImg = images.put(Integer.valueOf(z++), image);
+
+                if (oldImg != image)
+                {
+                    added.add(image);
+                    if (oldImg != null)
+                        removed.add(oldImg);
+                }
+            }
+        }
+
+        for (IcyBufferedImage image : removed)
+            detachFromVolume(image);
+    }
+
     /**
      * Return all images of volume image as TreeMap (contains z position)
      */
@@ -243,15 +326,13 @@ public class VolumetricImage
             sequence.beginUpdate();
         try
         {
-            synchronized (images)
+            // work on a copy as removeImage modify the list
+            for (Entry<Integer, IcyBufferedImage> entry : getImages().entrySet())
             {
-                for (Entry<Integer, IcyBufferedImage> entry : images.entrySet())
-                {
-                    final IcyBufferedImage image = entry.getValue();
+                final IcyBufferedImage image = entry.getValue();
 
-                    if (image == null)
-                        removeImage(entry.getKey().intValue());
-                }
+                if (image == null)
+                    removeImage(entry.getKey().intValue());
             }
         }
         finally
@@ -261,4 +342,161 @@ public class VolumetricImage
         }
     }
 
+    /**
+     * Returns <code>true</code> if all images of the volume currently use the contiguous volume
+     * layout (see {@link #getVolumeBuffer()}).
+     */
+    public boolean isContiguous()
+    {
+        final VolumeBuffer v = volume;
+
+        if (v == null)
+            return false;
+
+        synchronized (images)
+        {
+            if (getSize() != v.getSizeZ())
+                return false;
+
+            for (Entry<Integer, IcyBufferedImage> entry : images.entrySet())
+            {
+                final IcyBufferedImage image = entry.getValue();
+
+                if ((image != null) && !isInVolume(image, v, entry.getKey().intValue()))
+                    return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Return the volume data as contiguous [XYZ] buffers (one per channel).<br>
+     * The first call switches images to the contiguous layout: each image stores its data in a
+     * plane of the volume (see {@link VolumePlaneStorage}) so the volume is then directly
+     * available without any copy. Images modifications are saved in the volume on each call.<br>
+     * If you modify the volume buffers you have to call {@link #volumeChanged()} after.<br>
+     * The layout is lost when an image of the volume is replaced or removed, or when the sequence
+     * storage type is changed (it is rebuilt on next call).
+     * 
+     * @return the volume buffer or <code>null</code> if the volume is empty
+     * @throws IllegalArgumentException
+     *         if images of the volume do not have the same format
+     */
+    public synchronized VolumeBuffer getVolumeBuffer() throws IOException
+    {
+        if (!isContiguous())
+            volume = buildVolume();
+
+        // save images modifications in volume
+        for (IcyBufferedImage image : getAllImage())
+            if (image != null)
+                image.saveData();
+
+        return volume;
+    }
+
+    private VolumeBuffer buildVolume() throws IOException
+    {
+        final TreeMap<Integer, IcyBufferedImage> imgs = getImages();
+        final IcyBufferedImage first = getFirstImage();
+
+        if (first == null)
+            return null;
+
+        final int sizeX = first.getSizeX();
+        final int sizeY = first.getSizeY();
+        final int sizeC = first.getSizeC();
+
+        for (IcyBufferedImage image : imgs.values())
+        {
+            if ((image != null)
+                    && ((image.getSizeX() != sizeX) || (image.getSizeY() != sizeY) || (image.getSizeC() != sizeC) || (image
+                            .getDataType_() != first.getDataType_())))
+                throw new IllegalArgumentException(
+                        "VolumetricImage.getVolumeBuffer() error : images of the volume do not have the same format.");
+        }
+
+        // missing images are left to 0
+        final VolumeBuffer result = new VolumeBuffer(sizeX, sizeY, imgs.lastKey().intValue() + 1, sizeC,
+                first.getDataType_());
+
+        for (Entry<Integer, IcyBufferedImage> entry : imgs.entrySet())
+        {
+            final IcyBufferedImage image = entry.getValue();
+
+            if (image != null)
+                image.setStorage(new VolumePlaneStorage(result, entry.getKey().intValue()));
+        }
+
+        return result;
+    }
+
+    /**
+     * Notify that volume buffers (see {@link #getVolumeBuffer()}) have been modified.<br>
+     * Images data is reloaded from the volume.
+     */
+    public void volumeChanged()
+    {
+        final VolumeBuffer v = volume;
+
+        if (v == null)
+            return;
+
+        if (sequence != null)
+            sequence.beginUpdate();
+        try
+        {
+            for (Entry<Integer, IcyBufferedImage> entry : getImages().entrySet())
+            {
+                final IcyBufferedImage image = entry.getValue();
+
+                if ((image != null) && isInVolume(image, v, entry.getKey().intValue()))
+                    image.storageChanged();
+            }
+        }
+        finally
+        {
+            if (sequence != null)
+                sequence.endUpdate();
+        }
+    }
+
+    private static boolean isInVolume(IcyBufferedImage image, VolumeBuffer v, int z)
+    {
+        final PlaneStorage storage = image.getStorage();
+
+        if (storage instanceof VolumePlaneStorage)
+        {
+            final VolumePlaneStorage vps = (VolumePlaneStorage) storage;
+
+            return (vps.getVolume() == v) && (vps.getZ() == z);
+        }
+
+        return false;
+    }
+
+    /**
+     * Image leaves the volume so it should not use the volume data anymore
+     */
+    private void detachFromVolume(IcyBufferedImage image)
+    {
+        final PlaneStorage storage = image.getStorage();
+
+        if ((storage instanceof VolumePlaneStorage) && (((VolumePlaneStorage) storage).getVolume() == volume))
+        {
+            try
+            {
+                if (sequence != null)
+                    image.setStorageType(sequence.getStorageType());
+                else
+                    image.setStorageType(StorageType.HEAP);
+            }
+            catch (IOException e)
+            {
+                System.err.println("VolumetricImage.detachFromVolume(..) error : cannot store image data, data kept in java heap.");
+                System.err.println(e.getMessage());
+            }
+        }
+    }
 }
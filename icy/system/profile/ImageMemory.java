@@ -0,0 +1,182 @@
+/*
+ * Copyright 2010, 2011 Institut Pasteur.
+ *
+ * This file is part of ICY.
+ *
+ * ICY is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ICY is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ICY. If not, see <http://www.gnu.org/licenses/>.
+ */
+package icy.system.profile;
+
+import icy.gui.main.MainInterface;
+import icy.image.storage.PlaneCache;
+import icy.main.Icy;
+import icy.sequence.Sequence;
+import icy.system.thread.ThreadUtil;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Image data memory usage.<br>
+ * Gather sequences (see {@link Sequence#getTotalDataSize()}) and {@link PlaneCache} memory
+ * accounting and expose it over JMX (<code>icy:type=ImageMemory</code>) once
+ * {@link #register()} has been called.<br>
+ * Bean methods are called from JMX threads so opened sequences are retrieved on the AWT event
+ * dispatching thread.
+ *
+ * @author Stephane
+ */
+public class ImageMemory implements ImageMemoryMXBean
+{
+    public static final String OBJECT_NAME = "icy:type=ImageMemory";
+
+    private static ImageMemory instance = null;
+
+    /**
+     * Return the unique instance
+     */
+    public static synchronized ImageMemory getInstance()
+    {
+        if (instance == null)
+            instance = new ImageMemory();
+
+        return instance;
+    }
+
+    /**
+     * Register the image memory bean in the platform MBean server.
+     */
+    public static synchronized void register()
+    {
+        try
+        {
+            final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            final ObjectName name = new ObjectName(OBJECT_NAME);
+
+            if (!server.isRegistered(name))
+                server.registerMBean(getInstance(), name);
+        }
+        catch (Exception e)
+        {
+            System.err.println("ImageMemory.register() error : cannot register JMX bean.");
+            System.err.println(e.getMessage());
+        }
+    }
+
+    private ImageMemory()
+    {
+        super();
+    }
+
+    @Override
+    public long getTotalDataSize()
+    {
+        return Sequence.getTotalDataSize();
+    }
+
+    @Override
+    public long getPeakTotalDataSize()
+    {
+        return Sequence.getPeakTotalDataSize();
+    }
+
+    @Override
+    public long getSequencesDataSize()
+    {
+        final MainInterface mainInterface = Icy.getMainInterface();
+
+        if (mainInterface == null)
+            return 0;
+
+        final long[] result = new long[1];
+
+        ThreadUtil.invokeNow(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                result[0] = mainInterface.getSequencesDataSize();
+            }
+        });
+
+        return result[0];
+    }
+
+    @Override
+    public int getNumSequence()
+    {
+        final MainInterface mainInterface = Icy.getMainInterface();
+
+        if (mainInterface == null)
+            return 0;
+
+        final int[] result = new int[1];
+
+        ThreadUtil.invokeNow(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                result[0] = mainInterface.getSequences().size();
+            }
+        });
+
+        return result[0];
+    }
+
+    @Override
+    public long getCacheSize()
+    {
+        return PlaneCache.getSize();
+    }
+
+    @Override
+    public long getCacheMaxSize()
+    {
+        return PlaneCache.getMaxSize();
+    }
+
+    @Override
+    public void setCacheMaxSize(long value)
+    {
+        PlaneCache.setMaxSize(value);
+    }
+
+    @Override
+    public long getCacheHits()
+    {
+        return PlaneCache.getHits();
+    }
+
+    @Override
+    public long getCacheMisses()
+    {
+        return PlaneCache.getMisses();
+    }
+
+    @Override
+    public long getCacheEvictions()
+    {
+        return PlaneCache.getEvictions();
+    }
+
+    @Override
+    public void resetStatistics()
+    {
+        Sequence.resetPeakTotalDataSize();
+        PlaneCache.resetStatistics();
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2010, 2011 Institut Pasteur.
+ *
+ * This file is part of ICY.
+ *
+ * ICY is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ICY is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ICY. If not, see <http://www.gnu.org/licenses/>.
+ */
+package icy.system.profile;
+
+/**
+ * Management interface of image data memory usage (see {@link ImageMemory}).
+ *
+ * @author Stephane
+ */
+public interface ImageMemoryMXBean
+{
+    /**
+     * size (in bytes) of image data of all living sequences
+     */
+    public long getTotalDataSize();
+
+    /**
+     * peak size (in bytes) of image data of all living sequences
+     */
+    public long getPeakTotalDataSize();
+
+    /**
+     * size (in bytes) of image data of active sequences
+     */
+    public long getSequencesDataSize();
+
+    /**
+     * number of active sequence
+     */
+    public int getNumSequence();
+
+    /**
+     * size (in bytes) of storage backed image data loaded in java heap
+     */
+    public long getCacheSize();
+
+    /**
+     * budget (in bytes) of storage backed image data loaded in java heap
+     */
+    public long getCacheMaxSize();
+
+    public void setCacheMaxSize(long value);
+
+    public long getCacheHits();
+
+    public long getCacheMisses();
+
+    public long getCacheEvictions();
+
+    /**
+     * reset peak size and cache statistics
+     */
+    public void resetStatistics();
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2010, 2011 Institut Pasteur.
+ *
+ * This file is part of ICY.
+ *
+ * ICY is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ICY is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ICY. If not, see <http://www.gnu.org/licenses/>.
+ */
+package icy.type;
+
+/**
+ * Data span iterator interface.<br>
+ * Where {@link DataIterator} returns data element by element (as double), this interface gives
+ * direct access to contiguous runs (spans) of the native data array so processing can be done
+ * with simple typed loops:
+ * 
+ * <pre>
+ * it.reset();
+ * while (it.nextSpan())
+ * {
+ *     final byte[] data = (byte[]) it.getData();
+ *     final int end = it.getOffset() + it.getLength();
+ * 
+ *     for (int i = it.getOffset(); i &lt; end; i++)
+ *         ...
+ * }
+ * </pre>
+ * 
+ * Spans never cross a row border unless the whole row is part of the iterated region, in which
+ * case consecutive rows are merged in a single span.
+ * 
+ * @author Stephane
+ */
+public interface DataSpanIterator
+{
+    /**
+     * Reset iterator to initial position (before the first span).
+     */
+    public void reset();
+
+    /**
+     * Pass to the next span.
+     * 
+     * @return <code>false</code> if the iterator has no more span.
+     */
+    public boolean nextSpan();
+
+    /**
+     * Returns the data type of the span arrays.
+     */
+    public DataType getDataType();
+
+    /**
+     * Returns the data array of the current span (for read access only).
+     */
+    public Object getData();
+
+    /**
+     * Returns the offset of the current span in the data array.
+     */
+    public int getOffset();
+
+    /**
+     * Returns the length of the current span.
+     */
+    public int getLength();
+}
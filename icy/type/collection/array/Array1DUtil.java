@@ -3932,6 +3932,175 @@ public class Array1DUtil
     //
     //
 
+    /**
+     * Convert a float value to half precision (16 bits) float representation.<br>
+     * Value is rounded to the nearest half float, too large values become infinity.
+     */
+    public static short floatToHalf(float value)
+    {
+        final int bits = Float.floatToRawIntBits(value);
+        final int sign = (bits >>> 16) & 0x8000;
+        final int abs = bits & 0x7FFFFFFF;
+        // rounded value
+        int v = abs + 0x1000;
+
+        // NaN, infinity or too large value
+        if (v >= 0x47800000)
+        {
+            if (abs >= 0x47800000)
+            {
+                // NaN
+                if (abs > 0x7F800000)
+                    return (short) (sign | 0x7E00);
+                // infinity or too large
+                return (short) (sign | 0x7C00);
+            }
+
+            // max value
+            return (short) (sign | 0x7BFF);
+        }
+        // normal value
+        if (v >= 0x38800000)
+            return (short) (sign | ((v - 0x38000000) >>> 13));
+        // too small (zero)
+        if (v < 0x33000000)
+            return (short) sign;
+
+        // subnormal value
+        v = abs >>> 23;
+        return (short) (sign | ((((abs & 0x7FFFFF) | 0x800000) + (0x800000 >>> (v - 102))) >>> (126 - v)));
+    }
+
+    /**
+     * Convert a half precision (16 bits) float representation to float value.
+     */
+    public static float halfToFloat(short value)
+    {
+        final int h = value & 0xFFFF;
+        int mant = h & 0x03FF;
+        int exp = h & 0x7C00;
+
+        // NaN or infinity
+        if (exp == 0x7C00)
+            exp = 0x3FC00;
+        // normal value
+        else if (exp != 0)
+            exp += 0x1C000;
+        // subnormal value
+        else if (mant != 0)
+        {
+            exp = 0x1C400;
+
+            do
+            {
+                mant <<= 1;
+                exp -= 0x400;
+            }
+            while ((mant & 0x400) == 0);
+
+            mant &= 0x3FF;
+        }
+
+        return Float.intBitsToFloat(((h & 0x8000) << 16) | ((exp | mant) << 13));
+    }
+
+    /**
+     * Return value of specified half float array at specified offset as a float.
+     */
+    public static float getHalfValue(short[] array, int offset)
+    {
+        return halfToFloat(array[offset]);
+    }
+
+    /**
+     * Set value of specified half float array at specified offset.
+     */
+    public static void setHalfValue(short[] array, int offset, float value)
+    {
+        array[offset] = floatToHalf(value);
+    }
+
+    /**
+     * Convert a float array to half precision float array (narrowing).
+     */
+    public static short[] floatArrayToHalfArray(float[] in, int inOffset, short[] out, int outOffset, int length)
+    {
+        final int len = ArrayUtil.getCopyLength(in, inOffset, out, outOffset, length);
+        final short[] result = allocIfNull(out, outOffset + len);
+
+        for (int i = 0; i < len; i++)
+            result[i + outOffset] = floatToHalf(in[i + inOffset]);
+
+        return result;
+    }
+
+    /**
+     * Convert a double array to half precision float array (narrowing).
+     */
+    public static short[] doubleArrayToHalfArray(double[] in, int inOffset, short[] out, int outOffset, int length)
+    {
+        final int len = ArrayUtil.getCopyLength(in, inOffset, out, outOffset, length);
+        final short[] result = allocIfNull(out, outOffset + len);
+
+        for (int i = 0; i < len; i++)
+            result[i + outOffset] = floatToHalf((float) in[i + inOffset]);
+
+        return result;
+    }
+
+    /**
+     * Convert a half precision float array to float array (widening).
+     */
+    public static float[] halfArrayToFloatArray(short[] in, int inOffset, float[] out, int outOffset, int length)
+    {
+        final int len = ArrayUtil.getCopyLength(in, inOffset, out, outOffset, length);
+        final float[] result = allocIfNull(out, outOffset + len);
+
+        for (int i = 0; i < len; i++)
+            result[i + outOffset] = halfToFloat(in[i + inOffset]);
+
+        return result;
+    }
+
+    /**
+     * Convert a half precision float array to double array (widening).
+     */
+    public static double[] halfArrayToDoubleArray(short[] in, int inOffset, double[] out, int outOffset, int length)
+    {
+        final int len = ArrayUtil.getCopyLength(in, inOffset, out, outOffset, length);
+        final double[] result = allocIfNull(out, outOffset + len);
+
+        for (int i = 0; i < len; i++)
+            result[i + outOffset] = halfToFloat(in[i + inOffset]);
+
+        return result;
+    }
+
+    public static short[] floatArrayToHalfArray(float[] array)
+    {
+        return floatArrayToHalfArray(array, 0, null, 0, array.length);
+    }
+
+    public static short[] doubleArrayToHalfArray(double[] array)
+    {
+        return doubleArrayToHalfArray(array, 0, null, 0, array.length);
+    }
+
+    public static float[] halfArrayToFloatArray(short[] array)
+    {
+        return halfArrayToFloatArray(array, 0, null, 0, array.length);
+    }
+
+    public static double[] halfArrayToDoubleArray(short[] array)
+    {
+        return halfArrayToDoubleArray(array, 0, null, 0, array.length);
+    }
+
+    //
+    //
+    //
+    //
+
     /**
      * Convert a boolean array to a byte array (unpacked form : 1 boolean --> 1 byte)
      */
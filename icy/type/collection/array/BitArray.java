@@ -0,0 +1,419 @@
+/*
+ * Copyright 2010, 2011 Institut Pasteur.
+ *
+ * This file is part of ICY.
+ *
+ * ICY is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ICY is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ICY. If not, see <http://www.gnu.org/licenses/>.
+ */
+package icy.type.collection.array;
+
+import java.util.Arrays;
+
+/**
+ * Fixed size array of bit packed in 64 bits words.<br>
+ * Use 8 times less memory than a byte or boolean array and boolean operations between arrays
+ * (see {@link #and(BitArray)}, {@link #or(BitArray)}, {@link #xor(BitArray)}) process 64 elements
+ * at once.
+ *
+ * @author Stephane
+ */
+public class BitArray
+{
+    private static final int ADDRESS_BITS = 6;
+    private static final int WORD_SIZE = 1 << ADDRESS_BITS;
+    private static final int WORD_MASK = WORD_SIZE - 1;
+
+    /**
+     * Create a bit array from the specified boolean array.
+     */
+    public static BitArray create(boolean[] array)
+    {
+        final BitArray result = new BitArray(array.length);
+
+        result.setFrom(array);
+
+        return result;
+    }
+
+    /**
+     * Create a bit array from the specified data array (non zero element are set).
+     */
+    public static BitArray create(Object array)
+    {
+        final BitArray result = new BitArray(ArrayUtil.getLength(array));
+
+        result.setFrom(array);
+
+        return result;
+    }
+
+    private final long[] words;
+    private final int size;
+
+    public BitArray(int size)
+    {
+        super();
+
+        if (size < 0)
+            throw new IllegalArgumentException("BitArray(..) error : size should be >= 0");
+
+        this.size = size;
+        words = new long[((size - 1) >> ADDRESS_BITS) + 1];
+    }
+
+    /**
+     * Create a copy of the specified bit array
+     */
+    public BitArray(BitArray array)
+    {
+        super();
+
+        size = array.size;
+        words = array.words.clone();
+    }
+
+    /**
+     * Return the number of bit
+     */
+    public int getSize()
+    {
+        return size;
+    }
+
+    /**
+     * Return internal words (bit <code>i</code> is stored in
+     * <code>words[i / 64] & (1L << (i % 64))</code>)
+     */
+    public long[] getWords()
+    {
+        return words;
+    }
+
+    /**
+     * Return the size (in byte) of internal data
+     */
+    public long getDataSize()
+    {
+        return (long) words.length * 8;
+    }
+
+    public boolean get(int index)
+    {
+        return (words[index >> ADDRESS_BITS] & (1L << (index & WORD_MASK))) != 0;
+    }
+
+    public void set(int index)
+    {
+        words[index >> ADDRESS_BITS] |= 1L << (index & WORD_MASK);
+    }
+
+    public void clear(int index)
+    {
+        words[index >> ADDRESS_BITS] &= ~(1L << (index & WORD_MASK));
+    }
+
+    public void set(int index, boolean value)
+    {
+        if (value)
+            set(index);
+        else
+            clear(index);
+    }
+
+    /**
+     * Clear all bits
+     */
+    public void clear()
+    {
+        Arrays.fill(words, 0L);
+    }
+
+    /**
+     * Set all bits
+     */
+    public void setAll()
+    {
+        Arrays.fill(words, -1L);
+        clearUnusedBits();
+    }
+
+    /**
+     * Bits over size should always stay cleared so {@link #cardinality()} and {@link #equals(Object)}
+     * work on whole words.
+     */
+    private void clearUnusedBits()
+    {
+        final int rem = size & WORD_MASK;
+
+        if (rem != 0)
+            words[words.length - 1] &= (1L << rem) - 1;
+    }
+
+    private void checkSize(BitArray array)
+    {
+        if (array.size != size)
+            throw new IllegalArgumentException("BitArray error : arrays size differ (" + size + " != "
+                    + array.size + ")");
+    }
+
+    /**
+     * Logical AND with specified array (result is stored in this array)
+     */
+    public void and(BitArray array)
+    {
+        checkSize(array);
+
+        final long[] w = array.words;
+        for (int i = 0; i < words.length; i++)
+            words[i] &= w[i];
+    }
+
+    /**
+     * Logical OR with specified array (result is stored in this array)
+     */
+    public void or(BitArray array)
+    {
+        checkSize(array);
+
+        final long[] w = array.words;
+        for (int i = 0; i < words.length; i++)
+            words[i] |= w[i];
+    }
+
+    /**
+     * Logical XOR with specified array (result is stored in this array)
+     */
+    public void xor(BitArray array)
+    {
+        checkSize(array);
+
+        final long[] w = array.words;
+        for (int i = 0; i < words.length; i++)
+            words[i] ^= w[i];
+    }
+
+    /**
+     * Clear all bits which are set in the specified array (result is stored in this array)
+     */
+    public void andNot(BitArray array)
+    {
+        checkSize(array);
+
+        final long[] w = array.words;
+        for (int i = 0; i < words.length; i++)
+            words[i] &= ~w[i];
+    }
+
+    /**
+     * Invert all bits
+     */
+    public void not()
+    {
+        for (int i = 0; i < words.length; i++)
+            words[i] = ~words[i];
+
+        clearUnusedBits();
+    }
+
+    /**
+     * Return the number of set bit
+     */
+    public int cardinality()
+    {
+        int result = 0;
+
+        for (long w : words)
+            result += Long.bitCount(w);
+
+        return result;
+    }
+
+    /**
+     * Returns <code>true</code> if no bit is set
+     */
+    public boolean isEmpty()
+    {
+        for (long w : words)
+            if (w != 0L)
+                return false;
+
+        return true;
+    }
+
+    /**
+     * Set bits from the specified boolean array
+     */
+    public void setFrom(boolean[] array)
+    {
+        final int len = Math.min(array.length, size);
+
+        clear();
+        for (int i = 0; i < len; i++)
+            if (array[i])
+                words[i >> ADDRESS_BITS] |= 1L << (i & WORD_MASK);
+    }
+
+    /**
+     * Set bits from the specified data array (non zero element are set)
+     */
+    public void setFrom(Object array)
+    {
+        final int len = Math.min(ArrayUtil.getLength(array), size);
+
+        clear();
+
+        switch (ArrayUtil.getDataType(array).getJavaType())
+        {
+            case BYTE:
+            {
+                final byte[] a = (byte[]) array;
+                for (int i = 0; i < len; i++)
+                    if (a[i] != 0)
+                        words[i >> ADDRESS_BITS] |= 1L << (i & WORD_MASK);
+                break;
+            }
+            case SHORT:
+            {
+                final short[] a = (short[]) array;
+                for (int i = 0; i < len; i++)
+                    if (a[i] != 0)
+                        words[i >> ADDRESS_BITS] |= 1L << (i & WORD_MASK);
+                break;
+            }
+            case INT:
+            {
+                final int[] a = (int[]) array;
+                for (int i = 0; i < len; i++)
+                    if (a[i] != 0)
+                        words[i >> ADDRESS_BITS] |= 1L << (i & WORD_MASK);
+                break;
+            }
+            case LONG:
+            {
+                final long[] a = (long[]) array;
+                for (int i = 0; i < len; i++)
+                    if (a[i] != 0)
+                        words[i >> ADDRESS_BITS] |= 1L << (i & WORD_MASK);
+                break;
+            }
+            case FLOAT:
+            {
+                final float[] a = (float[]) array;
+                for (int i = 0; i < len; i++)
+                    if (a[i] != 0)
+                        words[i >> ADDRESS_BITS] |= 1L << (i & WORD_MASK);
+                break;
+            }
+            case DOUBLE:
+            {
+                final double[] a = (double[]) array;
+                for (int i = 0; i < len; i++)
+                    if (a[i] != 0)
+                        words[i >> ADDRESS_BITS] |= 1L << (i & WORD_MASK);
+                break;
+            }
+        }
+    }
+
+    /**
+     * Return content as a boolean array
+     */
+    public boolean[] toBooleanArray(boolean[] out)
+    {
+        final boolean[] result = Array1DUtil.allocIfNull(out, size);
+
+        for (int i = 0; i < size; i++)
+            result[i] = (words[i >> ADDRESS_BITS] & (1L << (i & WORD_MASK))) != 0;
+
+        return result;
+    }
+
+    /**
+     * Fill the specified data array with <code>value</code> where bit is set and 0 elsewhere.
+     */
+    public void copyTo(Object array, double value)
+    {
+        final int len = Math.min(ArrayUtil.getLength(array), size);
+
+        switch (ArrayUtil.getDataType(array).getJavaType())
+        {
+            case BYTE:
+            {
+                final byte[] a = (byte[]) array;
+                final byte v = (byte) value;
+                for (int i = 0; i < len; i++)
+                    a[i] = ((words[i >> ADDRESS_BITS] & (1L << (i & WORD_MASK))) != 0) ? v : 0;
+                break;
+            }
+            case SHORT:
+            {
+                final short[] a = (short[]) array;
+                final short v = (short) value;
+                for (int i = 0; i < len; i++)
+                    a[i] = ((words[i >> ADDRESS_BITS] & (1L << (i & WORD_MASK))) != 0) ? v : 0;
+                break;
+            }
+            case INT:
+            {
+                final int[] a = (int[]) array;
+                final int v = (int) value;
+                for (int i = 0; i < len; i++)
+                    a[i] = ((words[i >> ADDRESS_BITS] & (1L << (i & WORD_MASK))) != 0) ? v : 0;
+                break;
+            }
+            case LONG:
+            {
+                final long[] a = (long[]) array;
+                final long v = (long) value;
+                for (int i = 0; i < len; i++)
+                    a[i] = ((words[i >> ADDRESS_BITS] & (1L << (i & WORD_MASK))) != 0) ? v : 0;
+                break;
+            }
+            case FLOAT:
+            {
+                final float[] a = (float[]) array;
+                final float v = (float) value;
+                for (int i = 0; i < len; i++)
+                    a[i] = ((words[i >> ADDRESS_BITS] & (1L << (i & WORD_MASK))) != 0) ? v : 0;
+                break;
+            }
+            case DOUBLE:
+            {
+                final double[] a = (double[]) array;
+                for (int i = 0; i < len; i++)
+                    a[i] = ((words[i >> ADDRESS_BITS] & (1L << (i & WORD_MASK))) != 0) ? value : 0;
+                break;
+            }
+        }
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        if (obj instanceof BitArray)
+        {
+            final BitArray array = (BitArray) obj;
+
+            return (array.size == size) && Arrays.equals(array.words, words);
+        }
+
+        return super.equals(obj);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Arrays.hashCode(words) ^ size;
+    }
+}
@@ -26,7 +26,17 @@ public class ZipUtil
      */
     public static byte[] pack(byte[] rawData)
     {
-        final Deflater compressor = new Deflater();
+        return pack(rawData, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * Compress the specified array of byte with the given compression level (0-9) and return
+     * packed data.<br>
+     * Use {@link Deflater#BEST_SPEED} for fast compression.
+     */
+    public static byte[] pack(byte[] rawData, int level)
+    {
+        final Deflater compressor = new Deflater(level);
 
         // give data to compress
         compressor.setInput(rawData);
@@ -51,6 +61,8 @@ public class ZipUtil
         {
         }
 
+        compressor.end();
+
         // return packed data
         return bos.toByteArray();
     }
@@ -95,6 +107,39 @@ public class ZipUtil
         return bos.toByteArray();
     }
 
+    /**
+     * Uncompress the specified array of byte in the given (pre allocated) output array.<br>
+     * Returns the number of unpacked bytes.
+     */
+    public static int unpack(byte[] packedData, byte[] out) throws DataFormatException
+    {
+        final Inflater decompressor = new Inflater();
+
+        try
+        {
+            // give the data to uncompress
+            decompressor.setInput(packedData);
+
+            int result = 0;
+            while (!decompressor.finished() && (result < out.length))
+            {
+                final int count = decompressor.inflate(out, result, out.length - result);
+
+                // corrupted or truncated data
+                if ((count == 0) && (decompressor.needsInput() || decompressor.needsDictionary()))
+                    break;
+
+                result += count;
+            }
+
+            return result;
+        }
+        finally
+        {
+            decompressor.end();
+        }
+    }
+
     /**
      * Extract the specified zip file to the specified destination directory.
      * 